@@ -0,0 +1,188 @@
+package org.epics.benchmarks.pvaccess;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.epics.pvaccess.impl.remote.TransportSendControl;
+import org.epics.pvaccess.impl.remote.TransportSender;
+import org.epics.pvaccess.impl.remote.codec.AbstractCodec;
+import org.epics.pvdata.pv.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * In-memory loopback of <code>AbstractCodec</code>, i.e. messages are put to the send queue,
+ * processed by <code>processSendQueue()</code> into an in-memory "wire" and then
+ * read back by <code>processRead()</code>.
+ * Score is time per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecLoopbackBenchmark {
+
+	private static final int BATCH = 100;
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	@Param({"0", "64", "1024"})
+	public int payloadSize;
+
+	/**
+	 * Codec that writes to and reads from the same in-memory buffer.
+	 */
+	static final class LoopbackCodec extends AbstractCodec {
+
+		final ByteBuffer wire = ByteBuffer.allocate(BUFFER_SIZE);
+		int receivedMessages = 0;
+
+		LoopbackCodec() {
+			super(false, ByteBuffer.allocate(BUFFER_SIZE), ByteBuffer.allocate(BUFFER_SIZE),
+					BUFFER_SIZE, false, Logger.getLogger(LoopbackCodec.class.getName()));
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			final int count = Math.min(dst.remaining(), wire.remaining());
+			if (count == 0)
+				return 0;
+			final int limit = wire.limit();
+			wire.limit(wire.position() + count);
+			dst.put(wire);
+			wire.limit(limit);
+			return count;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			final int count = src.remaining();
+			wire.put(src);
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			// noop
+		}
+
+		@Override
+		public void processControlMessage() {
+			// noop
+		}
+
+		@Override
+		public void processApplicationMessage() throws IOException {
+			// payload is skipped by the codec
+			receivedMessages++;
+		}
+
+		@Override
+		public InetSocketAddress getLastReadBufferSocketAddress() {
+			return null;
+		}
+
+		@Override
+		public void invalidDataStreamHandler() {
+			throw new IllegalStateException("invalid data stream");
+		}
+
+		@Override
+		public void readPollOne() throws IOException {
+			throw new IllegalStateException("all data expected to be available");
+		}
+
+		@Override
+		public void writePollOne() throws IOException {
+			throw new IllegalStateException("wire expected to be large enough");
+		}
+
+		@Override
+		protected void sendBufferFull(int tries) throws IOException {
+			throw new IllegalStateException("wire expected to be large enough");
+		}
+
+		@Override
+		public void scheduleSend() {
+			// noop
+		}
+
+		@Override
+		public void sendCompleted() {
+			// noop
+		}
+
+		@Override
+		public boolean terminated() {
+			return false;
+		}
+
+		@Override
+		public void cachedSerialize(Field field, ByteBuffer buffer) {
+			field.serialize(buffer, this);
+		}
+	}
+
+	private LoopbackCodec codec;
+	private TransportSender sender;
+
+	@Setup
+	public void setup()
+	{
+		codec = new LoopbackCodec();
+		final byte[] payload = new byte[payloadSize];
+		sender = new TransportSender() {
+
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				control.startMessage((byte)20, payload.length);
+				buffer.put(payload);
+			}
+
+			@Override
+			public void lock() {
+				// noop
+			}
+
+			@Override
+			public void unlock() {
+				// noop
+			}
+		};
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int loopback() throws IOException
+	{
+		codec.wire.clear();
+		for (int i = 0; i < BATCH; i++)
+			codec.enqueueSendRequest(sender);
+		codec.processSendQueue();
+
+		codec.wire.flip();
+		codec.receivedMessages = 0;
+		while (codec.receivedMessages < BATCH)
+			codec.processRead();
+		return codec.receivedMessages;
+	}
+}
@@ -0,0 +1,86 @@
+package org.epics.benchmarks.pvaccess;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.benchmarks.pvdata.BufferControl;
+import org.epics.pvaccess.impl.remote.IntrospectionRegistry;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>IntrospectionRegistry</code> serialization benchmark,
+ * cached (only ID sent) and first-time (full introspection data sent) case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntrospectionRegistryBenchmark {
+
+	private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+
+	/**
+	 * Number of different types already registered.
+	 */
+	@Param({"1", "100", "1000"})
+	public int registeredTypes;
+
+	private final BufferControl control = new BufferControl();
+
+	private IntrospectionRegistry registry;
+	private Field field;
+	private ByteBuffer workBuffer;
+
+	@Setup
+	public void setup()
+	{
+		registry = new IntrospectionRegistry();
+		workBuffer = ByteBuffer.allocate(64 * 1024);
+
+		for (int i = 0; i < registeredTypes; i++)
+		{
+			Field f = fieldCreate.createFieldBuilder().
+					setId("type" + i).
+					add("value", ScalarType.pvDouble).
+					add("index", ScalarType.pvInt).
+					createStructure();
+			workBuffer.clear();
+			registry.serialize(f, workBuffer, control);
+			// last one is used for cached case
+			field = f;
+		}
+	}
+
+	@Benchmark
+	public ByteBuffer serializeCached()
+	{
+		workBuffer.clear();
+		registry.serialize(field, workBuffer, control);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public ByteBuffer serializeFirstTime()
+	{
+		workBuffer.clear();
+		IntrospectionRegistry newRegistry = new IntrospectionRegistry();
+		newRegistry.serialize(field, workBuffer, control);
+		return workBuffer;
+	}
+}
@@ -0,0 +1,191 @@
+package org.epics.benchmarks.pvaccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.database.PVDatabase;
+import org.epics.pvaccess.server.database.PVRecord;
+import org.epics.pvaccess.server.database.RecordChannelProvider;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.FieldBuilder;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVDouble;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>RecordChannelProvider</code> benchmark: record lookup in a large database
+ * and a put of one field delivered to all the monitors of the record (local, no network).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordDatabaseBenchmark {
+
+	/**
+	 * Number of records in the database.
+	 */
+	@Param({"1000", "100000"})
+	public int records;
+
+	/**
+	 * Number of monitors on the updated record.
+	 */
+	@Param({"1", "100"})
+	public int monitors;
+
+	/**
+	 * Number of fields of the records in addition to <code>value</code>,
+	 * the monitors request all the fields.
+	 */
+	@Param({"1", "100"})
+	public int extraFields;
+
+	private static final MonitorRequester monitorRequester = new MonitorRequester() {
+
+		@Override
+		public String getRequesterName() {
+			return "benchmark";
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+		}
+	};
+
+	private static final ChannelRequester channelRequester = new ChannelRequester() {
+
+		@Override
+		public String getRequesterName() {
+			return "benchmark";
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, Channel.ConnectionState connectionState) {
+		}
+	};
+
+	private PVDatabase database;
+	private RecordChannelProvider provider;
+	private PVRecord record;
+	private PVDouble value;
+	private Monitor[] monitorArray;
+	private String[] names;
+	private int nameIndex;
+	private double counter;
+
+	@Setup
+	public void setup()
+	{
+		FieldBuilder fieldBuilder = FieldFactory.getFieldCreate().createFieldBuilder().
+				add("value", ScalarType.pvDouble);
+		for (int i = 0; i < extraFields; i++)
+			fieldBuilder.add("field" + i, ScalarType.pvInt);
+		Structure recordStructure = fieldBuilder.createStructure();
+
+		database = new PVDatabase(records, PVDatabase.DEFAULT_LOCK_STRIPES);
+		List<PVRecord> list = new ArrayList<PVRecord>(records);
+		names = new String[records];
+		for (int i = 0; i < records; i++)
+		{
+			names[i] = "record" + i;
+			list.add(new PVRecord(names[i], PVDataFactory.getPVDataCreate().createPVStructure(recordStructure)));
+		}
+		database.addRecords(list);
+		provider = new RecordChannelProvider(database);
+
+		record = database.findRecord(names[0]);
+		value = record.getPVStructure().getDoubleField("value");
+
+		Channel channel = provider.createChannel(names[0], channelRequester, ChannelProvider.PRIORITY_DEFAULT);
+		monitorArray = new Monitor[monitors];
+		for (int i = 0; i < monitors; i++)
+		{
+			monitorArray[i] = channel.createMonitor(monitorRequester,
+					CreateRequest.create().createRequest("field()"));
+			monitorArray[i].start();
+			monitorArray[i].release(monitorArray[i].poll());
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		provider.destroy();
+	}
+
+	@Benchmark
+	public PVRecord findRecord()
+	{
+		nameIndex = (nameIndex + 1) % names.length;
+		return database.findRecord(names[nameIndex]);
+	}
+
+	@Benchmark
+	public int putToMonitors()
+	{
+		record.lock();
+		try {
+			value.put(++counter);
+		} finally {
+			record.unlock();
+		}
+
+		int received = 0;
+		for (Monitor monitor : monitorArray)
+		{
+			MonitorElement element = monitor.poll();
+			if (element != null)
+			{
+				received++;
+				monitor.release(element);
+			}
+		}
+		return received;
+	}
+}
@@ -0,0 +1,219 @@
+package org.epics.benchmarks.pvaccess;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvaccess.ClientFactory;
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelProviderRegistryFactory;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.database.PVDatabase;
+import org.epics.pvaccess.server.database.PVRecord;
+import org.epics.pvaccess.server.database.RecordChannelProvider;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.FieldBuilder;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVDouble;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>RecordChannelProvider</code> served by <code>ServerContextImpl</code>:
+ * a put of one field of a record, until the update is received by all the monitors
+ * of a pvAccess client in the same process (loopback TCP).
+ * Complements the local {@link RecordDatabaseBenchmark} with the server monitor path and the codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordServerBenchmark {
+
+	private static final long TIMEOUT_SEC = 10;
+
+	/**
+	 * Number of client monitors on the updated record.
+	 */
+	@Param({"1", "10"})
+	public int monitors;
+
+	/**
+	 * Number of fields of the record in addition to <code>value</code>,
+	 * the monitors request all the fields.
+	 */
+	@Param({"1", "100"})
+	public int extraFields;
+
+	private final Object lock = new Object();
+	// guarded by lock
+	private double expected;
+	private int received;
+
+	private final MonitorRequester monitorRequester = new MonitorRequester() {
+
+		@Override
+		public String getRequesterName() {
+			return "benchmark";
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+			if (status.isSuccess())
+				monitor.start();
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+			MonitorElement element;
+			while ((element = monitor.poll()) != null)
+			{
+				double value = element.getPVStructure().getDoubleField("value").get();
+				monitor.release(element);
+				synchronized (lock) {
+					if (value == expected && ++received == monitors)
+						lock.notifyAll();
+				}
+			}
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+		}
+	};
+
+	private final CountDownLatch connected = new CountDownLatch(1);
+
+	private final ChannelRequester channelRequester = new ChannelRequester() {
+
+		@Override
+		public String getRequesterName() {
+			return "benchmark";
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, Channel.ConnectionState connectionState) {
+			if (connectionState == Channel.ConnectionState.CONNECTED)
+				connected.countDown();
+		}
+	};
+
+	private ServerContextImpl serverContext;
+	private Channel channel;
+	private PVRecord record;
+	private PVDouble value;
+	private double counter;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		FieldBuilder fieldBuilder = FieldFactory.getFieldCreate().createFieldBuilder().
+				add("value", ScalarType.pvDouble);
+		for (int i = 0; i < extraFields; i++)
+			fieldBuilder.add("field" + i, ScalarType.pvInt);
+		Structure recordStructure = fieldBuilder.createStructure();
+
+		record = new PVRecord("recordServerBenchmark", PVDataFactory.getPVDataCreate().createPVStructure(recordStructure));
+		value = record.getPVStructure().getDoubleField("value");
+		PVDatabase database = new PVDatabase();
+		database.addRecords(Collections.singletonList(record));
+
+		serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(new RecordChannelProvider(database));
+
+		ClientFactory.start();
+		ChannelProvider provider = ChannelProviderRegistryFactory.getChannelProviderRegistry()
+				.getProvider(ClientFactory.PROVIDER_NAME);
+		channel = provider.createChannel(record.getRecordName(), channelRequester, ChannelProvider.PRIORITY_DEFAULT);
+		if (!connected.await(TIMEOUT_SEC, TimeUnit.SECONDS))
+			throw new IllegalStateException("channel not connected");
+
+		// the initial values
+		synchronized (lock) {
+			expected = 0;
+			for (int i = 0; i < monitors; i++)
+				channel.createMonitor(monitorRequester, CreateRequest.create().createRequest("field()"));
+			awaitReceived();
+		}
+	}
+
+	// must be called with lock held
+	private void awaitReceived() throws InterruptedException
+	{
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+		while (received < monitors)
+		{
+			long wait = deadline - System.nanoTime();
+			if (wait <= 0)
+				throw new IllegalStateException("monitor updates not received");
+			TimeUnit.NANOSECONDS.timedWait(lock, wait);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception
+	{
+		channel.destroy();
+		serverContext.destroy();
+	}
+
+	@Benchmark
+	public void putToRemoteMonitors() throws InterruptedException
+	{
+		synchronized (lock) {
+			expected = ++counter;
+			received = 0;
+		}
+
+		record.lock();
+		try {
+			value.put(counter);
+		} finally {
+			record.unlock();
+		}
+
+		synchronized (lock) {
+			awaitReceived();
+		}
+	}
+}
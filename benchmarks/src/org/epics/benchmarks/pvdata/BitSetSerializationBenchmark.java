@@ -0,0 +1,73 @@
+package org.epics.benchmarks.pvdata;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvdata.misc.BitSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>BitSet</code> (de)serialization benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitSetSerializationBenchmark {
+
+	/**
+	 * Number of bits (fields).
+	 */
+	@Param({"8", "64", "1000"})
+	public int size;
+
+	private final BufferControl control = new BufferControl();
+
+	private BitSet source;
+	private BitSet destination;
+	private ByteBuffer workBuffer;
+	private ByteBuffer serialized;
+
+	@Setup
+	public void setup()
+	{
+		source = new BitSet(size);
+		// every third bit set
+		for (int i = 0; i < size; i += 3)
+			source.set(i);
+		destination = new BitSet(size);
+
+		workBuffer = ByteBuffer.allocate(16 + size / 8);
+		serialized = ByteBuffer.allocate(16 + size / 8);
+		source.serialize(serialized, control);
+		serialized.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer serialize()
+	{
+		workBuffer.clear();
+		source.serialize(workBuffer, control);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public BitSet deserialize()
+	{
+		serialized.rewind();
+		destination.deserialize(serialized, control);
+		return destination;
+	}
+}
@@ -0,0 +1,53 @@
+package org.epics.benchmarks.pvdata;
+
+import java.nio.ByteBuffer;
+
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.pv.DeserializableControl;
+import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.SerializableControl;
+
+/**
+ * In-memory (de)serialization control, buffer is expected to be large enough (no flushing).
+ * Introspection data is always serialized in full.
+ */
+public class BufferControl implements SerializableControl, DeserializableControl {
+
+	private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+
+	@Override
+	public void flushSerializeBuffer() {
+		throw new IllegalStateException("buffer too small");
+	}
+
+	@Override
+	public void ensureBuffer(int size) {
+		// noop
+	}
+
+	@Override
+	public void alignBuffer(int alignment) {
+		// noop
+	}
+
+	@Override
+	public void cachedSerialize(Field field, ByteBuffer buffer) {
+		field.serialize(buffer, this);
+	}
+
+	@Override
+	public void ensureData(int size) {
+		// noop
+	}
+
+	@Override
+	public void alignData(int alignment) {
+		// noop
+	}
+
+	@Override
+	public Field cachedDeserialize(ByteBuffer buffer) {
+		return fieldCreate.deserialize(buffer, this);
+	}
+}
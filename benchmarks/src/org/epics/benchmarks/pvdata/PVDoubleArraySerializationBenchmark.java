@@ -0,0 +1,89 @@
+package org.epics.benchmarks.pvdata;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVDoubleArray;
+import org.epics.pvdata.pv.ScalarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>BasePVDoubleArray</code> serialization benchmark,
+ * i.e. <code>putToBuffer</code>/<code>getFromBuffer</code> via (de)serialize, both byte orders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PVDoubleArraySerializationBenchmark {
+
+	private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+
+	@Param({"16", "1024", "1000000"})
+	public int arraySize;
+
+	@Param({"BIG_ENDIAN", "LITTLE_ENDIAN"})
+	public String byteOrder;
+
+	@Param({"false", "true"})
+	public boolean direct;
+
+	private final BufferControl control = new BufferControl();
+
+	private PVDoubleArray source;
+	private PVDoubleArray destination;
+
+	private ByteBuffer workBuffer;
+	private ByteBuffer serialized;
+
+	@Setup
+	public void setup()
+	{
+		source = (PVDoubleArray)pvDataCreate.createPVScalarArray(ScalarType.pvDouble);
+		destination = (PVDoubleArray)pvDataCreate.createPVScalarArray(ScalarType.pvDouble);
+
+		double[] data = new double[arraySize];
+		for (int i = 0; i < arraySize; i++)
+			data[i] = i * 0.5;
+		source.put(0, arraySize, data, 0);
+
+		final ByteOrder order = "BIG_ENDIAN".equals(byteOrder) ?
+				ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+		final int capacity = 16 + arraySize * 8;
+		workBuffer = (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity)).order(order);
+		serialized = (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity)).order(order);
+		source.serialize(serialized, control);
+		serialized.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer putToBuffer()
+	{
+		workBuffer.clear();
+		source.serialize(workBuffer, control);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public PVDoubleArray getFromBuffer()
+	{
+		serialized.rewind();
+		destination.deserialize(serialized, control);
+		return destination;
+	}
+}
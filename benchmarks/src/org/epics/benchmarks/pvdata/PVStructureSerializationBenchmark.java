@@ -0,0 +1,140 @@
+package org.epics.benchmarks.pvdata;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVDoubleArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>BasePVStructure</code> serialization benchmark, full and partial (bit-set) (de)serialization
+ * of a NTScalarArray-like structure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PVStructureSerializationBenchmark {
+
+	private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+	private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+
+	@Param({"1", "1000", "100000"})
+	public int arraySize;
+
+	private final BufferControl control = new BufferControl();
+
+	private PVStructure source;
+	private PVStructure destination;
+	private BitSet partialBitSet;
+
+	private ByteBuffer fullBuffer;
+	private ByteBuffer partialBuffer;
+	private ByteBuffer workBuffer;
+
+	static Structure createStructure()
+	{
+		Structure alarm = fieldCreate.createFieldBuilder().
+				add("severity", ScalarType.pvInt).
+				add("status", ScalarType.pvInt).
+				add("message", ScalarType.pvString).
+				createStructure();
+		Structure timeStamp = fieldCreate.createFieldBuilder().
+				add("secondsPastEpoch", ScalarType.pvLong).
+				add("nanoseconds", ScalarType.pvInt).
+				add("userTag", ScalarType.pvInt).
+				createStructure();
+		return fieldCreate.createFieldBuilder().
+				setId("epics:nt/NTScalarArray:1.0").
+				addArray("value", ScalarType.pvDouble).
+				add("descriptor", ScalarType.pvString).
+				add("alarm", alarm).
+				add("timeStamp", timeStamp).
+				add("counter", ScalarType.pvLong).
+				createStructure();
+	}
+
+	@Setup
+	public void setup()
+	{
+		Structure structure = createStructure();
+		source = pvDataCreate.createPVStructure(structure);
+		destination = pvDataCreate.createPVStructure(structure);
+
+		double[] data = new double[arraySize];
+		for (int i = 0; i < arraySize; i++)
+			data[i] = i;
+		source.getSubField(PVDoubleArray.class, "value").put(0, arraySize, data, 0);
+		source.getStringField("descriptor").put("benchmark");
+		source.getStringField("alarm.message").put("NO_ALARM");
+		source.getLongField("timeStamp.secondsPastEpoch").put(1234567890L);
+
+		// typical monitor update: timeStamp and a scalar
+		partialBitSet = new BitSet(source.getNumberFields());
+		partialBitSet.set(source.getSubField("timeStamp").getFieldOffset());
+		partialBitSet.set(source.getSubField("counter").getFieldOffset());
+
+		final int capacity = 1024 + arraySize * 8;
+		workBuffer = ByteBuffer.allocate(capacity);
+
+		fullBuffer = ByteBuffer.allocate(capacity);
+		source.serialize(fullBuffer, control);
+		fullBuffer.flip();
+
+		partialBuffer = ByteBuffer.allocate(capacity);
+		source.serialize(partialBuffer, control, partialBitSet);
+		partialBuffer.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer serializeFull()
+	{
+		workBuffer.clear();
+		source.serialize(workBuffer, control);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public ByteBuffer serializePartial()
+	{
+		workBuffer.clear();
+		source.serialize(workBuffer, control, partialBitSet);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public PVStructure deserializeFull()
+	{
+		fullBuffer.rewind();
+		destination.deserialize(fullBuffer, control);
+		return destination;
+	}
+
+	@Benchmark
+	public PVStructure deserializePartial()
+	{
+		partialBuffer.rewind();
+		destination.deserialize(partialBuffer, control, partialBitSet);
+		return destination;
+	}
+}
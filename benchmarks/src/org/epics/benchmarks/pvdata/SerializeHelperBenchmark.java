@@ -0,0 +1,67 @@
+package org.epics.benchmarks.pvdata;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pvdata.misc.SerializeHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>SerializeHelper</code> string (de)serialization benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializeHelperBenchmark {
+
+	@Param({"8", "64", "1024"})
+	public int length;
+
+	private final BufferControl control = new BufferControl();
+
+	private String value;
+	private ByteBuffer workBuffer;
+	private ByteBuffer serialized;
+
+	@Setup
+	public void setup()
+	{
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+			sb.append((char)('a' + (i % 26)));
+		value = sb.toString();
+
+		workBuffer = ByteBuffer.allocate(16 + length * 4);
+		serialized = ByteBuffer.allocate(16 + length * 4);
+		SerializeHelper.serializeString(value, serialized, control);
+		serialized.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer serializeString()
+	{
+		workBuffer.clear();
+		SerializeHelper.serializeString(value, workBuffer, control);
+		return workBuffer;
+	}
+
+	@Benchmark
+	public String deserializeString()
+	{
+		serialized.rewind();
+		return SerializeHelper.deserializeString(serialized, control);
+	}
+}
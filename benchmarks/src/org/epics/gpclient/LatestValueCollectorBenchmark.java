@@ -0,0 +1,136 @@
+package org.epics.gpclient;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * High rate channel coalesced to the desired rate: several threads update a collector
+ * as fast as they can, while a passive rate decoupler reads it at the desired rate.
+ * Compares <code>LatestValueCollector</code> with the previous path, which took the collector
+ * and the decoupler lock for every update.
+ * <p>
+ * In the <code>org.epics.gpclient</code> package, since collectors and decouplers are package private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LatestValueCollectorBenchmark {
+
+	/**
+	 * The previous implementation, which takes the lock for every read and update.
+	 */
+	static class LockedLatestValueCollector<T> extends ReadCollector<T, T> {
+
+		private T value;
+
+		LockedLatestValueCollector(Class<T> type) {
+			super(type);
+		}
+
+		@Override
+		public T getValue() {
+			synchronized (lock) {
+				return value;
+			}
+		}
+
+		@Override
+		public void updateValue(T newValue) {
+			Consumer<PVEvent> listener;
+			synchronized (lock) {
+				value = newValue;
+				listener = collectorListener;
+			}
+			if (listener != null)
+				listener.accept(PVEvent.valueEvent());
+		}
+
+		@Override
+		public void updateValueAndConnection(T newValue, boolean newConnection) {
+			Consumer<PVEvent> listener;
+			synchronized (lock) {
+				value = newValue;
+				connection = newConnection;
+				listener = collectorListener;
+			}
+			if (listener != null)
+				listener.accept(PVEvent.readConnectionValueEvent());
+		}
+	}
+
+	/**
+	 * <code>locked</code> for the previous path, <code>lockFree</code> for <code>LatestValueCollector</code>.
+	 */
+	@Param({"locked", "lockFree"})
+	public String collector;
+
+	private ScheduledExecutorService executor;
+	private ReadCollector<Integer, Integer> readCollector;
+	private RateDecoupler decoupler;
+
+	@Setup
+	public void setup()
+	{
+		executor = java.util.concurrent.Executors.newScheduledThreadPool(1);
+		final boolean locked = collector.equals("locked");
+		readCollector = locked ?
+				new LockedLatestValueCollector<Integer>(Integer.class) :
+				new LatestValueCollector<Integer>(Integer.class);
+		decoupler = new PassiveRateDecoupler(executor, Duration.ofMillis(10), new Consumer<PVEvent>() {
+			@Override
+			public void accept(PVEvent event) {
+				// as the PVDirector, read the value once notified
+				readCollector.getValue();
+				decoupler.readyForNextEvent();
+			}
+		}, null);
+		if (locked)
+		{
+			// as before, take the decoupler lock for every update
+			readCollector.setUpdateListener(new Consumer<PVEvent>() {
+				@Override
+				public void accept(PVEvent event) {
+					synchronized (decoupler.lock) {
+						decoupler.getUpdateListener().accept(event);
+					}
+				}
+			});
+		}
+		else
+			readCollector.setUpdateListener(decoupler.getUpdateListener());
+		decoupler.start();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		decoupler.stop();
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public void update()
+	{
+		readCollector.updateValue(1);
+	}
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A bounded variant of {@link ProcessingQueue} that does not lock or allocate
+ * when data is submitted, meant for bursty high-rate events.
+ * <p>
+ * The data is kept in a lock-free ring buffer with a fixed capacity, and
+ * the {@link OverflowPolicy} decides what happens when it is full.
+ * The batches are passed to the consumer one at a time, and the
+ * same list is reused for all of them: the consumer must not keep a
+ * reference to the list after it returns.
+ *
+ * @param <T> the type of data to process
+ */
+public class RingProcessingQueue<T> {
+
+    /**
+     * What to do when data is submitted to a full queue.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The submitting thread waits until there is space in the queue.
+         * Data must not be submitted from the consumer itself, since
+         * that would wait forever.
+         */
+        BLOCK,
+
+        /**
+         * The oldest data in the queue is discarded.
+         */
+        DROP_OLDEST,
+
+        /**
+         * The newest data in the queue is replaced, so that the latest
+         * value wins. Useful when each element supersedes the previous one.
+         */
+        COALESCE
+    }
+
+    private final Executor exec;
+    private final Consumer<List<T>> batchConsumer;
+    private final OverflowPolicy overflowPolicy;
+
+    // Bounded multi-producer/multi-consumer ring (D. Vyukov): each slot has
+    // a sequence number that tells whether it is ready to be written (== position)
+    // or read (== position + 1). Consumers clear the slot atomically, so that
+    // a coalescing producer can never replace data that was already taken.
+    private final int mask;
+    private final AtomicReferenceArray<T> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicBoolean processing = new AtomicBoolean();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final List<T> batch;
+
+    private final Runnable processingTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                T data;
+                while (batch.size() <= mask && (data = poll()) != null) {
+                    batch.add(data);
+                }
+                if (!batch.isEmpty()) {
+                    batchConsumer.accept(batch);
+                }
+            } finally {
+                batch.clear();
+                processing.set(false);
+                // Data may have been submitted after the queue was drained,
+                // or left behind by a consumer that threw
+                if (hasData()) {
+                    schedule();
+                }
+            }
+        }
+    };
+
+    /**
+     * Creates a new queue that processes the data on the given executor.
+     *
+     * @param exec the executor on which the data is processed
+     * @param batchConsumer the consumer of each batch; the list is reused after it returns
+     * @param capacity the maximum number of elements waiting to be processed; it is
+     * rounded up to a power of two
+     * @param overflowPolicy what to do when the queue is full
+     */
+    public RingProcessingQueue(Executor exec, Consumer<List<T>> batchConsumer, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive (was " + capacity + ")");
+        }
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity too large (was " + capacity + ")");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("Overflow policy can't be null");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.exec = exec;
+        this.batchConsumer = batchConsumer;
+        this.overflowPolicy = overflowPolicy;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.batch = new ArrayList<>(size);
+    }
+
+    /**
+     * Submits the data to be processed. Depending on the overflow policy,
+     * if the queue is full this waits for space, discards the oldest data
+     * or replaces the newest data.
+     *
+     * @param data the data to process; can't be null
+     */
+    public void submit(T data) {
+        if (data == null) {
+            throw new NullPointerException("Data can't be null");
+        }
+        while (!offer(data)) {
+            if (overflow(data)) {
+                break;
+            }
+        }
+        if (!processing.get()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Handles a full queue.
+     *
+     * @return true if the data was taken care of, false if the offer should be retried
+     */
+    private boolean overflow(T data) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                if (poll() != null) {
+                    overflowCount.incrementAndGet();
+                }
+                return false;
+            case COALESCE:
+                int index = (int) (tail.get() - 1) & mask;
+                T newest = buffer.get(index);
+                if (newest != null && buffer.compareAndSet(index, newest, data)) {
+                    overflowCount.incrementAndGet();
+                    return true;
+                }
+                // Taken by the consumer in the meantime: there is space now
+                return false;
+            default:
+                // Make sure someone is draining, then wait
+                if (!processing.get()) {
+                    schedule();
+                }
+                LockSupport.parkNanos(1000);
+                return false;
+        }
+    }
+
+    private void schedule() {
+        if (processing.compareAndSet(false, true)) {
+            exec.execute(processingTask);
+        }
+    }
+
+    private boolean offer(T data) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.set(index, data);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // Full
+                return false;
+            }
+            // Otherwise another producer got the slot: retry
+        }
+    }
+
+    private T poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T data = buffer.getAndSet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return data;
+                }
+            } else if (difference < 0) {
+                // Empty
+                return null;
+            }
+            // Otherwise another consumer took it: retry
+        }
+    }
+
+    /**
+     * Whether the oldest slot holds data that can be polled. A slot that
+     * was claimed but not written yet does not count: its producer checks
+     * the processing flag after writing and schedules the processing itself,
+     * so there is no need to spin on it.
+     */
+    private boolean hasData() {
+        long position = head.get();
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    /**
+     * The maximum number of elements waiting to be processed.
+     *
+     * @return the capacity of the queue
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * The policy used when the queue is full.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * The number of elements that were discarded or replaced because
+     * the queue was full.
+     *
+     * @return the number of elements lost to overflow
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+}
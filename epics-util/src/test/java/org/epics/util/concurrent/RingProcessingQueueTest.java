@@ -0,0 +1,218 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.epics.util.concurrent.RingProcessingQueue.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for {@link RingProcessingQueue}.
+ */
+public class RingProcessingQueueTest {
+
+    private final ExecutorService exec = java.util.concurrent.Executors.newSingleThreadExecutor(Executors.namedPool("test"));
+
+    @After
+    public void shutdown() {
+        exec.shutdownNow();
+    }
+
+    @Test
+    public void process1() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            List<Integer> result = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            Consumer<List<Integer>> consumer = new Consumer<List<Integer>>() {
+                @Override
+                public void accept(List<Integer> list) {
+                    result.addAll(list);
+                    if (result.size() == 3) {
+                        latch.countDown();
+                    }
+                }
+            };
+            RingProcessingQueue<Integer> queue = new RingProcessingQueue<>(exec, consumer, 16, OverflowPolicy.BLOCK);
+            queue.submit(1);
+            queue.submit(2);
+            queue.submit(3);
+            latch.await();
+            assertThat(result, equalTo(Arrays.asList(1,2,3)));
+        }
+    }
+
+    @Test
+    public void consumerException() throws Exception {
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<Integer> result = new CopyOnWriteArrayList<>();
+        RingProcessingQueue<Integer> queue = new RingProcessingQueue<>(exec, new Consumer<List<Integer>>() {
+            private boolean first = true;
+
+            @Override
+            public void accept(List<Integer> list) {
+                if (first) {
+                    first = false;
+                    firstBatch.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new RuntimeException("Consumer failure");
+                }
+                result.addAll(list);
+                if (result.size() == 2) {
+                    done.countDown();
+                }
+            }
+        }, 16, OverflowPolicy.BLOCK);
+        queue.submit(1);
+        assertTrue(firstBatch.await(10, TimeUnit.SECONDS));
+        // Submitted while the failing batch is processed
+        queue.submit(2);
+        queue.submit(3);
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertThat(result, equalTo(Arrays.asList(2,3)));
+    }
+
+    @Test
+    public void capacity() {
+        assertThat(new RingProcessingQueue<>(exec, list -> {}, 1, OverflowPolicy.BLOCK).getCapacity(), equalTo(1));
+        assertThat(new RingProcessingQueue<>(exec, list -> {}, 5, OverflowPolicy.BLOCK).getCapacity(), equalTo(8));
+        assertThat(new RingProcessingQueue<>(exec, list -> {}, 64, OverflowPolicy.BLOCK).getCapacity(), equalTo(64));
+    }
+
+    @Test
+    public void blockManyProducers() throws Exception {
+        int nProducers = 4;
+        int nElements = 100000;
+        List<Integer> result = new ArrayList<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        RingProcessingQueue<Integer> queue = new RingProcessingQueue<>(exec, new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> list) {
+                // Batches are never processed concurrently, and the same list is reused
+                batches.add(list);
+                result.addAll(list);
+                if (result.size() == nProducers * nElements) {
+                    latch.countDown();
+                }
+            }
+        }, 64, OverflowPolicy.BLOCK);
+
+        Thread[] producers = new Thread[nProducers];
+        for (int n = 0; n < nProducers; n++) {
+            int producer = n;
+            producers[n] = new Thread(() -> {
+                for (int i = 0; i < nElements; i++) {
+                    queue.submit(producer * nElements + i);
+                }
+            });
+            producers[n].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+
+        // Nothing is lost and each producer is processed in order
+        int[] next = new int[nProducers];
+        for (Integer value : result) {
+            int producer = value / nElements;
+            assertThat(value, equalTo(producer * nElements + next[producer]));
+            next[producer]++;
+        }
+        assertThat(queue.getOverflowCount(), equalTo(0L));
+        assertThat(batches.get(0), sameInstance(batches.get(batches.size() - 1)));
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        List<Integer> result = new CopyOnWriteArrayList<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        RingProcessingQueue<Integer> queue = new RingProcessingQueue<>(exec, new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> list) {
+                if (list.get(0) == 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                }
+                result.addAll(list);
+                if (list.contains(9)) {
+                    done.countDown();
+                }
+            }
+        }, 4, OverflowPolicy.DROP_OLDEST);
+
+        // Keep the consumer busy, then overflow the queue
+        queue.submit(0);
+        blocked.await();
+        for (int i = 1; i < 10; i++) {
+            queue.submit(i);
+        }
+        release.countDown();
+        assertThat(done.await(1, TimeUnit.SECONDS), equalTo(true));
+        assertThat(result, equalTo(Arrays.asList(6, 7, 8, 9)));
+        assertThat(queue.getOverflowCount(), equalTo(5L));
+    }
+
+    @Test
+    public void coalesce() throws Exception {
+        List<Integer> result = new CopyOnWriteArrayList<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        RingProcessingQueue<Integer> queue = new RingProcessingQueue<>(exec, new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> list) {
+                if (list.get(0) == 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                }
+                result.addAll(list);
+                if (list.contains(9)) {
+                    done.countDown();
+                }
+            }
+        }, 4, OverflowPolicy.COALESCE);
+
+        // Keep the consumer busy, then overflow the queue
+        queue.submit(0);
+        blocked.await();
+        for (int i = 1; i < 10; i++) {
+            queue.submit(i);
+        }
+        release.countDown();
+        assertThat(done.await(1, TimeUnit.SECONDS), equalTo(true));
+        assertThat(result, equalTo(Arrays.asList(1, 2, 3, 9)));
+        assertThat(queue.getOverflowCount(), equalTo(5L));
+    }
+}
@@ -109,6 +109,7 @@ public class CADataSource extends DataSource {
 
     @Override
     public void close() {
+        super.close();
         context.dispose();
     }
 
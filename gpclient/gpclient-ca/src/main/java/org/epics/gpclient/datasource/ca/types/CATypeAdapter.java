@@ -84,15 +84,25 @@ abstract public class CATypeAdapter implements DataSourceTypeAdapter<CAConnectio
 
     @Override
     public void updateCache(ReadCollector cache, CAConnectionPayload connection, CAMessagePayload message) {
-        Channel channel = connection.getChannel();
+        Object value = convert(connection, message);
+        if (value != null)
+            cache.updateValue(value);
+    }
+
+    @Override
+    public boolean isConversionShared() {
+        return true;
+    }
+
+    @Override
+    public Object convert(CAConnectionPayload connection, CAMessagePayload message) {
         // If metadata is required and not present, no update
         if (epicsMetaType != null && message.getMetadata() == null)
-            return;
+            return null;
         // If value is not present, no update
         if (message.getEvent() == null)
-            return;
-        cache.updateValue(createValue(message.getEvent().getDBR(), message.getMetadata(), connection));
-        return;
+            return null;
+        return createValue(message.getEvent().getDBR(), message.getMetadata(), connection);
     }
 
     /**
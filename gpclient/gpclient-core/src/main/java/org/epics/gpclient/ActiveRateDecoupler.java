@@ -6,8 +6,6 @@ package org.epics.gpclient;
 
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -15,12 +13,25 @@ import java.util.function.Consumer;
  * <p>
  * This type of scanning is necessary if there is time dependent computation
  * performed on the data after it's gathered in the collectors.
+ * All the decouplers with the same rate share the same periodic scan,
+ * see {@link RateGroupScheduler}.
  *
  * @author carcassi
  */
 class ActiveRateDecoupler extends RateDecoupler {
     
-    private volatile ScheduledFuture<?> scanTaskHandle;
+    private volatile RateGroupScheduler.RateGroup scanGroup;
+    
+    private final Runnable scanTask = new Runnable() {
+
+        @Override
+        public void run() {
+            if (!isStopped() && !isPaused() && !isEventProcessing()) {
+                PVEvent event = PVEvent.readConnectionValueEvent();
+                sendDesiredRateEvent(event);
+            }
+        }
+    };
 
     public ActiveRateDecoupler(ScheduledExecutorService scannerExecutor,
             Duration maxDuration, Consumer<PVEvent> listener, Consumer<Exception> exceptionHandler) {
@@ -29,23 +40,17 @@ class ActiveRateDecoupler extends RateDecoupler {
 
     @Override
     void onStart() {
-        scanTaskHandle = getScannerExecutor().scheduleWithFixedDelay(new Runnable() {
-
-            @Override
-            public void run() {
-                if (!isStopped() && !isPaused() && !isEventProcessing()) {
-                    PVEvent event = PVEvent.readConnectionValueEvent();
-                    sendDesiredRateEvent(event);
-                }
-            }
-        }, 0, getMaxDuration().toNanos(), TimeUnit.NANOSECONDS);
+        // First scan right away, then at the shared tick
+        getScannerExecutor().execute(scanTask);
+        scanGroup = RateGroupScheduler.of(getScannerExecutor()).group(getMaxDuration());
+        scanGroup.addPeriodic(scanTask);
     }
 
     @Override
     void onStop() {
-        if (scanTaskHandle != null) {
-            scanTaskHandle.cancel(false);
-            scanTaskHandle = null;
+        if (scanGroup != null) {
+            scanGroup.removePeriodic(scanTask);
+            scanGroup = null;
         } else {
             throw new IllegalStateException("Scan was never started");
         }
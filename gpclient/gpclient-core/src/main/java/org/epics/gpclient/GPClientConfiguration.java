@@ -20,6 +20,7 @@ public class GPClientConfiguration {
     DataSource defaultDataSource;
     ScheduledExecutorService dataProcessingThreadPool;
     Duration defaultMaxRate;
+    int dataSourceWorkerCount;
     
     /**
      * Sets the default executor on which all notifications are going to be posted.
@@ -70,8 +71,28 @@ public class GPClientConfiguration {
         return this;
     }
     
+    /**
+     * Sets the number of worker threads the data source uses to process
+     * connections, disconnections, reads and writes. The work for each
+     * channel is always processed by the same worker, so that it stays
+     * ordered, while different channels are processed in parallel.
+     * If not set, the data source keeps its own setting (by default, a single worker).
+     *
+     * @param dataSourceWorkerCount the number of data source workers; must be positive
+     * @return this configuration
+     */
+    public GPClientConfiguration dataSourceWorkerCount(int dataSourceWorkerCount) {
+        if (dataSourceWorkerCount < 1) {
+            throw new IllegalArgumentException("dataSourceWorkerCount must be positive (was " + dataSourceWorkerCount + ")");
+        }
+        this.dataSourceWorkerCount = dataSourceWorkerCount;
+        return this;
+    }
+    
     private void validateConfiguration() {
-        
+        if (dataSourceWorkerCount != 0 && defaultDataSource == null) {
+            throw new IllegalStateException("dataSourceWorkerCount requires a dataSource");
+        }
     }
     
     public GPClientInstance build() {
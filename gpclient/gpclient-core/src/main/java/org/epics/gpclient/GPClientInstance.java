@@ -36,6 +36,9 @@ public class GPClientInstance {
         this.defaultDataSource = config.defaultDataSource;
         this.defaultMaxRate = config.defaultMaxRate;
         this.defaultNotificationExecutor = config.defaultNotificationExecutor;
+        if (config.dataSourceWorkerCount != 0) {
+            this.defaultDataSource.setWorkerCount(config.dataSourceWorkerCount);
+        }
     }
     
     /**
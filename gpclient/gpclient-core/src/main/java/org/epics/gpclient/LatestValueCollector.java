@@ -4,17 +4,21 @@
  */
 package org.epics.gpclient;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
  * A collector that keeps only the latest value.
+ * <p>
+ * The value is kept in an atomic reference, so that neither the updates
+ * from the data source nor the reads at the desired rate need the lock.
  *
  * @param <T> the type stored in the collector
  * @author carcassi
  */
 class LatestValueCollector<T> extends ReadCollector<T, T> {
     
-    private T value;
+    private final AtomicReference<T> value = new AtomicReference<>();
 
     public LatestValueCollector(Class<T> type) {
         super(type);
@@ -22,19 +26,13 @@ class LatestValueCollector<T> extends ReadCollector<T, T> {
 
     @Override
     public T getValue() {
-        synchronized (lock) {
-            return value;
-        }
+        return value.get();
     }
 
     @Override
     public void updateValue(T newValue) {
-        Consumer<PVEvent> listener;
-        synchronized (lock) {
-            value = newValue;
-            listener = collectorListener;
-        }
-        // Run the task without holding the lock
+        value.set(newValue);
+        Consumer<PVEvent> listener = collectorListener;
         if (listener != null) {
             listener.accept(PVEvent.valueEvent());
         }
@@ -44,7 +42,7 @@ class LatestValueCollector<T> extends ReadCollector<T, T> {
     public void updateValueAndConnection(T newValue, boolean newConnection) {
         Consumer<PVEvent> listener;
         synchronized (lock) {
-            value = newValue;
+            value.set(newValue);
             connection = newConnection;
             listener = collectorListener;
         }
@@ -128,6 +128,11 @@ public final class PVEvent {
      * @return the new aggregated event
      */
     public PVEvent addEvent(PVEvent event) {
+        // Nothing would change: reuse this event, so that coalescing
+        // many events of the same kind does not allocate
+        if (includes(event)) {
+            return this;
+        }
         List<Type> newTypes = new ArrayList<>(getType());
         for (Type type : event.getType()) {
             newTypes.remove(type);
@@ -138,6 +143,31 @@ public final class PVEvent {
         return new PVEvent(newException, newWriteError, newTypes);
     }
     
+    /**
+     * Whether adding the given event to this one would result in the same event,
+     * that is the given event has no exceptions and its types are already the
+     * last types of this event, in the same order.
+     * 
+     * @param event the event to check
+     * @return true if this event already includes the given one
+     */
+    boolean includes(PVEvent event) {
+        if (event.getException() != null || event.getWriteError() != null) {
+            return false;
+        }
+        List<Type> otherTypes = event.getType();
+        int offset = types.size() - otherTypes.size();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < otherTypes.size(); i++) {
+            if (types.get(offset + i) != otherTypes.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     PVEvent removeType(Type type) {
         List<Type> newTypes = new ArrayList<>(getType());
         newTypes.remove(type);
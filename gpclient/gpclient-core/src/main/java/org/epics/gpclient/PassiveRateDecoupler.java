@@ -7,12 +7,15 @@ package org.epics.gpclient;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Decouples the rate by notifying the PV only when new events arrive, but
+ * no faster than the max rate. Delayed notifications run at the periodic
+ * tick shared by all the decouplers with the same rate (see {@link RateGroupScheduler}),
+ * at the first tick after they are due.
  *
  * @author carcassi
  */
@@ -23,13 +26,16 @@ class PassiveRateDecoupler extends RateDecoupler {
     // modified so that code elimination would remove the logging completely
     private static final Level logLevel = Level.FINEST;
     
-    private PVEvent queuedEvent;
+    // Written under the lock, read without it by the fast path of newEvent
+    private volatile PVEvent queuedEvent;
     private Instant lastSubmission;
     private boolean scanActive;
+    private final RateGroupScheduler scanScheduler;
 
     public PassiveRateDecoupler(ScheduledExecutorService scannerExecutor,
             Duration maxDuration, Consumer<PVEvent> listener, Consumer<Exception> exceptionHandler) {
         super(scannerExecutor, maxDuration, listener, exceptionHandler);
+        scanScheduler = RateGroupScheduler.of(scannerExecutor);
         synchronized(lock) {
             lastSubmission = Instant.now().minus(getMaxDuration());
         }
@@ -124,6 +130,17 @@ class PassiveRateDecoupler extends RateDecoupler {
     
     @Override
     protected void newEvent(PVEvent event) {
+        // Fast path: an event that already includes this one is queued,
+        // so a notification is already scheduled or will be. The
+        // notification task takes the queued event before reading the
+        // values, so if the event is taken after this check the new
+        // value is read anyway. This lets high rate channels
+        // be coalesced without taking the lock for every update.
+        PVEvent currentEvent = queuedEvent;
+        if (currentEvent != null && currentEvent.includes(event)) {
+            return;
+        }
+        
         boolean submit;
         Duration delay = null;
         
@@ -173,7 +190,7 @@ class PassiveRateDecoupler extends RateDecoupler {
         if (delay == null || delay.isNegative()) {
             getScannerExecutor().submit(notificationTask);
         } else {
-            getScannerExecutor().schedule(notificationTask, delay.toNanos(), TimeUnit.NANOSECONDS);
+            scanScheduler.group(getMaxDuration()).scheduleOnce(notificationTask, delay);
         }
     }
     
@@ -0,0 +1,250 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.gpclient;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules the scans of the rate decouplers, so that all the pvs with the
+ * same max rate share a single periodic task on the scanner executor instead
+ * of each scheduling its own. At each tick, the tasks that are due are
+ * run in batches on the executor.
+ * <p>
+ * There is one scheduler for each scanner executor. The scheduler only holds
+ * the executor weakly, so that it does not keep it (and itself) alive once
+ * the executor is no longer used. A group is dropped when it stops ticking.
+ */
+class RateGroupScheduler {
+
+    private static final Logger log = Logger.getLogger(RateGroupScheduler.class.getName());
+
+    // Number of tasks run by each executor task, so that a tick with many pvs
+    // is spread across the threads of the executor
+    static final int BATCH_SIZE = 256;
+
+    private static final Map<ScheduledExecutorService, RateGroupScheduler> schedulers =
+            Collections.synchronizedMap(new WeakHashMap<ScheduledExecutorService, RateGroupScheduler>());
+
+    // Weak: the scheduler is the value of the weak map entry of the executor
+    private final WeakReference<ScheduledExecutorService> executorRef;
+    private final Map<Long, RateGroup> groups = new ConcurrentHashMap<>();
+
+    private RateGroupScheduler(ScheduledExecutorService executor) {
+        this.executorRef = new WeakReference<>(executor);
+    }
+
+    /**
+     * The scheduler for the given executor.
+     *
+     * @param executor the scanner executor
+     * @return the scheduler; never null
+     */
+    static RateGroupScheduler of(ScheduledExecutorService executor) {
+        synchronized (schedulers) {
+            RateGroupScheduler scheduler = schedulers.get(executor);
+            if (scheduler == null) {
+                scheduler = new RateGroupScheduler(executor);
+                schedulers.put(executor, scheduler);
+            }
+            return scheduler;
+        }
+    }
+
+    /**
+     * The group that ticks at the given rate.
+     *
+     * @param period the interval between ticks
+     * @return the group; never null
+     */
+    RateGroup group(Duration period) {
+        return groups.computeIfAbsent(period.toNanos(), RateGroup::new);
+    }
+
+    /**
+     * The number of groups currently registered.
+     *
+     * @return the number of groups
+     */
+    int getGroupCount() {
+        return groups.size();
+    }
+
+    private ScheduledExecutorService executor() {
+        ScheduledExecutorService executor = executorRef.get();
+        if (executor == null) {
+            // Only reachable through a group kept after its executor was discarded
+            throw new IllegalStateException("Scanner executor was discarded");
+        }
+        return executor;
+    }
+
+    private static final class DelayedTask {
+        private final Runnable task;
+        private final long dueNanos;
+
+        private DelayedTask(Runnable task, long dueNanos) {
+            this.task = task;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    /**
+     * The tasks that share the same tick. Groups are meant to be looked up
+     * with {@link #group(java.time.Duration) } when tasks are added, rather than kept:
+     * an idle group is removed from the scheduler.
+     */
+    class RateGroup {
+
+        private final long periodNanos;
+        private final Set<Runnable> periodicTasks = ConcurrentHashMap.newKeySet();
+        private final ConcurrentLinkedQueue<DelayedTask> delayedTasks = new ConcurrentLinkedQueue<>();
+        private volatile ScheduledFuture<?> tickHandle;
+        // Guarded by this
+        private long startNanos;
+        private long nTicks;
+
+        private RateGroup(long periodNanos) {
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Adds a task to be run at every tick, until removed.
+         *
+         * @param task the task to run
+         */
+        void addPeriodic(Runnable task) {
+            periodicTasks.add(task);
+            ensureTicking();
+        }
+
+        /**
+         * Removes a task added with {@link #addPeriodic(java.lang.Runnable) }.
+         *
+         * @param task the task to remove
+         */
+        void removePeriodic(Runnable task) {
+            periodicTasks.remove(task);
+        }
+
+        /**
+         * Runs the task once, at the first tick after the given delay.
+         *
+         * @param task the task to run
+         * @param delay the minimum delay
+         */
+        void scheduleOnce(Runnable task, Duration delay) {
+            delayedTasks.add(new DelayedTask(task, System.nanoTime() + delay.toNanos()));
+            ensureTicking();
+        }
+
+        /**
+         * The number of tasks run at every tick.
+         *
+         * @return the number of periodic tasks
+         */
+        int getPeriodicTaskCount() {
+            return periodicTasks.size();
+        }
+
+        /**
+         * Whether the periodic task for this group is currently scheduled.
+         *
+         * @return true if ticking
+         */
+        boolean isTicking() {
+            return tickHandle != null;
+        }
+
+        private void ensureTicking() {
+            if (tickHandle == null) {
+                synchronized (this) {
+                    if (tickHandle == null) {
+                        // Registered again if it was removed while idle
+                        groups.putIfAbsent(periodNanos, this);
+                        startNanos = System.nanoTime();
+                        nTicks = 0;
+                        tickHandle = executor().scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        }
+
+        private void tick() {
+            long tickNanos;
+            synchronized (this) {
+                nTicks++;
+                // Nominal time of this tick: the tick never runs before it
+                tickNanos = startNanos + nTicks * periodNanos;
+            }
+
+            List<Runnable> dueTasks = new ArrayList<>(periodicTasks);
+            // Only look at the tasks queued so far: the ones not yet due are queued back
+            for (int n = delayedTasks.size(); n > 0; n--) {
+                DelayedTask delayedTask = delayedTasks.poll();
+                if (delayedTask == null) {
+                    break;
+                }
+                if (delayedTask.dueNanos - tickNanos <= 0) {
+                    dueTasks.add(delayedTask.task);
+                } else {
+                    delayedTasks.add(delayedTask);
+                }
+            }
+
+            for (int i = 0; i < dueTasks.size(); i += BATCH_SIZE) {
+                final List<Runnable> batch = dueTasks.subList(i, Math.min(dueTasks.size(), i + BATCH_SIZE));
+                if (i + BATCH_SIZE >= dueTasks.size()) {
+                    // Run the last batch on this thread
+                    runBatch(batch);
+                } else {
+                    executor().execute(() -> runBatch(batch));
+                }
+            }
+
+            stopIfIdle();
+        }
+
+        private void stopIfIdle() {
+            if (!periodicTasks.isEmpty() || !delayedTasks.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                if (periodicTasks.isEmpty() && delayedTasks.isEmpty() && tickHandle != null) {
+                    tickHandle.cancel(false);
+                    tickHandle = null;
+                    groups.remove(periodNanos, this);
+                }
+            }
+            // A task may have been added while stopping
+            if (!periodicTasks.isEmpty() || !delayedTasks.isEmpty()) {
+                ensureTicking();
+            }
+        }
+
+        private void runBatch(List<Runnable> batch) {
+            for (Runnable task : batch) {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    log.log(Level.WARNING, "Scan task failed", ex);
+                }
+            }
+        }
+    }
+}
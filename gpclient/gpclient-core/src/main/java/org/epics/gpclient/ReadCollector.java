@@ -27,7 +27,8 @@ public abstract class ReadCollector<I, O> {
     }
     
     protected final Object lock = new Object();
-    protected Consumer<PVEvent> collectorListener;
+    // volatile, so that it can be read without the lock
+    protected volatile Consumer<PVEvent> collectorListener;
     protected boolean connection = false;
     private final Class<I> type;
     private final Supplier<O> readFunction = new CollectorSupplier();
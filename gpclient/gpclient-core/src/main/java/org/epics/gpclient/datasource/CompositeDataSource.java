@@ -180,6 +180,11 @@ public class CompositeDataSource extends DataSource {
                 if (dataSource == null) {
                     throw new IllegalStateException("DataSourceProvider '" + name + delimiter + "' did not create a valid datasource.");
                 }
+                // Child data sources use the worker count configured on the composite,
+                // unless they were configured on their own
+                if (getWorkerCount() != 1 && dataSource.getWorkerCount() == 1 && !dataSource.isInUse()) {
+                    dataSource.setWorkerCount(getWorkerCount());
+                }
                 dataSources.put(name, dataSource);
                 log.log(Level.CONFIG, "Created instance for data source {0} ({1})", new Object[]{name, dataSource.getClass().getSimpleName()});
             }
@@ -240,6 +245,7 @@ public class CompositeDataSource extends DataSource {
         for (DataSource dataSource : dataSources.values()) {
             dataSource.close();
         }
+        super.close();
     }
 
     @Override
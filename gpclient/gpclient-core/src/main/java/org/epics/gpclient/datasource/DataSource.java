@@ -45,10 +45,17 @@ public abstract class DataSource {
     ChannelHandler channel(String channelName) {
         ChannelHandler channel = usedChannels.get(channelHandlerLookupName(channelName));
         if (channel == null) {
-            channel = createChannel(channelName);
-            if (channel == null)
-                return null;
-            usedChannels.put(channelHandlerRegisterName(channelName, channel), channel);
+            // Subscriptions for channels that share a handler may be processed
+            // by different workers: creation and registration must be atomic
+            synchronized (usedChannels) {
+                channel = usedChannels.get(channelHandlerLookupName(channelName));
+                if (channel == null) {
+                    channel = createChannel(channelName);
+                    if (channel == null)
+                        return null;
+                    usedChannels.put(channelHandlerRegisterName(channelName, channel), channel);
+                }
+            }
         }
         return channel;
     }
@@ -88,23 +95,140 @@ public abstract class DataSource {
     /**
      * Creates a channel handler for the given name. In the simplest
      * case, this is the only method a data source needs to implement.
+     * It is never called concurrently, even when the data source uses
+     * more than one worker.
      * 
      * @param channelName the name for a new channel
      * @return a new handler
      */
     protected abstract ChannelHandler createChannel(String channelName);
 
-    // The executor used by the data source to perform asynchronous operations,
-    // such as connections and writes. We use one extra thread for each datasource,
-    // mainly to be able to shut it down during cleanup
-    protected final ExecutorService exec = Executors.newSingleThreadExecutor(namedPool("PVMgr " + getClass().getSimpleName() + " Worker "));
+    // Shared by all workers, so that their threads are numbered in sequence
+    private final ThreadFactory threadFactory = namedPool("PVMgr " + getClass().getSimpleName() + " Worker ");
+
+    /**
+     * The executor of the first worker.
+     * 
+     * @deprecated with more than one worker, it only processes the subscriptions
+     * of some channels: use {@link #executorFor(java.lang.String) } instead
+     */
+    @Deprecated
+    protected final ExecutorService exec = Executors.newSingleThreadExecutor(threadFactory);
+
+    // The workers used by the data source to perform asynchronous operations,
+    // such as connections and writes. The work for a channel is always
+    // processed by the same worker, so that it is processed in order, while
+    // work for different channels may proceed in parallel. The workers
+    // are created at first use, so that their number can still be configured.
+    private final Object workersLock = new Object();
+    private int workerCount = 1;
+    private volatile Worker[] workers;
+    
+    /**
+     * A single threaded executor with its queues for batching the subscriptions.
+     */
+    private class Worker {
+        private final ExecutorService exec;
+        private final ProcessingQueue<ReadSubscription> startReadQueue;
+        private final ProcessingQueue<ReadSubscription> stopReadQueue;
+        private final ProcessingQueue<WriteSubscription> startWriteQueue;
+        private final ProcessingQueue<WriteSubscription> stopWriteQueue;
+
+        private Worker(ExecutorService exec) {
+            this.exec = exec;
+            startReadQueue = new ProcessingQueue<>(exec, startReadBatch);
+            stopReadQueue = new ProcessingQueue<>(exec, stopReadBatch);
+            startWriteQueue = new ProcessingQueue<>(exec, startWriteBatch);
+            stopWriteQueue = new ProcessingQueue<>(exec, stopWriteBatch);
+        }
+    }
+    
+    /**
+     * Changes the number of worker threads used to process the subscriptions.
+     * The work for each channel is assigned to a worker based on the channel
+     * name, so the subscriptions for the same channel are processed in order.
+     * The default is a single worker.
+     * <p>
+     * The number of workers can only be changed before the first subscription
+     * is processed. Note that, with more than one worker, the channel handlers
+     * of different channels are used concurrently.
+     * 
+     * @param workerCount the number of worker threads; must be positive
+     */
+    public void setWorkerCount(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive (was " + workerCount + ")");
+        }
+        synchronized (workersLock) {
+            if (workers != null && workerCount != this.workerCount) {
+                throw new IllegalStateException("Can't change the worker count of a data source already in use");
+            }
+            this.workerCount = workerCount;
+        }
+    }
+    
+    /**
+     * The number of worker threads used to process the subscriptions.
+     * 
+     * @return the number of workers
+     */
+    public int getWorkerCount() {
+        synchronized (workersLock) {
+            return workerCount;
+        }
+    }
+    
+    boolean isInUse() {
+        return workers != null;
+    }
+    
+    private Worker worker(String channelName) {
+        Worker[] currentWorkers = workers;
+        if (currentWorkers == null) {
+            synchronized (workersLock) {
+                if (workers == null) {
+                    Worker[] newWorkers = new Worker[workerCount];
+                    newWorkers[0] = new Worker(exec);
+                    for (int i = 1; i < newWorkers.length; i++) {
+                        newWorkers[i] = new Worker(Executors.newSingleThreadExecutor(threadFactory));
+                    }
+                    workers = newWorkers;
+                }
+                currentWorkers = workers;
+            }
+        }
+        if (currentWorkers.length == 1) {
+            return currentWorkers[0];
+        }
+        
+        // Channel names that share the same handler must go to the same worker
+        String key;
+        try {
+            key = channelHandlerLookupName(channelName);
+        } catch (RuntimeException ex) {
+            key = channelName;
+        }
+        return currentWorkers[(key.hashCode() & Integer.MAX_VALUE) % currentWorkers.length];
+    }
+    
+    /**
+     * The executor that processes the subscriptions for the given channel.
+     * A data source can use it to perform asynchronous operations that
+     * need to be ordered with respect to the subscriptions of the channel.
+     * 
+     * @param channelName the name of the channel
+     * @return the executor for the channel
+     */
+    protected Executor executorFor(String channelName) {
+        return worker(channelName).exec;
+    }
     
     // Keeps track of the recipes that were opened with
     // this data source.
     private final Set<ReadSubscription> readSubscriptions = Collections.synchronizedSet(new HashSet<>());
     private final Set<WriteSubscription> writeSubscriptions = Collections.synchronizedSet(new HashSet<>());
 
-    private final ProcessingQueue<ReadSubscription> startReadQueue = new ProcessingQueue<>(exec, new Consumer<List<ReadSubscription>>() {
+    private final Consumer<List<ReadSubscription>> startReadBatch = new Consumer<List<ReadSubscription>>() {
         @Override
         public void accept(List<ReadSubscription> list) {
             for (ReadSubscription readSubscription : list) {
@@ -123,7 +247,7 @@ public abstract class DataSource {
                 }
             }
         }
-    });
+    };
     
     /**
      * Starts the given read subscription.
@@ -131,10 +255,10 @@ public abstract class DataSource {
      * @param readSubscription the subscription information
      */
     public void startRead(final ReadSubscription readSubscription) {
-        startReadQueue.submit(readSubscription);
+        worker(readSubscription.getChannelName()).startReadQueue.submit(readSubscription);
     }
 
-    private final ProcessingQueue<ReadSubscription> stopReadQueue = new ProcessingQueue<>(exec, new Consumer<List<ReadSubscription>>() {
+    private final Consumer<List<ReadSubscription>> stopReadBatch = new Consumer<List<ReadSubscription>>() {
         @Override
         public void accept(List<ReadSubscription> list) {
             for (ReadSubscription readSubscription : list) {
@@ -158,7 +282,7 @@ public abstract class DataSource {
                 }
             }
         }
-    });
+    };
     
     /**
      * Stops the given read subscription.
@@ -166,10 +290,10 @@ public abstract class DataSource {
      * @param readSubscription the subscription information
      */
     public void stopRead(final ReadSubscription readSubscription) {
-        stopReadQueue.submit(readSubscription);
+        worker(readSubscription.getChannelName()).stopReadQueue.submit(readSubscription);
     }
 
-    private final ProcessingQueue<WriteSubscription> startWriteQueue = new ProcessingQueue<>(exec, new Consumer<List<WriteSubscription>>() {
+    private final Consumer<List<WriteSubscription>> startWriteBatch = new Consumer<List<WriteSubscription>>() {
         @Override
         public void accept(List<WriteSubscription> list) {
             for (WriteSubscription writeSubscription : list) {
@@ -188,7 +312,7 @@ public abstract class DataSource {
                 }
             }
         }
-    });
+    };
     
     /**
      * Starts the given write subscription.
@@ -196,10 +320,10 @@ public abstract class DataSource {
      * @param writeSubscription the subscription information
      */
     public void startWrite(final WriteSubscription writeSubscription) {
-        startWriteQueue.submit(writeSubscription);
+        worker(writeSubscription.getChannelName()).startWriteQueue.submit(writeSubscription);
     }
 
-    private final ProcessingQueue<WriteSubscription> stopWriteQueue = new ProcessingQueue<>(exec, new Consumer<List<WriteSubscription>>() {
+    private final Consumer<List<WriteSubscription>> stopWriteBatch = new Consumer<List<WriteSubscription>>() {
         @Override
         public void accept(List<WriteSubscription> list) {
             for (WriteSubscription writeSubscription : list) {
@@ -223,7 +347,7 @@ public abstract class DataSource {
                 }
             }
         }
-    });
+    };
     
     /**
      * Stops the given write subscription.
@@ -231,7 +355,7 @@ public abstract class DataSource {
      * @param writeRecipe the subscription information
      */
     public void stopWrite(final WriteSubscription writeRecipe) {
-        stopWriteQueue.submit(writeRecipe);
+        worker(writeRecipe.getChannelName()).stopWriteQueue.submit(writeRecipe);
     }
 
     /**
@@ -247,6 +371,15 @@ public abstract class DataSource {
      * Closes the DataSource and the resources associated with it.
      */
     public void close() {
+        Worker[] currentWorkers;
+        synchronized (workersLock) {
+            currentWorkers = workers;
+        }
+        if (currentWorkers != null) {
+            for (Worker worker : currentWorkers) {
+                worker.exec.shutdownNow();
+            }
+        }
         exec.shutdownNow();
     }
     
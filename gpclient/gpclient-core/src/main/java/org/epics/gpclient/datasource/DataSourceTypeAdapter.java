@@ -49,4 +49,35 @@ public interface DataSourceTypeAdapter<ConnectionPayload, MessagePayload> {
      * @param message the payload of each message
      */
     void updateCache(ReadCollector<?, ?> cache, ConnectionPayload connection, MessagePayload message);
+    
+    /**
+     * Whether the value produced by this adapter depends only on the connection
+     * and message payloads, and not on the cache. If true, a multiplexed
+     * handler calls {@link #convert(java.lang.Object, java.lang.Object) } once
+     * per message and passes the same value to all the caches that use
+     * this adapter, instead of calling {@link #updateCache(org.epics.gpclient.ReadCollector, java.lang.Object, java.lang.Object) }
+     * for each of them. The value must therefore be immutable.
+     * <p>
+     * By default, this returns false.
+     * 
+     * @return true if the converted value can be shared across caches
+     */
+    default boolean isConversionShared() {
+        return false;
+    }
+    
+    /**
+     * Converts the message to the value that {@link #updateCache(org.epics.gpclient.ReadCollector, java.lang.Object, java.lang.Object) }
+     * would put in the cache. Only used if {@link #isConversionShared() } is true.
+     * If it returns null, each cache is updated through {@link #updateCache(org.epics.gpclient.ReadCollector, java.lang.Object, java.lang.Object) }.
+     * <p>
+     * By default, this returns null.
+     * 
+     * @param connection the connection information
+     * @param message the payload of each message
+     * @return the new value, or null to update each cache separately
+     */
+    default Object convert(ConnectionPayload connection, MessagePayload message) {
+        return null;
+    }
 }
@@ -4,6 +4,11 @@
  */
 package org.epics.gpclient.datasource;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
@@ -58,27 +63,60 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
     private Map<WriteCollector, Consumer<WriteCollector.WriteRequest<?>>> writers = new ConcurrentHashMap<>();
     private boolean processMessageOnDisconnect = true;
     private boolean processMessageOnReconnect = true;
+    // Deliveries (messages and connection changes) are queued under the handler
+    // lock, in processing order, and run one at a time: the thread that finds no
+    // delivery in progress runs the queue until it is empty, the others return
+    // as soon as their delivery is queued. No thread ever waits for a delivery,
+    // so readers can call back into the handler.
+    private final Object deliveryLock = new Object();
+    private final ArrayDeque<Runnable> deliveries = new ArrayDeque<>();
+    private boolean delivering = false;
     
     private class MonitorHandler {
 
         private final ReadCollector subscription;
-        private DataSourceTypeAdapter<ConnectionPayload, MessagePayload> typeAdapter;
+        private volatile DataSourceTypeAdapter<ConnectionPayload, MessagePayload> typeAdapter;
+        private volatile boolean removed = false;
 
         public MonitorHandler(ReadCollector subscription) {
             this.subscription = subscription;
         }
         
         public final void processConnection(boolean connection) {
-            subscription.updateConnection(connection);;
+            if (removed)
+                return;
+            subscription.updateConnection(connection);
         }
 
-        public final void processValue(MessagePayload payload) {
-            if (typeAdapter == null)
+        /**
+         * Updates the subscription with the given message. If the type adapter
+         * shares its conversion, the converted value is taken from (or stored in)
+         * the given map, so that the conversion runs once per message. If the
+         * conversion returns null, the subscription is updated through the adapter.
+         */
+        @SuppressWarnings("unchecked")
+        public final void processValue(ConnectionPayload connection, MessagePayload payload,
+                Map<DataSourceTypeAdapter<ConnectionPayload, MessagePayload>, Object> convertedValues) {
+            DataSourceTypeAdapter<ConnectionPayload, MessagePayload> adapter = typeAdapter;
+            if (adapter == null || removed)
                 return;
             
             // Lock the collector and prepare the new value.
             try {
-                typeAdapter.updateCache(subscription, getConnectionPayload(), payload);
+                Object value = null;
+                if (adapter.isConversionShared()) {
+                    if (convertedValues.containsKey(adapter)) {
+                        value = convertedValues.get(adapter);
+                    } else {
+                        value = adapter.convert(connection, payload);
+                        convertedValues.put(adapter, value);
+                    }
+                }
+                if (value != null) {
+                    subscription.updateValue(value);
+                } else {
+                    adapter.updateCache(subscription, connection, payload);
+                }
             } catch (RuntimeException e) {
                 subscription.notifyError(e);
             }
@@ -123,10 +161,9 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
         }
     }
     
+    // Must be called while holding the handler lock
     private void reportConnectionStatus(boolean connected) {
-        for (MonitorHandler monitor : readers.values()) {
-            monitor.processConnection(connected);
-        }
+        queueConnection(new ArrayList<>(readers.values()), connected);
     }
     
     private void reportWriteConnectionStatus(boolean writeConnected) {
@@ -156,28 +193,34 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
     /**
      * Process the next connection payload. This should be called whenever
      * the connection state has changed.
+     * <p>
+     * Readers are notified through the same queue as the messages, so they
+     * see the connection change after the messages processed before it.
      * 
      * @param connectionPayload connection payload; not null
      */
-    protected synchronized final void processConnection(ConnectionPayload connectionPayload) {
+    protected final void processConnection(ConnectionPayload connectionPayload) {
         if (log.isLoggable(Level.FINEST)) {
             log.log(Level.FINEST, "processConnection for channel {0} connectionPayload {1}", new Object[] {getChannelName(), connectionPayload});
         }
         
-        this.connectionPayload = connectionPayload;
-        setConnected(isConnected(connectionPayload));
-        setWriteConnected(isWriteConnected(connectionPayload));
-        
-        for (MonitorHandler monitor : readers.values()) {
-            monitor.findTypeAdapter();
-        }
-        
-        if (isConnected() && lastMessage != null && processMessageOnReconnect) {
-            processMessage(lastMessage);
-        }
-        if (!isConnected() && lastMessage != null && processMessageOnDisconnect) {
-            processMessage(lastMessage);
+        synchronized (this) {
+            this.connectionPayload = connectionPayload;
+            setConnected(isConnected(connectionPayload));
+            setWriteConnected(isWriteConnected(connectionPayload));
+
+            for (MonitorHandler monitor : readers.values()) {
+                monitor.findTypeAdapter();
+            }
+
+            if (isConnected() && lastMessage != null && processMessageOnReconnect) {
+                queueMessage(lastMessage);
+            }
+            if (!isConnected() && lastMessage != null && processMessageOnDisconnect) {
+                queueMessage(lastMessage);
+            }
         }
+        runDeliveries();
     }
     
     private static DataSourceTypeAdapter<?, ?> defaultTypeAdapter = new DataSourceTypeAdapter<Object, Object>() {
@@ -255,25 +298,32 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
     }
 
     @Override
-    protected synchronized void addReader(ReadCollector subscription) {
-        readUsageCounter++;
-        MonitorHandler monitor = new MonitorHandler(subscription);
-        readers.put(subscription, monitor);
-        monitor.findTypeAdapter();
-        guardedConnect();
-        if (getUsageCounter() > 1) {
-            if (connectionPayload != null) {
-                monitor.processConnection(isConnected());
-            }
-            if (lastMessage != null) {
-                monitor.processValue(lastMessage);
+    protected void addReader(ReadCollector subscription) {
+        synchronized (this) {
+            readUsageCounter++;
+            MonitorHandler monitor = new MonitorHandler(subscription);
+            readers.put(subscription, monitor);
+            monitor.findTypeAdapter();
+            guardedConnect();
+            if (getUsageCounter() > 1) {
+                if (connectionPayload != null) {
+                    queueConnection(Collections.singletonList(monitor), isConnected());
+                }
+                if (lastMessage != null) {
+                    queueDelivery(Collections.singletonList(monitor), connectionPayload, lastMessage);
+                }
             }
-        } 
+        }
+        runDeliveries();
     }
 
     @Override
     protected synchronized void removeReader(ReadCollector subscription) {
-        readers.remove(subscription);
+        MonitorHandler monitor = readers.remove(subscription);
+        if (monitor != null) {
+            // Skip the deliveries already queued
+            monitor.removed = true;
+        }
         readUsageCounter--;
         guardedDisconnect();
     }
@@ -354,17 +404,101 @@ public abstract class MultiplexedChannelHandler<ConnectionPayload, MessagePayloa
      * a new value needs to be processed. The handler will take care of
      * using the correct {@link DataSourceTypeAdapter}
      * for each read monitor that was setup.
+     * <p>
+     * Readers are notified outside the handler lock, one message at a time
+     * and in the order the messages (and connection changes) were processed.
+     * A reader removed before a message is delivered does not receive it.
+     * Readers that share the same type adapter, if the adapter supports it,
+     * receive the same value converted only once (see {@link DataSourceTypeAdapter#isConversionShared() }).
      * 
      * @param payload the payload of for this type of channel
      */
-    protected synchronized final void processMessage(MessagePayload payload) {
+    protected final void processMessage(MessagePayload payload) {
         if (log.isLoggable(Level.FINEST)) {
             log.log(Level.FINEST, "processMessage for channel {0} messagePayload {1}", new Object[]{getChannelName(), payload});
         }
         
+        synchronized (this) {
+            queueMessage(payload);
+        }
+        runDeliveries();
+    }
+    
+    // Must be called while holding the handler lock
+    private void queueMessage(MessagePayload payload) {
         lastMessage = payload;
-        for (MonitorHandler monitor : readers.values()) {
-            monitor.processValue(payload);
+        queueDelivery(new ArrayList<>(readers.values()), connectionPayload, payload);
+    }
+    
+    // Must be called while holding the handler lock
+    private void queueDelivery(List<MonitorHandler> monitors, ConnectionPayload connection, MessagePayload payload) {
+        queue(() -> deliverMessage(monitors, connection, payload));
+    }
+    
+    // Must be called while holding the handler lock
+    private void queueConnection(List<MonitorHandler> monitors, boolean connected) {
+        queue(() -> deliverConnection(monitors, connected));
+    }
+    
+    private void queue(Runnable delivery) {
+        synchronized (deliveryLock) {
+            deliveries.add(delivery);
+        }
+    }
+    
+    private void runDeliveries() {
+        synchronized (deliveryLock) {
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        boolean drained = false;
+        try {
+            while (true) {
+                Runnable delivery;
+                synchronized (deliveryLock) {
+                    delivery = deliveries.poll();
+                    if (delivery == null) {
+                        // Cleared together with the empty check, so that
+                        // a delivery queued right after is not left behind
+                        delivering = false;
+                        drained = true;
+                        return;
+                    }
+                }
+                delivery.run();
+            }
+        } finally {
+            if (!drained) {
+                // A delivery threw an Error: let the next caller run the rest
+                synchronized (deliveryLock) {
+                    delivering = false;
+                }
+            }
+        }
+    }
+    
+    private void deliverConnection(List<MonitorHandler> monitors, boolean connected) {
+        for (MonitorHandler monitor : monitors) {
+            // A failing reader must not prevent the delivery to the others
+            try {
+                monitor.processConnection(connected);
+            } catch (RuntimeException ex) {
+                log.log(Level.WARNING, "Couldn't deliver connection for channel " + getChannelName(), ex);
+            }
+        }
+    }
+    
+    private void deliverMessage(List<MonitorHandler> monitors, ConnectionPayload connection, MessagePayload payload) {
+        Map<DataSourceTypeAdapter<ConnectionPayload, MessagePayload>, Object> convertedValues = new IdentityHashMap<>();
+        for (MonitorHandler monitor : monitors) {
+            // A failing reader must not prevent the delivery to the others
+            try {
+                monitor.processValue(connection, payload, convertedValues);
+            } catch (RuntimeException ex) {
+                log.log(Level.WARNING, "Couldn't deliver message for channel " + getChannelName(), ex);
+            }
         }
     }
 
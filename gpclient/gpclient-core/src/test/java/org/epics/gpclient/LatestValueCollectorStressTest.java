@@ -0,0 +1,75 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.gpclient;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.epics.util.concurrent.Executors;
+import org.junit.AfterClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Stress test for a high rate channel coalesced to the desired rate: several
+ * threads update a collector as fast as they can, while a passive rate
+ * decoupler reads it at the desired rate. The throughput comparison with the
+ * previous locked path is in the benchmarks module (LatestValueCollectorBenchmark).
+ */
+public class LatestValueCollectorStressTest {
+
+    static ScheduledExecutorService executor = java.util.concurrent.Executors.newScheduledThreadPool(3, Executors.namedPool("test"));
+
+    @AfterClass
+    public static void closeExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void lastUpdateNotLost() throws Exception {
+        int nThreads = 4;
+        int nUpdates = 200000;
+        LatestValueCollector<Integer> collector = new LatestValueCollector<>(Integer.class);
+        AtomicReference<Integer> lastRead = new AtomicReference<>();
+        AtomicInteger nNotifications = new AtomicInteger();
+        AtomicReference<RateDecoupler> decouplerRef = new AtomicReference<>();
+        RateDecoupler decoupler = new PassiveRateDecoupler(executor, Duration.ofMillis(10), (PVEvent event) -> {
+            // As the PVDirector, read the value once notified
+            lastRead.set(collector.getValue());
+            nNotifications.incrementAndGet();
+            decouplerRef.get().readyForNextEvent();
+        }, null);
+        decouplerRef.set(decoupler);
+        collector.setUpdateListener(decoupler.getUpdateListener());
+        decoupler.start();
+
+        Thread[] threads = new Thread[nThreads];
+        for (int n = 0; n < nThreads; n++) {
+            threads[n] = new Thread(() -> {
+                for (int i = 0; i < nUpdates; i++) {
+                    collector.updateValue(i);
+                }
+            });
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // The last update is never lost
+        collector.updateValue(-1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Integer.valueOf(-1).equals(lastRead.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        decoupler.stop();
+        assertThat(lastRead.get(), equalTo(-1));
+
+        // The updates were coalesced
+        assertThat(nNotifications.get(), lessThan(nThreads * nUpdates));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.gpclient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.epics.gpclient.datasource.MultiplexedChannelHandler;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Stress test for the delivery of a multiplexed channel to queue collectors:
+ * several threads process messages, while the connection changes and readers
+ * are added and removed.
+ */
+public class MultiplexedChannelHandlerStressTest {
+
+    private static class TestHandler extends MultiplexedChannelHandler<Boolean, Integer> {
+
+        public TestHandler() {
+            super("test");
+        }
+
+        @Override
+        protected void connect() {
+            processConnection(true);
+        }
+
+        @Override
+        protected void disconnect() {
+        }
+
+        @Override
+        protected boolean isConnected(Boolean payload) {
+            return payload;
+        }
+
+        void add(ReadCollector<?, ?> collector) {
+            addReader(collector);
+        }
+
+        void remove(ReadCollector<?, ?> collector) {
+            removeReader(collector);
+        }
+
+        void connection(boolean connected) {
+            processConnection(connected);
+        }
+
+        void message(int value) {
+            processMessage(value);
+        }
+    }
+
+    // Re-deliveries of the last message (on connection changes and to new
+    // readers) are queued right after it, so they are removed here
+    private static List<Integer> withoutRepeats(List<Integer> values) {
+        List<Integer> result = new ArrayList<>();
+        for (Integer value : values) {
+            if (result.isEmpty() || !result.get(result.size() - 1).equals(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    // Values from the same thread are received in the order they were processed
+    private static void assertInOrder(List<Integer> values, int nThreads, int nUpdates) {
+        int[] last = new int[nThreads];
+        Arrays.fill(last, -1);
+        for (Integer value : values) {
+            int thread = value / nUpdates;
+            assertThat(value, greaterThan(last[thread]));
+            last[thread] = value;
+        }
+    }
+
+    @Test
+    public void allValuesDelivered() throws Exception {
+        int nThreads = 4;
+        int nUpdates = 20000;
+        TestHandler handler = new TestHandler();
+        List<AllValuesCollector<Integer>> collectors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AllValuesCollector<Integer> collector = new AllValuesCollector<>(Integer.class);
+            collectors.add(collector);
+            handler.add(collector);
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        List<List<Integer>> churnValues = new ArrayList<>();
+        Thread connectionThread = new Thread(() -> {
+            boolean connected = true;
+            while (!done.get()) {
+                connected = !connected;
+                handler.connection(connected);
+            }
+            handler.connection(true);
+        });
+        Thread churnThread = new Thread(() -> {
+            while (!done.get()) {
+                AllValuesCollector<Integer> collector = new AllValuesCollector<>(Integer.class);
+                handler.add(collector);
+                Thread.yield();
+                handler.remove(collector);
+                churnValues.add(withoutRepeats(collector.getValue()));
+            }
+        });
+        connectionThread.start();
+        churnThread.start();
+
+        Thread[] threads = new Thread[nThreads];
+        for (int n = 0; n < nThreads; n++) {
+            int offset = n * nUpdates;
+            threads[n] = new Thread(() -> {
+                for (int i = 0; i < nUpdates; i++) {
+                    handler.message(offset + i);
+                }
+            });
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        connectionThread.join();
+        churnThread.join();
+
+        // No message is lost or delivered out of order, and all the
+        // readers receive the same sequence
+        List<Integer> expected = withoutRepeats(collectors.get(0).getValue());
+        assertThat(expected.size(), equalTo(nThreads * nUpdates));
+        assertInOrder(expected, nThreads, nUpdates);
+        for (int i = 1; i < collectors.size(); i++) {
+            assertThat(withoutRepeats(collectors.get(i).getValue()), equalTo(expected));
+        }
+        
+        // Readers added and removed during the delivery receive a part
+        // of the same sequence
+        Set<Integer> expectedValues = new HashSet<>(expected);
+        for (List<Integer> values : churnValues) {
+            assertInOrder(values, nThreads, nUpdates);
+            assertThat(expectedValues.containsAll(values), equalTo(true));
+        }
+    }
+}
@@ -21,4 +21,17 @@ public class PVEventTest {
         assertThat(PVEvent.valueEvent().addEvent(PVEvent.readConnectionEvent()), not(equalTo(PVEvent.readConnectionValueEvent())));
         assertThat(PVEvent.valueEvent().addEvent(PVEvent.readConnectionEvent()).getType(), equalTo(Arrays.asList(PVEvent.Type.VALUE, PVEvent.Type.READ_CONNECTION)));
     }
+    
+    @Test
+    public void addEvent2() {
+        // Coalescing events already included does not create new events
+        PVEvent event = PVEvent.readConnectionValueEvent();
+        assertThat(event.addEvent(PVEvent.valueEvent()), sameInstance(event));
+        assertThat(PVEvent.valueEvent().addEvent(PVEvent.valueEvent()), sameInstance(PVEvent.valueEvent()));
+        assertThat(event.addEvent(PVEvent.readConnectionEvent()).getType(), equalTo(Arrays.asList(PVEvent.Type.VALUE, PVEvent.Type.READ_CONNECTION)));
+        
+        RuntimeException ex = new RuntimeException();
+        PVEvent exceptionEvent = PVEvent.exceptionEvent(ex);
+        assertThat(exceptionEvent.addEvent(PVEvent.exceptionEvent(ex)), not(sameInstance(exceptionEvent)));
+    }
 }
@@ -0,0 +1,123 @@
+/**
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE.TXT included with the distribution.
+ */
+package org.epics.gpclient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.epics.util.concurrent.Executors;
+import org.junit.AfterClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for {@link RateGroupScheduler}.
+ */
+public class RateGroupSchedulerTest {
+
+    static ScheduledExecutorService executor = java.util.concurrent.Executors.newScheduledThreadPool(3, Executors.namedPool("test"));
+
+    @AfterClass
+    public static void closeExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sameSchedulerAndGroup() {
+        RateGroupScheduler scheduler = RateGroupScheduler.of(executor);
+        assertThat(RateGroupScheduler.of(executor), sameInstance(scheduler));
+        assertThat(scheduler.group(Duration.ofMillis(10)), sameInstance(scheduler.group(Duration.ofMillis(10))));
+        assertThat(scheduler.group(Duration.ofMillis(10)), not(sameInstance(scheduler.group(Duration.ofMillis(20)))));
+    }
+
+    @Test
+    public void activeDecouplersShareTick() throws Exception {
+        ScheduledExecutorService exec = java.util.concurrent.Executors.newScheduledThreadPool(2, Executors.namedPool("test"));
+        try {
+            int nPvs = 1000;
+            RateGroupScheduler.RateGroup group = RateGroupScheduler.of(exec).group(Duration.ofMillis(10));
+            List<DesiredRateEventLog> logs = new ArrayList<>();
+            List<RateDecoupler> decouplers = new ArrayList<>();
+            for (int i = 0; i < nPvs; i++) {
+                DesiredRateEventLog log = new DesiredRateEventLog();
+                RateDecoupler decoupler = new ActiveRateDecoupler(exec, Duration.ofMillis(10), log, null);
+                log.setDecoupler(decoupler);
+                decoupler.start();
+                logs.add(log);
+                decouplers.add(decoupler);
+            }
+            assertThat(group.getPeriodicTaskCount(), equalTo(nPvs));
+            assertThat(group.isTicking(), equalTo(true));
+
+            Thread.sleep(200);
+            for (RateDecoupler decoupler : decouplers) {
+                decoupler.stop();
+            }
+            assertThat(group.getPeriodicTaskCount(), equalTo(0));
+
+            // Every pv was scanned at about the rate
+            for (DesiredRateEventLog log : logs) {
+                assertThat(log.getEvents().size(), allOf(greaterThanOrEqualTo(5), lessThanOrEqualTo(25)));
+            }
+
+            // Without pvs, the tick stops and the group is dropped
+            Thread.sleep(50);
+            assertThat(group.isTicking(), equalTo(false));
+            assertThat(RateGroupScheduler.of(exec).getGroupCount(), equalTo(0));
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void scheduleOnceNotBeforeDelay() throws Exception {
+        RateGroupScheduler.RateGroup group = RateGroupScheduler.of(executor).group(Duration.ofMillis(5));
+        int nTasks = 100;
+        CountDownLatch latch = new CountDownLatch(nTasks);
+        AtomicLong earliest = new AtomicLong(Long.MAX_VALUE);
+        long start = System.nanoTime();
+        for (int i = 0; i < nTasks; i++) {
+            group.scheduleOnce(() -> {
+                earliest.accumulateAndGet(System.nanoTime() - start, Math::min);
+                latch.countDown();
+            }, Duration.ofMillis(20));
+        }
+        assertThat(latch.await(1, TimeUnit.SECONDS), equalTo(true));
+        assertThat(earliest.get(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20)));
+    }
+
+    @Test
+    public void idleGroupRemoved() throws Exception {
+        ScheduledExecutorService exec = java.util.concurrent.Executors.newScheduledThreadPool(1, Executors.namedPool("test"));
+        try {
+            RateGroupScheduler scheduler = RateGroupScheduler.of(exec);
+            RateGroupScheduler.RateGroup group = scheduler.group(Duration.ofMillis(5));
+            CountDownLatch first = new CountDownLatch(1);
+            group.scheduleOnce(first::countDown, Duration.ZERO);
+            assertThat(first.await(1, TimeUnit.SECONDS), equalTo(true));
+
+            // Stops at the next tick without tasks
+            long deadline = System.currentTimeMillis() + 1000;
+            while (group.isTicking() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(group.isTicking(), equalTo(false));
+            assertThat(scheduler.getGroupCount(), equalTo(0));
+            assertThat(scheduler.group(Duration.ofMillis(5)), not(sameInstance(group)));
+
+            // A removed group kept by a caller still works
+            CountDownLatch second = new CountDownLatch(1);
+            group.scheduleOnce(second::countDown, Duration.ZERO);
+            assertThat(second.await(1, TimeUnit.SECONDS), equalTo(true));
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -4,7 +4,17 @@
  */
 package org.epics.gpclient.datasource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import org.epics.gpclient.ProbeCollector;
+import org.epics.gpclient.ReadCollector;
 import org.epics.gpclient.PVEvent;
 import org.epics.gpclient.PVEventRecorder;
 import org.junit.Test;
@@ -175,4 +185,366 @@ public class DataSourceImplementationTest {
         assertThat(recorder.getEvents().get(2), equalTo(PVEvent.writeConnectionEvent()));
         assertThat(recorder.getEvents().get(3), equalTo(PVEvent.writeFailedEvent(ex)));
     }
+    
+    @Test
+    public void sharedConversion() {
+        AtomicInteger conversions = new AtomicInteger();
+        DataSourceTypeAdapter<Object, Object> adapter = new DataSourceTypeAdapter<Object, Object>() {
+            @Override
+            public boolean match(ReadCollector<?, ?> cache, Object connection) {
+                return true;
+            }
+
+            @Override
+            public Object getSubscriptionParameter(ReadCollector<?, ?> cache, Object connection) {
+                throw new UnsupportedOperationException("Not supported");
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void updateCache(ReadCollector cache, Object connection, Object message) {
+                cache.updateValue(convert(connection, message));
+            }
+
+            @Override
+            public boolean isConversionShared() {
+                return true;
+            }
+
+            @Override
+            public Object convert(Object connection, Object message) {
+                conversions.incrementAndGet();
+                return "Converted " + message;
+            }
+        };
+        MultiplexedChannelHandler<Object, Object> handler = new MultiplexedChannelHandler<Object, Object>("shared") {
+            @Override
+            protected void connect() {
+                this.processConnection(true);
+            }
+
+            @Override
+            protected void disconnect() {
+            }
+
+            @Override
+            protected DataSourceTypeAdapter<Object, Object> findTypeAdapter(ReadCollector<?, ?> cache, Object connection) {
+                return adapter;
+            }
+        };
+        
+        ProbeCollector<?>[] probes = new ProbeCollector<?>[50];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = ProbeCollector.create();
+            handler.addReader(probes[i].getReadCollector());
+        }
+        
+        handler.processMessage("Value");
+        
+        assertThat(conversions.get(), equalTo(1));
+        for (ProbeCollector<?> probe : probes) {
+            assertThat(probe.getValue(), sameInstance(probes[0].getValue()));
+            assertThat(probe.getValue(), equalTo("Converted Value"));
+        }
+    }
+    
+    @Test
+    public void conversionFallback() {
+        // Shared conversion without convert: each cache is updated through updateCache
+        DataSourceTypeAdapter<Object, Object> adapter = new DataSourceTypeAdapter<Object, Object>() {
+            @Override
+            public boolean match(ReadCollector<?, ?> cache, Object connection) {
+                return true;
+            }
+
+            @Override
+            public Object getSubscriptionParameter(ReadCollector<?, ?> cache, Object connection) {
+                throw new UnsupportedOperationException("Not supported");
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void updateCache(ReadCollector cache, Object connection, Object message) {
+                cache.updateValue("Updated " + message);
+            }
+
+            @Override
+            public boolean isConversionShared() {
+                return true;
+            }
+        };
+        MultiplexedChannelHandler<Object, Object> handler = new MultiplexedChannelHandler<Object, Object>("fallback") {
+            @Override
+            protected void connect() {
+                this.processConnection(true);
+            }
+
+            @Override
+            protected void disconnect() {
+            }
+
+            @Override
+            protected DataSourceTypeAdapter<Object, Object> findTypeAdapter(ReadCollector<?, ?> cache, Object connection) {
+                return adapter;
+            }
+        };
+        
+        ProbeCollector<?> probe1 = ProbeCollector.create();
+        ProbeCollector<?> probe2 = ProbeCollector.create();
+        handler.addReader(probe1.getReadCollector());
+        handler.addReader(probe2.getReadCollector());
+        handler.processMessage("Value");
+        
+        assertThat(probe1.getValue(), equalTo("Updated Value"));
+        assertThat(probe2.getValue(), equalTo("Updated Value"));
+    }
+    
+    @Test
+    public void readerRemovedDuringDelivery() {
+        // Each reader removes the other when it receives a value:
+        // only the first one to receive the message gets it
+        ProbeCollector<?>[] probes = new ProbeCollector<?>[2];
+        ReadCollector<?, ?>[] collectors = new ReadCollector<?, ?>[2];
+        AtomicInteger updates = new AtomicInteger();
+        MultiplexedChannelHandler<Object, Object> handler = new MultiplexedChannelHandler<Object, Object>("removal") {
+            @Override
+            protected void connect() {
+                this.processConnection(true);
+            }
+
+            @Override
+            protected void disconnect() {
+            }
+
+            @Override
+            protected DataSourceTypeAdapter<Object, Object> findTypeAdapter(ReadCollector<?, ?> cache, Object connection) {
+                DataSourceTypeAdapter<Object, Object> defaultAdapter = super.findTypeAdapter(cache, connection);
+                return new DataSourceTypeAdapter<Object, Object>() {
+                    @Override
+                    public boolean match(ReadCollector<?, ?> cache, Object connection) {
+                        return true;
+                    }
+
+                    @Override
+                    public Object getSubscriptionParameter(ReadCollector<?, ?> cache, Object connection) {
+                        throw new UnsupportedOperationException("Not supported");
+                    }
+
+                    @Override
+                    public void updateCache(ReadCollector<?, ?> cache, Object connection, Object message) {
+                        updates.incrementAndGet();
+                        defaultAdapter.updateCache(cache, connection, message);
+                        removeReader(cache == collectors[0] ? collectors[1] : collectors[0]);
+                    }
+                };
+            }
+        };
+        
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = ProbeCollector.create();
+            collectors[i] = probes[i].getReadCollector();
+            handler.addReader(collectors[i]);
+        }
+        handler.processMessage("Value");
+        
+        assertThat(updates.get(), equalTo(1));
+        assertThat(handler.getReadUsageCounter(), equalTo(1));
+    }
+    
+    /**
+     * Handler whose connection payload is the connection flag, and whose
+     * readers are updated through the given adapter update.
+     */
+    private static MultiplexedChannelHandler<Object, Object> createHandler(String name, BiConsumer<MultiplexedChannelHandler<Object, Object>, Object> onUpdate) {
+        return new MultiplexedChannelHandler<Object, Object>(name) {
+            @Override
+            protected void connect() {
+                this.processConnection(true);
+            }
+
+            @Override
+            protected void disconnect() {
+            }
+
+            @Override
+            protected boolean isConnected(Object payload) {
+                return Boolean.TRUE.equals(payload);
+            }
+
+            @Override
+            protected DataSourceTypeAdapter<Object, Object> findTypeAdapter(ReadCollector<?, ?> cache, Object connection) {
+                MultiplexedChannelHandler<Object, Object> handler = this;
+                return new DataSourceTypeAdapter<Object, Object>() {
+                    @Override
+                    public boolean match(ReadCollector<?, ?> cache, Object connection) {
+                        return true;
+                    }
+
+                    @Override
+                    public Object getSubscriptionParameter(ReadCollector<?, ?> cache, Object connection) {
+                        throw new UnsupportedOperationException("Not supported");
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void updateCache(ReadCollector cache, Object connection, Object message) {
+                        cache.updateValue(message);
+                        onUpdate.accept(handler, message);
+                    }
+                };
+            }
+        };
+    }
+    
+    @Test
+    public void connectionDeliveredInOrder() {
+        // A disconnect processed while a value is delivered reaches the reader
+        // after the values processed before it
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ProbeCollector<Object> probe = new ProbeCollector<>(Object.class, new PrintStream(buffer, true));
+        MultiplexedChannelHandler<Object, Object> handler = createHandler("order", (h, message) -> {
+            if ("Value1".equals(message)) {
+                h.processMessage("Value2");
+                h.processConnection(false);
+            }
+        });
+        
+        handler.addReader(probe.getReadCollector());
+        handler.processMessage("Value1");
+        
+        assertThat(buffer.toString().split("\\R"), arrayContaining("CONN: true", "VAL: Value1", "VAL: Value2", "CONN: false", "VAL: Value2"));
+    }
+    
+    @Test
+    public void deliveryAfterError() {
+        // An Error thrown by a reader does not stop later deliveries
+        ProbeCollector<?> probe = ProbeCollector.create();
+        MultiplexedChannelHandler<Object, Object> handler = createHandler("error", (h, message) -> {
+            if ("Value1".equals(message)) {
+                throw new AssertionError("Failing reader");
+            }
+        });
+        
+        handler.addReader(probe.getReadCollector());
+        try {
+            handler.processMessage("Value1");
+            fail("Error expected");
+        } catch (AssertionError ex) {
+            assertThat(ex.getMessage(), equalTo("Failing reader"));
+        }
+        handler.processMessage("Value2");
+        
+        assertThat(probe.getValue(), equalTo("Value2"));
+    }
+    
+    @Test
+    public void shardedWorkers() throws InterruptedException {
+        int nChannels = 100;
+        int nReadersPerChannel = 3;
+        Map<String, Set<Thread>> threadsByChannel = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(nChannels * nReadersPerChannel);
+        DataSource dataSource = new DataSource() {
+            @Override
+            protected ChannelHandler createChannel(String channelName) {
+                return new MultiplexedChannelHandler<Object, Object>(channelName) {
+                    @Override
+                    protected void connect() {
+                    }
+
+                    @Override
+                    protected void disconnect() {
+                    }
+
+                    @Override
+                    protected synchronized void addReader(ReadCollector subscription) {
+                        super.addReader(subscription);
+                        threadsByChannel.computeIfAbsent(channelName, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        dataSource.setWorkerCount(4);
+        
+        for (int n = 0; n < nReadersPerChannel; n++) {
+            for (int i = 0; i < nChannels; i++) {
+                dataSource.startRead(new ReadSubscription("channel" + i, ProbeCollector.create().getReadCollector()));
+            }
+        }
+        
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+            assertThat(dataSource.getChannels().size(), equalTo(nChannels));
+            
+            // All the work for one channel happens on the same worker,
+            // while the channels are spread among the workers
+            Set<Thread> allThreads = ConcurrentHashMap.newKeySet();
+            for (Set<Thread> threads : threadsByChannel.values()) {
+                assertThat(threads.size(), equalTo(1));
+                allThreads.addAll(threads);
+            }
+            assertThat(allThreads.size(), equalTo(4));
+        } finally {
+            dataSource.close();
+        }
+        
+        try {
+            dataSource.setWorkerCount(2);
+            fail("Worker count can't change once the data source is in use");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+    
+    @Test
+    public void channelCreationNotConcurrent() throws InterruptedException {
+        int nChannels = 100;
+        AtomicInteger creating = new AtomicInteger();
+        AtomicInteger maxCreating = new AtomicInteger();
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(nChannels);
+        DataSource dataSource = new DataSource() {
+            @Override
+            protected ChannelHandler createChannel(String channelName) {
+                maxCreating.accumulateAndGet(creating.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                creating.decrementAndGet();
+                created.incrementAndGet();
+                return new MultiplexedChannelHandler<Object, Object>(channelName) {
+                    @Override
+                    protected void connect() {
+                    }
+
+                    @Override
+                    protected void disconnect() {
+                    }
+
+                    @Override
+                    protected synchronized void addReader(ReadCollector subscription) {
+                        super.addReader(subscription);
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        dataSource.setWorkerCount(4);
+        
+        for (int i = 0; i < nChannels; i++) {
+            dataSource.startRead(new ReadSubscription("channel" + i, ProbeCollector.create().getReadCollector()));
+        }
+        
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+            // Channels are created by different workers, but never at the same time
+            assertThat(created.get(), equalTo(nChannels));
+            assertThat(maxCreating.get(), equalTo(1));
+            assertThat(dataSource.getChannels().size(), equalTo(nChannels));
+        } finally {
+            dataSource.close();
+        }
+    }
 }
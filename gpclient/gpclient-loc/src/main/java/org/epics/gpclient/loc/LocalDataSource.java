@@ -64,7 +64,7 @@ public class LocalDataSource extends DataSource {
     }
     
     private void initialize(final String channelName) {
-        exec.submit(new Runnable() {
+        executorFor(channelName).execute(new Runnable() {
             @Override
             public void run() {
                 List<Object> parsedTokens = parseName(channelName);
@@ -57,6 +57,7 @@ public class PVADataSource extends DataSource {
 
     @Override
     public void close() {
+        super.close();
         if (this.pvaChannelProvider != null) {
             pvaChannelProvider.destroy();
         }
@@ -167,6 +167,16 @@ abstract class PVATypeAdapter implements DataSourceTypeAdapter<PVAConnectionPayl
     @Override
     @SuppressWarnings("unchecked")
     public void updateCache(@SuppressWarnings("rawtypes") ReadCollector cache, PVAConnectionPayload connection, PVStructure message) {
+        cache.updateValue(convert(connection, message));
+    }
+
+    @Override
+    public boolean isConversionShared() {
+        return true;
+    }
+
+    @Override
+    public Object convert(PVAConnectionPayload connection, PVStructure message) {
 
     	PVField valueField = null;
     	String extractFieldName = connection.extractFieldName;
@@ -180,8 +190,7 @@ abstract class PVATypeAdapter implements DataSourceTypeAdapter<PVAConnectionPayl
   
     	}
     	
-        Object value = createValue(message, valueField, !connection.connected);
-        cache.updateValue(value);
+        return createValue(message, valueField, !connection.connected);
     }
 
     /**
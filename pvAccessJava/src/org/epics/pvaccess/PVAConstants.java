@@ -112,4 +112,15 @@ public interface PVAConstants {
 	 * (0 - none, 1 - debug, 2 - more debug, 3 - dump messages)
      */
     public static final String PVACCESS_DEBUG = "EPICS_PVA_DEBUG";
+
+    /**
+     * String value of the JVM property key to run blocking transport (receive and send) loops
+     * on virtual threads, if supported by the running JVM (ignored otherwise).
+     */
+    public static final String PVACCESS_VIRTUAL_THREADS = "EPICS_PVA_VIRTUAL_THREADS";
+
+    /**
+     * String value of the JVM property key to use direct (off-heap), pooled transport buffers.
+     */
+    public static final String PVACCESS_DIRECT_BUFFERS = "EPICS_PVA_DIRECT_BUFFERS";
 }
@@ -20,8 +20,6 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.epics.pvaccess.PVAConstants;
@@ -52,6 +50,7 @@ import org.epics.pvaccess.impl.remote.TransportSender;
 import org.epics.pvaccess.impl.remote.request.ResponseRequest;
 import org.epics.pvaccess.impl.remote.request.SubscriptionRequest;
 import org.epics.pvaccess.impl.remote.utils.GUID;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.misc.TimerFactory;
 import org.epics.pvdata.misc.Timer.TimerCallback;
@@ -115,7 +114,7 @@ public class ChannelImpl implements Channel, SearchInstance, TransportClient, Tr
 	/**
 	 * List of all channel's pending requests (keys are subscription IDs). 
 	 */
-	protected final Map<Integer, ResponseRequest> responseRequests = new HashMap<Integer, ResponseRequest>();
+	protected final IntHashMap<ResponseRequest> responseRequests = new IntHashMap<ResponseRequest>();
 	
 	/**
 	 * Allow reconnection flag. 
@@ -15,6 +15,8 @@
 package org.epics.pvaccess.client.impl.remote;
 
 import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.epics.pvaccess.PVFactory;
@@ -43,6 +45,18 @@ import org.epics.pvdata.pv.Structure;
 
 /**
  * PVA monitor request.
+ * <p>
+ * Supported <code>record._options</code> of the pvRequest:
+ * <ul>
+ * <li><code>queueSize</code> - number of monitor elements, at least (and by default) 2;</li>
+ * <li><code>pipeline</code> - <code>true</code> to enable flow control (pipelining), default <code>false</code>;</li>
+ * <li><code>ackAny</code> - with pipelining, number (or percentage, e.g. <code>50%</code>) of released
+ * 	   elements reported to the server at once, default half of the queue size;</li>
+ * <li><code>readOnlyElements</code> - <code>true</code> if the client never modifies the elements
+ * 	   returned by <code>poll()</code>, default <code>false</code>. A released element is then brought
+ * 	   up-to-date by copying only the fields that changed, instead of the whole structure.
+ * 	   By default released elements are copied as whole, the client may have modified them.</li>
+ * </ul>
  * @author <a href="mailto:matej.sekoranjaATcosylab.com">Matej Sekoranja</a>
  * @version $Id$
  */
@@ -93,6 +107,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 		int qs = 2;
 		boolean pl = false;
 		int aa = 1;
+		boolean ro = false;
 		
 		PVField pvField = pvRequest.getSubField("record._options");
 		if (pvField!=null) {
@@ -148,13 +163,18 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
                 	
                 }
 		    }
+
+		    // elements are not modified by the client (opt-in), see MonitorStrategyQueue
+		    pvString = pvOptions.getStringField("readOnlyElements");
+		    if (pvString!=null)
+		    	ro = Boolean.parseBoolean(pvString.get());
 		}
 		
         queueSize = qs;
         pipeline = pl;
         ackAny = aa;
         
-        monitorStrategy = new MonitorStrategyQueue(queueSize, pipeline, ackAny);
+        monitorStrategy = new MonitorStrategyQueue(queueSize, pipeline, ackAny, ro);
 	}
 
 
@@ -186,6 +206,13 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	private static final BitSetUtil bitSetUtil = BitSetUtilFactory.getCompressBitSet();
     private static final Convert convert = ConvertFactory.getConvert();
 
+    /**
+     * Queue monitor strategy.
+     * A free element is brought up-to-date with the current element by copying only the fields
+     * that changed since the element was current. An element handed out by <code>poll()</code>
+     * can be modified by the client, therefore it is copied as whole when released, unless
+     * the client declares it does not modify the elements (<code>record._options.readOnlyElements=true</code>).
+     */
     // TODO fix sync
     private final class MonitorStrategyQueue implements MonitorStrategy, TransportSender {
 		private final int queueSize;
@@ -197,6 +224,12 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 
 	    private Structure lastStructure = null;
 	    private MonitorQueue monitorQueue = null;
+
+	    /**
+	     * Per element set of fields that differ from the current <code>monitorElement</code>,
+	     * i.e. fields that need to be copied when the element is taken from the free queue.
+	     */
+	    private Map<MonitorElement, BitSet> pendingCopy = null;
 	    
 	    private final Object monitorSync = new Object();
 	    
@@ -207,12 +240,14 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	    
 	    private final boolean pipeline;
 	    private final int ackAny;
+	    private final boolean readOnlyElements;
 	    
 	    private boolean unlisten;
 	    
 		public MonitorStrategyQueue(
 				int queueSize,
-				boolean pipeline, int ackAny)
+				boolean pipeline, int ackAny,
+				boolean readOnlyElements)
 		{
 			if (queueSize <= 1)
 				throw new IllegalArgumentException("queueSize <= 1");
@@ -220,6 +255,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 			this.queueSize = queueSize;
 			this.pipeline = pipeline;
 			this.ackAny = ackAny;
+			this.readOnlyElements = readOnlyElements;
 			
 		}
 		
@@ -236,9 +272,11 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 				if (lastStructure == null || !lastStructure.equals(structure))
 				{
 		    		MonitorElement[] monitorElements = new MonitorElement[queueSize];
+		    		pendingCopy = new IdentityHashMap<MonitorElement, BitSet>(queueSize);
 		            for(int i=0; i<queueSize; i++) {
 		                PVStructure pvNew = pvDataCreate.createPVStructure(structure);
 		                monitorElements[i] = MonitorQueueFactory.createMonitorElement(pvNew);
+		                pendingCopy.put(monitorElements[i], new BitSet(pvNew.getNumberFields()));
 		            }
 		            monitorQueue = MonitorQueueFactory.create(monitorElements);
 		            lastStructure = structure;
@@ -246,6 +284,45 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 			}
 		}
 		
+		/**
+		 * Mark fields changed in the current element as pending copy for all other elements.
+		 * Must be called with <code>monitorSync</code> held.
+		 * @param changedBitSet fields changed in the current element.
+		 */
+		private void markPending(BitSet changedBitSet)
+		{
+			for (Map.Entry<MonitorElement, BitSet> entry : pendingCopy.entrySet())
+				if (entry.getKey() != monitorElement)
+					entry.getValue().or(changedBitSet);
+		}
+
+		/**
+		 * Bring (free) element up-to-date with the current element, copying only fields that differ.
+		 * Must be called with <code>monitorSync</code> held.
+		 * @param pvStructure the current element structure.
+		 * @param newElement element to update.
+		 */
+		private void copyPending(PVStructure pvStructure, MonitorElement newElement)
+		{
+			final BitSet pending = pendingCopy.get(newElement);
+			final PVStructure pvTo = newElement.getPVStructure();
+			int offset = pending.nextSetBit(0);
+			while (offset >= 0)
+			{
+				if (offset == 0)
+				{
+					convert.copy(pvStructure, pvTo);
+					break;
+				}
+				
+				// structure fields are copied as whole, skip their subfields
+				final PVField pvFrom = pvStructure.getSubField(offset);
+				convert.copy(pvFrom, pvTo.getSubField(offset));
+				offset = pending.nextSetBit(pvFrom.getNextFieldOffset());
+			}
+			pending.clear();
+		}
+
 		@Override
 		public void unlisten()
 		{
@@ -278,7 +355,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	            	{
 	            		// take new, put current in use
 	    				final PVStructure pvStructure = monitorElement.getPVStructure();
-			            convert.copy(pvStructure, newElement.getPVStructure());
+			            copyPending(pvStructure, newElement);
 
 			            bitSetUtil.compress(monitorElement.getChangedBitSet(), pvStructure);
 			            bitSetUtil.compress(monitorElement.getOverrunBitSet(), pvStructure);
@@ -313,6 +390,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	            	bitSet1.deserialize(payloadBuffer, transport);
 					pvStructure.deserialize(payloadBuffer, transport, bitSet1);
 					bitSet2.deserialize(payloadBuffer, transport);
+					markPending(bitSet1);
 
 					// OR local overrun
 					// TODO this does not work perfectly if bitSet is compressed !!!
@@ -331,6 +409,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 		            changedBitSet.deserialize(payloadBuffer, transport);
 					pvStructure.deserialize(payloadBuffer, transport, changedBitSet);
 					overrunBitSet.deserialize(payloadBuffer, transport);
+					markPending(changedBitSet);
 	            }
 	            
 				// prepare next free (if any)
@@ -348,7 +427,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 		            overrunInProgress = false;
 	            }
 	            
-	            convert.copy(pvStructure, newElement.getPVStructure());
+	            copyPending(pvStructure, newElement);
      
 	            monitorQueue.setUsed(monitorElement);
 
@@ -381,7 +460,7 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	            	{
 	            		// take new, put current in use
 	    				final PVStructure pvStructure = monitorElement.getPVStructure();
-			            convert.copy(pvStructure, newElement.getPVStructure());
+			            copyPending(pvStructure, newElement);
 
 			            bitSetUtil.compress(monitorElement.getChangedBitSet(), pvStructure);
 			            bitSetUtil.compress(monitorElement.getOverrunBitSet(), pvStructure);
@@ -427,6 +506,11 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	        synchronized(monitorSync) {
 	            monitorQueue.releaseUsed(monitorElement);
 	            needToReleaseFirst = false;
+
+	            // the client might have modified it, copy as whole when taken from the free queue
+	            final BitSet pending = pendingCopy.get(monitorElement);
+	            if (!readOnlyElements && pending != null)
+	            	pending.set(0);
 	        
 		        if (pipeline)
 		        {
@@ -489,6 +573,11 @@ public class ChannelMonitorImpl extends BaseRequestImpl implements Monitor {
 	            monitorQueue.clear();
 	            monitorElement = monitorQueue.getFree();
 	            needToReleaseFirst = false;
+
+	            // current element might have changed, full copy needed
+	            for (BitSet pending : pendingCopy.values())
+	            	pending.set(0);
+	            pendingCopy.get(monitorElement).clear();
 			}
 			return okStatus;
 		}
@@ -21,8 +21,6 @@ import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.nio.channels.SocketChannel;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -65,6 +63,7 @@ import org.epics.pvaccess.impl.remote.utils.GUID;
 import org.epics.pvaccess.plugins.SecurityPlugin;
 import org.epics.pvaccess.plugins.impl.client.CAClientSecurityPlugin;
 import org.epics.pvaccess.util.InetAddressUtil;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvaccess.util.configuration.Configuration;
 import org.epics.pvaccess.util.configuration.ConfigurationProvider;
 import org.epics.pvaccess.util.configuration.impl.ConfigurationFactory;
@@ -174,6 +173,16 @@ public class ClientContextImpl implements Context {
 	 */
 	protected int receiveBufferSize = PVAConstants.MAX_TCP_RECV;
 
+	/**
+	 * Max. number of search frames sent in a burst (search rate limit).
+	 */
+	protected int searchMaxFramesAtOnce = 10;
+
+	/**
+	 * Delay in milliseconds between two bursts of search frames (search rate limit).
+	 */
+	protected int searchFrameBurstDelay = 50;
+
 	/**
 	 * Timer.
 	 */
@@ -222,7 +231,7 @@ public class ClientContextImpl implements Context {
 	 */
 	// TODO consider using WeakHashMap (and call Channel.destroy() in finalize()
 	// method).
-	protected final Map<Integer, Channel> channelsByCID = Collections.synchronizedMap(new HashMap<Integer, Channel>());
+	protected final IntHashMap<Channel> channelsByCID = new IntHashMap<Channel>();
 
 	/**
 	 * Last CID cache.
@@ -234,8 +243,7 @@ public class ClientContextImpl implements Context {
 	 */
 	// TODO consider using WeakHashMap (and call ResponseRequest.destroy() in
 	// finalize() method).
-	protected final Map<Integer, ResponseRequest> pendingResponseRequests = Collections
-			.synchronizedMap(new HashMap<Integer, ResponseRequest>());
+	protected final IntHashMap<ResponseRequest> pendingResponseRequests = new IntHashMap<ResponseRequest>();
 
 	/**
 	 * Last IOID cache.
@@ -335,6 +343,8 @@ public class ClientContextImpl implements Context {
 		beaconPeriod = config.getPropertyAsFloat("EPICS_PVA_BEACON_PERIOD", beaconPeriod);
 		broadcastPort = config.getPropertyAsInteger("EPICS_PVA_BROADCAST_PORT", broadcastPort);
 		receiveBufferSize = config.getPropertyAsInteger("EPICS_PVA_MAX_ARRAY_BYTES", receiveBufferSize);
+		searchMaxFramesAtOnce = Math.max(1, config.getPropertyAsInteger("EPICS_PVA_SEARCH_MAX_FRAMES", searchMaxFramesAtOnce));
+		searchFrameBurstDelay = Math.max(0, config.getPropertyAsInteger("EPICS_PVA_SEARCH_BURST_DELAY", searchFrameBurstDelay));
 	}
 
 	/**
@@ -546,7 +556,7 @@ public class ClientContextImpl implements Context {
      */
     private void destroyAllChannels() {
         synchronized (channelsByCID) {
-            for (Channel channel : new ArrayList<>(channelsByCID.values())) {
+            for (Channel channel : channelsByCID.values()) {
                 try {
                     channel.destroy();
                 } catch (Exception e) {
@@ -682,6 +692,10 @@ public class ClientContextImpl implements Context {
 		out.println("BEACON_PERIOD : " + beaconPeriod);
 		out.println("BROADCAST_PORT : " + broadcastPort);
 		out.println("RCV_BUFFER_SIZE : " + receiveBufferSize);
+		out.println("SEARCH_MAX_FRAMES : " + searchMaxFramesAtOnce);
+		out.println("SEARCH_BURST_DELAY : " + searchFrameBurstDelay);
+		if (channelSearchManager != null)
+			out.println("PENDING_SEARCHES : " + channelSearchManager.registeredCount());
 		// out.println("EVENT_DISPATCHER: " + eventDispatcher);
 		out.print("STATE : ");
 		switch (state) {
@@ -785,6 +799,24 @@ public class ClientContextImpl implements Context {
 		return broadcastPort;
 	}
 
+	/**
+	 * Get max. number of search frames sent in a burst.
+	 * 
+	 * @return max. number of search frames sent in a burst.
+	 */
+	public int getSearchMaxFramesAtOnce() {
+		return searchMaxFramesAtOnce;
+	}
+
+	/**
+	 * Get delay between two bursts of search frames.
+	 * 
+	 * @return delay between two bursts of search frames (in milliseconds).
+	 */
+	public int getSearchFrameBurstDelay() {
+		return searchFrameBurstDelay;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -959,7 +991,7 @@ public class ClientContextImpl implements Context {
 	 * @return request response with given I/O ID.
 	 */
     public ResponseRequest getResponseRequest(int ioid) {
-            return (ResponseRequest) pendingResponseRequests.get(ioid);
+            return pendingResponseRequests.get(ioid);
     }
 
 	/**
@@ -986,7 +1018,7 @@ public class ClientContextImpl implements Context {
 	 * @return removed object, can be <code>null</code>
 	 */
 	public ResponseRequest unregisterResponseRequest(ResponseRequest request) {
-		return (ResponseRequest) pendingResponseRequests.remove(request.getIOID());
+		return pendingResponseRequests.remove(request.getIOID());
 	}
 
 	/**
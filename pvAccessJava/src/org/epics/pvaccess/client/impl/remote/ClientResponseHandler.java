@@ -100,7 +100,7 @@ public class ClientResponseHandler implements ResponseHandler {
 		{
 			context.getLogger().fine("Invalid (or unsupported) command: " + command + ".");
 			// TODO remove debug output
-			HexDump.hexDump("Invalid PVA header " + command + " + , its payload buffer", payloadBuffer.array(), payloadBuffer.position(), payloadSize);
+			HexDump.hexDump("Invalid PVA header " + command + " + , its payload buffer", payloadBuffer, payloadBuffer.position(), payloadSize);
 			return;
 		}
 		
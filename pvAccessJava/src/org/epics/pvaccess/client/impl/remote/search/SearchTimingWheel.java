@@ -0,0 +1,118 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.client.impl.remote.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timing wheel of search instances, bucketed by the tick of their next search.
+ * Advancing the wheel by one tick touches only the channels that are due.
+ * Delays are limited to the wheel size, which covers the whole search back-off range.
+ * This class is not thread-safe, callers must synchronize.
+ */
+public class SearchTimingWheel {
+
+	/**
+	 * Buckets, channel ID to search instance.
+	 */
+	private final ArrayList<Map<Integer, SearchInstance>> buckets;
+
+	/**
+	 * Channel ID to bucket index.
+	 */
+	private final Map<Integer, Integer> slots = new HashMap<Integer, Integer>();
+
+	private final int mask;
+	private int currentIndex = 0;
+
+	/**
+	 * Constructor.
+	 * @param size number of buckets (ticks), must be a power of two.
+	 */
+	public SearchTimingWheel(int size)
+	{
+		if (size <= 0 || (size & (size - 1)) != 0)
+			throw new IllegalArgumentException("size must be a power of two");
+
+		mask = size - 1;
+		buckets = new ArrayList<Map<Integer, SearchInstance>>(size);
+		for (int i = 0; i < size; i++)
+			buckets.add(new LinkedHashMap<Integer, SearchInstance>());
+	}
+
+	/**
+	 * Schedule (or reschedule) search instance.
+	 * @param si search instance.
+	 * @param delay delay in ticks, <code>1 &lt;= delay &lt;= size</code>.
+	 */
+	public void schedule(SearchInstance si, int delay)
+	{
+		if (delay < 1 || delay > mask + 1)
+			throw new IllegalArgumentException("delay out of range: " + delay);
+
+		final int cid = si.getChannelID();
+		cancel(cid);
+
+		final int index = (currentIndex + delay) & mask;
+		buckets.get(index).put(cid, si);
+		slots.put(cid, index);
+	}
+
+	/**
+	 * Cancel scheduled search.
+	 * @param cid channel ID.
+	 * @return <code>true</code> if search was scheduled.
+	 */
+	public boolean cancel(int cid)
+	{
+		final Integer index = slots.remove(cid);
+		if (index == null)
+			return false;
+		buckets.get(index).remove(cid);
+		return true;
+	}
+
+	/**
+	 * Advance wheel by one tick.
+	 * @return search instances due, removed from the wheel.
+	 */
+	public List<SearchInstance> advance()
+	{
+		currentIndex = (currentIndex + 1) & mask;
+
+		final Map<Integer, SearchInstance> bucket = buckets.get(currentIndex);
+		if (bucket.isEmpty())
+			return new ArrayList<SearchInstance>(0);
+
+		final ArrayList<SearchInstance> due = new ArrayList<SearchInstance>(bucket.values());
+		for (Integer cid : bucket.keySet())
+			slots.remove(cid);
+		bucket.clear();
+		return due;
+	}
+
+	/**
+	 * Get number of search instances due on next tick.
+	 * @return number of search instances due on next tick.
+	 */
+	public int dueCount()
+	{
+		return buckets.get((currentIndex + 1) & mask).size();
+	}
+
+	/**
+	 * Get number of scheduled search instances.
+	 * @return number of scheduled search instances.
+	 */
+	public int size()
+	{
+		return slots.size();
+	}
+}
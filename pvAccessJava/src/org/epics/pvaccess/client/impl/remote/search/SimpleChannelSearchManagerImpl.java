@@ -18,9 +18,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,6 +28,8 @@ import org.epics.pvaccess.impl.remote.ProtocolType;
 import org.epics.pvaccess.impl.remote.TransportSendControl;
 import org.epics.pvaccess.impl.remote.udp.BlockingUDPTransport.InetAddressType;
 import org.epics.pvaccess.impl.remote.utils.GUID;
+import org.epics.pvaccess.util.BufferPool;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvaccess.util.InetAddressUtil;
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.misc.Timer.TimerCallback;
@@ -67,8 +67,12 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
     /**
      * Set of registered channels.
      */
-    private final Map<Integer, SearchInstance> channels = 
-    		Collections.synchronizedMap(new HashMap<Integer, SearchInstance>());
+    private final IntHashMap<SearchInstance> channels = new IntHashMap<SearchInstance>();
+    
+    /**
+     * Registered channels by their next search (timer) tick, guarded by <code>channels</code> lock.
+     */
+    private final SearchTimingWheel searchWheel = new SearchTimingWheel(WHEEL_SIZE);
     
     private final ArrayList<SearchInstance> immediateSearch = new ArrayList<SearchInstance>(128);
     
@@ -78,6 +82,9 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
     // 225ms +/- 25ms random
     private static final double ATOMIC_PERIOD = 0.225;
     private static final int PERIOD_JITTER_MS = 25;
+    
+    // covers the longest back-off period, MAX_COUNT_VALUE - MAX_FALLBACK_COUNT_VALUE + 1 ticks
+    private static final int WHEEL_SIZE = 256;
 
     
 	private final short responsePort;
@@ -86,6 +93,8 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 	public SimpleChannelSearchManagerImpl(ClientContextImpl context)
 	{
 		this.context = context;
+		this.maxFramesAtOnce = context.getSearchMaxFramesAtOnce();
+		this.delayBetweenFramesMs = context.getSearchFrameBurstDelay();
 
 		// set search response address
 		InetSocketAddress responseSocketAddress = context.getSearchTransport().getRemoteAddress();
@@ -93,7 +102,7 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 		responseAddress = responseSocketAddress.getAddress();
 		
 		// create and initialize send buffer
-		sendBuffer = ByteBuffer.allocate(PVAConstants.MAX_UDP_UNFRAGMENTED_SEND);
+		sendBuffer = BufferPool.getDefault().allocate(PVAConstants.MAX_UDP_UNFRAGMENTED_SEND);
 		initializeSendBuffer();
 		
 		// add some jitter so that all the clients do not send at the same time
@@ -337,6 +346,8 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 			// overrided if already registered
 			channels.put(channel.getChannelID(), channel);
 			channel.getUserValue().set(penalize ? MAX_FALLBACK_COUNT_VALUE : DEFAULT_COUNT_VALUE);
+			// (re)scheduled by immediate search
+			searchWheel.cancel(channel.getChannelID());
 		}
 
 		// put to immediate, batched list
@@ -357,6 +368,7 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 		synchronized (channels)
 		{
 			channels.remove(channel.getChannelID());
+			searchWheel.cancel(channel.getChannelID());
 		}
 	}
 	
@@ -373,7 +385,8 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 		// first remove
 		SearchInstance si;
 		synchronized (channels) {
-			si = (SearchInstance)channels.remove(cid);
+			si = channels.remove(cid);
+			searchWheel.cancel(cid);
 		}
 		
 		if (si == null) {
@@ -421,6 +434,7 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
         synchronized (channels) {
             for (SearchInstance searchInstance : channels.values()) {
                 searchInstance.getUserValue().set(BOOST_VALUE);
+                searchWheel.schedule(searchInstance, 1);
             }
         }
 	}
@@ -439,15 +453,14 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 
 		try 
 		{
-			SearchInstance[] sis;
+			// only channels due on this tick
+			List<SearchInstance> due;
 			synchronized (channels) {
-				if (channels.size() == 0)
-					return;
-				sis = new SearchInstance[channels.size()];
-				channels.values().toArray(sis);
+				due = searchWheel.advance();
 			}
 			
-			send(sis);
+			if (!due.isEmpty())
+				send(due.toArray(new SearchInstance[due.size()]));
 		}
 		catch (Throwable th)
 		{
@@ -461,8 +474,26 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 	  return ((x > 0) && (x & (x - 1)) == 0);
 	}
 	
-	private static final int MAX_FRAMES_AT_ONCE = 10;
-	private static final int DELAY_BETWEEN_FRAMES_MS = 50;
+	/**
+	 * Get smallest power of two greater or equal to given value.
+	 */
+	private static int nextPowerOfTwo(int x)
+	{
+		return (x <= 1) ? 1 : Integer.highestOneBit(x - 1) << 1;
+	}
+	
+	/**
+	 * Get number of channels due to be searched on next timer tick.
+	 * @return number of channels due to be searched on next timer tick.
+	 */
+	public int dueCount() {
+		synchronized (channels) {
+			return searchWheel.dueCount();
+		}
+	}
+	
+	private final int maxFramesAtOnce;
+	private final int delayBetweenFramesMs;
 	
 	private void send(SearchInstance[] sis) throws InterruptedException
 	{
@@ -473,15 +504,23 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 		int frameSent = 0;
 		for (SearchInstance si : sis)
 		{
-			
-			// no more sync needed since we check/increase value only here
-			int countValue = si.getUserValue().get();
-			boolean skip = !isPowerOfTwo(countValue);
-			
-			if (countValue == MAX_COUNT_VALUE)
-				si.getUserValue().set(MAX_FALLBACK_COUNT_VALUE);
-			else 
-				si.getUserValue().incrementAndGet();
+			// counter is also set by register and boost, read and update it under the same lock
+			final boolean skip;
+			synchronized (channels) {
+				// unregistered (or found) in the meantime
+				if (channels.get(si.getChannelID()) != si)
+					continue;
+
+				int countValue = si.getUserValue().get();
+				skip = !isPowerOfTwo(countValue);
+
+				// the counter would be increased on every tick, jump directly
+				// to the tick with the next power of two value
+				int nextValue = (countValue == MAX_COUNT_VALUE) ? MAX_FALLBACK_COUNT_VALUE : countValue + 1;
+				int dueValue = nextPowerOfTwo(nextValue);
+				si.getUserValue().set(dueValue);
+				searchWheel.schedule(si, dueValue - nextValue + 1);
+			}
 			
 			// back-off
 			if (skip)
@@ -491,9 +530,10 @@ public class SimpleChannelSearchManagerImpl implements ChannelSearchManager, Tim
 			
 			if (generateSearchRequestMessage(si, true, false))
 				frameSent++;
-			if (frameSent == MAX_FRAMES_AT_ONCE) 
+			if (frameSent == maxFramesAtOnce) 
 			{
-				Thread.sleep(DELAY_BETWEEN_FRAMES_MS);
+				if (delayBetweenFramesMs > 0)
+					Thread.sleep(delayBetweenFramesMs);
 				frameSent = 0; 
 			}
 		}
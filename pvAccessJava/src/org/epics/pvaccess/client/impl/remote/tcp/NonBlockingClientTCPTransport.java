@@ -110,7 +110,7 @@ public class NonBlockingClientTCPTransport extends NonBlockingTCPTransport
 		timerNode = TimerFactory.createNode(this);
 		context.getTimer().schedulePeriodic(timerNode, heartbeatInterval, heartbeatInterval);
 		
-		//start();
+		start();
 	}
 	
 	/**
@@ -0,0 +1,58 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.client.rpc;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.epics.pvdata.pv.PVStructure;
+
+/**
+ * Asynchronous service client, many requests can be pending at the same time.
+ * Requests are sent over one channel, each pending request uses its own ChannelRPC
+ * (a ChannelRPC allows only one pending request).
+ * At most <code>maxConcurrentRequests</code> requests are sent at the same time,
+ * the others are queued and sent in order as responses arrive.
+ * <p>
+ * Futures complete with the result, or exceptionally with a {@link org.epics.pvaccess.server.rpc.RPCRequestException}
+ * in case of a server-side error, timeout, disconnect or destroy.
+ * They are completed by pvAccess threads, long running dependent actions should use the
+ * asynchronous <code>CompletableFuture</code> methods.
+ */
+public interface AsyncRPCClient {
+	/**
+	 * Called by client when the service is no longer required.
+	 * All pending requests complete exceptionally.
+	 */
+	void destroy();
+	/**
+	 * Called by client to wait for connection to the service.
+	 * This call blocks until a connection is made or until a timeout occurs.
+	 * @param timeout The time in seconds to wait for the connection.
+	 * @return true on connect, false on timeout.
+	 */
+	boolean waitConnect(double timeout);
+	/**
+	 * Send a request, it is queued until the client connects.
+	 * The argument must not be modified until the request completes.
+	 * @param pvArgument The argument for the rpc.
+	 * @return the response future.
+	 */
+	CompletableFuture<PVStructure> request(PVStructure pvArgument);
+	/**
+	 * Send a request, it is queued until the client connects.
+	 * The argument must not be modified until the request completes.
+	 * @param pvArgument The argument for the rpc.
+	 * @param timeout The time in seconds to wait for the response, including the time spent in the queue,
+	 * non-positive value means no timeout.
+	 * @return the response future.
+	 */
+	CompletableFuture<PVStructure> request(PVStructure pvArgument, double timeout);
+	/**
+	 * Get the maximum number of requests sent at the same time.
+	 * @return the maximum number of concurrent requests.
+	 */
+	int getMaxConcurrentRequests();
+}
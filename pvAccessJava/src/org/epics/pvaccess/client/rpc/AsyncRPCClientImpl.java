@@ -0,0 +1,483 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.client.rpc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.Channel.ConnectionState;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelProviderRegistryFactory;
+import org.epics.pvaccess.client.ChannelRPC;
+import org.epics.pvaccess.client.ChannelRPCRequester;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.rpc.RPCRequestException;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.misc.ThreadPriority;
+import org.epics.pvdata.misc.Timer;
+import org.epics.pvdata.misc.Timer.TimerCallback;
+import org.epics.pvdata.misc.Timer.TimerNode;
+import org.epics.pvdata.misc.TimerFactory;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+
+/**
+ * {@link AsyncRPCClient} implementation, keeps a pool of ChannelRPC instances on one channel.
+ */
+public class AsyncRPCClientImpl implements AsyncRPCClient, ChannelRequester {
+
+	/**
+	 * Default maximum number of requests sent at the same time.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+
+	private static final Logger logger = Logger.getLogger(AsyncRPCClientImpl.class.getName());
+	private static final PVStructure defaultPVRequest = CreateRequest.create().createRequest("");
+
+	private final Channel channel;
+	private final PVStructure pvRequest;
+	private final int maxConcurrentRequests;
+	private final Timer timer;
+	private final CountDownLatch connectedSignaler = new CountDownLatch(1);
+
+	// only one thread dispatches at the time, see dispatch()
+	private final AtomicInteger dispatchRequests = new AtomicInteger();
+
+	// guarded by this
+	private final ArrayDeque<Call> waitingCalls = new ArrayDeque<Call>();
+	private final ArrayDeque<Slot> idleSlots = new ArrayDeque<Slot>();
+	private final ArrayList<Slot> slots = new ArrayList<Slot>();
+	private int connectingSlots = 0;
+	private boolean destroyed = false;
+
+	/**
+	 * A request, waiting or in flight.
+	 */
+	private class Call implements TimerCallback {
+		final PVStructure pvArgument;
+		final CompletableFuture<PVStructure> future = new CompletableFuture<PVStructure>();
+		final TimerNode timerNode = TimerFactory.createNode(this);
+		// guarded by AsyncRPCClientImpl.this, set while in flight
+		Slot slot = null;
+
+		Call(PVStructure pvArgument) {
+			this.pvArgument = pvArgument;
+		}
+
+		void complete(Status status, PVStructure result) {
+			timerNode.cancel();
+			if (status.isSuccess())
+				future.complete(result);
+			else
+				future.completeExceptionally(toException(status));
+		}
+
+		@Override
+		public void callback() {
+			timeout(this);
+		}
+
+		@Override
+		public void timerStopped() {
+			// noop
+		}
+	}
+
+	/**
+	 * A ChannelRPC of the pool, with at most one request in flight.
+	 */
+	private class Slot implements ChannelRPCRequester {
+		// guarded by AsyncRPCClientImpl.this
+		ChannelRPC channelRPC = null;
+		boolean connecting = true;
+		boolean ready = false;
+		boolean removed = false;
+		Call call = null;
+
+		@Override
+		public String getRequesterName() {
+			return AsyncRPCClientImpl.this.getRequesterName();
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+			AsyncRPCClientImpl.this.message(message, messageType);
+		}
+
+		@Override
+		public void channelRPCConnect(Status status, ChannelRPC channelRPC) {
+			logger.finer("ChannelRPC for '" + channel.getChannelName() + "' connected with status: " + status + ".");
+
+			ArrayList<Call> failedCalls = null;
+			synchronized (AsyncRPCClientImpl.this) {
+				if (connecting)
+				{
+					connecting = false;
+					connectingSlots--;
+				}
+				if (removed)
+					return;
+
+				if (status.isSuccess())
+				{
+					this.channelRPC = channelRPC;
+					if (!ready)
+					{
+						ready = true;
+						idleSlots.add(this);
+					}
+				}
+				else
+				{
+					removed = true;
+					slots.remove(this);
+					// no way to serve the requests
+					if (slots.isEmpty())
+					{
+						failedCalls = new ArrayList<Call>(waitingCalls);
+						waitingCalls.clear();
+					}
+				}
+			}
+
+			if (status.isSuccess())
+				connectedSignaler.countDown();
+			else if (failedCalls != null)
+				for (Call call : failedCalls)
+					call.complete(status, null);
+
+			dispatch();
+		}
+
+		@Override
+		public void requestDone(Status status, ChannelRPC channelRPC, PVStructure result) {
+			Call doneCall;
+			synchronized (AsyncRPCClientImpl.this) {
+				doneCall = call;
+				if (doneCall == null)
+					return;
+				call = null;
+				doneCall.slot = null;
+				if (ready && !removed)
+					idleSlots.add(this);
+			}
+
+			doneCall.complete(status, result);
+			dispatch();
+		}
+	}
+
+	/**
+	 * Create a client of a service served by the pvAccess client provider,
+	 * using the default request and {@link #DEFAULT_MAX_CONCURRENT_REQUESTS}.
+	 * @param serviceName The service name, i.e. the channel name.
+	 * @throws IllegalArgumentException if the provider fails to create the channel.
+	 */
+	public AsyncRPCClientImpl(String serviceName) {
+		this(serviceName, defaultPVRequest, DEFAULT_MAX_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * Create a client of a service served by the pvAccess client provider.
+	 * @param serviceName The service name, i.e. the channel name.
+	 * @param pvRequest The structure sent in the request to create the Channel RPC.
+	 * @param maxConcurrentRequests The maximum number of requests sent at the same time.
+	 * @throws IllegalArgumentException if the provider fails to create the channel.
+	 */
+	public AsyncRPCClientImpl(String serviceName, PVStructure pvRequest, int maxConcurrentRequests) {
+		this(getClientProvider(), serviceName, pvRequest, maxConcurrentRequests);
+	}
+
+	/**
+	 * Create a client of a service served by the given channel provider.
+	 * @param channelProvider The provider to create the channel with.
+	 * @param serviceName The service name, i.e. the channel name.
+	 * @param pvRequest The structure sent in the request to create the Channel RPC.
+	 * @param maxConcurrentRequests The maximum number of requests sent at the same time.
+	 * @throws IllegalArgumentException if the provider fails to create the channel.
+	 */
+	public AsyncRPCClientImpl(ChannelProvider channelProvider, String serviceName, PVStructure pvRequest, int maxConcurrentRequests) {
+		if (maxConcurrentRequests <= 0)
+			throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+
+		this.pvRequest = pvRequest;
+		this.maxConcurrentRequests = maxConcurrentRequests;
+
+		this.channel = channelProvider.createChannel(serviceName, this, ChannelProvider.PRIORITY_DEFAULT);
+		if (channel == null)
+			throw new IllegalArgumentException("failed to create channel '" + serviceName + "'");
+
+		this.timer = TimerFactory.create("pvAccess-rpc timer " + serviceName, ThreadPriority.lower);
+
+		// first ChannelRPC, for waitConnect()
+		Slot slot = new Slot();
+		synchronized (this) {
+			slots.add(slot);
+			connectingSlots++;
+		}
+		channel.createChannelRPC(slot, pvRequest);
+	}
+
+	private static ChannelProvider getClientProvider()
+	{
+		org.epics.pvaccess.ClientFactory.start();
+
+		return ChannelProviderRegistryFactory.getChannelProviderRegistry()
+			.getProvider(org.epics.pvaccess.ClientFactory.PROVIDER_NAME);
+	}
+
+	private static RPCRequestException toException(Status status)
+	{
+		String stackDump = status.getStackDump();
+		if (stackDump != null && !stackDump.isEmpty())
+			return new RPCRequestException(status.getType(), status.getMessage() + ", cause:\n" + stackDump);
+		else
+			return new RPCRequestException(status.getType(), status.getMessage());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.rpc.AsyncRPCClient#destroy()
+	 */
+	@Override
+	public void destroy() {
+		ArrayList<Call> failedCalls = new ArrayList<Call>();
+		synchronized (this) {
+			if (destroyed)
+				return;
+			destroyed = true;
+
+			failedCalls.addAll(waitingCalls);
+			waitingCalls.clear();
+			for (Slot slot : slots)
+			{
+				slot.removed = true;
+				if (slot.call != null)
+				{
+					failedCalls.add(slot.call);
+					slot.call.slot = null;
+					slot.call = null;
+				}
+			}
+			slots.clear();
+			idleSlots.clear();
+		}
+
+		channel.destroy();
+		timer.stop();
+
+		RPCRequestException destroyedException = new RPCRequestException(StatusType.ERROR, "client destroyed");
+		for (Call call : failedCalls)
+			call.future.completeExceptionally(destroyedException);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.rpc.AsyncRPCClient#waitConnect(double)
+	 */
+	@Override
+	public boolean waitConnect(double timeout) {
+		try {
+			return connectedSignaler.await((long)(timeout*1000), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.rpc.AsyncRPCClient#request(org.epics.pvdata.pv.PVStructure)
+	 */
+	@Override
+	public CompletableFuture<PVStructure> request(PVStructure pvArgument) {
+		return request(pvArgument, 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.rpc.AsyncRPCClient#request(org.epics.pvdata.pv.PVStructure, double)
+	 */
+	@Override
+	public CompletableFuture<PVStructure> request(PVStructure pvArgument, double timeout) {
+		if (pvArgument == null)
+			throw new IllegalArgumentException("pvArgument == null");
+
+		Call call = new Call(pvArgument);
+		synchronized (this) {
+			if (destroyed)
+			{
+				call.future.completeExceptionally(new RPCRequestException(StatusType.ERROR, "client destroyed"));
+				return call.future;
+			}
+			waitingCalls.add(call);
+		}
+
+		if (timeout > 0)
+			timer.scheduleAfterDelay(call.timerNode, timeout);
+
+		dispatch();
+		return call.future;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.rpc.AsyncRPCClient#getMaxConcurrentRequests()
+	 */
+	@Override
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Send the waiting requests over the idle ChannelRPC instances, creating new ones if needed.
+	 * Requests of other threads (and recursive ones, for a provider that responds synchronously)
+	 * are handled by the thread already dispatching.
+	 */
+	private void dispatch()
+	{
+		if (dispatchRequests.getAndIncrement() != 0)
+			return;
+
+		int requests = 1;
+		do {
+			dispatchOnce();
+			requests = dispatchRequests.addAndGet(-requests);
+		} while (requests != 0);
+	}
+
+	private void dispatchOnce()
+	{
+		ArrayList<Slot> toSend = null;
+		int toCreate = 0;
+		synchronized (this) {
+			while (!waitingCalls.isEmpty())
+			{
+				Call call = waitingCalls.peek();
+				// timed out or cancelled
+				if (call.future.isDone())
+				{
+					waitingCalls.poll();
+					continue;
+				}
+
+				Slot slot = idleSlots.poll();
+				if (slot == null)
+					break;
+
+				waitingCalls.poll();
+				slot.call = call;
+				call.slot = slot;
+				if (toSend == null)
+					toSend = new ArrayList<Slot>();
+				toSend.add(slot);
+			}
+
+			if (!destroyed)
+			{
+				toCreate = Math.min(waitingCalls.size() - connectingSlots, maxConcurrentRequests - slots.size());
+				for (int i = 0; i < toCreate; i++)
+				{
+					Slot slot = new Slot();
+					slots.add(slot);
+					connectingSlots++;
+					if (toSend == null)
+						toSend = new ArrayList<Slot>();
+					toSend.add(slot);
+				}
+			}
+		}
+
+		if (toSend == null)
+			return;
+
+		for (Slot slot : toSend)
+		{
+			ChannelRPC channelRPC;
+			Call call;
+			synchronized (this) {
+				channelRPC = slot.channelRPC;
+				call = slot.call;
+			}
+
+			if (channelRPC == null)
+				channel.createChannelRPC(slot, pvRequest);
+			else if (call != null)
+				channelRPC.request(call.pvArgument);
+		}
+	}
+
+	private void timeout(Call call)
+	{
+		ChannelRPC channelRPC = null;
+		synchronized (this) {
+			Slot slot = call.slot;
+			if (slot != null)
+			{
+				// the ChannelRPC is busy until the response arrives, replace it
+				call.slot = null;
+				slot.call = null;
+				slot.removed = true;
+				slots.remove(slot);
+				channelRPC = slot.channelRPC;
+			}
+		}
+
+		if (channelRPC != null)
+			channelRPC.destroy();
+
+		call.future.completeExceptionally(new RPCRequestException(StatusType.ERROR, "timeout"));
+		dispatch();
+	}
+
+	@Override
+	public String getRequesterName() {
+		return getClass().getName();
+	}
+
+	@Override
+	public void message(String message, MessageType messageType) {
+		logger.finer(getRequesterName() + ": [" +  messageType + "] " + message);
+	}
+
+	@Override
+	public void channelCreated(Status status, Channel channel) {
+		logger.finer("Channel created with status: " + status + ".");
+	}
+
+	@Override
+	public void channelStateChange(Channel channel, ConnectionState connectionState) {
+		logger.finer("Channel '" + channel.getChannelName() + "' " + connectionState + ".");
+
+		if (connectionState == ConnectionState.CONNECTED)
+			return;
+
+		// the requests in flight are lost, the ChannelRPC instances reconnect with the channel
+		ArrayList<Call> failedCalls = new ArrayList<Call>();
+		synchronized (this) {
+			for (Slot slot : slots)
+			{
+				slot.ready = false;
+				if (slot.call != null)
+				{
+					failedCalls.add(slot.call);
+					slot.call.slot = null;
+					slot.call = null;
+				}
+			}
+			idleSlots.clear();
+		}
+
+		RPCRequestException exception = new RPCRequestException(StatusType.ERROR, "channel " + connectionState);
+		for (Call call : failedCalls)
+		{
+			call.timerNode.cancel();
+			call.future.completeExceptionally(exception);
+		}
+	}
+}
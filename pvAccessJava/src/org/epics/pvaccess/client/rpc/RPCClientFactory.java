@@ -51,4 +51,22 @@ public class RPCClientFactory {
 		return new RPCClientImpl(serviceName,pvRequest,requester);
 	}
 
+	/**
+	 * Create an asynchronous RPCClient and connect to the service.
+	 * @param serviceName The service name. This is the name of the channel that connects to the service.
+	 * @return The AsyncRPCClient interface.
+	 */
+	public static AsyncRPCClient createAsync(String serviceName) {
+		return new AsyncRPCClientImpl(serviceName);
+	}
+	/**
+	 * Create an asynchronous RPCClient and connect to the service.
+	 * @param serviceName The service name. This is the name of the channel that connects to the service.
+	 * @param pvRequest  The structure sent in the request to create the Channel RPC.
+	 * @param maxConcurrentRequests The maximum number of requests sent at the same time, the others are queued.
+	 * @return The AsyncRPCClient interface.
+	 */
+	public static AsyncRPCClient createAsync(String serviceName, PVStructure pvRequest, int maxConcurrentRequests) {
+		return new AsyncRPCClientImpl(serviceName,pvRequest,maxConcurrentRequests);
+	}
 }
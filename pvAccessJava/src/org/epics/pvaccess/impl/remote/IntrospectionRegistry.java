@@ -16,6 +16,8 @@ package org.epics.pvaccess.impl.remote;
 
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.epics.pvaccess.PVFactory;
@@ -36,12 +38,40 @@ import org.epics.pvdata.pv.Type;
  */
 public final class IntrospectionRegistry {
 
+	/**
+	 * Default max number of outgoing registered interfaces, i.e. entire (non-zero) 16-bit ID space.
+	 */
+	public static final int DEFAULT_MAX_OUTGOING_SIZE = 0xFFFF;
+
+	/**
+	 * Incoming (ID to interface) registry.
+	 */
 	protected Map<Short, Field> registry = 
 			new HashMap<>();
+
+	/**
+	 * Outgoing (interface to ID) registry, access ordered (LRU).
+	 */
+	protected final LinkedHashMap<Field, Short> outgoingRegistry =
+			new LinkedHashMap<Field, Short>(16, 0.75f, true);
+	protected final int maxOutgoingSize;
 	protected short pointer;
 	
 	public IntrospectionRegistry()
 	{
+		this(DEFAULT_MAX_OUTGOING_SIZE);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param maxOutgoingSize max number of outgoing registered interfaces,
+	 * 		  least recently used interface ID is reused when the limit is reached.
+	 */
+	public IntrospectionRegistry(int maxOutgoingSize)
+	{
+		if (maxOutgoingSize <= 0 || maxOutgoingSize > DEFAULT_MAX_OUTGOING_SIZE)
+			throw new IllegalArgumentException("maxOutgoingSize must be in range (0, " + DEFAULT_MAX_OUTGOING_SIZE + "]");
+		this.maxOutgoingSize = maxOutgoingSize;
 		reset();
 	}
 	
@@ -52,6 +82,7 @@ public final class IntrospectionRegistry {
 	{
 		pointer = 1;
 		registry.clear();
+		outgoingRegistry.clear();
 	}
 	/**
 	 * Get introspection interface for given ID.
@@ -73,32 +104,45 @@ public final class IntrospectionRegistry {
 		registry.put(id, field);
 	}
 
-	/**
-	 * Private helper variable (optimization).
-	 */
-	private Short shortHolder = Short.valueOf((short)0);
-	
 	/**
 	 * Register introspection interface and get it's ID. Always OUTGOING.
-	 * If it is already registered only preassigned ID is returned.
+	 * If it is already registered (i.e. an equal interface) only preassigned ID is returned.
+	 * If registry is full, ID of the least recently used interface is reassigned
+	 * (the other party overrides its entry when full description with ID is received).
 	 * @param field field to register.
 	 * @param existing indication whether the field was already registered.
 	 * @return id of given <code>Field</code>
 	 */
 	public short registerIntrospectionInterface(Field field, BooleanHolder existing)
 	{
-		Field potentiallyExistingField = registry.get(shortHolder);
-		if(potentiallyExistingField != null && potentiallyExistingField.equals(field)) {
+		final Short id = outgoingRegistry.get(field);
+		if (id != null) {
 			existing.value = true;
-			return shortHolder;
+			return id;
 		}
+
+		existing.value = false;
+		final short key;
+		if (outgoingRegistry.size() < maxOutgoingSize)
+			key = pointer++;
 		else
 		{
-			existing.value = false;
-			final short key = pointer++;
-			registry.put(key, field);
-			return key;
+			// evict least recently used
+			Iterator<Short> iterator = outgoingRegistry.values().iterator();
+			key = iterator.next();
+			iterator.remove();
 		}
+		outgoingRegistry.put(field, key);
+		return key;
+	}
+	
+	/**
+	 * Get number of outgoing registered interfaces.
+	 * @return number of outgoing registered interfaces.
+	 */
+	public int getOutgoingSize()
+	{
+		return outgoingRegistry.size();
 	}
 	
 	/**
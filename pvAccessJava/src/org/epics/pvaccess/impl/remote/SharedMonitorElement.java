@@ -0,0 +1,257 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.impl.remote;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.SerializableControl;
+
+/**
+ * Monitor element whose encoding can be shared with the elements of other monitors (optional).
+ * A channel provider that fans out the very same update to many subscribers
+ * gives each subscriber its own element and lets all of them {@link #share(Encoding)}
+ * one {@link Encoding}. The pvAccess server then serializes the changed bit-set and the data
+ * only once (per byte order) and copies the encoded bytes into the send buffer of every transport;
+ * the per-client message header (incl. IOID) and the overrun bit-set of the subscriber
+ * are written separately.
+ * <p>
+ * Elements sharing an encoding must have equal changed bit-sets and equal values
+ * of the changed fields, which must not be modified until the element is released by the monitor.
+ * A provider reusing an element must call <code>share(null)</code> before modifying it.
+ */
+public class SharedMonitorElement implements MonitorElement {
+
+	/**
+	 * Size of the encoding work buffer (also initial segment size).
+	 */
+	private static final int ENCODE_BUFFER_SIZE = 4096;
+
+	/**
+	 * Encoded changed bit-set and data of an update, shared by the elements of many monitors.
+	 * The update is encoded lazily, once for every byte order it is requested for.
+	 */
+	public static final class Encoding {
+
+		private final BitSet changedBitSet;
+		private final AtomicInteger encodeCount = new AtomicInteger(0);
+
+		// guarded by this
+		private ByteBuffer bigEndian = null;
+		private ByteBuffer littleEndian = null;
+
+		/**
+		 * Constructor.
+		 * @param changedBitSet changed bit-set of the update (copied).
+		 */
+		public Encoding(BitSet changedBitSet)
+		{
+			if (changedBitSet == null)
+				throw new IllegalArgumentException("changedBitSet == null");
+			this.changedBitSet = (BitSet)changedBitSet.clone();
+		}
+
+		/**
+		 * Check if the encoding describes an update with the given changed bit-set.
+		 * @param changedBitSet changed bit-set.
+		 * @return <code>true</code> if an element with the given changed bit-set can share this encoding.
+		 */
+		public boolean matches(BitSet changedBitSet) {
+			return this.changedBitSet.equals(changedBitSet);
+		}
+
+		/**
+		 * Get the number of times the update was actually encoded.
+		 * @return encode count, at most one per byte order.
+		 */
+		public int getEncodeCount() {
+			return encodeCount.get();
+		}
+
+		synchronized ByteBuffer get(PVStructure pvStructure, ByteOrder byteOrder) {
+			final boolean big = (byteOrder == ByteOrder.BIG_ENDIAN);
+			ByteBuffer segment = big ? bigEndian : littleEndian;
+			if (segment == null)
+			{
+				segment = encode(pvStructure, byteOrder);
+				encodeCount.incrementAndGet();
+				if (big)
+					bigEndian = segment;
+				else
+					littleEndian = segment;
+			}
+			return segment;
+		}
+
+		private ByteBuffer encode(PVStructure pvStructure, ByteOrder byteOrder) {
+			final EncodingControl control = new EncodingControl(byteOrder);
+			final ByteBuffer buffer = control.buffer;
+			changedBitSet.serialize(buffer, control);
+			pvStructure.serialize(buffer, control, changedBitSet);
+			return control.finish();
+		}
+	}
+
+	private final PVStructure pvStructure;
+	private final BitSet changedBitSet;
+	private final BitSet overrunBitSet;
+
+	private volatile Encoding encoding = null;
+
+	/**
+	 * Constructor.
+	 * @param pvStructure the data.
+	 */
+	public SharedMonitorElement(PVStructure pvStructure)
+	{
+		this(pvStructure,
+				pvStructure == null ? null : new BitSet(pvStructure.getNumberFields()),
+				pvStructure == null ? null : new BitSet(pvStructure.getNumberFields()));
+	}
+
+	/**
+	 * Constructor.
+	 * @param pvStructure the data.
+	 * @param changedBitSet changed bit-set.
+	 * @param overrunBitSet overrun bit-set, always owned by the element (i.e. by one subscriber).
+	 */
+	public SharedMonitorElement(PVStructure pvStructure, BitSet changedBitSet, BitSet overrunBitSet)
+	{
+		if (pvStructure == null || changedBitSet == null || overrunBitSet == null)
+			throw new IllegalArgumentException("non-null pvStructure, changedBitSet and overrunBitSet expected");
+		this.pvStructure = pvStructure;
+		this.changedBitSet = changedBitSet;
+		this.overrunBitSet = overrunBitSet;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.MonitorElement#getPVStructure()
+	 */
+	@Override
+	public PVStructure getPVStructure() {
+		return pvStructure;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.MonitorElement#getChangedBitSet()
+	 */
+	@Override
+	public BitSet getChangedBitSet() {
+		return changedBitSet;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.MonitorElement#getOverrunBitSet()
+	 */
+	@Override
+	public BitSet getOverrunBitSet() {
+		return overrunBitSet;
+	}
+
+	/**
+	 * Share the encoding of the (already set) changed bit-set and data.
+	 * @param encoding the shared encoding, <code>null</code> to stop sharing.
+	 */
+	public void share(Encoding encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Get the shared encoding.
+	 * @return the shared encoding, <code>null</code> if not shared.
+	 */
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Get encoded changed bit-set and data, encoding it if not yet encoded for the given byte order.
+	 * The returned buffer is a read-only view, positioned at the start of the segment,
+	 * owned by the caller (position and limit can be freely changed).
+	 * The overrun bit-set is not included.
+	 * @param byteOrder byte order of the transport.
+	 * @return encoded segment view.
+	 * @throws IllegalStateException if the element does not share an encoding.
+	 */
+	public ByteBuffer getEncoded(ByteOrder byteOrder) {
+		final Encoding encoding = this.encoding;
+		if (encoding == null)
+			throw new IllegalStateException("element does not share an encoding");
+		return encoding.get(pvStructure, byteOrder).asReadOnlyBuffer().order(byteOrder);
+	}
+
+	/**
+	 * Transport independent serialization control.
+	 * Works the same way as a transport, i.e. serialization is done into a fixed work buffer,
+	 * but "flushing" appends the buffer content to a growing segment instead of sending it.
+	 * Introspection data (e.g. variant unions) is always serialized in full
+	 * since the introspection registry is per-connection.
+	 */
+	private static final class EncodingControl implements SerializableControl {
+
+		final ByteBuffer buffer;
+		private ByteBuffer segment;
+
+		EncodingControl(ByteOrder byteOrder) {
+			buffer = ByteBuffer.allocate(ENCODE_BUFFER_SIZE).order(byteOrder);
+			segment = ByteBuffer.allocate(ENCODE_BUFFER_SIZE).order(byteOrder);
+		}
+
+		@Override
+		public void flushSerializeBuffer() {
+			buffer.flip();
+			if (segment.remaining() < buffer.remaining())
+			{
+				final int newCapacity = Math.max(segment.capacity() * 2, segment.position() + buffer.remaining());
+				ByteBuffer newSegment = ByteBuffer.allocate(newCapacity).order(segment.order());
+				segment.flip();
+				newSegment.put(segment);
+				segment = newSegment;
+			}
+			segment.put(buffer);
+			buffer.clear();
+		}
+
+		@Override
+		public void ensureBuffer(int size) {
+			if (buffer.remaining() < size)
+				flushSerializeBuffer();
+			if (buffer.remaining() < size)
+				throw new IllegalArgumentException("requested for buffer size " + size + ", but only " + buffer.capacity() + " available.");
+		}
+
+		@Override
+		public void alignBuffer(int alignment) {
+			// alignment is relative to the start of the segment
+			final int k = (alignment - 1);
+			final int pos = segment.position() + buffer.position();
+			final int padCount = ((pos + k) & (~k)) - pos;
+			ensureBuffer(padCount);
+			for (int i = 0; i < padCount; i++)
+				buffer.put((byte)0xFF);
+		}
+
+		@Override
+		public void cachedSerialize(Field field, ByteBuffer buffer) {
+			if (field == null)
+				SerializationHelper.serializeNullField(buffer, this);
+			else
+				field.serialize(buffer, this);
+		}
+
+		ByteBuffer finish() {
+			flushSerializeBuffer();
+			segment.flip();
+			return segment;
+		}
+	}
+
+}
@@ -14,6 +14,7 @@ import org.epics.pvaccess.PVAConstants;
 import org.epics.pvaccess.impl.remote.TransportSendControl;
 import org.epics.pvaccess.impl.remote.TransportSender;
 import org.epics.pvaccess.util.Mailbox;
+import org.epics.pvdata.pv.DirectSerializableControl;
 
 // NOTE: non-blocking
 // NOTE: not good to have readPollOne() and writePollOne() in parallel
@@ -26,7 +27,7 @@ import org.epics.pvaccess.util.Mailbox;
 // processRead -> ensureData -> pollOne -> processWrite -> enusreBuffer -> flush -> buffer full -> poolOne... same story as above
 
 public abstract class AbstractCodec
-	implements ReadableByteChannel, WritableByteChannel, TransportSendControl {
+	implements ReadableByteChannel, WritableByteChannel, TransportSendControl, DirectSerializableControl {
 
 	protected final Logger logger;
 	
@@ -39,6 +40,16 @@ public abstract class AbstractCodec
 	static public final int MAX_ENSURE_DATA_SIZE = MAX_ENSURE_SIZE/2;
 	static public final int MAX_ENSURE_BUFFER_SIZE = MAX_ENSURE_SIZE;
 
+	/**
+	 * Minimal size of data (in bytes) to be sent directly, i.e. w/o copying it to the send buffer.
+	 */
+	static public final int MIN_DIRECT_SERIALIZE_SIZE = PVAConstants.MAX_TCP_RECV;
+
+	/**
+	 * Minimal size of data (in bytes) to be received directly, i.e. w/o copying it from the receive buffer.
+	 */
+	static public final int MIN_DIRECT_DESERIALIZE_SIZE = PVAConstants.MAX_TCP_RECV;
+
 	protected final ByteBuffer socketBuffer;
 	
 	public enum ReadMode { NORMAL, SPLIT, SEGMENTED };
@@ -469,6 +480,157 @@ public abstract class AbstractCodec
 	}
 
 
+	/**
+	 * Deserialize data directly, i.e. read the rest of (non-segmented part of) the payload
+	 * from the channel directly to the destination buffer.
+	 * @param existingBuffer the buffer being deserialized from.
+	 * @param deserializeTo the buffer to be filled.
+	 * @return <code>true</code> if <code>deserializeTo</code> was filled.
+	 * @see org.epics.pvdata.pv.DirectDeserializableControl#directDeserialize(ByteBuffer, ByteBuffer)
+	 */
+	public boolean directDeserialize(ByteBuffer existingBuffer, ByteBuffer deserializeTo) {
+		
+		if (deserializeTo.remaining() < MIN_DIRECT_DESERIALIZE_SIZE ||
+			existingBuffer != socketBuffer || readMode != ReadMode.NORMAL)
+			return false;
+		
+		try
+		{
+			while (deserializeTo.hasRemaining())
+			{
+				// already buffered part of the payload
+				final int buffered = Math.min(socketBuffer.remaining(), deserializeTo.remaining());
+				if (buffered > 0)
+				{
+					final int limit = socketBuffer.limit();
+					socketBuffer.limit(socketBuffer.position() + buffered);
+					deserializeTo.put(socketBuffer);
+					socketBuffer.limit(limit);
+					continue;
+				}
+				
+				final int pos = socketBuffer.position();
+				final int payloadLeft = storedPayloadSize - (pos - storedPosition);
+				if (payloadLeft > 0 && pos == storedLimit)
+				{
+					// SPLIT message case, nothing else buffered
+					// read rest of the payload directly
+					final int toRead = Math.min(payloadLeft, deserializeTo.remaining());
+					final int limit = deserializeTo.limit();
+					deserializeTo.limit(deserializeTo.position() + toRead);
+					while (deserializeTo.hasRemaining())
+					{
+						int bytesRead = this.read(deserializeTo);
+						if (bytesRead < 0)
+						{
+							close();
+							throw new ConnectionClosedException("bytesRead < 0");
+						}
+						// non-blocking IO support
+						else if (bytesRead == 0)
+							this.readPollOne();
+					}
+					deserializeTo.limit(limit);
+					
+					// empty buffer, we are careful to preserve alignment
+					final int newPosition = MAX_ENSURE_SIZE + (pos + toRead) % PVAConstants.PVA_ALIGNMENT;
+					storedPayloadSize = payloadLeft - toRead;
+					storedPosition = newPosition;
+					storedLimit = newPosition;
+					socketBuffer.limit(newPosition);
+					socketBuffer.position(newPosition);
+				}
+				else
+				{
+					// SEGMENTED message case (or padding), let ensureData handle it
+					ensureData(1);
+				}
+			}
+		}
+		catch (IOException ex) {
+			try {
+				close();
+			} catch (IOException iex) {
+				// noop, best-effort close
+			}
+			throw new ConnectionClosedException("Failed to read data directly.", ex);
+		}
+		
+		return true;
+	}
+
+
+	/**
+	 * Check if the rest of the payload of the message being processed can be skipped.
+	 * @param existingBuffer the buffer being deserialized from.
+	 * @return <code>true</code> if {@link #skipPayload(ByteBuffer)} can be called.
+	 */
+	public boolean canSkipPayload(ByteBuffer existingBuffer) {
+		return existingBuffer == socketBuffer && readMode == ReadMode.NORMAL;
+	}
+
+	/**
+	 * Skip the rest of the payload of the message being processed (including all its segments), without deserializing it.
+	 * @param existingBuffer the buffer being deserialized from.
+	 * @throws IllegalStateException if the payload cannot be skipped.
+	 * @see #canSkipPayload(ByteBuffer)
+	 */
+	public void skipPayload(ByteBuffer existingBuffer) {
+		
+		if (!canSkipPayload(existingBuffer))
+			throw new IllegalStateException("payload cannot be skipped");
+		
+		try
+		{
+			while (true)
+			{
+				// drop already buffered part of the payload
+				socketBuffer.position(socketBuffer.limit());
+				
+				final int payloadLeft = storedPayloadSize - (socketBuffer.position() - storedPosition);
+				if (payloadLeft > 0)
+				{
+					// SPLIT message case, read (and drop) next part
+					ensureData(Math.min(payloadLeft, MAX_ENSURE_DATA_SIZE));
+					continue;
+				}
+				
+				// non-segmented message or last segment (first or in-between segment have 0x10 bit set)
+				if ((flags & 0x10) == 0)
+					return;
+	
+				// SEGMENTED message case, see ensureData() (no remaining bytes to preserve)
+				socketBuffer.limit(storedLimit);
+				
+				int storedAlignmentOffset = socketBuffer.position() % PVAConstants.PVA_ALIGNMENT;
+				if (storedAlignmentOffset > 0)
+				{
+					int toSkip = PVAConstants.PVA_ALIGNMENT - storedAlignmentOffset;
+					readToBuffer(toSkip, true);
+					int currentPos = socketBuffer.position();
+					socketBuffer.position(currentPos + toSkip);
+				}
+				
+				// next segment header, can be also the last segment with no data
+				ReadMode storedMode = readMode; readMode = ReadMode.SEGMENTED;
+				processRead();
+				readMode = storedMode;
+				
+				storedPosition = socketBuffer.position();
+				storedLimit = socketBuffer.limit();
+				socketBuffer.limit(Math.min(storedPosition + storedPayloadSize, storedLimit));
+			}
+		}
+		catch (IOException ex) {
+			try {
+				close();
+			} catch (IOException iex) {
+				// noop, best-effort close
+			}
+			throw new ConnectionClosedException("Failed to skip data.", ex);
+		}
+	}
+
 	public static final int alignedValue(int value, int alignment)
 	{
 		final int k = (alignment - 1);
@@ -728,6 +890,51 @@ public abstract class AbstractCodec
 			startMessage(lastSegmentedMessageCommand, 0);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.pv.DirectSerializableControl#directSerialize(java.nio.ByteBuffer, java.nio.ByteBuffer)
+	 */
+	@Override
+	public boolean directSerialize(ByteBuffer existingBuffer, ByteBuffer toSerialize) {
+		
+		final int size = toSerialize.remaining();
+		// small data (or data that fits into the send buffer) is cheaper to copy
+		if (size < MIN_DIRECT_SERIALIZE_SIZE || size <= sendBuffer.remaining() ||
+			existingBuffer != sendBuffer || lastMessageStartPosition < 0)
+			return false;
+		
+		// end current segment, this also starts a new segment (header only) 
+		flush(false);
+		
+		// data is payload of the new segment
+		final int payloadSize = sendBuffer.position() - lastMessageStartPosition -
+								PVAConstants.PVA_MESSAGE_HEADER_SIZE + size;
+		sendBuffer.putInt(lastMessageStartPosition + (Short.SIZE/Byte.SIZE + 2), payloadSize);
+		final int padCount = alignedValue(payloadSize, PVAConstants.PVA_ALIGNMENT) - payloadSize;
+		
+		sendBuffer.flip();
+		
+		try {
+			// header, data and alignment padding in one (gathering) write
+			send(new ByteBuffer[] { sendBuffer, toSerialize, ByteBuffer.wrap(PADDING_BYTES, 0, padCount) });
+		} catch (IOException e) {
+			try {
+				if (isOpen())
+					close();
+			} catch (IOException iex) {
+				// noop, best-effort close
+			}
+			throw new ConnectionClosedException("Failed to send buffer.", e);
+		}
+		
+		sendBuffer.clear();
+		
+		// continue with a new in-between segment
+		nextMessagePayloadOffset = payloadSize % PVAConstants.PVA_ALIGNMENT;
+		startMessage(lastSegmentedMessageCommand, 0);
+		
+		return true;
+	}
+
 	public enum WriteMode { PROCESS_SEND_QUEUE, WAIT_FOR_READY_SIGNAL };
 	protected WriteMode writeMode = WriteMode.PROCESS_SEND_QUEUE;
 	protected boolean writeOpReady = false;
@@ -815,6 +1022,67 @@ public abstract class AbstractCodec
         }
 	}
 	
+	/**
+	 * Send buffers through the transport (gathering write).
+	 * NOTE: unlike {@link #send(ByteBuffer)} no per-write size limit is applied.
+	 * @param buffers	buffers to be sent
+	 * @throws IOException IO exception rethrown. 
+	 */
+	protected void send(ByteBuffer[] buffers) throws IOException
+	{
+		long bytesToSend = 0;
+		for (ByteBuffer buffer : buffers)
+			bytesToSend += buffer.remaining();
+		
+        int tries = 0;
+        while (bytesToSend > 0)
+        {
+			final long bytesSent = this.write(buffers);
+			
+        	if (bytesSent < 0)
+        	{
+           		// connection lost
+         		close();
+        		throw new ConnectionClosedException("bytesSent < 0");
+        	}
+        	else if (bytesSent == 0)
+        	{
+        		sendBufferFull(tries++);
+        		continue;
+        	}
+			totalBytesSent += bytesSent;
+			bytesToSend -= bytesSent;
+    		tries = 0;
+        }
+	}
+	
+	/**
+	 * Write a sequence of bytes from the given buffers.
+	 * Default implementation writes buffer by buffer, codecs with a gathering channel should override it.
+	 * @param srcs the buffers from which bytes are to be retrieved.
+	 * @return the number of bytes written, possibly zero, or -1 if the channel has reached end-of-stream.
+	 * @throws IOException IO exception rethrown.
+	 * @see java.nio.channels.GatheringByteChannel#write(ByteBuffer[])
+	 */
+	protected long write(ByteBuffer[] srcs) throws IOException
+	{
+		long bytesWritten = 0;
+		for (ByteBuffer src : srcs)
+		{
+			if (!src.hasRemaining())
+				continue;
+			
+			final int n = write(src);
+			if (n < 0)
+				return (bytesWritten > 0) ? bytesWritten : n;
+			
+			bytesWritten += n;
+			if (src.hasRemaining())
+				break;
+		}
+		return bytesWritten;
+	}
+	
 	/*
 	// sendBufferFull for non-blocking
 				writeOpReady = false;
@@ -825,6 +1093,16 @@ public abstract class AbstractCodec
 
 	protected abstract void sendBufferFull(int tries) throws IOException;
 	
+	/**
+	 * Check if processing of the send queue is to be suspended,
+	 * e.g. a non-blocking codec that has data waiting for the socket to become writable.
+	 * The rest of the queue is processed by the next {@link #processWrite()} call.
+	 * @return <code>true</code> if no more senders should be processed now.
+	 */
+	protected boolean isSendSuspended() {
+		return false;
+	}
+	
 	public abstract void scheduleSend();
 	public abstract void sendCompleted();
 	
@@ -836,7 +1114,7 @@ public abstract class AbstractCodec
 		try
 		{
 			int senderProcessed = 0;
-			while (senderProcessed++ < MAX_MESSAGE_SEND)
+			while (senderProcessed++ < MAX_MESSAGE_SEND && !isSendSuspended())
 			{
 				TransportSender sender = sendQueue.take(-1);
 				if (sender == null)
@@ -12,7 +12,8 @@ import org.epics.pvaccess.impl.remote.codec.ConnectionClosedException;
 
 // TODO check if send thread is terminated
 
-// NOTE: supports 2 threads per connection (receive and send)
+// NOTE: supports 2 threads per connection (receive and send),
+// virtual threads are used if enabled (see VirtualThreadSupport)
 public abstract class BlockingAbstractCodec extends AbstractCodec {
 
 	// TODO not via config
@@ -37,9 +38,11 @@ public abstract class BlockingAbstractCodec extends AbstractCodec {
 
 	@Override
 	protected void sendBufferFull(int tries) throws IOException {
+		// back-off, max 1s
+		// NOTE: not called while holding a monitor, so virtual threads get unmounted while sleeping
 		// TODO constants
 		try {
-			Thread.sleep(Math.max(tries * 100, 1000));
+			Thread.sleep(Math.min((tries + 1) * 100, 1000));
 		} catch (InterruptedException e) {
 			// noop
 		}
@@ -95,7 +98,7 @@ public abstract class BlockingAbstractCodec extends AbstractCodec {
 	
 	public void start()
 	{
-		readThread = new Thread(new Runnable() {
+		readThread = VirtualThreadSupport.newThread(new Runnable() {
 			@Override
 			public void run() {
 				receiveThread();
@@ -103,7 +106,7 @@ public abstract class BlockingAbstractCodec extends AbstractCodec {
 		}, "receiveThread");
 		readThread.start();
 		
-		sendThread = new Thread(new Runnable() {
+		sendThread = VirtualThreadSupport.newThread(new Runnable() {
 			@Override
 			public void run() {
 				sendThread();
@@ -155,9 +158,21 @@ public abstract class BlockingAbstractCodec extends AbstractCodec {
 
 		// call internal destroy
 		internalDestroy();
+
+		// buffers can be reused only if no-one is using them anymore
+		if (!readThread.isAlive())
+			releaseBuffers();
 	}
 	
 	abstract void internalDestroy();
+
+	/**
+	 * Called when both (read and send) threads are done, i.e. when buffers can be returned to the pool.
+	 * Default implementation does nothing.
+	 */
+	protected void releaseBuffers() {
+		// noop
+	}
 	
 }
 
@@ -42,6 +42,18 @@ public abstract class BlockingDatagramAbstractCodec extends BlockingAbstractCode
 		return channel.write(src);
 	}
 
+	@Override
+	public boolean directSerialize(ByteBuffer existingBuffer, ByteBuffer toSerialize) {
+		// message must fit into a datagram
+		return false;
+	}
+
+	@Override
+	public boolean directDeserialize(ByteBuffer existingBuffer, ByteBuffer deserializeTo) {
+		// message is always contained in a datagram
+		return false;
+	}
+
 	@Override
 	void internalDestroy() {
 		if (channel.isOpen())
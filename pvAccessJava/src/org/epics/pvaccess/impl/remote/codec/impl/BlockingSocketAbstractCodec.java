@@ -39,6 +39,11 @@ public abstract class BlockingSocketAbstractCodec extends BlockingAbstractCodec
 	public int write(ByteBuffer src) throws IOException {
 		return channel.write(src);
 	}
+
+	@Override
+	protected long write(ByteBuffer[] srcs) throws IOException {
+		return channel.write(srcs);
+	}
 	
 	@Override
 	protected void internalDestroy() {
@@ -2,14 +2,33 @@ package org.epics.pvaccess.impl.remote.codec.impl;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.SelectionKey;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.epics.pvaccess.PVAConstants;
+import org.epics.pvaccess.impl.remote.codec.ConnectionClosedException;
+
 import org.epics.pvaccess.impl.remote.codec.AbstractCodec;
+import org.epics.pvaccess.impl.remote.codec.InvalidDataStreamException;
 import org.epics.pvaccess.impl.remote.io.PollEvents;
 import org.epics.pvaccess.impl.remote.io.Poller;
 
+/**
+ * Codec driven by a (shared) poller thread, i.e. it never blocks waiting for the channel.
+ * <p>
+ * Received data is accumulated in an inbound buffer and only complete messages
+ * (a segmented message with all its segments) are passed to the message processing,
+ * so that deserialization never runs out of data. Data that cannot be written
+ * (full socket send buffer) is kept in an outbound buffer, sending of queued messages
+ * is suspended and resumed when the poller reports the channel writable.
+ * <p>
+ * Both buffers are bounded: a received message larger than the maximum message size
+ * and an outbound backlog larger than the maximum message size plus the send buffer
+ * (the peer is not reading) close the connection.
+ */
 public abstract class NonBlockingAbstractCodec extends AbstractCodec implements PollEvents {
 
 	private final AtomicBoolean isOpen = new AtomicBoolean(true);
@@ -18,23 +37,118 @@ public abstract class NonBlockingAbstractCodec extends AbstractCodec implements
 
 	protected volatile SelectionKey key; // TODO sync? no... yes, accessible from outside... make it final?
 
+	/**
+	 * Initial size of the inbound and outbound buffers, they grow as needed (up to a message size)
+	 * and are shrunk back when emptied.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = PVAConstants.MAX_TCP_RECV;
+
+	/**
+	 * Default maximum size of a received message (a segmented message with all its segments).
+	 */
+	public static final int DEFAULT_MAX_MESSAGE_SIZE = 256 * 1024 * 1024;
+
+	/**
+	 * Maximum size of a received message (a segmented message with all its segments).
+	 */
+	private final int maxMessageSize;
+
+	/**
+	 * Maximum number of bytes kept in the outbound buffer.
+	 */
+	private final int maxOutboundSize;
+
+	/**
+	 * Received bytes not yet processed, data in [position, limit).
+	 */
+	private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+	/**
+	 * Number of bytes (from the inbound position) that form complete messages.
+	 */
+	private int completeBytes = 0;
+
+	/**
+	 * Offset (relative to the inbound position) of the next message header to be checked.
+	 */
+	private int scanOffset = 0;
+
+	/**
+	 * Set while checking segments of a segmented message.
+	 */
+	private boolean scanSegmented = false;
+
+	/**
+	 * End of stream reached.
+	 */
+	private boolean endOfStream = false;
+
+	/**
+	 * Bytes that could not be written yet, data in [0, position), <code>null</code> if none.
+	 */
+	private ByteBuffer outbound = null;
+
 	public NonBlockingAbstractCodec(boolean serverFlag, Poller poller, ByteBuffer receiveBuffer, ByteBuffer sendBuffer,
 			int socketSendBufferSize, Logger logger) {
+		this(serverFlag, poller, receiveBuffer, sendBuffer, socketSendBufferSize, DEFAULT_MAX_MESSAGE_SIZE, logger);
+	}
+
+	/**
+	 * Constructor.
+	 * @param serverFlag server side flag.
+	 * @param poller poller driving this codec.
+	 * @param receiveBuffer receive buffer.
+	 * @param sendBuffer send buffer.
+	 * @param socketSendBufferSize socket send buffer size.
+	 * @param maxMessageSize maximum size of a received message (a segmented message with all its segments),
+	 * 		  non-positive value for {@link #DEFAULT_MAX_MESSAGE_SIZE}.
+	 * @param logger logger.
+	 */
+	public NonBlockingAbstractCodec(boolean serverFlag, Poller poller, ByteBuffer receiveBuffer, ByteBuffer sendBuffer,
+			int socketSendBufferSize, int maxMessageSize, Logger logger) {
 		super(serverFlag, receiveBuffer, sendBuffer, socketSendBufferSize, false, logger);
 		this.poller = poller;
+		this.maxMessageSize = Math.max(maxMessageSize > 0 ? maxMessageSize : DEFAULT_MAX_MESSAGE_SIZE, INITIAL_BUFFER_SIZE);
+		this.maxOutboundSize = (int)Math.min((long)this.maxMessageSize + sendBuffer.capacity(), Integer.MAX_VALUE - 8);
+
+		// initialize to be empty
+		inbound.limit(0);
 	}
 
 	protected abstract void ready();
-	
+
+	/**
+	 * Read from the underlying channel (non-blocking).
+	 * @param dst the buffer into which bytes are to be transferred.
+	 * @return the number of bytes read, possibly zero, or -1 if the channel has reached end-of-stream.
+	 * @throws IOException IO exception rethrown.
+	 */
+	protected abstract int readChannel(ByteBuffer dst) throws IOException;
+
 	/* (non-Javadoc)
 	 * @see org.epics.pvaccess.impl.remote.io.PollEvents#registeredNotify(java.nio.channels.SelectionKey, java.lang.Throwable)
 	 */
 	@Override
 	public void registeredNotify(SelectionKey key,
 			Throwable registrationException) {
+		if (registrationException != null)
+		{
+			logger.log(Level.FINE, "Failed to register channel to the poller.", registrationException);
+			try {
+				close();
+			} catch (IOException e) {
+				// noop
+			}
+			return;
+		}
+
 		setSenderThread();
 		this.key = key;
 		ready();
+
+		// send requests enqueued before registration
+		if (!sendQueue.isEmpty())
+			scheduleSend();
 	}
 
 	/* (non-Javadoc)
@@ -42,41 +156,371 @@ public abstract class NonBlockingAbstractCodec extends AbstractCodec implements
 	 */
 	@Override
 	public void pollNotify(SelectionKey key) throws IOException {
-		if (key.isReadable())
-			processRead();
-		// TODO use a flag, go here immediately... avoid setting WRITE selection key
-		if (key.isWritable())	// TODO else?
-			processWrite();
+		try
+		{
+			if (key.isReadable())
+			{
+				readInbound();
+
+				// processRead() processes limited number of messages,
+				// process the rest of already received (complete) messages
+				while (isOpen() && readMode == ReadMode.NORMAL &&
+					   (completeBytes > 0 || socketBuffer.remaining() >= PVAConstants.PVA_MESSAGE_HEADER_SIZE))
+					processRead();
+
+				if (endOfStream)
+				{
+					close();
+					return;
+				}
+			}
+
+			if (isOpen() && key.isValid() && key.isWritable())
+			{
+				// queued messages are sent only when previous data is written
+				if (writeOutbound())
+					processWrite();
+			}
+		}
+		catch (ConnectionClosedException cce) {
+			// already closed
+			close();
+		}
+		catch (IOException ioe) {
+			close();
+			throw ioe;
+		}
+		catch (Throwable th) {
+			logger.log(Level.FINE, "Unexpected exception caught while processing IO event, closing connection.", th);
+			close();
+		}
+	}
+
+	/**
+	 * Read available bytes from the channel to the inbound buffer
+	 * and find out how many of them form complete messages.
+	 * @throws IOException IO exception rethrown.
+	 */
+	private void readInbound() throws IOException
+	{
+		inbound.compact();
+		try
+		{
+			while (true)
+			{
+				if (!inbound.hasRemaining())
+				{
+					inbound.flip();
+					scanInbound();
+
+					// complete messages are processed first
+					if (completeBytes > 0)
+					{
+						inbound.compact();
+						break;
+					}
+
+					// incomplete message larger than the buffer
+					if (inbound.capacity() >= maxMessageSize)
+						messageTooLarge();
+					ByteBuffer newInbound = ByteBuffer.allocate((int)Math.min(inbound.capacity() * 2L, maxMessageSize));
+					newInbound.put(inbound);
+					inbound = newInbound;
+				}
+
+				final int bytesRead = readChannel(inbound);
+				if (bytesRead < 0)
+				{
+					endOfStream = true;
+					break;
+				}
+				else if (bytesRead == 0)
+					break;
+			}
+		}
+		finally
+		{
+			inbound.flip();
+		}
+		scanInbound();
+	}
+
+	/**
+	 * Check headers of received messages, updates <code>completeBytes</code>.
+	 * @throws InvalidDataStreamException if a message is larger than the maximum message size.
+	 */
+	private void scanInbound()
+	{
+		final int available = inbound.remaining();
+		while (available - scanOffset >= PVAConstants.PVA_MESSAGE_HEADER_SIZE)
+		{
+			final int headerPosition = inbound.position() + scanOffset;
+			if (inbound.get(headerPosition) != PVAConstants.PVA_MAGIC)
+			{
+				// invalid stream, let processRead() handle it
+				completeBytes = available;
+				scanOffset = available;
+				scanSegmented = false;
+				return;
+			}
+
+			final byte flags = inbound.get(headerPosition + 2);
+			final boolean isControl = ((flags & 0x01) == 0x01);
+			int messageSize = PVAConstants.PVA_MESSAGE_HEADER_SIZE;
+			if (!isControl)
+			{
+				final ByteOrder byteOrder = ((flags & 0x80) != 0) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+				final ByteOrder order = inbound.order();
+				inbound.order(byteOrder);
+				final int payloadSize = inbound.getInt(headerPosition + 4);
+				inbound.order(order);
+				if (payloadSize < 0 || payloadSize > Integer.MAX_VALUE - 2*PVAConstants.PVA_MESSAGE_HEADER_SIZE)
+				{
+					// invalid stream, let processRead() handle it
+					completeBytes = available;
+					scanOffset = available;
+					scanSegmented = false;
+					return;
+				}
+
+				messageSize += AbstractCodec.alignedValue(payloadSize, PVAConstants.PVA_ALIGNMENT);
+
+				// incomplete message starts at completeBytes (previous segments included)
+				if ((long)scanOffset - completeBytes + messageSize > maxMessageSize)
+					messageTooLarge();
+
+				if (available - scanOffset < messageSize)
+					return;
+
+				// first and in-between segment have 0x10 bit set
+				scanSegmented = (flags & 0x10) != 0;
+			}
+
+			scanOffset += messageSize;
+			if (!scanSegmented)
+				completeBytes = scanOffset;
+		}
+	}
+
+	/**
+	 * Disconnect, a received message does not fit into the maximum message size.
+	 * @throws InvalidDataStreamException always.
+	 */
+	private void messageTooLarge()
+	{
+		logger.warning("Message larger than " + maxMessageSize + " bytes received from " + getLastReadBufferSocketAddress() + ", disconnecting...");
+		invalidDataStreamHandler();
+		throw new InvalidDataStreamException("message too large");
+	}
+
+	/* (non-Javadoc)
+	 * @see java.nio.channels.ReadableByteChannel#read(java.nio.ByteBuffer)
+	 */
+	@Override
+	public final int read(ByteBuffer dst) throws IOException {
+		final int n = Math.min(completeBytes, dst.remaining());
+		if (n == 0)
+			return 0;
+
+		final int limit = inbound.limit();
+		inbound.limit(inbound.position() + n);
+		dst.put(inbound);
+		inbound.limit(limit);
+
+		completeBytes -= n;
+		scanOffset -= n;
+
+		// drop a grown buffer once emptied
+		if (!inbound.hasRemaining() && inbound.capacity() > INITIAL_BUFFER_SIZE)
+		{
+			inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			inbound.limit(0);
+		}
+		return n;
 	}
 
 	@Override
 	public void readPollOne() throws IOException {
-		poller.pollOne();
+		// only complete messages are processed
+		throw new IllegalStateException("should not be called for non-blocking IO, message incomplete");
 	}
 
 	@Override
 	public void writePollOne() throws IOException {
-		poller.pollOne();
+		throw new IllegalStateException("should not be called for non-blocking IO");
 	}
 
 	@Override
 	protected void sendBufferFull(int tries) throws IOException {
-		writeOpReady = false;
-		writeMode = WriteMode.WAIT_FOR_READY_SIGNAL;
-		this.writePollOne();
-		writeMode = WriteMode.PROCESS_SEND_QUEUE;
+		throw new IllegalStateException("should not be called for non-blocking IO");
+	}
+
+	/**
+	 * Write as much of the outbound buffer as the channel accepts.
+	 * @return <code>true</code> if the outbound buffer is empty.
+	 * @throws IOException IO exception rethrown.
+	 */
+	private boolean writeOutbound() throws IOException {
+		if (outbound == null)
+			return true;
+
+		outbound.flip();
+		try
+		{
+			while (outbound.hasRemaining())
+			{
+				final int bytesSent = write(outbound);
+				if (bytesSent < 0)
+				{
+					close();
+					throw new ConnectionClosedException("bytesSent < 0");
+				}
+				else if (bytesSent == 0)
+					return false;
+				totalBytesSent += bytesSent;
+			}
+		}
+		finally
+		{
+			outbound.compact();
+		}
+
+		outbound = null;
+		return true;
+	}
+
+	/**
+	 * Append the remaining bytes of the buffer to the outbound buffer
+	 * and wait for the channel to become writable.
+	 * Sending is suspended while the outbound buffer is not empty, so it holds at most
+	 * the rest of one message and a send buffer, unless the peer stops reading.
+	 * @param buffer the buffer.
+	 * @throws ConnectionClosedException if the outbound buffer would exceed its maximum size.
+	 */
+	private void appendOutbound(ByteBuffer buffer) throws IOException {
+		final long backlog = (outbound == null ? 0 : outbound.position()) + (long)buffer.remaining();
+		if (backlog > maxOutboundSize)
+		{
+			logger.warning("Send backlog larger than " + maxOutboundSize + " bytes for " + getLastReadBufferSocketAddress() + ", disconnecting...");
+			close();
+			throw new ConnectionClosedException("send backlog exceeded");
+		}
+
+		if (outbound == null)
+			outbound = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE, buffer.remaining()));
+		else if (outbound.remaining() < buffer.remaining())
+		{
+			ByteBuffer newOutbound = ByteBuffer.allocate((int)Math.min(Math.max(outbound.capacity() * 2L, backlog), maxOutboundSize));
+			outbound.flip();
+			newOutbound.put(outbound);
+			outbound = newOutbound;
+		}
+		outbound.put(buffer);
+
+		scheduleSend();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.impl.remote.codec.AbstractCodec#send(java.nio.ByteBuffer)
+	 */
+	@Override
+	protected void send(ByteBuffer buffer) throws IOException
+	{
+		if (writeOutbound())
+		{
+			while (buffer.hasRemaining())
+			{
+				final int bytesSent = write(buffer);
+				if (bytesSent < 0)
+				{
+					close();
+					throw new ConnectionClosedException("bytesSent < 0");
+				}
+				else if (bytesSent == 0)
+					break;
+				totalBytesSent += bytesSent;
+			}
+		}
+
+		if (buffer.hasRemaining())
+			appendOutbound(buffer);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.impl.remote.codec.AbstractCodec#send(java.nio.ByteBuffer[])
+	 */
+	@Override
+	protected void send(ByteBuffer[] buffers) throws IOException
+	{
+		long bytesToSend = 0;
+		for (ByteBuffer buffer : buffers)
+			bytesToSend += buffer.remaining();
+
+		if (writeOutbound())
+		{
+			while (bytesToSend > 0)
+			{
+				final long bytesSent = write(buffers);
+				if (bytesSent < 0)
+				{
+					close();
+					throw new ConnectionClosedException("bytesSent < 0");
+				}
+				else if (bytesSent == 0)
+					break;
+				totalBytesSent += bytesSent;
+				bytesToSend -= bytesSent;
+			}
+		}
+
+		for (ByteBuffer buffer : buffers)
+			if (buffer.hasRemaining())
+				appendOutbound(buffer);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.impl.remote.codec.AbstractCodec#isSendSuspended()
+	 */
+	@Override
+	protected boolean isSendSuspended() {
+		return outbound != null;
 	}
 
 	@Override
 	public void scheduleSend() {
 		//System.out.println("scheduleSend");
-		key.interestOps(SelectionKey.OP_WRITE);	// TODO allow read?
+		final SelectionKey key = this.key;
+		// not yet registered, will be scheduled in registeredNotify()
+		if (key == null)
+			return;
+		try {
+			// avoid (costly) poller wake-up if already scheduled,
+			// sendCompleted() re-checks the queue after clearing OP_WRITE
+			if ((key.interestOps() & SelectionKey.OP_WRITE) == 0)
+				poller.modify(key, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		} catch (Throwable th) {
+			// cancelled key, i.e. closed
+		}
 	}
 
 	@Override
 	public void sendCompleted() {
 		//System.out.println("sendCompleted");
-		key.interestOps(SelectionKey.OP_READ);
+		final SelectionKey key = this.key;
+		if (key == null || !key.isValid())
+			return;
+		// still waiting to write the outbound buffer
+		if (outbound != null)
+			return;
+		try {
+			key.interestOps(SelectionKey.OP_READ);
+		} catch (Throwable th) {
+			// cancelled key, i.e. closed
+			return;
+		}
+		// a request might have been enqueued meanwhile (after the queue was found empty)
+		if (!sendQueue.isEmpty())
+			scheduleSend();
 	}
 
 	/* (non-Javadoc)
@@ -86,6 +530,10 @@ public abstract class NonBlockingAbstractCodec extends AbstractCodec implements
 	public void close() throws IOException {
 		if (isOpen.getAndSet(false))
 		{
+			final SelectionKey key = this.key;
+			if (key != null)
+				key.cancel();
+
 			// TODO is this OK? yes...
 			internalDestroy();
 		}
@@ -107,6 +555,6 @@ public abstract class NonBlockingAbstractCodec extends AbstractCodec implements
 	@Override
 	public boolean isOpen() {
 		return isOpen.get();
-	}	
+	}
 
 }
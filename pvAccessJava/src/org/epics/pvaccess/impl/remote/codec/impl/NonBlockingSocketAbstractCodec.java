@@ -9,6 +9,7 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.epics.pvaccess.impl.remote.io.Poller;
@@ -29,22 +30,45 @@ public abstract class NonBlockingSocketAbstractCodec extends NonBlockingAbstract
 			ByteBuffer receiveBuffer,
 			ByteBuffer sendBuffer,
 			Logger logger) throws SocketException {
-		super(serverFlag, poller, receiveBuffer, sendBuffer, channel.socket().getSendBufferSize(), logger);
+		this(serverFlag, poller, channel, receiveBuffer, sendBuffer, DEFAULT_MAX_MESSAGE_SIZE, logger);
+	}
+
+	public NonBlockingSocketAbstractCodec(
+			boolean serverFlag,
+			Poller poller,
+			SocketChannel channel,
+			ByteBuffer receiveBuffer,
+			ByteBuffer sendBuffer,
+			int maxMessageSize,
+			Logger logger) throws SocketException {
+		super(serverFlag, poller, receiveBuffer, sendBuffer, channel.socket().getSendBufferSize(), maxMessageSize, logger);
 		this.channel = channel;
 		this.socketAddress = (InetSocketAddress)channel.socket().getRemoteSocketAddress();
-	
-		// TODO
+	}
+
+	/**
+	 * Register channel to the poller, i.e. start processing IO events.
+	 * Must be called at the end of the (most derived) constructor, since registration
+	 * is completed asynchronously by the poller thread.
+	 */
+	public void start()
+	{
 		try {
 			channel.configureBlocking(false);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			logger.log(Level.FINE, "Failed to configure non-blocking mode.", e);
+			try {
+				close();
+			} catch (IOException e1) {
+				// noop
+			}
+			return;
 		}
 		poller.add(channel, this, SelectionKey.OP_READ);
 	}
 
 	@Override
-	public int read(ByteBuffer dst) throws IOException {
+	protected int readChannel(ByteBuffer dst) throws IOException {
 		return channel.read(dst);
 	}
 
@@ -53,6 +77,11 @@ public abstract class NonBlockingSocketAbstractCodec extends NonBlockingAbstract
 		return channel.write(src);
 	}
 
+	@Override
+	protected long write(ByteBuffer[] srcs) throws IOException {
+		return channel.write(srcs);
+	}
+
 	@Override
 	protected void internalDestroy() {
 		if (channel.isOpen())
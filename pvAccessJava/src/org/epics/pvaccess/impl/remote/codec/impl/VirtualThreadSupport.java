@@ -0,0 +1,97 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.impl.remote.codec.impl;
+
+import java.lang.reflect.Method;
+
+import org.epics.pvaccess.PVAConstants;
+
+/**
+ * Virtual thread support, detected at runtime (via reflection) so that code still runs on older JVMs.
+ * Virtual threads are used only if enabled via {@link PVAConstants#PVACCESS_VIRTUAL_THREADS} JVM property
+ * and supported by the running JVM, otherwise platform threads are created.
+ */
+public final class VirtualThreadSupport {
+
+	private static final Method OF_VIRTUAL;
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_UNSTARTED;
+	
+	static {
+		Method ofVirtual = null, builderName = null, builderUnstarted = null;
+		try
+		{
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builderName = builderClass.getMethod("name", String.class);
+			builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+			
+			// can fail if preview features are not enabled
+			ofVirtual.invoke(null);
+		} catch (Throwable th) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = builderName;
+		BUILDER_UNSTARTED = builderUnstarted;
+	}
+
+	private static final boolean ENABLED =
+			OF_VIRTUAL != null && Boolean.getBoolean(PVAConstants.PVACCESS_VIRTUAL_THREADS);
+
+	private VirtualThreadSupport() {
+		// no instances
+	}
+
+	/**
+	 * Check if virtual threads are supported by the running JVM.
+	 * @return <code>true</code> if supported.
+	 */
+	public static boolean isAvailable() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Check if virtual threads are used, i.e. supported and enabled.
+	 * @return <code>true</code> if virtual threads are used.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Create a new (unstarted) thread, virtual if enabled, platform thread otherwise.
+	 * @param runnable thread runnable.
+	 * @param name thread name.
+	 * @return new unstarted thread.
+	 */
+	public static Thread newThread(Runnable runnable, String name) {
+		if (ENABLED)
+			return newVirtualThread(runnable, name);
+		return new Thread(runnable, name);
+	}
+
+	/**
+	 * Create a new (unstarted) virtual thread if supported, regardless of {@link PVAConstants#PVACCESS_VIRTUAL_THREADS},
+	 * platform thread otherwise.
+	 * @param runnable thread runnable.
+	 * @param name thread name.
+	 * @return new unstarted thread.
+	 */
+	public static Thread newVirtualThread(Runnable runnable, String name) {
+		if (OF_VIRTUAL != null)
+		{
+			try
+			{
+				Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+				return (Thread)BUILDER_UNSTARTED.invoke(builder, runnable);
+			} catch (Throwable th) {
+				// fallback to platform thread
+			}
+		}
+		return new Thread(runnable, name);
+	}
+}
@@ -10,6 +10,8 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.epics.pvaccess.impl.remote.io.PollEvents;
 import org.epics.pvaccess.impl.remote.io.Poller;
@@ -20,21 +22,67 @@ import org.epics.pvaccess.impl.remote.io.Poller;
  */
 public class PollerImpl implements Poller, Runnable {
 
+	private static final Logger logger = Logger.getLogger(PollerImpl.class.getName());
+
 	final Selector selector;
 	
 	// wake-up time kills low-latency, this mechanism loops selectNow for some time
 	private int trottle = 0;
 
+	private volatile boolean shutdown = false;
+	private volatile Thread thread = null;
+
 	public PollerImpl() throws IOException {
 		selector = Selector.open();
 	}
 
 	public void start() {
-		Thread t = new Thread(this,"PollerImpl-");
+		start("PollerImpl-");
+	}
+
+	/**
+	 * Start polling (event loop) thread.
+	 * @param threadName name of the thread.
+	 */
+	public void start(String threadName) {
+		Thread t = new Thread(this, threadName);
 		//t.setPriority(Thread.NORM_PRIORITY);
+		t.setDaemon(true);
+		thread = t;
 		t.start();
 	}
 
+	/**
+	 * Stop polling thread and close the selector.
+	 * Registered channels are not closed.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		selector.wakeup();
+		Thread t = thread;
+		if (t != null && t != Thread.currentThread())
+		{
+			try {
+				t.join(3000);
+			} catch (InterruptedException e) {
+				// noop
+			}
+		}
+	}
+
+	/**
+	 * Get number of registered channels.
+	 * @return number of registered channels.
+	 */
+	public int getRegisteredCount() {
+		try {
+			return selector.keys().size();
+		} catch (Throwable th) {
+			// closed selector
+			return 0;
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.cosylab.jam.io.Poller#add(java.nio.channels.SelectableChannel, com.cosylab.jam.io.PollEvents, int)
 	 */
@@ -129,6 +177,11 @@ public class PollerImpl implements Poller, Runnable {
 				pollEvents.pollNotify(key);
 			} catch (CancelledKeyException cke) {
 				// noop
+			} catch (IOException ioe) {
+				// handler is responsible to close itself
+			} catch (RuntimeException re) {
+				// one handler must not kill the loop (all the others)
+				logger.log(Level.SEVERE, "Unexpected exception caught while processing IO event.", re);
 			}
 		}
 
@@ -140,14 +193,20 @@ public class PollerImpl implements Poller, Runnable {
 	{
 		try
 		{
-			// TODO shutdown
-			while (true)
+			while (!shutdown)
 				pollOne();
 		} catch (Throwable th) {
 			// IOException, ClosedSelectorException
 			// and any others...
-			// TODO
-			th.printStackTrace();
+			logger.log(Level.SEVERE, "Poller thread terminated unexpectedly.", th);
+		}
+		finally
+		{
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// noop
+			}
 		}
 	}
 
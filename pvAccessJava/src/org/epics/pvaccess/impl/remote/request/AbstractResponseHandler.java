@@ -49,13 +49,10 @@ public abstract class AbstractResponseHandler implements ResponseHandler {
 	public void handleResponse(InetSocketAddress responseFrom, Transport transport, byte version, byte command, int payloadSize, ByteBuffer payloadBuffer) {
 		if (debug)
 		{
-			if (payloadBuffer.hasArray())
-				HexDump.hexDump("Message [" + command + ", v" + Integer.toHexString(version) + "] received from " + responseFrom, description, 
-									payloadBuffer.array(),
-									payloadBuffer.position(),
-									Math.min(payloadSize, payloadBuffer.limit()-payloadBuffer.position()));	// TODO can be segmented 
-			else
-				System.out.println("Message [" + command + ", v" + Integer.toHexString(version) + "] received from " + responseFrom + ", payload size = " + payloadSize);
+			HexDump.hexDump("Message [" + command + ", v" + Integer.toHexString(version) + "] received from " + responseFrom, description, 
+								payloadBuffer,
+								payloadBuffer.position(),
+								Math.min(payloadSize, payloadBuffer.limit()-payloadBuffer.position()));	// TODO can be segmented 
 		}
 	}
 
@@ -30,6 +30,8 @@ import org.epics.pvaccess.impl.remote.codec.AbstractCodec;
 import org.epics.pvaccess.impl.remote.codec.impl.BlockingSocketAbstractCodec;
 import org.epics.pvaccess.impl.remote.request.ResponseHandler;
 import org.epics.pvaccess.server.ServerContext;
+import org.epics.pvaccess.util.BufferPool;
+import org.epics.pvdata.pv.DirectDeserializableControl;
 import org.epics.pvdata.pv.Field;
 import org.epics.pvdata.pv.Status;
 
@@ -39,7 +41,7 @@ import org.epics.pvdata.pv.Status;
  * @author <a href="mailto:matej.sekoranjaATcosylab.com">Matej Sekoranja</a>
  * @version $Id$
  */
-public abstract class BlockingTCPTransport extends BlockingSocketAbstractCodec implements Transport {
+public abstract class BlockingTCPTransport extends BlockingSocketAbstractCodec implements Transport, DirectDeserializableControl {
 
 	/**
 	 * Context instance.
@@ -93,8 +95,8 @@ public abstract class BlockingTCPTransport extends BlockingSocketAbstractCodec i
 					   int receiveBufferSize,
 					   short priority) throws SocketException {
 		super(context instanceof ServerContext, channel, 
-				ByteBuffer.allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
-				ByteBuffer.allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
+				BufferPool.getDefault().allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
+				BufferPool.getDefault().allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
 				context.getLogger());
 		this.context = context;
 		this.responseHandler = responseHandler;
@@ -116,6 +118,12 @@ public abstract class BlockingTCPTransport extends BlockingSocketAbstractCodec i
 		// clean resources
 		internalClose();
 	}
+
+	@Override
+	protected void releaseBuffers() {
+		BufferPool.getDefault().release(socketBuffer);
+		BufferPool.getDefault().release(sendBuffer);
+	}
 	
 	// TODO
 	/**
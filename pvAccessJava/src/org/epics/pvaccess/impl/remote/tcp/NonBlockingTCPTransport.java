@@ -31,6 +31,8 @@ import org.epics.pvaccess.impl.remote.codec.impl.NonBlockingSocketAbstractCodec;
 import org.epics.pvaccess.impl.remote.io.Poller;
 import org.epics.pvaccess.impl.remote.request.ResponseHandler;
 import org.epics.pvaccess.server.ServerContext;
+import org.epics.pvaccess.util.BufferPool;
+import org.epics.pvdata.pv.DirectDeserializableControl;
 import org.epics.pvdata.pv.Field;
 import org.epics.pvdata.pv.Status;
 
@@ -40,7 +42,7 @@ import org.epics.pvdata.pv.Status;
  * @author <a href="mailto:matej.sekoranjaATcosylab.com">Matej Sekoranja</a>
  * @version $Id$
  */
-public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractCodec implements Transport {
+public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractCodec implements Transport, DirectDeserializableControl {
 
 	/**
 	 * Context instance.
@@ -97,9 +99,31 @@ public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractC
 					   ResponseHandler responseHandler,
 					   int receiveBufferSize,
 					   short priority) throws SocketException {
+		this(context, poller, channel, responseHandler, receiveBufferSize, DEFAULT_MAX_MESSAGE_SIZE, priority);
+	}
+
+	/**
+	 * TCP transport constructor.
+	 * @param context context where transport lives in.
+	 * @param poller poller to use. 
+	 * @param channel used socket channel.
+	 * @param responseHandler response handler used to process PVA headers.
+	 * @param receiveBufferSize receive buffer size.
+	 * @param maxMessageSize maximum size of a received message, the connection is closed on a larger one.
+	 * @param priority transport priority.
+	 * @throws SocketException thrown on any socket exception.
+	 */
+	public NonBlockingTCPTransport(Context context, 
+			Poller poller, 
+					   SocketChannel channel,
+					   ResponseHandler responseHandler,
+					   int receiveBufferSize,
+					   int maxMessageSize,
+					   short priority) throws SocketException {
 		super(context instanceof ServerContext, poller, channel, 
-				ByteBuffer.allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
-				ByteBuffer.allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
+				BufferPool.getDefault().allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
+				BufferPool.getDefault().allocate(Math.max(PVAConstants.MAX_TCP_RECV + AbstractCodec.MAX_ENSURE_DATA_SIZE, receiveBufferSize)),
+				maxMessageSize,
 				context.getLogger());
 		this.context = context;
 		this.responseHandler = responseHandler;
@@ -288,7 +312,8 @@ public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractC
 		outgoingIR.serialize(field, buffer, this);
 	}
 
-	protected boolean verified = false;
+	protected volatile boolean verified = false;
+	private volatile boolean verifiedCalled = false;
 	private Object verifiedMonitor = new Object();
 	
 	@Override
@@ -305,10 +330,19 @@ public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractC
 			}
 			
 			verified = status.isSuccess();
+			verifiedCalled = true;
 			verifiedMonitor.notifyAll();
 		}
 	}
 	
+	/**
+	 * Check if verification was completed (i.e. verified() was called).
+	 * @return verification completed flag.
+	 */
+	public boolean isVerificationCompleted() {
+		return verifiedCalled;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.epics.pvaccess.impl.remote.Transport#verify(long)
 	 */
@@ -317,7 +351,7 @@ public abstract class NonBlockingTCPTransport extends NonBlockingSocketAbstractC
 		synchronized (verifiedMonitor) {
 			try {
 				final long start = System.currentTimeMillis();
-				while (!verified && (System.currentTimeMillis() - start) < timeoutMs)
+				while (!verifiedCalled && (System.currentTimeMillis() - start) < timeoutMs)
 						verifiedMonitor.wait(timeoutMs);
 			} catch (InterruptedException e) {
 				// noop
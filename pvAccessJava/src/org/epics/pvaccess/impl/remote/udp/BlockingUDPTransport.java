@@ -43,6 +43,7 @@ import org.epics.pvaccess.impl.remote.TransportSender;
 import org.epics.pvaccess.impl.remote.request.ResponseHandler;
 import org.epics.pvaccess.plugins.SecurityPlugin.SecuritySession;
 import org.epics.pvaccess.server.ServerContext;
+import org.epics.pvaccess.util.BufferPool;
 import org.epics.pvaccess.util.InetAddressUtil;
 import org.epics.pvdata.pv.Field;
 import org.epics.pvdata.pv.FieldCreate;
@@ -140,10 +141,10 @@ public class BlockingUDPTransport implements Transport, TransportSendControl {
 		}
 		
 		// allocate receive buffer
-		receiveBuffer = ByteBuffer.allocate(PVAConstants.MAX_UDP_PACKET);
+		receiveBuffer = BufferPool.getDefault().allocate(PVAConstants.MAX_UDP_PACKET);
 		
 		// allocate send buffer and non-reentrant lock
-		sendBuffer = ByteBuffer.allocate(PVAConstants.MAX_UDP_UNFRAGMENTED_SEND);
+		sendBuffer = BufferPool.getDefault().allocate(PVAConstants.MAX_UDP_UNFRAGMENTED_SEND);
 	}
 	
 	/**
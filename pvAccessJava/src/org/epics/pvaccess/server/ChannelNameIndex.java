@@ -0,0 +1,142 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.epics.pvaccess.util.WildcharMatcher;
+
+/**
+ * Index of channel names hosted by a server, populated by channel providers (see {@link ChannelNamePublisher}).
+ * Used by the server to reject searches for non-local channels before any channel provider is queried.
+ * Names (and wildcard patterns) are reference counted, so that the same name can be published by more providers.
+ * This class is thread-safe.
+ */
+public class ChannelNameIndex {
+
+	private final HashMap<String, Integer> names = new HashMap<String, Integer>();
+	private final CopyOnWriteArrayList<String> patterns = new CopyOnWriteArrayList<String>();
+
+	/**
+	 * Add channel name.
+	 * @param channelName channel name.
+	 */
+	public void add(String channelName)
+	{
+		if (channelName == null)
+			throw new IllegalArgumentException("channelName == null");
+		synchronized (names) {
+			final Integer count = names.get(channelName);
+			names.put(channelName, (count == null) ? 1 : count + 1);
+		}
+	}
+
+	/**
+	 * Remove channel name (previously added).
+	 * @param channelName channel name.
+	 */
+	public void remove(String channelName)
+	{
+		synchronized (names) {
+			final Integer count = names.get(channelName);
+			if (count == null)
+				return;
+			else if (count > 1)
+				names.put(channelName, count - 1);
+			else
+				names.remove(channelName);
+		}
+	}
+
+	/**
+	 * Add channel names, e.g. when a provider loads many channels at once.
+	 * @param channelNames channel names.
+	 */
+	public void addAll(Collection<String> channelNames)
+	{
+		synchronized (names) {
+			for (String channelName : channelNames)
+			{
+				if (channelName == null)
+					throw new IllegalArgumentException("channelName == null");
+				final Integer count = names.get(channelName);
+				names.put(channelName, (count == null) ? 1 : count + 1);
+			}
+		}
+	}
+
+	/**
+	 * Remove channel names (previously added).
+	 * @param channelNames channel names.
+	 */
+	public void removeAll(Collection<String> channelNames)
+	{
+		synchronized (names) {
+			for (String channelName : channelNames)
+			{
+				final Integer count = names.get(channelName);
+				if (count == null)
+					continue;
+				else if (count > 1)
+					names.put(channelName, count - 1);
+				else
+					names.remove(channelName);
+			}
+		}
+	}
+
+	/**
+	 * Add wildcard pattern, i.e. all channel names matching the pattern are considered as hosted.
+	 * @param pattern wildcard pattern (see {@link WildcharMatcher}).
+	 */
+	public void addPattern(String pattern)
+	{
+		if (pattern == null)
+			throw new IllegalArgumentException("pattern == null");
+		patterns.add(pattern);
+	}
+
+	/**
+	 * Remove wildcard pattern (previously added).
+	 * @param pattern wildcard pattern.
+	 */
+	public void removePattern(String pattern)
+	{
+		patterns.remove(pattern);
+	}
+
+	/**
+	 * Check if channel might be hosted by the server.
+	 * @param channelName channel name.
+	 * @return <code>false</code> if channel is definitely not hosted by the server.
+	 */
+	public boolean contains(String channelName)
+	{
+		synchronized (names) {
+			if (names.containsKey(channelName))
+				return true;
+		}
+
+		for (String pattern : patterns)
+			if (WildcharMatcher.match(pattern, channelName))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Get number of indexed channel names (excluding patterns).
+	 * @return number of indexed channel names.
+	 */
+	public int size()
+	{
+		synchronized (names) {
+			return names.size();
+		}
+	}
+}
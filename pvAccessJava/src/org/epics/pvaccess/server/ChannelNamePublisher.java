@@ -0,0 +1,28 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server;
+
+/**
+ * Optional interface of a <code>ChannelProvider</code> that is able to publish names of all its channels.
+ * Search requests are pre-filtered with {@link ChannelNameIndex} only if all the server's channel providers
+ * implement this interface, otherwise every search is passed to all the channel providers.
+ */
+public interface ChannelNamePublisher {
+
+	/**
+	 * Start publishing channel names to the given index.
+	 * The provider must add all its current channel names (or wildcard patterns) before returning
+	 * and keep the index up-to-date (add a name before it can be found, remove when it is gone).
+	 * @param index index to publish channel names to.
+	 */
+	void publishChannelNames(ChannelNameIndex index);
+
+	/**
+	 * Stop publishing channel names to the given index.
+	 * @param index index previously passed to {@link #publishChannelNames(ChannelNameIndex)}.
+	 */
+	void unpublishChannelNames(ChannelNameIndex index);
+}
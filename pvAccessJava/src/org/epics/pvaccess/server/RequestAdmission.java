@@ -0,0 +1,25 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server;
+
+import org.epics.pvdata.pv.Status;
+
+/**
+ * Optional interface of a server-side channel request (e.g. <code>ChannelRPC</code>) that is able to
+ * reject its next request in advance.
+ * The server checks it before the request data is deserialized (when the data can be skipped),
+ * so that a busy service rejects large requests early.
+ */
+public interface RequestAdmission {
+
+	/**
+	 * Check if the next request is accepted now.
+	 * If not, the request is rejected and never passed to the channel request.
+	 * An accepted request can still be rejected by the channel request itself.
+	 * @return OK status if accepted, the status to be reported to the client otherwise.
+	 */
+	Status checkAdmission();
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.epics.pvaccess.server.ChannelNameIndex;
+
+/**
+ * In-memory database of records, served by {@link RecordChannelProvider}.
+ * <p>
+ * Records do not have a lock each: a fixed number of locks is shared among the records
+ * (lock striping), which keeps the memory footprint small for hundreds of thousands of records
+ * while records that do not share a lock are still accessed concurrently.
+ * Large sets of records should be added with {@link #addRecords(Collection)}.
+ * This class is thread-safe.
+ */
+public class PVDatabase {
+
+	/**
+	 * Default number of record locks.
+	 */
+	public static final int DEFAULT_LOCK_STRIPES = 1024;
+
+	private final ConcurrentHashMap<String, PVRecord> records;
+	private final RecordLock[] locks;
+	private final int lockMask;
+
+	// guarded by itself, also serializes adding and removing records
+	private final CopyOnWriteArrayList<ChannelNameIndex> indexes = new CopyOnWriteArrayList<ChannelNameIndex>();
+
+	/**
+	 * Constructor with default parameters.
+	 */
+	public PVDatabase()
+	{
+		this(16, DEFAULT_LOCK_STRIPES);
+	}
+
+	/**
+	 * Constructor.
+	 * @param expectedRecords expected number of records (initial capacity).
+	 * @param lockStripes number of record locks, rounded up to a power of two.
+	 */
+	public PVDatabase(int expectedRecords, int lockStripes)
+	{
+		if (expectedRecords < 0)
+			throw new IllegalArgumentException("expectedRecords < 0");
+		if (lockStripes < 1 || lockStripes > (1 << 30))
+			throw new IllegalArgumentException("lockStripes out of range");
+
+		records = new ConcurrentHashMap<String, PVRecord>(expectedRecords);
+
+		int n = Integer.highestOneBit(lockStripes);
+		if (n < lockStripes)
+			n <<= 1;
+		locks = new RecordLock[n];
+		for (int i = 0; i < n; i++)
+			locks[i] = new RecordLock();
+		lockMask = n - 1;
+	}
+
+	private RecordLock lockFor(String recordName)
+	{
+		int h = recordName.hashCode();
+		h ^= (h >>> 16);
+		return locks[h & lockMask];
+	}
+
+	/**
+	 * Get the number of record locks.
+	 * @return the number of record locks.
+	 */
+	public int getLockStripes() {
+		return locks.length;
+	}
+
+	/**
+	 * Add a record.
+	 * @param record the record.
+	 * @throws IllegalArgumentException if a record with the same name already exists,
+	 * 			or the record belongs to another database.
+	 */
+	public void addRecord(PVRecord record)
+	{
+		addRecords(Collections.singletonList(record));
+	}
+
+	/**
+	 * Add records at once, e.g. when loading the database.
+	 * Either all the records are added or none is.
+	 * @param newRecords the records.
+	 * @throws IllegalArgumentException if a record name is not unique,
+	 * 			or a record belongs to another database.
+	 * @throws IllegalStateException if the current thread holds the lock of a record.
+	 */
+	public void addRecords(Collection<? extends PVRecord> newRecords)
+	{
+		ArrayList<String> names = new ArrayList<String>(newRecords.size());
+		synchronized (indexes) {
+			HashSet<String> unique = new HashSet<String>(newRecords.size() * 4 / 3 + 1);
+			for (PVRecord record : newRecords)
+			{
+				String recordName = record.getRecordName();
+				if (!unique.add(recordName) || records.containsKey(recordName))
+					throw new IllegalArgumentException("record '" + recordName + "' already exists");
+				if (record.getDatabase() != null)
+					throw new IllegalArgumentException("record '" + recordName + "' already belongs to a database");
+				// its lock is replaced with a database one
+				if (record.isLockedByCurrentThread())
+					throw new IllegalStateException("record '" + recordName + "' is locked by the current thread");
+				names.add(recordName);
+			}
+
+			for (PVRecord record : newRecords)
+			{
+				record.setDatabase(this, lockFor(record.getRecordName()));
+				records.put(record.getRecordName(), record);
+			}
+
+			for (ChannelNameIndex index : indexes)
+				index.addAll(names);
+		}
+	}
+
+	/**
+	 * Remove a record, its monitors are notified and its channels disconnected.
+	 * @param recordName the record name.
+	 * @return the removed record, <code>null</code> if there is no such record.
+	 */
+	public PVRecord removeRecord(String recordName)
+	{
+		PVRecord record;
+		synchronized (indexes) {
+			record = records.remove(recordName);
+			if (record == null)
+				return null;
+			for (ChannelNameIndex index : indexes)
+				index.remove(recordName);
+		}
+		record.removed();
+		record.setDatabase(null, null);
+		return record;
+	}
+
+	/**
+	 * Find a record.
+	 * @param recordName the record name.
+	 * @return the record, <code>null</code> if there is no such record.
+	 */
+	public PVRecord findRecord(String recordName) {
+		return records.get(recordName);
+	}
+
+	/**
+	 * Get the names of all the records.
+	 * @return a snapshot of the record names.
+	 */
+	public Set<String> getRecordNames() {
+		return new HashSet<String>(records.keySet());
+	}
+
+	/**
+	 * Get the number of records.
+	 * @return the number of records.
+	 */
+	public int getRecordCount() {
+		return records.size();
+	}
+
+	/**
+	 * Publish the names of the records, current and future, to the index.
+	 * @param index the index.
+	 */
+	void publishRecordNames(ChannelNameIndex index)
+	{
+		synchronized (indexes) {
+			if (indexes.addIfAbsent(index))
+				index.addAll(records.keySet());
+		}
+	}
+
+	/**
+	 * Stop publishing the names of the records to the index.
+	 * @param index the index.
+	 */
+	void unpublishRecordNames(ChannelNameIndex index)
+	{
+		synchronized (indexes) {
+			if (indexes.remove(index))
+				index.removeAll(records.keySet());
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.epics.pvaccess.impl.remote.SharedMonitorElement;
+import org.epics.pvdata.copy.PVDirtyTracker;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.property.PVTimeStamp;
+import org.epics.pvdata.property.PVTimeStampFactory;
+import org.epics.pvdata.property.TimeStamp;
+import org.epics.pvdata.property.TimeStampFactory;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.PostHandler;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * Record of a {@link PVDatabase}, i.e. a named <code>PVStructure</code>.
+ * <p>
+ * Fields of the record must be modified only while holding the record lock.
+ * Every modified field (see <code>PVField.postPut()</code>) is reported to the listeners,
+ * i.e. to the monitors of the record, and a group put reports all the fields
+ * modified within the group at once:
+ * <pre>
+ * record.lock();
+ * try {
+ *     record.beginGroupPut();
+ *     ... modify fields ...
+ *     record.endGroupPut();
+ * } finally {
+ *     record.unlock();
+ * }
+ * </pre>
+ * The lock of a record added to a database is shared with other records (lock striping),
+ * so a thread holding the lock of a record must not wait for another thread that locks
+ * a different record. The listeners notify their requesters only once the lock
+ * is released (see {@link #notifyAfterUnlock(Runnable)}).
+ */
+public class PVRecord {
+
+	private final String recordName;
+	private final PVStructure pvStructure;
+	private final PVDirtyTracker dirtyTracker;
+
+	/**
+	 * Record lock, replaced by the database one when the record is added.
+	 */
+	private volatile RecordLock lock = new RecordLock();
+	private volatile PVDatabase database = null;
+
+	private final CopyOnWriteArrayList<PVRecordListener> listeners = new CopyOnWriteArrayList<PVRecordListener>();
+
+	// guarded by lock
+	private final BitSet changedBitSet;
+	private int groupPutDepth = 0;
+	private PVTimeStamp pvTimeStamp = null;
+	private TimeStamp timeStamp = null;
+	// first element released by a monitor of the given structure within the current post
+	private final HashMap<Structure, SharedMonitorElement> sharedElements = new HashMap<Structure, SharedMonitorElement>();
+
+	/**
+	 * Constructor.
+	 * @param recordName the record name, i.e. the channel name.
+	 * @param pvStructure the record data, its fields must not have a <code>PostHandler</code> set.
+	 */
+	public PVRecord(String recordName, PVStructure pvStructure)
+	{
+		if (recordName == null || recordName.isEmpty())
+			throw new IllegalArgumentException("recordName must be non-empty");
+		if (pvStructure == null)
+			throw new IllegalArgumentException("pvStructure == null");
+
+		this.recordName = recordName;
+		this.pvStructure = pvStructure;
+		this.changedBitSet = new BitSet(pvStructure.getNumberFields());
+		this.dirtyTracker = new PVDirtyTracker(pvStructure);
+		dirtyTracker.addDirtyBitSet(changedBitSet);
+		dirtyTracker.setPostHandler(new PostHandler() {
+			@Override
+			public void postPut() {
+				if (groupPutDepth == 0)
+					post();
+			}
+		});
+	}
+
+	/**
+	 * Get the change tracker of the record data, used to create the <code>PVCopy</code>
+	 * instances that only update the fields modified since their previous update.
+	 * @return the change tracker.
+	 */
+	public PVDirtyTracker getDirtyTracker() {
+		return dirtyTracker;
+	}
+
+	/**
+	 * Get the record name.
+	 * @return the record name.
+	 */
+	public String getRecordName() {
+		return recordName;
+	}
+
+	/**
+	 * Get the record data.
+	 * @return the top-level structure of the record.
+	 */
+	public PVStructure getPVStructure() {
+		return pvStructure;
+	}
+
+	/**
+	 * Get the database that holds the record.
+	 * @return the database, <code>null</code> if the record is not in a database.
+	 */
+	public PVDatabase getDatabase() {
+		return database;
+	}
+
+	// called by PVDatabase when the record is added or removed
+	void setDatabase(PVDatabase database, RecordLock newLock)
+	{
+		if (database != null && this.database != null)
+			throw new IllegalArgumentException("record '" + recordName + "' already belongs to a database");
+		this.database = database;
+		if (newLock != null)
+		{
+			// replaced while holding the current lock,
+			// the threads waiting for it then retry with the new one
+			lock();
+			RecordLock oldLock = lock;
+			lock = newLock;
+			oldLock.unlock();
+		}
+	}
+
+	/**
+	 * Check whether the current thread holds the record lock.
+	 * @return <code>true</code> if the record is locked by the current thread.
+	 */
+	boolean isLockedByCurrentThread() {
+		return lock.isHeldByCurrentThread();
+	}
+
+	/**
+	 * Lock the record.
+	 */
+	public void lock()
+	{
+		while (true)
+		{
+			RecordLock currentLock = lock;
+			currentLock.lock();
+			if (currentLock == lock)
+				return;
+			// the record was added to a database in the meantime
+			currentLock.unlock();
+		}
+	}
+
+	/**
+	 * Unlock the record, running the notifications queued while it was locked
+	 * if the lock is released.
+	 */
+	public void unlock() {
+		lock.unlock();
+	}
+
+	/**
+	 * Run a notification once the record lock is released,
+	 * e.g. to notify the requesters from a {@link PVRecordListener}.
+	 * The caller must hold the record lock.
+	 * @param notification the notification.
+	 */
+	public void notifyAfterUnlock(Runnable notification) {
+		lock.notifyAfterUnlock(notification);
+	}
+
+	/**
+	 * Begin a group put, i.e. the modified fields are reported once when the group ends.
+	 * Groups can be nested. The caller must hold the record lock.
+	 */
+	public void beginGroupPut() {
+		groupPutDepth++;
+	}
+
+	/**
+	 * End a group put, reporting all the fields modified within the group.
+	 * The caller must hold the record lock.
+	 */
+	public void endGroupPut() {
+		if (groupPutDepth <= 0)
+			throw new IllegalStateException("endGroupPut() without beginGroupPut()");
+		if (--groupPutDepth == 0 && !changedBitSet.isEmpty())
+			post();
+	}
+
+	private void post()
+	{
+		for (PVRecordListener listener : listeners)
+			listener.dataPut(this, changedBitSet);
+		changedBitSet.clear();
+		if (!sharedElements.isEmpty())
+			sharedElements.clear();
+	}
+
+	/**
+	 * Share the encoding of an element released within the current post
+	 * with the elements of the same structure and changes released by other monitors,
+	 * so that the update is serialized only once for all of them.
+	 * Called by the monitors from <code>dataPut()</code>, i.e. with the lock held;
+	 * the elements are not modified (reused) before the lock is released.
+	 * @param structure the structure of the element.
+	 * @param element the element just released, holding only the changes of the current post.
+	 */
+	void shareEncoding(Structure structure, SharedMonitorElement element)
+	{
+		SharedMonitorElement first = sharedElements.get(structure);
+		if (first == null)
+		{
+			sharedElements.put(structure, element);
+			return;
+		}
+
+		SharedMonitorElement.Encoding encoding = first.getEncoding();
+		if (encoding == null)
+		{
+			if (!first.getChangedBitSet().equals(element.getChangedBitSet()))
+				return;
+			encoding = new SharedMonitorElement.Encoding(first.getChangedBitSet());
+			first.share(encoding);
+		}
+		if (encoding.matches(element.getChangedBitSet()))
+			element.share(encoding);
+	}
+
+	/**
+	 * Process the record. Called with the record lock held, within a group put.
+	 * The default implementation sets the <code>timeStamp</code> field (if any) to the current time,
+	 * subclasses can override it to implement the record logic.
+	 */
+	public void process()
+	{
+		if (timeStamp == null)
+		{
+			timeStamp = TimeStampFactory.create();
+			pvTimeStamp = PVTimeStampFactory.create();
+			PVField pvField = pvStructure.getSubField("timeStamp");
+			if (pvField != null)
+				pvTimeStamp.attach(pvField);
+		}
+		if (pvTimeStamp.isAttached())
+		{
+			timeStamp.getCurrentTime();
+			pvTimeStamp.set(timeStamp);
+		}
+	}
+
+	/**
+	 * Add a listener.
+	 * @param listener the listener.
+	 */
+	public void addListener(PVRecordListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * Remove a listener.
+	 * @param listener the listener.
+	 */
+	public void removeListener(PVRecordListener listener) {
+		listeners.remove(listener);
+	}
+
+	// called by PVDatabase when the record is removed
+	void removed()
+	{
+		lock();
+		try {
+			for (PVRecordListener listener : listeners)
+				listener.recordRemoved(this);
+			listeners.clear();
+		} finally {
+			unlock();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return recordName;
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import org.epics.pvdata.misc.BitSet;
+
+/**
+ * Listener of the changes of a record.
+ * Both methods are called with the record lock held, so they must not block
+ * nor lock other records; requesters are to be notified once the lock is released,
+ * see {@link PVRecord#notifyAfterUnlock(Runnable)}.
+ */
+public interface PVRecordListener {
+
+	/**
+	 * Fields of the record were modified.
+	 * @param record the record.
+	 * @param changedBitSet the modified fields, i.e. field offsets within the record structure;
+	 * 			valid only during the call.
+	 */
+	void dataPut(PVRecord record, BitSet changedBitSet);
+
+	/**
+	 * The record was removed from the database.
+	 * @param record the record.
+	 */
+	void recordRemoved(PVRecord record);
+}
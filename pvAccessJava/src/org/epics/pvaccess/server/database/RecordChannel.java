@@ -0,0 +1,935 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.epics.pvaccess.client.AccessRights;
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelArray;
+import org.epics.pvaccess.client.ChannelArrayRequester;
+import org.epics.pvaccess.client.ChannelGet;
+import org.epics.pvaccess.client.ChannelGetRequester;
+import org.epics.pvaccess.client.ChannelProcess;
+import org.epics.pvaccess.client.ChannelProcessRequester;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelPut;
+import org.epics.pvaccess.client.ChannelPutGet;
+import org.epics.pvaccess.client.ChannelPutGetRequester;
+import org.epics.pvaccess.client.ChannelPutRequester;
+import org.epics.pvaccess.client.ChannelRPC;
+import org.epics.pvaccess.client.ChannelRPCRequester;
+import org.epics.pvaccess.client.ChannelRequest;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.client.GetFieldRequester;
+import org.epics.pvdata.copy.PVCopy;
+import org.epics.pvdata.copy.PVCopyFactory;
+import org.epics.pvdata.factory.ConvertFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.Convert;
+import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVArray;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVScalarArray;
+import org.epics.pvdata.pv.PVString;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+import org.epics.pvdata.pv.StatusCreate;
+import org.epics.pvdata.pv.Type;
+
+/**
+ * Channel of a record, see {@link RecordChannelProvider}.
+ */
+class RecordChannel implements Channel, PVRecordListener {
+
+	private static final StatusCreate statusCreate = StatusFactory.getStatusCreate();
+	private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+	private static final Convert convert = ConvertFactory.getConvert();
+
+	static final Status okStatus = statusCreate.getStatusOK();
+	static final Status destroyedStatus =
+		statusCreate.createStatus(StatusType.ERROR, "channel destroyed", null);
+	static final Status illegalRequestStatus =
+		statusCreate.createStatus(StatusType.ERROR, "illegal pvRequest", null);
+	private static final Status notSupportedStatus =
+		statusCreate.createStatus(StatusType.ERROR, "channelRPC requests are not supported by this channel", null);
+	private static final Status fieldDoesNotExistStatus =
+		statusCreate.createStatus(StatusType.ERROR, "field does not exist", null);
+	private static final Status subFieldNotArrayStatus =
+		statusCreate.createStatus(StatusType.ERROR, "subField is not a scalar array", null);
+	private static final Status strideNotSupportedStatus =
+		statusCreate.createStatus(StatusType.ERROR, "stride != 1 is not supported", null);
+
+	private final RecordChannelProvider provider;
+	private final PVRecord record;
+	private final ChannelRequester channelRequester;
+
+	private final AtomicBoolean destroyed = new AtomicBoolean(false);
+	private volatile boolean recordRemoved = false;
+	private final ArrayList<ChannelRequest> requests = new ArrayList<ChannelRequest>();
+	private final ArrayList<RecordMonitor> monitors = new ArrayList<RecordMonitor>();
+
+	RecordChannel(RecordChannelProvider provider, PVRecord record, ChannelRequester channelRequester)
+	{
+		this.provider = provider;
+		this.record = record;
+		this.channelRequester = channelRequester;
+		record.addListener(this);
+	}
+
+	/**
+	 * Get the value of an option of <code>record._options</code> of the pvRequest.
+	 * @param pvRequest the pvRequest, can be <code>null</code>.
+	 * @param name the option name.
+	 * @return the option value, <code>null</code> if not set.
+	 */
+	static String getOption(PVStructure pvRequest, String name)
+	{
+		if (pvRequest == null)
+			return null;
+		PVField pvField = pvRequest.getSubField("record._options." + name);
+		if (pvField instanceof PVString)
+			return ((PVString)pvField).get();
+		else if (pvField != null)
+			return pvField.toString();
+		return null;
+	}
+
+	private static boolean getProcess(PVStructure pvRequest)
+	{
+		return Boolean.parseBoolean(getOption(pvRequest, "process"));
+	}
+
+	private static Status exceptionStatus(Throwable th)
+	{
+		return statusCreate.createStatus(StatusType.ERROR, String.valueOf(th.getMessage()), th);
+	}
+
+	PVRecord getRecord() {
+		return record;
+	}
+
+	// the record must be locked
+	private void processRecord()
+	{
+		record.beginGroupPut();
+		try {
+			record.process();
+		} finally {
+			record.endGroupPut();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.database.PVRecordListener#dataPut(org.epics.pvaccess.server.database.PVRecord, org.epics.pvdata.misc.BitSet)
+	 */
+	@Override
+	public void dataPut(PVRecord record, BitSet changedBitSet) {
+		// noop, monitors listen to the record
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.database.PVRecordListener#recordRemoved(org.epics.pvaccess.server.database.PVRecord)
+	 */
+	@Override
+	public void recordRemoved(PVRecord record) {
+		recordRemoved = true;
+		record.notifyAfterUnlock(new Runnable() {
+			@Override
+			public void run() {
+				channelRequester.channelStateChange(RecordChannel.this, ConnectionState.DISCONNECTED);
+			}
+		});
+	}
+
+	private void registerRequest(ChannelRequest request)
+	{
+		synchronized (requests) {
+			requests.add(request);
+		}
+	}
+
+	private void unregisterRequest(ChannelRequest request)
+	{
+		synchronized (requests) {
+			requests.remove(request);
+		}
+	}
+
+	void registerMonitor(RecordMonitor monitor)
+	{
+		synchronized (requests) {
+			monitors.add(monitor);
+		}
+	}
+
+	void unregisterMonitor(RecordMonitor monitor)
+	{
+		synchronized (requests) {
+			monitors.remove(monitor);
+		}
+	}
+
+	private boolean isUsable() {
+		return !destroyed.get() && !recordRemoved;
+	}
+
+	/**
+	 * Base class of the requests, the request lock guards the data returned to the requester.
+	 */
+	private abstract class BaseRequest implements ChannelRequest
+	{
+		protected final AtomicBoolean requestDestroyed = new AtomicBoolean(false);
+		protected final ReentrantLock lock = new ReentrantLock();
+		protected volatile boolean lastRequest = false;
+
+		protected BaseRequest() {
+			registerRequest(this);
+		}
+
+		protected boolean isDestroyed() {
+			return requestDestroyed.get() || !isUsable();
+		}
+
+		@Override
+		public Channel getChannel() {
+			return RecordChannel.this;
+		}
+
+		@Override
+		public void lock() {
+			lock.lock();
+		}
+
+		@Override
+		public void unlock() {
+			lock.unlock();
+		}
+
+		@Override
+		public void cancel() {
+			// noop, requests are processed synchronously
+		}
+
+		@Override
+		public void lastRequest() {
+			lastRequest = true;
+		}
+
+		@Override
+		public void destroy() {
+			if (!requestDestroyed.getAndSet(true))
+				unregisterRequest(this);
+		}
+
+		protected void doneRequest() {
+			if (lastRequest)
+				destroy();
+		}
+	}
+
+	private class ChannelGetImpl extends BaseRequest implements ChannelGet
+	{
+		private final ChannelGetRequester channelGetRequester;
+		private final PVCopy pvCopy;
+		private final PVStructure pvGetStructure;
+		private final BitSet bitSet;
+		private final boolean process;
+		private boolean firstGet = true;
+
+		ChannelGetImpl(ChannelGetRequester channelGetRequester, PVCopy pvCopy, boolean process)
+		{
+			this.channelGetRequester = channelGetRequester;
+			this.pvCopy = pvCopy;
+			this.process = process;
+			pvGetStructure = pvCopy.createPVStructure();
+			bitSet = new BitSet(pvGetStructure.getNumberFields());
+		}
+
+		@Override
+		public void destroy() {
+			super.destroy();
+			pvCopy.destroy();
+		}
+
+		@Override
+		public void get() {
+			if (isDestroyed())
+			{
+				channelGetRequester.getDone(destroyedStatus, this, null, null);
+				return;
+			}
+
+			Status status = okStatus;
+			lock();
+			try {
+				record.lock();
+				try {
+					if (process)
+						processRecord();
+					bitSet.clear();
+					if (firstGet)
+					{
+						pvCopy.initCopy(pvGetStructure, bitSet);
+						firstGet = false;
+					}
+					else
+						pvCopy.updateCopySetBitSet(pvGetStructure, bitSet);
+				} finally {
+					record.unlock();
+				}
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				unlock();
+			}
+
+			channelGetRequester.getDone(status, this, pvGetStructure, bitSet);
+			doneRequest();
+		}
+	}
+
+	private class ChannelPutImpl extends BaseRequest implements ChannelPut
+	{
+		private final ChannelPutRequester channelPutRequester;
+		private final PVCopy pvCopy;
+		private final PVStructure pvPutStructure;
+		private final BitSet bitSet;
+		private final boolean process;
+
+		ChannelPutImpl(ChannelPutRequester channelPutRequester, PVCopy pvCopy, boolean process)
+		{
+			this.channelPutRequester = channelPutRequester;
+			this.pvCopy = pvCopy;
+			this.process = process;
+			pvPutStructure = pvCopy.createPVStructure();
+			bitSet = new BitSet(pvPutStructure.getNumberFields());
+		}
+
+		@Override
+		public void put(PVStructure pvPutStructure, BitSet putBitSet) {
+			if (isDestroyed())
+			{
+				channelPutRequester.putDone(destroyedStatus, this);
+				return;
+			}
+
+			Status status = okStatus;
+			record.lock();
+			try {
+				record.beginGroupPut();
+				try {
+					pvCopy.updateMaster(pvPutStructure, putBitSet);
+					if (process)
+						record.process();
+				} finally {
+					record.endGroupPut();
+				}
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				record.unlock();
+			}
+
+			channelPutRequester.putDone(status, this);
+			doneRequest();
+		}
+
+		@Override
+		public void get() {
+			if (isDestroyed())
+			{
+				channelPutRequester.getDone(destroyedStatus, this, null, null);
+				return;
+			}
+
+			lock();
+			try {
+				record.lock();
+				try {
+					pvCopy.initCopy(pvPutStructure, bitSet);
+				} finally {
+					record.unlock();
+				}
+			} finally {
+				unlock();
+			}
+
+			channelPutRequester.getDone(okStatus, this, pvPutStructure, bitSet);
+			doneRequest();
+		}
+	}
+
+	private class ChannelPutGetImpl extends BaseRequest implements ChannelPutGet
+	{
+		private final ChannelPutGetRequester channelPutGetRequester;
+		private final PVCopy putCopy;
+		private final PVCopy getCopy;
+		private final PVStructure pvPutStructure;
+		private final PVStructure pvGetStructure;
+		private final BitSet putBitSet;
+		private final BitSet getBitSet;
+		private final boolean process;
+
+		ChannelPutGetImpl(ChannelPutGetRequester channelPutGetRequester, PVCopy putCopy, PVCopy getCopy, boolean process)
+		{
+			this.channelPutGetRequester = channelPutGetRequester;
+			this.putCopy = putCopy;
+			this.getCopy = getCopy;
+			this.process = process;
+			pvPutStructure = putCopy.createPVStructure();
+			pvGetStructure = getCopy.createPVStructure();
+			putBitSet = new BitSet(pvPutStructure.getNumberFields());
+			getBitSet = new BitSet(pvGetStructure.getNumberFields());
+		}
+
+		@Override
+		public void putGet(PVStructure pvPutStructure, BitSet bitSet) {
+			if (isDestroyed())
+			{
+				channelPutGetRequester.putGetDone(destroyedStatus, this, null, null);
+				return;
+			}
+
+			Status status = okStatus;
+			lock();
+			try {
+				record.lock();
+				try {
+					record.beginGroupPut();
+					try {
+						putCopy.updateMaster(pvPutStructure, bitSet);
+						if (process)
+							record.process();
+					} finally {
+						record.endGroupPut();
+					}
+					getCopy.initCopy(pvGetStructure, getBitSet);
+				} finally {
+					record.unlock();
+				}
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				unlock();
+			}
+
+			channelPutGetRequester.putGetDone(status, this, pvGetStructure, getBitSet);
+			doneRequest();
+		}
+
+		@Override
+		public void getPut() {
+			if (isDestroyed())
+			{
+				channelPutGetRequester.getPutDone(destroyedStatus, this, null, null);
+				return;
+			}
+
+			lock();
+			try {
+				record.lock();
+				try {
+					putCopy.initCopy(pvPutStructure, putBitSet);
+				} finally {
+					record.unlock();
+				}
+			} finally {
+				unlock();
+			}
+
+			channelPutGetRequester.getPutDone(okStatus, this, pvPutStructure, putBitSet);
+			doneRequest();
+		}
+
+		@Override
+		public void getGet() {
+			if (isDestroyed())
+			{
+				channelPutGetRequester.getGetDone(destroyedStatus, this, null, null);
+				return;
+			}
+
+			lock();
+			try {
+				record.lock();
+				try {
+					getCopy.initCopy(pvGetStructure, getBitSet);
+				} finally {
+					record.unlock();
+				}
+			} finally {
+				unlock();
+			}
+
+			channelPutGetRequester.getGetDone(okStatus, this, pvGetStructure, getBitSet);
+			doneRequest();
+		}
+	}
+
+	private class ChannelProcessImpl extends BaseRequest implements ChannelProcess
+	{
+		private final ChannelProcessRequester channelProcessRequester;
+
+		ChannelProcessImpl(ChannelProcessRequester channelProcessRequester)
+		{
+			this.channelProcessRequester = channelProcessRequester;
+		}
+
+		@Override
+		public void process() {
+			if (isDestroyed())
+			{
+				channelProcessRequester.processDone(destroyedStatus, this);
+				return;
+			}
+
+			Status status = okStatus;
+			record.lock();
+			try {
+				processRecord();
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				record.unlock();
+			}
+
+			channelProcessRequester.processDone(status, this);
+			doneRequest();
+		}
+	}
+
+	private class ChannelArrayImpl extends BaseRequest implements ChannelArray
+	{
+		private final ChannelArrayRequester channelArrayRequester;
+		private final PVScalarArray pvArray;
+		private final PVScalarArray pvCopy;
+
+		ChannelArrayImpl(ChannelArrayRequester channelArrayRequester, PVScalarArray pvArray)
+		{
+			this.channelArrayRequester = channelArrayRequester;
+			this.pvArray = pvArray;
+			this.pvCopy = pvDataCreate.createPVScalarArray(pvArray.getScalarArray().getElementType());
+		}
+
+		@Override
+		public void putArray(PVArray putArray, int offset, int count, int stride) {
+			if (isDestroyed())
+			{
+				channelArrayRequester.putArrayDone(destroyedStatus, this);
+				return;
+			}
+			if (stride != 1)
+			{
+				channelArrayRequester.putArrayDone(strideNotSupportedStatus, this);
+				return;
+			}
+
+			PVScalarArray from = (PVScalarArray)putArray;
+			Status status = okStatus;
+			record.lock();
+			try {
+				record.beginGroupPut();
+				try {
+					if (count <= 0)
+						count = from.getLength();
+					convert.copyScalarArray(from, 0, pvArray, offset, count);
+				} finally {
+					record.endGroupPut();
+				}
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				record.unlock();
+			}
+
+			channelArrayRequester.putArrayDone(status, this);
+			doneRequest();
+		}
+
+		@Override
+		public void getArray(int offset, int count, int stride) {
+			if (isDestroyed())
+			{
+				channelArrayRequester.getArrayDone(destroyedStatus, this, null);
+				return;
+			}
+			if (stride != 1)
+			{
+				channelArrayRequester.getArrayDone(strideNotSupportedStatus, this, null);
+				return;
+			}
+
+			lock();
+			try {
+				record.lock();
+				try {
+					int length = pvArray.getLength();
+					if (offset > length)
+						offset = length;
+					if (count <= 0 || offset + count > length)
+						count = length - offset;
+					int copied = convert.copyScalarArray(pvArray, offset, pvCopy, 0, count);
+					pvCopy.setLength(copied);
+				} finally {
+					record.unlock();
+				}
+			} finally {
+				unlock();
+			}
+
+			channelArrayRequester.getArrayDone(okStatus, this, pvCopy);
+			doneRequest();
+		}
+
+		@Override
+		public void getLength() {
+			if (isDestroyed())
+			{
+				channelArrayRequester.getLengthDone(destroyedStatus, this, 0);
+				return;
+			}
+
+			int length;
+			record.lock();
+			try {
+				length = pvArray.getLength();
+			} finally {
+				record.unlock();
+			}
+
+			channelArrayRequester.getLengthDone(okStatus, this, length);
+			doneRequest();
+		}
+
+		@Override
+		public void setLength(int length) {
+			if (isDestroyed())
+			{
+				channelArrayRequester.setLengthDone(destroyedStatus, this);
+				return;
+			}
+
+			Status status = okStatus;
+			record.lock();
+			try {
+				record.beginGroupPut();
+				try {
+					if (pvArray.getLength() != length)
+					{
+						pvArray.setLength(length);
+						pvArray.postPut();
+					}
+				} finally {
+					record.endGroupPut();
+				}
+			} catch (Throwable th) {
+				status = exceptionStatus(th);
+			} finally {
+				record.unlock();
+			}
+
+			channelArrayRequester.setLengthDone(status, this);
+			doneRequest();
+		}
+	}
+
+	// a tracked PVCopy only compares the fields modified since its previous update, see PVDirtyTracker
+	private PVCopy createPVCopy(PVStructure pvRequest, String structureName, boolean tracked)
+	{
+		record.lock();
+		try {
+			if (tracked)
+				return PVCopyFactory.create(record.getDirtyTracker(), pvRequest, structureName);
+			else
+				return PVCopyFactory.create(record.getPVStructure(), pvRequest, structureName);
+		} catch (Throwable th) {
+			return null;
+		} finally {
+			record.unlock();
+		}
+	}
+
+	@Override
+	public ChannelGet createChannelGet(ChannelGetRequester channelGetRequester,
+			PVStructure pvRequest) {
+		if (channelGetRequester == null)
+			throw new IllegalArgumentException("channelGetRequester == null");
+		if (!isUsable())
+		{
+			channelGetRequester.channelGetConnect(destroyedStatus, null, null);
+			return null;
+		}
+
+		PVCopy pvCopy = createPVCopy(pvRequest, "field", true);
+		if (pvCopy == null)
+		{
+			channelGetRequester.channelGetConnect(illegalRequestStatus, null, null);
+			return null;
+		}
+
+		ChannelGetImpl channelGet = new ChannelGetImpl(channelGetRequester, pvCopy, getProcess(pvRequest));
+		channelGetRequester.channelGetConnect(okStatus, channelGet, pvCopy.getStructure());
+		return channelGet;
+	}
+
+	@Override
+	public ChannelPut createChannelPut(ChannelPutRequester channelPutRequester,
+			PVStructure pvRequest) {
+		if (channelPutRequester == null)
+			throw new IllegalArgumentException("channelPutRequester == null");
+		if (!isUsable())
+		{
+			channelPutRequester.channelPutConnect(destroyedStatus, null, null);
+			return null;
+		}
+
+		PVCopy pvCopy = createPVCopy(pvRequest, "field", false);
+		if (pvCopy == null)
+		{
+			channelPutRequester.channelPutConnect(illegalRequestStatus, null, null);
+			return null;
+		}
+
+		ChannelPutImpl channelPut = new ChannelPutImpl(channelPutRequester, pvCopy, getProcess(pvRequest));
+		channelPutRequester.channelPutConnect(okStatus, channelPut, pvCopy.getStructure());
+		return channelPut;
+	}
+
+	@Override
+	public ChannelPutGet createChannelPutGet(
+			ChannelPutGetRequester channelPutGetRequester, PVStructure pvRequest) {
+		if (channelPutGetRequester == null)
+			throw new IllegalArgumentException("channelPutGetRequester == null");
+		if (!isUsable())
+		{
+			channelPutGetRequester.channelPutGetConnect(destroyedStatus, null, null, null);
+			return null;
+		}
+
+		PVCopy putCopy = createPVCopy(pvRequest, "putField", false);
+		PVCopy getCopy = createPVCopy(pvRequest, "getField", false);
+		if (putCopy == null || getCopy == null)
+		{
+			channelPutGetRequester.channelPutGetConnect(illegalRequestStatus, null, null, null);
+			return null;
+		}
+
+		ChannelPutGetImpl channelPutGet = new ChannelPutGetImpl(channelPutGetRequester, putCopy, getCopy, getProcess(pvRequest));
+		channelPutGetRequester.channelPutGetConnect(okStatus, channelPutGet, putCopy.getStructure(), getCopy.getStructure());
+		return channelPutGet;
+	}
+
+	@Override
+	public ChannelProcess createChannelProcess(
+			ChannelProcessRequester channelProcessRequester,
+			PVStructure pvRequest) {
+		if (channelProcessRequester == null)
+			throw new IllegalArgumentException("channelProcessRequester == null");
+		if (!isUsable())
+		{
+			channelProcessRequester.channelProcessConnect(destroyedStatus, null);
+			return null;
+		}
+
+		ChannelProcessImpl channelProcess = new ChannelProcessImpl(channelProcessRequester);
+		channelProcessRequester.channelProcessConnect(okStatus, channelProcess);
+		return channelProcess;
+	}
+
+	@Override
+	public ChannelArray createChannelArray(
+			ChannelArrayRequester channelArrayRequester, PVStructure pvRequest) {
+		if (channelArrayRequester == null)
+			throw new IllegalArgumentException("channelArrayRequester == null");
+		if (!isUsable())
+		{
+			channelArrayRequester.channelArrayConnect(destroyedStatus, null, null);
+			return null;
+		}
+
+		// exactly one field must be requested
+		PVCopy pvCopy = createPVCopy(pvRequest, "field", false);
+		if (pvCopy == null)
+		{
+			channelArrayRequester.channelArrayConnect(illegalRequestStatus, null, null);
+			return null;
+		}
+		Field[] fields = pvCopy.getStructure().getFields();
+		int offset = 1;
+		while (fields.length == 1 && fields[0].getType() == Type.structure)
+		{
+			fields = ((org.epics.pvdata.pv.Structure)fields[0]).getFields();
+			offset++;
+		}
+		if (fields.length != 1)
+		{
+			channelArrayRequester.channelArrayConnect(illegalRequestStatus, null, null);
+			return null;
+		}
+		PVField pvField = pvCopy.getMasterPVField(offset);
+		if (pvField.getField().getType() != Type.scalarArray)
+		{
+			channelArrayRequester.channelArrayConnect(subFieldNotArrayStatus, null, null);
+			return null;
+		}
+
+		PVScalarArray pvArray = (PVScalarArray)pvField;
+		ChannelArrayImpl channelArray = new ChannelArrayImpl(channelArrayRequester, pvArray);
+		channelArrayRequester.channelArrayConnect(okStatus, channelArray, pvArray.getArray());
+		return channelArray;
+	}
+
+	@Override
+	public Monitor createMonitor(MonitorRequester monitorRequester,
+			PVStructure pvRequest) {
+		if (monitorRequester == null)
+			throw new IllegalArgumentException("monitorRequester == null");
+		if (!isUsable())
+		{
+			monitorRequester.monitorConnect(destroyedStatus, null, null);
+			return null;
+		}
+
+		int queueSize = RecordMonitor.DEFAULT_QUEUE_SIZE;
+		String option = getOption(pvRequest, "queueSize");
+		if (option != null)
+		{
+			try {
+				queueSize = Math.max(Integer.parseInt(option), RecordMonitor.DEFAULT_QUEUE_SIZE);
+			} catch (NumberFormatException nfe) {
+				monitorRequester.monitorConnect(
+						statusCreate.createStatus(StatusType.ERROR, "queueSize is not a valid integer", nfe),
+						null, null);
+				return null;
+			}
+		}
+		boolean pipeline = Boolean.parseBoolean(getOption(pvRequest, "pipeline"));
+
+		PVCopy pvCopy = createPVCopy(pvRequest, "field", true);
+		if (pvCopy == null)
+		{
+			monitorRequester.monitorConnect(illegalRequestStatus, null, null);
+			return null;
+		}
+
+		RecordMonitor monitor = new RecordMonitor(this, monitorRequester, pvCopy, queueSize, pipeline);
+		registerMonitor(monitor);
+		monitorRequester.monitorConnect(okStatus, monitor, pvCopy.getStructure());
+		return monitor;
+	}
+
+	@Override
+	public ChannelRPC createChannelRPC(ChannelRPCRequester channelRPCRequester,
+			PVStructure pvRequest) {
+		channelRPCRequester.channelRPCConnect(notSupportedStatus, null);
+		return null;
+	}
+
+	@Override
+	public void getField(GetFieldRequester requester, String subField) {
+		if (requester == null)
+			throw new IllegalArgumentException("requester == null");
+		if (!isUsable())
+		{
+			requester.getDone(destroyedStatus, null);
+			return;
+		}
+
+		Field field;
+		if (subField == null || subField.isEmpty())
+			field = record.getPVStructure().getStructure();
+		else
+			field = record.getPVStructure().getStructure().getField(subField);
+
+		if (field != null)
+			requester.getDone(okStatus, field);
+		else
+			requester.getDone(fieldDoesNotExistStatus, null);
+	}
+
+	@Override
+	public AccessRights getAccessRights(PVField pvField) {
+		return AccessRights.readWrite;
+	}
+
+	@Override
+	public ChannelProvider getProvider() {
+		return provider;
+	}
+
+	@Override
+	public String getRemoteAddress() {
+		// local
+		return getChannelName();
+	}
+
+	@Override
+	public ConnectionState getConnectionState() {
+		if (destroyed.get())
+			return ConnectionState.DESTROYED;
+		return recordRemoved ?
+				ConnectionState.DISCONNECTED :
+				ConnectionState.CONNECTED;
+	}
+
+	@Override
+	public boolean isConnected() {
+		return isUsable();
+	}
+
+	@Override
+	public String getChannelName() {
+		return record.getRecordName();
+	}
+
+	@Override
+	public ChannelRequester getChannelRequester() {
+		return channelRequester;
+	}
+
+	@Override
+	public void destroy() {
+		if (destroyed.getAndSet(true))
+			return;
+
+		record.removeListener(this);
+
+		// inverse order destruction
+		ChannelRequest[] toDestroy;
+		RecordMonitor[] monitorsToDestroy;
+		synchronized (requests) {
+			toDestroy = requests.toArray(new ChannelRequest[requests.size()]);
+			monitorsToDestroy = monitors.toArray(new RecordMonitor[monitors.size()]);
+		}
+		for (int i = toDestroy.length - 1; i >= 0; i--)
+			toDestroy[i].destroy();
+		for (int i = monitorsToDestroy.length - 1; i >= 0; i--)
+			monitorsToDestroy[i].destroy();
+
+		provider.channelDestroyed(this);
+	}
+
+	@Override
+	public String getRequesterName() {
+		return getChannelName();
+	}
+
+	@Override
+	public void message(String message, MessageType messageType) {
+		// just delegate
+		channelRequester.message(message, messageType);
+	}
+}
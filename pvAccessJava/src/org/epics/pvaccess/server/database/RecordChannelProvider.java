@@ -0,0 +1,200 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelFind;
+import org.epics.pvaccess.client.ChannelFindRequester;
+import org.epics.pvaccess.client.ChannelListRequester;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.ChannelNameIndex;
+import org.epics.pvaccess.server.ChannelNamePublisher;
+import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+import org.epics.pvdata.pv.StatusCreate;
+
+/**
+ * Channel provider that serves the records of a {@link PVDatabase}, one channel per record.
+ * Supports get, put, putGet, process, array and monitor requests;
+ * the requested fields are mapped with <code>PVCopy</code>.
+ * Monitors support the <code>queueSize</code> and <code>pipeline</code> options.
+ * <p>
+ * Usage:
+ * <pre>
+ * PVDatabase database = new PVDatabase();
+ * database.addRecords(records);
+ * ServerContextImpl serverContext = new ServerContextImpl();
+ * serverContext.initialize(new RecordChannelProvider(database));
+ * </pre>
+ */
+public class RecordChannelProvider implements ChannelProvider, ChannelNamePublisher {
+
+	public static final String PROVIDER_NAME = "database";
+
+	private static final StatusCreate statusCreate = StatusFactory.getStatusCreate();
+	private static final Status okStatus = statusCreate.getStatusOK();
+	private static final Status noSuchChannelStatus =
+		statusCreate.createStatus(StatusType.ERROR, "no such channel", null);
+
+	private final PVDatabase database;
+	private final LinkedHashSet<RecordChannel> channels = new LinkedHashSet<RecordChannel>();
+	private volatile boolean destroyed = false;
+
+	/**
+	 * Constructor.
+	 * @param database the database to serve.
+	 */
+	public RecordChannelProvider(PVDatabase database)
+	{
+		if (database == null)
+			throw new IllegalArgumentException("database == null");
+		this.database = database;
+	}
+
+	/**
+	 * Get the served database.
+	 * @return the database.
+	 */
+	public PVDatabase getDatabase() {
+		return database;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#getProviderName()
+	 */
+	@Override
+	public String getProviderName() {
+		return PROVIDER_NAME;
+	}
+
+	private final ChannelFind channelFind =
+		new ChannelFind() {
+
+			@Override
+			public ChannelProvider getChannelProvider() {
+				return RecordChannelProvider.this;
+			}
+
+			@Override
+			public void cancel() {
+				// noop
+			}
+		};
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#channelFind(java.lang.String, org.epics.pvaccess.client.ChannelFindRequester)
+	 */
+	@Override
+	public ChannelFind channelFind(String channelName,
+			ChannelFindRequester channelFindRequester) {
+		boolean found = !destroyed && database.findRecord(channelName) != null;
+		channelFindRequester.channelFindResult(okStatus, channelFind, found);
+		return channelFind;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#channelList(org.epics.pvaccess.client.ChannelListRequester)
+	 */
+	@Override
+	public ChannelFind channelList(ChannelListRequester channelListRequester) {
+		Set<String> names = database.getRecordNames();
+		channelListRequester.channelListResult(okStatus, channelFind, names, false);
+		return channelFind;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#createChannel(java.lang.String, org.epics.pvaccess.client.ChannelRequester, short)
+	 */
+	@Override
+	public Channel createChannel(String channelName,
+			ChannelRequester channelRequester, short priority)
+	{
+		if (channelName == null)
+			throw new IllegalArgumentException("channelName == null");
+		if (channelRequester == null)
+			throw new IllegalArgumentException("channelRequester == null");
+
+		PVRecord record = destroyed ? null : database.findRecord(channelName);
+		if (record == null)
+		{
+			channelRequester.channelCreated(noSuchChannelStatus, null);
+			return null;
+		}
+
+		RecordChannel channel = new RecordChannel(this, record, channelRequester);
+		synchronized (channels) {
+			channels.add(channel);
+		}
+		channelRequester.channelCreated(okStatus, channel);
+		return channel;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#createChannel(java.lang.String, org.epics.pvaccess.client.ChannelRequester, short, java.lang.String)
+	 */
+	@Override
+	public Channel createChannel(String channelName,
+			ChannelRequester channelRequester, short priority, String address) {
+		// this will never get called by the pvAccess server
+		throw new RuntimeException("not supported");
+	}
+
+	// called by RecordChannel.destroy()
+	void channelDestroyed(RecordChannel channel)
+	{
+		synchronized (channels) {
+			channels.remove(channel);
+		}
+	}
+
+	/**
+	 * Get the number of channels currently open.
+	 * @return the number of channels.
+	 */
+	public int getChannelCount()
+	{
+		synchronized (channels) {
+			return channels.size();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.ChannelNamePublisher#publishChannelNames(org.epics.pvaccess.server.ChannelNameIndex)
+	 */
+	@Override
+	public void publishChannelNames(ChannelNameIndex index) {
+		database.publishRecordNames(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.ChannelNamePublisher#unpublishChannelNames(org.epics.pvaccess.server.ChannelNameIndex)
+	 */
+	@Override
+	public void unpublishChannelNames(ChannelNameIndex index) {
+		database.unpublishRecordNames(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.client.ChannelProvider#destroy()
+	 */
+	@Override
+	public void destroy() {
+		destroyed = true;
+
+		RecordChannel[] toDestroy;
+		synchronized (channels) {
+			toDestroy = channels.toArray(new RecordChannel[channels.size()]);
+		}
+		// inverse order destruction
+		for (int i = toDestroy.length - 1; i >= 0; i--)
+			toDestroy[i].destroy();
+	}
+}
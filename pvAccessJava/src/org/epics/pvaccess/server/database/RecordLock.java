@@ -0,0 +1,64 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock of one or more records (see {@link PVDatabase}).
+ * Notifications queued while the lock is held are run by the thread
+ * that releases it last, after the lock is released, so that requesters
+ * are never called with the lock held.
+ */
+class RecordLock extends ReentrantLock {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = Logger.getLogger(RecordLock.class.getName());
+
+	// guarded by this lock
+	private final ArrayList<Runnable> notifications = new ArrayList<Runnable>();
+
+	/**
+	 * Queue a notification, must be called with the lock held.
+	 * @param notification the notification.
+	 */
+	void notifyAfterUnlock(Runnable notification)
+	{
+		if (!isHeldByCurrentThread())
+			throw new IllegalMonitorStateException("record lock not held");
+		notifications.add(notification);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.concurrent.locks.ReentrantLock#unlock()
+	 */
+	@Override
+	public void unlock()
+	{
+		if (getHoldCount() != 1 || notifications.isEmpty())
+		{
+			super.unlock();
+			return;
+		}
+
+		Runnable[] pending = notifications.toArray(new Runnable[notifications.size()]);
+		notifications.clear();
+		super.unlock();
+
+		for (Runnable notification : pending)
+		{
+			try {
+				notification.run();
+			} catch (Throwable th) {
+				logger.log(Level.SEVERE, "Unexpected exception caught while notifying a record requester.", th);
+			}
+		}
+	}
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.database;
+
+import org.epics.pvaccess.impl.remote.PipelineMonitor;
+import org.epics.pvaccess.impl.remote.SharedMonitorElement;
+import org.epics.pvdata.copy.PVCopy;
+import org.epics.pvdata.factory.ConvertFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.misc.Queue;
+import org.epics.pvdata.misc.QueueCreate;
+import org.epics.pvdata.misc.QueueElement;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.Convert;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * Monitor of a record, see {@link RecordChannelProvider}.
+ * Puts are accumulated into the active element, which is handed to the queue
+ * as soon as a free element is available (and, in pipeline mode, the client has
+ * room for it). Changes made while the queue is full are merged and reported
+ * in the overrun bit set, so a burst of puts never blocks the record.
+ * The monitor copy tracks the modified fields of the record, and a queue element
+ * only receives the fields that changed since it was last used, so the cost of a put
+ * depends on the number of fields it modifies, not on the size of the record.
+ * An element holding just the changes of one put shares its encoding with the elements
+ * of the other monitors of the same structure released by the same put.
+ */
+class RecordMonitor implements PipelineMonitor, PVRecordListener {
+
+	static final int DEFAULT_QUEUE_SIZE = 2;
+
+	private static final Convert convert = ConvertFactory.getConvert();
+	private static final QueueCreate<MonitorElement> queueCreate = new QueueCreate<MonitorElement>();
+
+	private static final class Element extends SharedMonitorElement {
+		// fields that are older than the active element
+		final BitSet staleBitSet;
+		QueueElement<MonitorElement> queueElement;
+
+		Element(PVStructure pvStructure) {
+			super(pvStructure);
+			staleBitSet = new BitSet(pvStructure.getNumberFields());
+		}
+	}
+
+	private final RecordChannel channel;
+	private final PVRecord record;
+	private final MonitorRequester monitorRequester;
+	private final PVCopy pvCopy;
+	private final Structure structure;
+	private final boolean pipeline;
+
+	// run after the record lock is released
+	private final Runnable monitorEventNotification = new Runnable() {
+		@Override
+		public void run() {
+			monitorRequester.monitorEvent(RecordMonitor.this);
+		}
+	};
+	private final Runnable unlistenNotification = new Runnable() {
+		@Override
+		public void run() {
+			monitorRequester.unlisten(RecordMonitor.this);
+		}
+	};
+
+	// guarded by this
+	private final Queue<MonitorElement> queue;
+	private final Element[] elements;
+	private final BitSet putBitSet;
+	private Element activeElement;
+	private boolean started = false;
+	private boolean destroyed = false;
+	private int remoteFreeElements = 0;
+
+	RecordMonitor(RecordChannel channel, MonitorRequester monitorRequester,
+			PVCopy pvCopy, int queueSize, boolean pipeline)
+	{
+		this.channel = channel;
+		this.record = channel.getRecord();
+		this.monitorRequester = monitorRequester;
+		this.pvCopy = pvCopy;
+		this.structure = pvCopy.getStructure();
+		this.pipeline = pipeline;
+
+		// one more for the active element
+		elements = new Element[queueSize + 1];
+		@SuppressWarnings("unchecked")
+		QueueElement<MonitorElement>[] queueElements = new QueueElement[elements.length];
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = new Element(pvCopy.createPVStructure());
+			queueElements[i] = queueCreate.createQueueElement(elements[i]);
+			elements[i].queueElement = queueElements[i];
+		}
+		queue = queueCreate.create(queueElements);
+		activeElement = (Element)queue.getFree().getObject();
+		putBitSet = new BitSet(activeElement.getPVStructure().getNumberFields());
+	}
+
+	// must be called with this locked
+	private boolean releaseActiveElement()
+	{
+		if (!started || activeElement.getChangedBitSet().isEmpty())
+			return false;
+		if (pipeline && remoteFreeElements <= 0)
+			return false;
+
+		QueueElement<MonitorElement> queueElement = queue.getFree();
+		if (queueElement == null)
+			return false;
+		Element newElement = (Element)queueElement.getObject();
+
+		// the new active element is compared against the latest values,
+		// only the fields changed since it was last active are copied
+		BitSet changed = activeElement.getChangedBitSet();
+		for (Element element : elements)
+			if (element != activeElement)
+				element.staleBitSet.or(changed);
+		newElement.share(null);
+		copyFields(activeElement.getPVStructure(), newElement.getPVStructure(), newElement.staleBitSet);
+		newElement.staleBitSet.clear();
+		newElement.getChangedBitSet().clear();
+		newElement.getOverrunBitSet().clear();
+
+		queue.setUsed(activeElement.queueElement);
+		activeElement = newElement;
+		if (pipeline)
+			remoteFreeElements--;
+		return true;
+	}
+
+	private static void copyFields(PVStructure from, PVStructure to, BitSet bitSet)
+	{
+		int offset = bitSet.nextSetBit(0);
+		while (offset >= 0)
+		{
+			if (offset == 0)
+			{
+				convert.copyStructure(from, to);
+				return;
+			}
+			PVField pvFrom = from.getSubField(offset);
+			convert.copy(pvFrom, to.getSubField(offset));
+			offset = bitSet.nextSetBit(pvFrom.getNextFieldOffset());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.database.PVRecordListener#dataPut(org.epics.pvaccess.server.database.PVRecord, org.epics.pvdata.misc.BitSet)
+	 */
+	@Override
+	public void dataPut(PVRecord record, BitSet changedBitSet) {
+		synchronized (this) {
+			if (!started)
+				return;
+
+			putBitSet.clear();
+			pvCopy.updateCopySetBitSet(activeElement.getPVStructure(), putBitSet);
+			if (putBitSet.isEmpty())
+				return;
+
+			BitSet changed = activeElement.getChangedBitSet();
+			final boolean putOnly = changed.isEmpty();
+			activeElement.getOverrunBitSet().or_and(changed, putBitSet);
+			changed.or(putBitSet);
+
+			final Element element = activeElement;
+			if (!releaseActiveElement())
+				return;
+			if (putOnly)
+				record.shareEncoding(structure, element);
+		}
+
+		record.notifyAfterUnlock(monitorEventNotification);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.database.PVRecordListener#recordRemoved(org.epics.pvaccess.server.database.PVRecord)
+	 */
+	@Override
+	public void recordRemoved(PVRecord record) {
+		synchronized (this) {
+			started = false;
+		}
+		record.notifyAfterUnlock(unlistenNotification);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.Monitor#start()
+	 */
+	@Override
+	public Status start() {
+		record.lock();
+		try {
+			synchronized (this) {
+				if (destroyed)
+					return RecordChannel.destroyedStatus;
+				if (started)
+					return RecordChannel.okStatus;
+
+				BitSet changed = activeElement.getChangedBitSet();
+				changed.clear();
+				activeElement.getOverrunBitSet().clear();
+				pvCopy.initCopy(activeElement.getPVStructure(), changed);
+				for (Element element : elements)
+					if (element != activeElement)
+						element.staleBitSet.set(0);
+				started = true;
+				if (releaseActiveElement())
+					record.notifyAfterUnlock(monitorEventNotification);
+			}
+			record.addListener(this);
+		} finally {
+			record.unlock();
+		}
+		return RecordChannel.okStatus;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.Monitor#stop()
+	 */
+	@Override
+	public Status stop() {
+		record.removeListener(this);
+		synchronized (this) {
+			started = false;
+		}
+		return RecordChannel.okStatus;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.Monitor#poll()
+	 */
+	@Override
+	public synchronized MonitorElement poll() {
+		QueueElement<MonitorElement> queueElement = queue.getUsed();
+		return (queueElement != null) ? queueElement.getObject() : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.monitor.Monitor#release(org.epics.pvdata.monitor.MonitorElement)
+	 */
+	@Override
+	public void release(MonitorElement monitorElement) {
+		boolean notify;
+		synchronized (this) {
+			queue.releaseUsed(((Element)monitorElement).queueElement);
+			// changes might be waiting for a free element
+			notify = releaseActiveElement();
+		}
+
+		if (notify)
+			monitorRequester.monitorEvent(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.impl.remote.PipelineMonitor#reportRemoteQueueStatus(int)
+	 */
+	@Override
+	public void reportRemoteQueueStatus(int freeElements) {
+		boolean notify;
+		synchronized (this) {
+			remoteFreeElements += freeElements;
+			notify = releaseActiveElement();
+		}
+
+		if (notify)
+			monitorRequester.monitorEvent(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.misc.Destroyable#destroy()
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this) {
+			if (destroyed)
+				return;
+			destroyed = true;
+		}
+		stop();
+		pvCopy.destroy();
+		channel.unregisterMonitor(this);
+	}
+}
@@ -15,13 +15,11 @@
 package org.epics.pvaccess.server.impl.remote;
 
 import java.io.PrintStream;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.epics.pvaccess.client.Channel;
 import org.epics.pvaccess.impl.remote.server.ServerChannel;
 import org.epics.pvaccess.plugins.SecurityPlugin.ChannelSecuritySession;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvdata.misc.Destroyable;
 
 /**
@@ -56,8 +54,7 @@ public class ServerChannelImpl implements ServerChannel {
 	/**
 	 * Requests.
 	 */
-	protected final Map<Integer, Destroyable> requests = Collections
-			.synchronizedMap(new HashMap<Integer, Destroyable>());
+	protected final IntHashMap<Destroyable> requests = new IntHashMap<Destroyable>();
 
 	/**
 	 * Destroy state.
@@ -154,7 +151,7 @@ public class ServerChannelImpl implements ServerChannel {
 	 */
 	public Destroyable getRequest(int id) {
 
-		return (Destroyable) requests.get(id);
+		return requests.get(id);
 
 	}
 
@@ -170,17 +167,15 @@ public class ServerChannelImpl implements ServerChannel {
 	 * Destroy all registered requests.
 	 */
 	protected void destroyAllRequests() {
-		Integer[] keys;
-
 		// resource allocation optimization
 		if (requests.size() == 0)
 			return;
 
-		keys = new Integer[requests.keySet().size()];
-		requests.keySet().toArray(keys);
+		final int[] keys = requests.keys();
 		for (int i = 0; i < keys.length; i++) {
-			final Destroyable cr = (Destroyable) requests.remove(keys[i]);
-			cr.destroy();
+			final Destroyable cr = requests.remove(keys[i]);
+			if (cr != null)
+				cr.destroy();
 		}
 
 	}
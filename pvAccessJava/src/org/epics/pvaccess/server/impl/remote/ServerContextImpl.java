@@ -43,13 +43,19 @@ import org.epics.pvaccess.impl.remote.Context;
 import org.epics.pvaccess.impl.remote.ProtocolType;
 import org.epics.pvaccess.impl.remote.Transport;
 import org.epics.pvaccess.impl.remote.TransportRegistry;
+import org.epics.pvaccess.impl.remote.codec.impl.NonBlockingAbstractCodec;
+import org.epics.pvaccess.impl.remote.codec.impl.VirtualThreadSupport;
+import org.epics.pvaccess.impl.remote.io.impl.PollerImpl;
 import org.epics.pvaccess.impl.remote.request.ResponseHandler;
 import org.epics.pvaccess.impl.remote.udp.BlockingUDPConnector;
 import org.epics.pvaccess.impl.remote.udp.BlockingUDPTransport;
 import org.epics.pvaccess.plugins.SecurityPlugin;
+import org.epics.pvaccess.server.ChannelNameIndex;
+import org.epics.pvaccess.server.ChannelNamePublisher;
 import org.epics.pvaccess.server.ServerContext;
 import org.epics.pvaccess.server.impl.remote.tcp.BlockingTCPAcceptor;
 import org.epics.pvaccess.server.plugins.BeaconServerStatusProvider;
+import org.epics.pvaccess.util.BufferPool;
 import org.epics.pvaccess.util.InetAddressUtil;
 import org.epics.pvaccess.util.configuration.Configuration;
 import org.epics.pvaccess.util.configuration.ConfigurationProvider;
@@ -164,6 +170,27 @@ public class ServerContextImpl implements ServerContext, Context {
 	 */
 	protected int receiveBufferSize = PVAConstants.MAX_TCP_RECV;
 
+	/**
+	 * Serialize shared monitor elements (<code>SharedMonitorElement</code>) only once for all subscribers.
+	 */
+	protected boolean sharedMonitorSerialization = true;
+
+	/**
+	 * Number of event loop (poller) threads serving TCP connections,
+	 * 0 for blocking (thread-per-connection) mode.
+	 */
+	protected int eventLoopThreads = 0;
+
+	/**
+	 * Maximum size of a received message in event loop mode, larger messages close the connection.
+	 */
+	protected int maxMessageSize = NonBlockingAbstractCodec.DEFAULT_MAX_MESSAGE_SIZE;
+
+	/**
+	 * Event loops (pollers), <code>null</code> in blocking mode.
+	 */
+	protected PollerImpl[] pollers = null;
+
 	/**
 	 * Timer.
 	 */
@@ -224,6 +251,11 @@ public class ServerContextImpl implements ServerContext, Context {
 	 * Used when there are more that one provider used.
 	 */
 	protected final Map<String, ChannelProvider> channelNameToProvider = new HashMap<String, ChannelProvider>();
+
+	/**
+	 * Index of hosted channel names, <code>null</code> if not all providers publish their channel names.
+	 */
+	private ChannelNameIndex channelNameIndex = null;
 	
 	/**
 	 * Response handler.
@@ -355,6 +387,16 @@ public class ServerContextImpl implements ServerContext, Context {
 		channelProviderNames = config.getPropertyAsString("EPICS_PVA_PROVIDER_NAMES", channelProviderNames);
 		channelProviderNames = config.getPropertyAsString("EPICS_PVAS_PROVIDER_NAMES", channelProviderNames);
 		
+		sharedMonitorSerialization = config.getPropertyAsBoolean("EPICS_PVAS_SHARED_MONITOR_SERIALIZATION", sharedMonitorSerialization);
+		
+		eventLoopThreads = config.getPropertyAsInteger("EPICS_PVAS_EVENT_LOOP_THREADS", eventLoopThreads);
+		if (eventLoopThreads < 0)
+			eventLoopThreads = 0;
+		
+		maxMessageSize = config.getPropertyAsInteger("EPICS_PVAS_MAX_MESSAGE_BYTES", maxMessageSize);
+		if (maxMessageSize <= 0)
+			maxMessageSize = NonBlockingAbstractCodec.DEFAULT_MAX_MESSAGE_SIZE;
+		
 	}
 	
 	public void setChannelProviderNames(String providerNames)
@@ -441,6 +483,21 @@ public class ServerContextImpl implements ServerContext, Context {
 	 */
 	private void internalInitialize() throws PVAException {
 
+		// search pre-filtering is possible only if all providers publish their channel names
+		boolean allPublish = true;
+		for (ChannelProvider channelProvider : channelProviders)
+			if (!(channelProvider instanceof ChannelNamePublisher))
+			{
+				allPublish = false;
+				break;
+			}
+		if (allPublish)
+		{
+			channelNameIndex = new ChannelNameIndex();
+			for (ChannelProvider channelProvider : channelProviders)
+				((ChannelNamePublisher)channelProvider).publishChannelNames(channelNameIndex);
+		}
+
 		timer = TimerFactory.create("pvAccess-server timer", ThreadPriority.lower);
 		transportRegistry = new TransportRegistry();
 /*
@@ -489,8 +546,26 @@ public class ServerContextImpl implements ServerContext, Context {
 		}
 		*/
 		
+		if (eventLoopThreads > 0)
+		{
+			pollers = new PollerImpl[eventLoopThreads];
+			try
+			{
+				for (int i = 0; i < eventLoopThreads; i++)
+				{
+					pollers[i] = new PollerImpl();
+					pollers[i].start("pvAccess-server event loop " + i);
+				}
+			}
+			catch (IOException ioex)
+			{
+				shutdownPollers();
+				throw new PVAException("Failed to initialize event loops.", ioex); 
+			}
+		}
+
 //		acceptor = new TCPAcceptor(this, serverPort, receiveBufferSize);
-		acceptor = new BlockingTCPAcceptor(this, serverPort, receiveBufferSize);
+		acceptor = new BlockingTCPAcceptor(this, serverPort, receiveBufferSize, pollers);
 		serverPort = acceptor.getBindAddress().getPort();
 
 		// setup broadcast UDP transport
@@ -709,6 +784,12 @@ public class ServerContextImpl implements ServerContext, Context {
 			}
 		}
 
+		if (channelNameIndex != null)
+		{
+			for (ChannelProvider channelProvider : channelProviders)
+				((ChannelNamePublisher)channelProvider).unpublishChannelNames(channelNameIndex);
+		}
+
 		// stop accepting connections
 		if (acceptor != null) 
 			acceptor.destroy();
@@ -727,6 +808,9 @@ public class ServerContextImpl implements ServerContext, Context {
 		
 		// this will also destroy all channels
 		destroyAllTransports();
+		
+		// stop event loops
+		shutdownPollers();
 		/*
 		// shutdown reactor
 		if (reactor != null)
@@ -738,6 +822,19 @@ public class ServerContextImpl implements ServerContext, Context {
 		*/
 	}
 
+	/**
+	 * Shutdown event loops (pollers), if any.
+	 */
+	private void shutdownPollers() {
+		if (pollers == null)
+			return;
+		
+		for (PollerImpl poller : pollers)
+			if (poller != null)
+				poller.shutdown();
+		pollers = null;
+	}
+
 	/**
 	 * Destroy all transports.
 	 */
@@ -788,6 +885,12 @@ public class ServerContextImpl implements ServerContext, Context {
 		out.println("SERVER_PORT : " + serverPort);
 		out.println("RCV_BUFFER_SIZE : " + receiveBufferSize);
 		out.println("IGNORE_ADDR_LIST: " + ignoreAddressList);
+		out.println("SHARED_MONITOR_SERIALIZATION : " + sharedMonitorSerialization);
+		out.println("EVENT_LOOP_THREADS : " + eventLoopThreads);
+		out.println("MAX_MESSAGE_BYTES : " + maxMessageSize);
+		out.println("VIRTUAL_THREADS : " + VirtualThreadSupport.isEnabled());
+		out.println("DIRECT_BUFFERS : " + BufferPool.getDefault().isDirect());
+		out.println("CHANNEL_NAME_INDEX : " + (channelNameIndex != null ? String.valueOf(channelNameIndex.size()) : "disabled"));
 		out.println("STATE : " + state.name());
 	}
 
@@ -863,6 +966,30 @@ public class ServerContextImpl implements ServerContext, Context {
 		return receiveBufferSize;
 	}
 
+	/**
+	 * Get shared monitor serialization flag.
+	 * @return <code>true</code> if shared monitor elements are serialized only once for all subscribers.
+	 */
+	public boolean isSharedMonitorSerialization() {
+		return sharedMonitorSerialization;
+	}
+
+	/**
+	 * Get number of event loop (poller) threads.
+	 * @return number of event loop threads, 0 for blocking (thread-per-connection) mode.
+	 */
+	public int getEventLoopThreads() {
+		return eventLoopThreads;
+	}
+
+	/**
+	 * Get maximum size of a received message in event loop mode.
+	 * @return maximum message size in bytes.
+	 */
+	public int getMaxMessageSize() {
+		return maxMessageSize;
+	}
+
 	/**
 	 * Get server port.
 	 * @return server port.
@@ -1031,6 +1158,14 @@ public class ServerContextImpl implements ServerContext, Context {
 		return channelNameToProvider;
 	}
 
+	/**
+	 * Get index of hosted channel names.
+	 * @return the index, <code>null</code> if not all channel providers publish their channel names.
+	 */
+	public ChannelNameIndex getChannelNameIndex() {
+		return channelNameIndex;
+	}
+
 	/**
 	 * Get server response handler.
 	 * @return server response handler.
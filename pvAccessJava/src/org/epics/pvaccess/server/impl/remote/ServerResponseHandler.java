@@ -102,7 +102,7 @@ public final class ServerResponseHandler implements ResponseHandler {
 		{
 			context.getLogger().fine("Invalid (or unsupported) command: " + command + ".");
 			// TODO remove debug output
-			HexDump.hexDump("Invalid PVA header " + command + " + , its payload buffer", payloadBuffer.array(), payloadBuffer.position(), payloadSize);
+			HexDump.hexDump("Invalid PVA header " + command + " + , its payload buffer", payloadBuffer, payloadBuffer.position(), payloadSize);
 			return;
 		}
 		
@@ -47,11 +47,8 @@ public class BadResponse extends AbstractServerResponseHandler {
 		context.getLogger().fine("Undecipherable message (bad response type " + command + ") from " + responseFrom + ".");
 
 		// TODO remove debug output
-		if (payloadBuffer.hasArray())
-		{
-			int start = Math.max(0, payloadBuffer.position() - PVAConstants.PVA_MESSAGE_HEADER_SIZE);
-			HexDump.hexDump(description, payloadBuffer.array(), start, payloadBuffer.limit());
-		}
+		int start = Math.max(0, payloadBuffer.position() - PVAConstants.PVA_MESSAGE_HEADER_SIZE);
+		HexDump.hexDump(description, payloadBuffer, start, payloadBuffer.limit() - start);
 	}
 
 }
@@ -112,6 +112,7 @@ public class CreateChannelHandler extends AbstractServerResponseHandler {
 					null,			// no provider
 					SERVER_CHANNEL_NAME,
 					cr,
+					SERVER_CHANNEL_NAME,
 					new ServerRPCService(context),
 					null);
 			cr.channelCreated(StatusFactory.getStatusCreate().getStatusOK(), serverChannel);
@@ -20,6 +20,7 @@ import java.nio.ByteBuffer;
 import org.epics.pvaccess.impl.remote.PipelineMonitor;
 import org.epics.pvaccess.impl.remote.QoS;
 import org.epics.pvaccess.impl.remote.SerializationHelper;
+import org.epics.pvaccess.impl.remote.SharedMonitorElement;
 import org.epics.pvaccess.impl.remote.Transport;
 import org.epics.pvaccess.impl.remote.TransportSendControl;
 import org.epics.pvaccess.impl.remote.TransportSender;
@@ -53,10 +54,12 @@ public class MonitorHandler extends AbstractServerResponseHandler {
 		private volatile Structure structure;
 		private volatile Monitor monitor;
 		private volatile boolean unlisten = false;
+		private final boolean sharedSerialization;
 
 		public MonitorRequesterImpl(ServerContextImpl context, ServerChannelImpl channel, int ioid, Transport transport,
 				 PVStructure pvRequest) {
 			super(context, channel, ioid, transport);
+			sharedSerialization = context.isSharedMonitorSerialization();
 
 			startRequest(QoS.INIT.getMaskValue());
 			channel.registerRequest(ioid, this);
@@ -192,10 +195,19 @@ public class MonitorHandler extends AbstractServerResponseHandler {
 					final BitSet changedBitSet = element.getChangedBitSet();
 					if (changedBitSet != null)
 					{
-						changedBitSet.serialize(buffer, control);
-						element.getPVStructure().serialize(buffer, control, changedBitSet);
+						if (sharedSerialization && element instanceof SharedMonitorElement &&
+							((SharedMonitorElement)element).getEncoding() != null)
+						{
+							// encoded once for all the subscribers, just copy
+							copySegment(((SharedMonitorElement)element).getEncoded(buffer.order()), buffer, control);
+						}
+						else
+						{
+							changedBitSet.serialize(buffer, control);
+							element.getPVStructure().serialize(buffer, control, changedBitSet);
+						}
 						
-						// overrunBitset
+						// overrunBitset, always per subscriber
 						element.getOverrunBitSet().serialize(buffer, control);
 					}
 					
@@ -225,6 +237,29 @@ public class MonitorHandler extends AbstractServerResponseHandler {
 		
 	};
 
+	/**
+	 * Copy (already encoded) segment to the send buffer, flushing as necessary.
+	 * @param segment segment to copy.
+	 * @param buffer send buffer.
+	 * @param control send control.
+	 */
+	private static void copySegment(ByteBuffer segment, ByteBuffer buffer, TransportSendControl control)
+	{
+		final int limit = segment.limit();
+		while (segment.hasRemaining())
+		{
+			final int n = Math.min(segment.remaining(), buffer.remaining());
+			if (n == 0)
+			{
+				control.flushSerializeBuffer();
+				continue;
+			}
+			segment.limit(segment.position() + n);
+			buffer.put(segment);
+			segment.limit(limit);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.epics.pvaccess.impl.remote.AbstractResponseHandler#handleResponse(java.net.InetSocketAddress, org.epics.pvaccess.core.Transport, byte, byte, int, java.nio.ByteBuffer)
 	 */
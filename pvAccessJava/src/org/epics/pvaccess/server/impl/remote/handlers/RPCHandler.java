@@ -24,7 +24,9 @@ import org.epics.pvaccess.impl.remote.SerializationHelper;
 import org.epics.pvaccess.impl.remote.Transport;
 import org.epics.pvaccess.impl.remote.TransportSendControl;
 import org.epics.pvaccess.impl.remote.TransportSender;
+import org.epics.pvaccess.impl.remote.codec.AbstractCodec;
 import org.epics.pvaccess.impl.remote.server.ChannelHostingTransport;
+import org.epics.pvaccess.server.RequestAdmission;
 import org.epics.pvaccess.server.impl.remote.ServerChannelImpl;
 import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
 import org.epics.pvdata.pv.PVStructure;
@@ -214,6 +216,24 @@ public class RPCHandler extends AbstractServerResponseHandler {
 				return;
 			}
 
+			// reject early, before (possibly large) argument is deserialized
+			ChannelRPC channelRPC = request.getChannelRPC();
+			if (channelRPC instanceof RequestAdmission &&
+				transport instanceof AbstractCodec &&
+				((AbstractCodec)transport).canSkipPayload(payloadBuffer))
+			{
+				Status admissionStatus = ((RequestAdmission)channelRPC).checkAdmission();
+				if (!admissionStatus.isSuccess())
+				{
+					((AbstractCodec)transport).skipPayload(payloadBuffer);
+					request.stopRequest();
+					BaseChannelRequester.sendFailureMessage((byte)20, transport, ioid, qosCode, admissionStatus);
+					if (lastRequest)
+						request.destroy();
+					return;
+				}
+			}
+
 			// deserialize put data
 			final PVStructure pvArgument = SerializationHelper.deserializeStructureFull(payloadBuffer, transport);
 			
@@ -227,8 +247,6 @@ public class RPCHandler extends AbstractServerResponseHandler {
 				return;
 			}
 
-			ChannelRPC channelRPC = request.getChannelRPC();
-			
 			if (lastRequest)
 				channelRPC.lastRequest();
 			
@@ -19,11 +19,15 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.epics.pvaccess.PVAConstants;
 import org.epics.pvaccess.client.ChannelFind;
 import org.epics.pvaccess.client.ChannelFindRequester;
 import org.epics.pvaccess.client.ChannelProvider;
@@ -33,6 +37,7 @@ import org.epics.pvaccess.impl.remote.Transport;
 import org.epics.pvaccess.impl.remote.TransportSendControl;
 import org.epics.pvaccess.impl.remote.TransportSender;
 import org.epics.pvaccess.impl.remote.udp.BlockingUDPTransport;
+import org.epics.pvaccess.server.ChannelNameIndex;
 import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
 import org.epics.pvaccess.util.InetAddressUtil;
 import org.epics.pvdata.factory.StatusFactory;
@@ -49,6 +54,7 @@ import org.epics.pvdata.pv.Status;
 public class SearchHandler extends AbstractServerResponseHandler {
 
 	private final ChannelFindRequesterImplObjectPool objectPool = new ChannelFindRequesterImplObjectPool();
+	private final SearchResponseBatcher responseBatcher = new SearchResponseBatcher();
 	
 	private final Random random = new Random();
 	private static final int MAX_SERVER_SEARCH_RESPONSE_DELAY_MS = 100;
@@ -143,17 +149,25 @@ public class SearchHandler extends AbstractServerResponseHandler {
 		// TODO DoS attack
 		final boolean responseRequired = QoS.REPLY_REQUIRED.isSet(qosCode);
 		
-		// TODO bloom filter or similar server selection (by GUID)
+		// TODO server selection (by GUID)
 		
 		if (count > 0)
 		{
+			final ChannelNameIndex channelNameIndex = context.getChannelNameIndex();
 			for (int i = 0; i < count; i++) {
 				transport.ensureData(4);
 				final int cid = payloadBuffer.getInt();
 				final String name = SerializeHelper.deserializeString(payloadBuffer, transport);
 				// no name check here...
 	
-				if (allowed) 
+				// not hosted by this server, do not bother channel providers
+				if (allowed && channelNameIndex != null && !channelNameIndex.contains(name))
+				{
+					if (responseRequired)
+						objectPool.get().set(context.getLogger(), searchSequenceId, name, cid, responseFrom, true, 1).
+							channelFindResult(StatusFactory.getStatusCreate().getStatusOK(), null, false);
+				}
+				else if (allowed) 
 				{
 					List<ChannelProvider> providers = context.getChannelProviders();
 					ChannelFindRequesterImpl cfri = objectPool.get().set(context.getLogger(), searchSequenceId, name, cid, responseFrom, responseRequired, providers.size());
@@ -221,6 +235,7 @@ public class SearchHandler extends AbstractServerResponseHandler {
 		public ChannelFindRequesterImpl set(Logger logger, int searchSequenceId, String channelName, int cid, InetSocketAddress sendTo, boolean responseRequired, int expectedResponseCount)
 		{
 			synchronized (this) {
+				this.logger = logger;
 				this.serverSearch = false;
 				this.searchSequenceId = searchSequenceId;
 				this.channelName = channelName;
@@ -261,20 +276,33 @@ public class SearchHandler extends AbstractServerResponseHandler {
 					return;
 				}
 				
-				if (this.wasFound && wasFound)
+				try
 				{
-			        logger.fine("Channel '" + channelName + "' is hosted by different channel providers!");
-			        return;
-			    }
-				
-			    if (wasFound || (responseRequired && (responseCount == expectedResponseCount)))
-			    {
-			    	// register mapping
-			        if (wasFound && expectedResponseCount > 1)
-			            context.getChannelNameToProviderMap().put(channelName, channelFind.getChannelProvider());
-
-					this.wasFound = wasFound;
-					context.getBroadcastTransport().enqueueSendRequest(this);
+					if (this.wasFound && wasFound)
+					{
+				        logger.fine("Channel '" + channelName + "' is hosted by different channel providers!");
+				        return;
+				    }
+					
+				    if (wasFound || (responseRequired && !this.wasFound && (responseCount == expectedResponseCount)))
+				    {
+				    	// register mapping
+				        if (wasFound && expectedResponseCount > 1)
+				            context.getChannelNameToProviderMap().put(channelName, channelFind.getChannelProvider());
+	
+						this.wasFound = wasFound;
+						if (serverSearch)
+							context.getBroadcastTransport().enqueueSendRequest(this);
+						else
+							responseBatcher.add(sendTo, searchSequenceId, wasFound, cid);
+					}
+				}
+				finally
+				{
+					// all responses received, return this object to the pool
+					// (server search response is returned after being sent)
+					if (!serverSearch && responseCount == expectedResponseCount)
+						objectPool.put(this);
 				}
 			}
 		}
@@ -322,16 +350,8 @@ public class SearchHandler extends AbstractServerResponseHandler {
 				if (count > PVAConstants.MAX_SEARCH_BATCH_COUNT)
 					throw new IllegalArgumentException("too many search responses in a batch message");
 				*/
-				if (!serverSearch)
-				{
-					// TODO for now we do not gather search responses
-					buffer.putShort((short)1);
-					buffer.putInt(cid);
-				}
-				else
-				{
-					buffer.putShort((short)0);
-				}
+				// channel search responses are batched by SearchResponseBatcher
+				buffer.putShort((short)0);
 				
 				control.setRecipient(sendTo);
 			}
@@ -342,6 +362,142 @@ public class SearchHandler extends AbstractServerResponseHandler {
 
 	};
 	
+	/**
+	 * Coalesces channel search responses to the same requester (and search sequence) into one datagram.
+	 */
+	private class SearchResponseBatcher {
+
+		// 5ms coalescing window
+		private static final double COALESCING_DELAY = 0.005;
+		
+		private static final int RESPONSE_HEADER_SIZE =
+				PVAConstants.PVA_MESSAGE_HEADER_SIZE + 12+4+16+2 + 1 + 3 /* SUPPORTED_PROTOCOL */ + 1 + 2;
+		private static final int MAX_CIDS_PER_RESPONSE =
+				(PVAConstants.MAX_UDP_UNFRAGMENTED_SEND - RESPONSE_HEADER_SIZE) / (Integer.SIZE/Byte.SIZE);
+		
+		private final Map<SearchResponseBatch, SearchResponseBatch> pending =
+				new HashMap<SearchResponseBatch, SearchResponseBatch>();
+		
+		public void add(InetSocketAddress sendTo, int searchSequenceId, boolean wasFound, int cid)
+		{
+			SearchResponseBatch batch = new SearchResponseBatch(sendTo, searchSequenceId, wasFound);
+			boolean schedule = false;
+			boolean flush = false;
+			synchronized (pending) {
+				SearchResponseBatch existing = pending.get(batch);
+				if (existing == null)
+				{
+					pending.put(batch, batch);
+					schedule = true;
+				}
+				else
+					batch = existing;
+				
+				batch.add(cid);
+				if (batch.count == MAX_CIDS_PER_RESPONSE)
+				{
+					pending.remove(batch);
+					flush = true;
+				}
+			}
+			
+			if (flush)
+				context.getBroadcastTransport().enqueueSendRequest(batch);
+			else if (schedule)
+				context.getTimer().scheduleAfterDelay(TimerFactory.createNode(batch), COALESCING_DELAY);
+		}
+		
+		private void flush(SearchResponseBatch batch)
+		{
+			synchronized (pending) {
+				// already sent (full)
+				if (pending.get(batch) != batch)
+					return;
+				pending.remove(batch);
+			}
+			context.getBroadcastTransport().enqueueSendRequest(batch);
+		}
+		
+		private class SearchResponseBatch implements TransportSender, TimerCallback {
+			private final InetSocketAddress sendTo;
+			private final int searchSequenceId;
+			private final boolean wasFound;
+			
+			// guarded by pending lock until removed from pending
+			private int[] cids = new int[8];
+			private int count = 0;
+			
+			public SearchResponseBatch(InetSocketAddress sendTo, int searchSequenceId, boolean wasFound) {
+				this.sendTo = sendTo;
+				this.searchSequenceId = searchSequenceId;
+				this.wasFound = wasFound;
+			}
+			
+			void add(int cid) {
+				if (count == cids.length)
+					cids = Arrays.copyOf(cids, Math.min(2*count, MAX_CIDS_PER_RESPONSE));
+				cids[count++] = cid;
+			}
+			
+			@Override
+			public int hashCode() {
+				return sendTo.hashCode() * 31 + searchSequenceId * 2 + (wasFound ? 1 : 0);
+			}
+			
+			@Override
+			public boolean equals(Object obj) {
+				if (!(obj instanceof SearchResponseBatch))
+					return false;
+				SearchResponseBatch other = (SearchResponseBatch)obj;
+				return searchSequenceId == other.searchSequenceId &&
+					   wasFound == other.wasFound &&
+					   sendTo.equals(other.sendTo);
+			}
+			
+			@Override
+			public void callback() {
+				flush(this);
+			}
+			
+			@Override
+			public void timerStopped() {
+				// noop
+			}
+			
+			@Override
+			public void lock() {
+				// noop
+			}
+			
+			@Override
+			public void unlock() {
+				// noop
+			}
+			
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				control.startMessage((byte)4, 12+4+16+2);
+
+				buffer.put(context.getGUID());
+				buffer.putInt(searchSequenceId);
+				
+				// NOTE: is it possible (very likely) that address is any local address ::ffff:0.0.0.0
+				InetAddressUtil.encodeAsIPv6Address(buffer, context.getServerInetAddress());
+				buffer.putShort((short)context.getServerPort());
+				
+				SerializeHelper.serializeString(SUPPORTED_PROTOCOL, buffer, control);
+
+				control.ensureBuffer(1+2+count*(Integer.SIZE/Byte.SIZE));
+				buffer.put(wasFound ? (byte)1 : (byte)0);
+				buffer.putShort((short)count);
+				for (int i = 0; i < count; i++)
+					buffer.putInt(cids[i]);
+				
+				control.setRecipient(sendTo);
+			}
+		}
+	}
+	
 	// TODO limit max, cleanup after some time
 	private class ChannelFindRequesterImplObjectPool {
 		private final ArrayList<ChannelFindRequesterImpl> elements = new ArrayList<ChannelFindRequesterImpl>();
@@ -20,8 +20,6 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,6 +39,7 @@ import org.epics.pvaccess.impl.security.SecurityPluginMessageTransportSender;
 import org.epics.pvaccess.plugins.SecurityPlugin;
 import org.epics.pvaccess.plugins.SecurityPlugin.SecurityPluginControl;
 import org.epics.pvaccess.plugins.SecurityPlugin.SecuritySession;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvdata.factory.StatusFactory;
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.pv.PVField;
@@ -64,7 +63,7 @@ public class BlockingServerTCPTransport extends BlockingTCPTransport
 	/**
 	 * Channel table (SID -> channel mapping).
 	 */
-	private Map<Integer, ServerChannel> channels;
+	private final IntHashMap<ServerChannel> channels;
 
 	/**
 	 * Server TCP transport constructor.
@@ -88,7 +87,7 @@ public class BlockingServerTCPTransport extends BlockingTCPTransport
 		// getPriority() must return "registered" priority!
 
 		final int INITIAL_SIZE = 64;
-		channels = Collections.synchronizedMap(new HashMap<Integer, ServerChannel>(INITIAL_SIZE));
+		channels = new IntHashMap<ServerChannel>(INITIAL_SIZE);
 
 		start();
 	}
@@ -178,8 +177,8 @@ public class BlockingServerTCPTransport extends BlockingTCPTransport
 	@Override
 	public ServerChannel[] getChannels() {
 
-		ServerChannel[] sca = new ServerChannel[channels.size()];
-		channels.values().toArray(sca);
+		List<ServerChannel> values = channels.values();
+		ServerChannel[] sca = values.toArray(new ServerChannel[values.size()]);
 		return sca;
 
 	}
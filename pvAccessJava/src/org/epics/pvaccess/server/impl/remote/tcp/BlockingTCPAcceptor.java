@@ -27,6 +27,7 @@ import java.util.logging.Level;
 import org.epics.pvaccess.PVAException;
 import org.epics.pvaccess.impl.remote.Context;
 import org.epics.pvaccess.impl.remote.Transport;
+import org.epics.pvaccess.impl.remote.io.Poller;
 import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
 
 /**
@@ -61,21 +62,40 @@ public class BlockingTCPAcceptor {
 	 */
 	private AtomicBoolean destroyed = new AtomicBoolean(false);
 
-	//private final PollerImpl poller;
+	/**
+	 * Connection validation timeout (ms).
+	 */
+	private static final long VALIDATION_TIMEOUT_MS = 5000;
+
+	/**
+	 * Pollers (event loops) serving accepted connections,
+	 * <code>null</code> for blocking (thread-per-connection) mode.
+	 */
+	private final Poller[] pollers;
+
+	/**
+	 * Next poller index (round-robin assignment).
+	 */
+	private int nextPoller = 0;
 
 	public BlockingTCPAcceptor(Context context, int port, int receiveBufferSize) throws PVAException {
+		this(context, port, receiveBufferSize, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param context context instance.
+	 * @param port port to listen to.
+	 * @param receiveBufferSize receive buffer size.
+	 * @param pollers pollers (event loops) to assign accepted connections to (round-robin),
+	 * 		  <code>null</code> or empty array for blocking (thread-per-connection) mode.
+	 * @throws PVAException thrown if failed to bind.
+	 */
+	public BlockingTCPAcceptor(Context context, int port, int receiveBufferSize, Poller[] pollers) throws PVAException {
 		this.context = context;
 		this.receiveBufferSize = receiveBufferSize;
+		this.pollers = (pollers != null && pollers.length > 0) ? pollers : null;
 
-		/*
-		// TODO!!!
-		try {
-			poller = new PollerImpl();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-		poller.start();
-		 */
 		initialize(port);
 	}
 
@@ -104,9 +124,21 @@ public class BlockingTCPAcceptor {
 
 				// do NOT tune socket buffer sizes, this will disable auto-tuning
 				
+				if (pollers != null)
+				{
+					// non-blocking mode, validation is done asynchronously
+					final Poller poller = pollers[nextPoller];
+					nextPoller = (nextPoller + 1) % pollers.length;
+					
+					final NonBlockingServerTCPTransport transport = new NonBlockingServerTCPTransport(context, poller, socket, ((ServerContextImpl)context).getServerResponseHandler(), receiveBufferSize, ((ServerContextImpl)context).getMaxMessageSize());
+					transport.startValidationTimeout(VALIDATION_TIMEOUT_MS);
+					
+					context.getLogger().finer("Serving to PVA client: " + address);
+					continue;
+				}
+				
 				// create transport
 				final Transport transport = new BlockingServerTCPTransport(context, socket, ((ServerContextImpl)context).getServerResponseHandler(), receiveBufferSize);
-				//final Transport transport = new NonBlockingServerTCPTransport(context, poller, socket, ((ServerContextImpl)context).getServerResponseHandler(), receiveBufferSize);
 	
 				// validate connection
 				if (!validateConnection(transport, address))
@@ -144,7 +176,7 @@ public class BlockingTCPAcceptor {
 	private boolean validateConnection(Transport transport, SocketAddress address)
 	{
 		try {
-			return transport.verify(5000);
+			return transport.verify(VALIDATION_TIMEOUT_MS);
 		}
 		catch (Throwable th) {
 			th.printStackTrace();
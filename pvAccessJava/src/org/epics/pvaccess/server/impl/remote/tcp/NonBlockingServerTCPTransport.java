@@ -20,10 +20,9 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -42,19 +41,25 @@ import org.epics.pvaccess.impl.security.SecurityPluginMessageTransportSender;
 import org.epics.pvaccess.plugins.SecurityPlugin;
 import org.epics.pvaccess.plugins.SecurityPlugin.SecurityPluginControl;
 import org.epics.pvaccess.plugins.SecurityPlugin.SecuritySession;
+import org.epics.pvaccess.util.IntHashMap;
 import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.misc.Timer.TimerCallback;
+import org.epics.pvdata.misc.Timer.TimerNode;
+import org.epics.pvdata.misc.TimerFactory;
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.pv.PVField;
 import org.epics.pvdata.pv.Status;
 import org.epics.pvdata.pv.Status.StatusType;
 
 /**
- * Server TCP transport implementation.
+ * Server TCP transport implementation (non-blocking, served by a poller/event loop thread).
+ * Connection validation is asynchronous: validation request is sent when the channel gets registered
+ * to the poller, the status is sent when verified (or when validation times out).
  * @author <a href="mailto:matej.sekoranjaATcosylab.com">Matej Sekoranja</a>
  * @version $Id$
  */
 public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
-	implements ChannelHostingTransport, TransportSender, SecurityPluginControl {
+	implements ChannelHostingTransport, TransportSender, SecurityPluginControl, TimerCallback {
 
 	/**
 	 * Last SID cache. 
@@ -64,7 +69,7 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 	/**
 	 * Channel table (SID -> channel mapping).
 	 */
-	private Map<Integer, ServerChannel> channels;
+	private final IntHashMap<ServerChannel> channels;
 
 	/**
 	 * Server TCP transport constructor.
@@ -81,13 +86,35 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 			   SocketChannel channel,
 			   ResponseHandler responseHandler,
 			   int receiveBufferSize) throws SocketException {
-		super(context, poller, channel, responseHandler, receiveBufferSize, PVAConstants.PVA_DEFAULT_PRIORITY);
+		this(context, poller, channel, responseHandler, receiveBufferSize, DEFAULT_MAX_MESSAGE_SIZE);
+	}
+
+	/**
+	 * Server TCP transport constructor.
+	 * @param context context where transport lives in.
+	 * @param poller poller to use.
+	 * @param channel used socket channel.
+	 * @param responseHandler response handler used to process PVA headers.
+	 * @param receiveBufferSize receive buffer size.
+	 * @param maxMessageSize maximum size of a received message, the connection is closed on a larger one.
+	 * @throws SocketException thrown on any socket exception.
+	 */
+	public NonBlockingServerTCPTransport(Context context,
+			Poller poller,
+			   SocketChannel channel,
+			   ResponseHandler responseHandler,
+			   int receiveBufferSize,
+			   int maxMessageSize) throws SocketException {
+		super(context, poller, channel, responseHandler, receiveBufferSize, maxMessageSize, PVAConstants.PVA_DEFAULT_PRIORITY);
 		// NOTE: priority not yet known, default priority is used to register/unregister
 		// TODO implement priorities in Reactor... not that user will change it.. still getPriority() must return "registered" priority!
 		
 		final int INITIAL_SIZE = 64;
-		channels = Collections.synchronizedMap(new HashMap<Integer, ServerChannel>(INITIAL_SIZE));
+		channels = new IntHashMap<ServerChannel>(INITIAL_SIZE);
 		
+		timerNode = TimerFactory.createNode(this);
+
+		start();
 	}
 	
 	
@@ -172,7 +199,7 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 	public ServerChannel getChannel(int sid)
 	{
 		
-			return (ServerChannel)channels.get(sid);
+			return channels.get(sid);
 		
 	}
 
@@ -180,8 +207,8 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 	public ServerChannel[] getChannels()
 	{
 		synchronized(channels) {
-			ServerChannel[] sca = new ServerChannel[channels.size()];
-			channels.values().toArray(sca);
+			List<ServerChannel> values = channels.values();
+			ServerChannel[] sca = values.toArray(new ServerChannel[values.size()]);
 			return sca;
 		}
 		
@@ -330,23 +357,88 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 
 	private volatile Status verificationStatus = validationTimeoutStatus;
 
+	/**
+	 * Validation completed (status sent or to be sent) flag.
+	 */
+	private final AtomicBoolean validationCompleted = new AtomicBoolean(false);
+
+	/**
+	 * Timer node used for validation timeout and delayed close on failed validation.
+	 */
+	private final TimerNode timerNode;
+
+	/**
+	 * Time to hold off the client (before closing connection) on failed validation, in seconds.
+	 */
+	private static final double FAILED_VALIDATION_CLOSE_DELAY = 1.0;
+
 	@Override
 	public void verified(Status status) {
 		verificationStatus = status;
 		super.verified(status);
+		completeValidation();
 	}
 	
-	@Override
-	public boolean verify(long timeoutMs) {
+	/**
+	 * Start asynchronous validation timeout, if not verified in given time
+	 * the timeout status is sent and the connection closed.
+	 * @param timeoutMs timeout in milliseconds.
+	 */
+	public void startValidationTimeout(long timeoutMs) {
+		synchronized (timerNode) {
+			if (!validationCompleted.get())
+				context.getTimer().scheduleAfterDelay(timerNode, timeoutMs / 1000.0);
+		}
+	}
+
+	/**
+	 * Send validation status (once), on failure also schedule closing of the connection.
+	 */
+	private void completeValidation() {
+		if (validationCompleted.getAndSet(true))
+			return;
+		
 		enqueueSendRequest(this);
+		
+		synchronized (timerNode) {
+			timerNode.cancel();
 
-		boolean verified = super.verify(timeoutMs);
+			// wait for negative response to be sent back and
+			// hold off the client for retrying at very high rate
+			if (!verificationStatus.isSuccess())
+				context.getTimer().scheduleAfterDelay(timerNode, FAILED_VALIDATION_CLOSE_DELAY);
+		}
+	}
 
-		enqueueSendRequest(this);
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.misc.Timer.TimerCallback#callback()
+	 */
+	@Override
+	public void callback() {
+		if (!validationCompleted.get())
+		{
+			context.getLogger().finer("Connection to PVA client " + socketAddress + " failed to be validated in time.");
+			completeValidation();
+		}
+		else
+		{
+			context.getLogger().finer("Connection to PVA client " + socketAddress + " failed to be validated, closing it.");
+			try {
+				close();
+			} catch (IOException e) {
+				// noop
+			}
+		}
+	}
 
-		return verified;
+	/* (non-Javadoc)
+	 * @see org.epics.pvdata.misc.Timer.TimerCallback#timerStopped()
+	 */
+	@Override
+	public void timerStopped() {
+		// noop
 	}
-	
+
 	private static Status invalidSecurityPluginNameStatus =
 			StatusFactory.getStatusCreate()
 				.createStatus(StatusType.ERROR, "invalid security plug-in name", null);
@@ -463,6 +555,8 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 			securitySession = null;
 		}
 		
+		timerNode.cancel();
+
 		super.close();
 	}
 
@@ -478,6 +572,7 @@ public class NonBlockingServerTCPTransport extends NonBlockingTCPTransport
 	 */
 	@Override
 	protected void ready() {
+		// send validation request
 		enqueueSendRequest(this);
 	}	
 }
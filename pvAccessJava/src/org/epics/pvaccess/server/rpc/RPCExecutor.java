@@ -0,0 +1,483 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.server.rpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.epics.pvaccess.impl.remote.codec.impl.VirtualThreadSupport;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.PVDoubleArray;
+import org.epics.pvdata.pv.PVIntArray;
+import org.epics.pvdata.pv.PVLongArray;
+import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * Executor of RPC service requests.
+ * Requests are executed in lanes, a default one and optional per-service lanes,
+ * so that a slow or busy service does not block the others.
+ * A lane is either an elastic thread-pool (grows from core to maximum number of threads
+ * before queuing, idle non-core threads are terminated) or runs each request on its own virtual thread.
+ * Each lane has a bound of in-flight (queued and running) requests, requests above the bound are rejected
+ * before they are queued (see {@link #admit(String)} and {@link #execute(String, Runnable)}).
+ * Queue depth and latency metrics are available via {@link #getMetrics()}, also as an RPC service
+ * (see {@link #createMetricsService()}).
+ */
+public class RPCExecutor {
+
+	/**
+	 * Time (in seconds) an idle non-core thread waits for a new request before terminating.
+	 */
+	public static final long KEEP_ALIVE_TIME = 60;
+
+	private static final String DEFAULT_LANE_NAME = "*";
+
+	private static final String[] COLUMNS = {
+		"service", "threads", "active", "queued", "limit",
+		"submitted", "completed", "rejected",
+		"meanWaitTime", "maxWaitTime", "meanExecutionTime", "maxExecutionTime"
+	};
+
+	private static final Structure metricsStructure;
+	static {
+		FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+		Structure valueStructure = fieldCreate.createFieldBuilder().
+				addArray(COLUMNS[0], ScalarType.pvString).
+				addArray(COLUMNS[1], ScalarType.pvInt).
+				addArray(COLUMNS[2], ScalarType.pvInt).
+				addArray(COLUMNS[3], ScalarType.pvInt).
+				addArray(COLUMNS[4], ScalarType.pvInt).
+				addArray(COLUMNS[5], ScalarType.pvLong).
+				addArray(COLUMNS[6], ScalarType.pvLong).
+				addArray(COLUMNS[7], ScalarType.pvLong).
+				addArray(COLUMNS[8], ScalarType.pvDouble).
+				addArray(COLUMNS[9], ScalarType.pvDouble).
+				addArray(COLUMNS[10], ScalarType.pvDouble).
+				addArray(COLUMNS[11], ScalarType.pvDouble).
+				createStructure();
+		metricsStructure = fieldCreate.createFieldBuilder().
+				setId("epics:nt/NTTable:1.0").
+				addArray("labels", ScalarType.pvString).
+				add("value", valueStructure).
+				createStructure();
+	}
+
+	/**
+	 * Linked queue that refuses to queue while the pool can still grow and has no idle thread,
+	 * so that the thread-pool creates a new thread instead.
+	 */
+	private static class ElasticQueue extends LinkedBlockingQueue<Runnable> {
+		private static final long serialVersionUID = 6138347357440839049L;
+
+		private transient Lane lane;
+
+		@Override
+		public boolean offer(Runnable runnable) {
+			final ThreadPoolExecutor pool = lane.pool;
+			final int poolSize = pool.getPoolSize();
+			// in-flight count includes this request
+			if (poolSize < pool.getMaximumPoolSize() && lane.inFlight.get() > poolSize)
+				return false;
+			return super.offer(runnable);
+		}
+
+		boolean force(Runnable runnable) {
+			return super.offer(runnable);
+		}
+	}
+
+	private static class Lane {
+		final String name;
+		final ThreadPoolExecutor pool;		// null for virtual thread per request
+		final int limit;
+		final boolean shutdownPool;
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicLong submitted = new AtomicLong();
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong rejected = new AtomicLong();
+		final AtomicLong totalWaitTime = new AtomicLong();
+		final AtomicLong maxWaitTime = new AtomicLong();
+		final AtomicLong totalExecutionTime = new AtomicLong();
+		final AtomicLong maxExecutionTime = new AtomicLong();
+
+		volatile boolean shutdown = false;
+
+		// elastic thread-pool
+		Lane(final String name, int coreThreads, int maxThreads, int queueSize) {
+			this.name = name;
+			this.limit = (int)Math.min((long)maxThreads + queueSize, Integer.MAX_VALUE);
+			this.shutdownPool = true;
+
+			final ElasticQueue queue = new ElasticQueue();
+			pool = new ThreadPoolExecutor(coreThreads, maxThreads,
+					KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+					queue,
+					new ThreadFactory() {
+						private final AtomicInteger threadCount = new AtomicInteger();
+						@Override
+						public Thread newThread(Runnable runnable) {
+							return new Thread(runnable, "pvAccess RPC " + name + " #" + threadCount.incrementAndGet());
+						}
+					},
+					new RejectedExecutionHandler() {
+						@Override
+						public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+							// number of requests is already bounded by the lane limit
+							if (executor.isShutdown() || !queue.force(runnable))
+								throw new RejectedExecutionException("RPC executor shutdown");
+						}
+					});
+			queue.lane = this;
+			pool.prestartAllCoreThreads();
+		}
+
+		// external thread-pool
+		Lane(String name, ThreadPoolExecutor pool) {
+			this.name = name;
+			this.pool = pool;
+			this.limit = (int)Math.min((long)pool.getMaximumPoolSize() + pool.getQueue().remainingCapacity(), Integer.MAX_VALUE);
+			this.shutdownPool = false;
+		}
+
+		// virtual thread per request
+		Lane(String name, int maxConcurrentRequests) {
+			this.name = name;
+			this.pool = null;
+			this.limit = maxConcurrentRequests;
+			this.shutdownPool = false;
+		}
+
+		boolean admit() {
+			if (!shutdown && inFlight.get() < limit)
+				return true;
+			rejected.incrementAndGet();
+			return false;
+		}
+
+		boolean execute(final Runnable task) {
+			int count;
+			do {
+				count = inFlight.get();
+				if (shutdown || count >= limit)
+				{
+					rejected.incrementAndGet();
+					return false;
+				}
+			} while (!inFlight.compareAndSet(count, count + 1));
+
+			final long submitTime = System.nanoTime();
+			Runnable runnable = new Runnable() {
+				@Override
+				public void run() {
+					final long startTime = System.nanoTime();
+					record(totalWaitTime, maxWaitTime, startTime - submitTime);
+					running.incrementAndGet();
+					try {
+						task.run();
+					} finally {
+						running.decrementAndGet();
+						inFlight.decrementAndGet();
+						completed.incrementAndGet();
+						record(totalExecutionTime, maxExecutionTime, System.nanoTime() - startTime);
+					}
+				}
+			};
+
+			try {
+				if (pool != null)
+					pool.execute(runnable);
+				else
+					VirtualThreadSupport.newVirtualThread(runnable, "pvAccess RPC " + name).start();
+			} catch (RejectedExecutionException ree) {
+				inFlight.decrementAndGet();
+				rejected.incrementAndGet();
+				return false;
+			}
+
+			submitted.incrementAndGet();
+			return true;
+		}
+
+		private static void record(AtomicLong total, AtomicLong max, long time) {
+			total.addAndGet(time);
+			long currentMax;
+			while (time > (currentMax = max.get()))
+				if (max.compareAndSet(currentMax, time))
+					break;
+		}
+
+		void shutdown() {
+			shutdown = true;
+			if (shutdownPool)
+				pool.shutdown();
+		}
+
+		void shutdownNow() {
+			shutdown = true;
+			if (shutdownPool)
+				pool.shutdownNow();
+		}
+	}
+
+	private final Lane defaultLane;
+	private final ConcurrentHashMap<String, Lane> serviceLanes = new ConcurrentHashMap<String, Lane>();
+
+	private RPCExecutor(Lane defaultLane) {
+		this.defaultLane = defaultLane;
+	}
+
+	/**
+	 * Creates an executor with an elastic default thread-pool.
+	 * @param coreThreads number of threads kept alive, even if idle.
+	 * @param maxThreads maximum number of threads.
+	 * @param queueSize maximum number of requests waiting for a thread.
+	 */
+	public RPCExecutor(int coreThreads, int maxThreads, int queueSize)
+	{
+		checkPoolArguments(coreThreads, maxThreads, queueSize);
+		defaultLane = new Lane(DEFAULT_LANE_NAME, coreThreads, maxThreads, queueSize);
+	}
+
+	/**
+	 * Creates an executor that uses given (externally managed) thread-pool as a default lane.
+	 * The number of in-flight requests is bounded by the maximum pool size and the queue capacity.
+	 * @param threadPool thread-pool to use, it is not shutdown by this executor.
+	 */
+	public RPCExecutor(ThreadPoolExecutor threadPool)
+	{
+		if (threadPool == null)
+			throw new IllegalArgumentException("threadPool == null");
+		defaultLane = new Lane(DEFAULT_LANE_NAME, threadPool);
+	}
+
+	/**
+	 * Creates an executor that runs each request on its own virtual thread.
+	 * On JVMs without virtual thread support, an elastic pool of (at most <code>maxConcurrentRequests</code>)
+	 * platform threads is used instead.
+	 * @param maxConcurrentRequests maximum number of in-flight requests.
+	 * @return new executor.
+	 * @see #isVirtualThreadPerRequestAvailable()
+	 */
+	public static RPCExecutor createVirtualThreadPerRequest(int maxConcurrentRequests)
+	{
+		return new RPCExecutor(createVirtualThreadLane(DEFAULT_LANE_NAME, maxConcurrentRequests));
+	}
+
+	/**
+	 * Check if virtual threads are supported by the running JVM.
+	 * @return <code>true</code> if virtual thread per request mode uses virtual threads.
+	 */
+	public static boolean isVirtualThreadPerRequestAvailable()
+	{
+		return VirtualThreadSupport.isAvailable();
+	}
+
+	private static void checkPoolArguments(int coreThreads, int maxThreads, int queueSize)
+	{
+		if (coreThreads < 0)
+			throw new IllegalArgumentException("coreThreads < 0");
+		if (maxThreads < 1 || maxThreads < coreThreads)
+			throw new IllegalArgumentException("maxThreads < 1 || maxThreads < coreThreads");
+		if (queueSize < 0)
+			throw new IllegalArgumentException("queueSize < 0");
+	}
+
+	private static Lane createVirtualThreadLane(String name, int maxConcurrentRequests)
+	{
+		if (maxConcurrentRequests < 1)
+			throw new IllegalArgumentException("maxConcurrentRequests < 1");
+
+		if (VirtualThreadSupport.isAvailable())
+			return new Lane(name, maxConcurrentRequests);
+		else
+			return new Lane(name, 0, maxConcurrentRequests, 0);
+	}
+
+	private void setServiceLane(String serviceName, Lane lane)
+	{
+		if (serviceName == null)
+			throw new IllegalArgumentException("serviceName == null");
+		Lane previous = serviceLanes.put(serviceName, lane);
+		if (previous != null)
+			previous.shutdown();
+	}
+
+	/**
+	 * Use a dedicated elastic thread-pool for the given service.
+	 * Already queued requests of the previous dedicated lane (if any) are still executed.
+	 * @param serviceName RPC service name (as registered, i.e. pattern for wildcard services).
+	 * @param coreThreads number of threads kept alive, even if idle.
+	 * @param maxThreads maximum number of threads.
+	 * @param queueSize maximum number of requests waiting for a thread.
+	 */
+	public void setServicePool(String serviceName, int coreThreads, int maxThreads, int queueSize)
+	{
+		checkPoolArguments(coreThreads, maxThreads, queueSize);
+		setServiceLane(serviceName, new Lane(serviceName, coreThreads, maxThreads, queueSize));
+	}
+
+	/**
+	 * Run requests of the given service each on its own virtual thread (if supported).
+	 * @param serviceName RPC service name (as registered, i.e. pattern for wildcard services).
+	 * @param maxConcurrentRequests maximum number of in-flight requests.
+	 * @see #createVirtualThreadPerRequest(int)
+	 */
+	public void setServiceVirtualThreadPerRequest(String serviceName, int maxConcurrentRequests)
+	{
+		setServiceLane(serviceName, createVirtualThreadLane(serviceName, maxConcurrentRequests));
+	}
+
+	/**
+	 * Remove the dedicated lane of the given service, its requests are executed by the default lane.
+	 * @param serviceName RPC service name.
+	 */
+	public void removeServiceLane(String serviceName)
+	{
+		Lane previous = serviceLanes.remove(serviceName);
+		if (previous != null)
+			previous.shutdown();
+	}
+
+	private Lane getLane(String serviceName)
+	{
+		if (!serviceLanes.isEmpty())
+		{
+			Lane lane = serviceLanes.get(serviceName);
+			if (lane != null)
+				return lane;
+		}
+		return defaultLane;
+	}
+
+	/**
+	 * Check if a request of the given service is accepted now, i.e. before the request is deserialized.
+	 * No capacity is reserved, {@link #execute(String, Runnable)} can still reject the request.
+	 * A request that is not accepted is counted as rejected.
+	 * @param serviceName RPC service name.
+	 * @return <code>true</code> if the lane of the service is not full.
+	 */
+	public boolean admit(String serviceName)
+	{
+		return getLane(serviceName).admit();
+	}
+
+	/**
+	 * Execute a request of the given service, if the lane of the service is not full.
+	 * @param serviceName RPC service name.
+	 * @param task request processing task.
+	 * @return <code>true</code> if accepted, <code>false</code> if rejected (the task will not be run).
+	 */
+	public boolean execute(String serviceName, Runnable task)
+	{
+		return getLane(serviceName).execute(task);
+	}
+
+	/**
+	 * Initiate an orderly shutdown, already accepted requests are executed, new ones are rejected.
+	 */
+	public void shutdown()
+	{
+		defaultLane.shutdown();
+		for (Lane lane : serviceLanes.values())
+			lane.shutdown();
+	}
+
+	/**
+	 * Shutdown and interrupt running requests.
+	 */
+	public void shutdownNow()
+	{
+		defaultLane.shutdownNow();
+		for (Lane lane : serviceLanes.values())
+			lane.shutdownNow();
+	}
+
+	/**
+	 * Get current metrics, one row per lane (the default lane is named <code>*</code>).
+	 * Times are in seconds, means are since the lane was created.
+	 * @return <code>NTTable</code> with metrics.
+	 */
+	public PVStructure getMetrics()
+	{
+		List<Lane> lanes = new ArrayList<Lane>(serviceLanes.size() + 1);
+		lanes.add(defaultLane);
+		lanes.addAll(serviceLanes.values());
+		final int n = lanes.size();
+
+		String[] service = new String[n];
+		int[] threads = new int[n], active = new int[n], queued = new int[n], limit = new int[n];
+		long[] submitted = new long[n], completed = new long[n], rejected = new long[n];
+		double[] meanWaitTime = new double[n], maxWaitTime = new double[n];
+		double[] meanExecutionTime = new double[n], maxExecutionTime = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			Lane lane = lanes.get(i);
+			service[i] = lane.name;
+			active[i] = lane.running.get();
+			queued[i] = Math.max(0, lane.inFlight.get() - active[i]);
+			threads[i] = (lane.pool != null) ? lane.pool.getPoolSize() : active[i];
+			limit[i] = lane.limit;
+			submitted[i] = lane.submitted.get();
+			completed[i] = lane.completed.get();
+			rejected[i] = lane.rejected.get();
+			// started requests for wait time, completed for execution time
+			final long started = completed[i] + active[i];
+			meanWaitTime[i] = (started > 0) ? lane.totalWaitTime.get() / 1e9 / started : 0;
+			maxWaitTime[i] = lane.maxWaitTime.get() / 1e9;
+			meanExecutionTime[i] = (completed[i] > 0) ? lane.totalExecutionTime.get() / 1e9 / completed[i] : 0;
+			maxExecutionTime[i] = lane.maxExecutionTime.get() / 1e9;
+		}
+
+		PVStructure pvMetrics = PVDataFactory.getPVDataCreate().createPVStructure(metricsStructure);
+		pvMetrics.getSubField(PVStringArray.class, "labels").put(0, COLUMNS.length, COLUMNS, 0);
+		PVStructure pvValue = pvMetrics.getStructureField("value");
+		pvValue.getSubField(PVStringArray.class, COLUMNS[0]).put(0, n, service, 0);
+		pvValue.getSubField(PVIntArray.class, COLUMNS[1]).put(0, n, threads, 0);
+		pvValue.getSubField(PVIntArray.class, COLUMNS[2]).put(0, n, active, 0);
+		pvValue.getSubField(PVIntArray.class, COLUMNS[3]).put(0, n, queued, 0);
+		pvValue.getSubField(PVIntArray.class, COLUMNS[4]).put(0, n, limit, 0);
+		pvValue.getSubField(PVLongArray.class, COLUMNS[5]).put(0, n, submitted, 0);
+		pvValue.getSubField(PVLongArray.class, COLUMNS[6]).put(0, n, completed, 0);
+		pvValue.getSubField(PVLongArray.class, COLUMNS[7]).put(0, n, rejected, 0);
+		pvValue.getSubField(PVDoubleArray.class, COLUMNS[8]).put(0, n, meanWaitTime, 0);
+		pvValue.getSubField(PVDoubleArray.class, COLUMNS[9]).put(0, n, maxWaitTime, 0);
+		pvValue.getSubField(PVDoubleArray.class, COLUMNS[10]).put(0, n, meanExecutionTime, 0);
+		pvValue.getSubField(PVDoubleArray.class, COLUMNS[11]).put(0, n, maxExecutionTime, 0);
+		return pvMetrics;
+	}
+
+	/**
+	 * Create a service that returns {@link #getMetrics()}.
+	 * The service responds directly (not via this executor), so that metrics are available also when the executor is busy.
+	 * @return metrics service.
+	 */
+	public RPCServiceAsync createMetricsService()
+	{
+		return new RPCServiceAsync() {
+			@Override
+			public void request(PVStructure args, RPCResponseCallback callback) {
+				callback.requestDone(StatusFactory.getStatusCreate().getStatusOK(), getMetrics());
+			}
+		};
+	}
+}
@@ -1,9 +1,5 @@
 package org.epics.pvaccess.server.rpc;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
 import org.epics.pvaccess.PVAException;
 import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
 import org.epics.pvaccess.server.impl.remote.plugins.DefaultBeaconServerDataProvider;
@@ -18,7 +14,7 @@ public class RPCServer {
 	private final ServerContextImpl serverContext;
 	private final RPCChannelProvider channelProviderImpl;
 	
-	private final ThreadPoolExecutor threadPoll;
+	private final RPCExecutor executor;
 
 	/**
 	 * Default constructor.
@@ -32,10 +28,16 @@ public class RPCServer {
 	
 	/**
 	 * Creates a RPC server with a thread-pool used to process requests.
+	 * Requests exceeding the queue size are rejected with an error status.
 	 * @param threads number of threads in a thread-pool.
 	 * @param queueSize thread-pool request queue size.
 	 */
 	public RPCServer(int threads, int queueSize)
+	{
+		this(createExecutor(threads, queueSize));
+	}
+	
+	private static RPCExecutor createExecutor(int threads, int queueSize)
 	{
 		if (threads < 0)
 			throw new IllegalArgumentException("threads < 0");
@@ -44,16 +46,20 @@ public class RPCServer {
 			throw new IllegalArgumentException("queueSize < 1");
 		
 		if (threads > 0)
-		{
-			threadPoll = new ThreadPoolExecutor(threads, threads,
-												0, TimeUnit.SECONDS,
-												new ArrayBlockingQueue<Runnable>(queueSize));
-			threadPoll.prestartAllCoreThreads();
-		}
+			return new RPCExecutor(threads, threads, queueSize);
 		else
-			threadPoll = null;		// sync processing
-
-		channelProviderImpl = new RPCChannelProvider(threadPoll);
+			return null;		// sync processing
+	}
+	
+	/**
+	 * Creates a RPC server with an executor used to process requests.
+	 * @param executor executor (e.g. with per-service thread-pools), <code>null</code> to process requests directly in pvAccess receive thread.
+	 */
+	public RPCServer(RPCExecutor executor)
+	{
+		this.executor = executor;
+		
+		channelProviderImpl = new RPCChannelProvider(executor);
 
 		serverContext = new ServerContextImpl();
 		serverContext.setBeaconServerStatusProvider(new DefaultBeaconServerDataProvider(serverContext));
@@ -90,17 +96,26 @@ public class RPCServer {
 	 */
 	public void destroy() throws PVAException
 	{
-		if (threadPoll == null)
+		if (executor == null)
 			serverContext.destroy();
 		else
 		{
 			// notify to shutdown and do not accept any new requests
-			threadPoll.shutdown();
+			executor.shutdown();
 			serverContext.destroy();
-			threadPoll.shutdownNow();
+			executor.shutdownNow();
 		}
 	}
 	
+	/**
+	 * Get the executor used to process requests.
+	 * @return executor, <code>null</code> if requests are processed directly in pvAccess receive thread.
+	 */
+	public RPCExecutor getExecutor()
+	{
+		return executor;
+	}
+	
 	/**
 	 * Register RPC service.
 	 * Multiple services (with different name) can be registered.
@@ -125,6 +140,18 @@ public class RPCServer {
 		channelProviderImpl.registerService(serviceName, service);
 	}
 
+	/**
+	 * Register a service that returns executor metrics (queue depth, latency, rejected requests) as <code>NTTable</code>.
+	 * @param serviceName RPC service name.
+	 * @see RPCExecutor#getMetrics()
+	 */
+	public void registerMetricsService(String serviceName)
+	{
+		if (executor == null)
+			throw new IllegalStateException("requests are processed directly, no executor metrics available");
+		channelProviderImpl.registerService(serviceName, executor.createMetricsService());
+	}
+
 	/**
 	 * Unregister RPC service.
 	 * @param serviceName name of the RPC service to be unregistered.
@@ -24,6 +24,8 @@ import org.epics.pvaccess.client.ChannelRPC;
 import org.epics.pvaccess.client.ChannelRPCRequester;
 import org.epics.pvaccess.client.ChannelRequester;
 import org.epics.pvaccess.client.GetFieldRequester;
+import org.epics.pvaccess.server.RequestAdmission;
+import org.epics.pvaccess.server.rpc.RPCExecutor;
 import org.epics.pvaccess.server.rpc.RPCRequestException;
 import org.epics.pvaccess.server.rpc.RPCResponseCallback;
 import org.epics.pvaccess.server.rpc.RPCService;
@@ -52,6 +54,8 @@ public class RPCChannel implements Channel {
 	private static final Status destroyedStatus = 
 		statusCreate.createStatus(StatusType.ERROR, "channel destroyed", null);
 	private static final Status okStatus = statusCreate.getStatusOK();
+	private static final Status busyStatus = 
+		statusCreate.createStatus(StatusType.ERROR, "service busy, request rejected", null);
 	
 	private final AtomicBoolean destroyed = new AtomicBoolean(false);
 	private final ArrayList<ChannelRPC> channelRPCRequests = new ArrayList<ChannelRPC>();
@@ -60,19 +64,46 @@ public class RPCChannel implements Channel {
 	private final String channelName;
 	private final ChannelRequester channelRequester;
 	
+	private final String serviceName;
 	private final Service service;
-	private final ThreadPoolExecutor threadPool;
+	private final RPCExecutor executor;
 	
 	
+	/**
+	 * Create a RPC channel.
+	 * @param provider channel provider.
+	 * @param channelName channel name.
+	 * @param channelRequester channel requester.
+	 * @param serviceName name of the service as registered (i.e. pattern for wildcard services), used to select executor lane.
+	 * @param service service implementation.
+	 * @param executor executor of <code>RPCService</code> requests, <code>null</code> to process them in the calling thread.
+	 */
 	public RPCChannel(ChannelProvider provider, String channelName,
-			ChannelRequester channelRequester, Service service,
-			ThreadPoolExecutor threadPool)
+			ChannelRequester channelRequester, String serviceName, Service service,
+			RPCExecutor executor)
 	{
 		this.provider = provider;
 		this.channelName = channelName;
 		this.channelRequester = channelRequester;
+		this.serviceName = serviceName;
 		this.service = service;
-		this.threadPool = threadPool;
+		this.executor = executor;
+	}
+
+	/**
+	 * Create a RPC channel that processes <code>RPCService</code> requests using given thread-pool.
+	 * @param provider channel provider.
+	 * @param channelName channel name.
+	 * @param channelRequester channel requester.
+	 * @param service service implementation.
+	 * @param threadPool thread-pool, <code>null</code> to process requests in the calling thread.
+	 */
+	public RPCChannel(ChannelProvider provider, String channelName,
+			ChannelRequester channelRequester, Service service,
+			ThreadPoolExecutor threadPool)
+	{
+		this(provider, channelName, channelRequester, channelName, service,
+			(threadPool != null) ? new RPCExecutor(threadPool) : null);
 	}
 
 	@Override
@@ -123,7 +154,7 @@ public class RPCChannel implements Channel {
 	}
 
 	
-	private class ChannelRPCImpl implements ChannelRPC, RPCResponseCallback
+	private class ChannelRPCImpl implements ChannelRPC, RPCResponseCallback, RequestAdmission
 	{
 		private final ChannelRPCRequester channelRPCRequester;
 		private final Channel channel;
@@ -232,16 +263,24 @@ public class RPCChannel implements Channel {
 			{
 				final RPCService rpcService = (RPCService)service;
 				
-				if (threadPool == null)
+				if (executor == null)
 					processRequest(rpcService, pvArgument);
 				else
 				{
-					threadPool.execute(new Runnable() {
+					boolean accepted = executor.execute(serviceName, new Runnable() {
 						@Override
 						public void run() {
 							processRequest(rpcService, pvArgument);
 						}
 					});
+					
+					if (!accepted)
+					{
+						channelRPCRequester.requestDone(busyStatus, this, null);
+						
+						if (lastRequest)
+							destroy();
+					}
 				}
 			}
 			else if (service instanceof RPCServiceAsync)
@@ -253,6 +292,15 @@ public class RPCChannel implements Channel {
 				throw new RuntimeException("unsupported Service type");
 		}
 
+		@Override
+		public Status checkAdmission() {
+			// only RPCService requests are executed by the executor
+			if (executor != null && service instanceof RPCService && !executor.admit(serviceName))
+				return busyStatus;
+			else
+				return okStatus;
+		}
+
 		@Override
 		public void destroy() {
 			// remove from the list
@@ -6,6 +6,7 @@ package org.epics.pvaccess.server.rpc.impl;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.epics.pvaccess.client.Channel;
@@ -14,6 +15,9 @@ import org.epics.pvaccess.client.ChannelFindRequester;
 import org.epics.pvaccess.client.ChannelListRequester;
 import org.epics.pvaccess.client.ChannelProvider;
 import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.ChannelNameIndex;
+import org.epics.pvaccess.server.ChannelNamePublisher;
+import org.epics.pvaccess.server.rpc.RPCExecutor;
 import org.epics.pvaccess.server.rpc.Service;
 import org.epics.pvaccess.util.WildcharMatcher;
 import org.epics.pvdata.factory.StatusFactory;
@@ -25,7 +29,7 @@ import org.epics.pvdata.pv.StatusCreate;
  * @author msekoranja
  *
  */
-public class RPCChannelProvider implements ChannelProvider {
+public class RPCChannelProvider implements ChannelProvider, ChannelNamePublisher {
 
 	public static final String PROVIDER_NAME = "rpcService";
 
@@ -36,10 +40,33 @@ public class RPCChannelProvider implements ChannelProvider {
 	
 	private final HashMap<String, Service> services = new HashMap<String, Service>();
 	private final LinkedHashMap<String, Service> wildServices = new LinkedHashMap<String, Service>();
-	private final ThreadPoolExecutor threadPool;
+	private final RPCExecutor executor;
+	private final CopyOnWriteArrayList<ChannelNameIndex> indexes = new CopyOnWriteArrayList<ChannelNameIndex>();
 	
+	/**
+	 * Create a provider that processes requests in the calling (pvAccess receive) thread.
+	 */
+	public RPCChannelProvider() {
+		this.executor = null;
+	}
+
+	/**
+	 * Create a provider that processes requests using given thread-pool.
+	 * @param threadPool thread-pool, <code>null</code> to process requests in the calling thread.
+	 * @deprecated use {@link #RPCChannelProvider(RPCExecutor)}; use {@link #RPCChannelProvider()}
+	 * instead of passing <code>null</code>, which is ambiguous.
+	 */
+	@Deprecated
 	public RPCChannelProvider(ThreadPoolExecutor threadPool) {
-		this.threadPool = threadPool;
+		this((threadPool != null) ? new RPCExecutor(threadPool) : null);
+	}
+
+	/**
+	 * Create a provider that processes requests using given executor.
+	 * @param executor executor, <code>null</code> to process requests in the calling thread.
+	 */
+	public RPCChannelProvider(RPCExecutor executor) {
+		this.executor = executor;
 	}
 
 	/* (non-Javadoc)
@@ -64,13 +91,13 @@ public class RPCChannelProvider implements ChannelProvider {
 			}
 		};
 	
-	// assumes synchronization on services
-	private Service findWildService(String wildcard)
+	// assumes synchronization on services, returns pattern of the matching service
+	private String findWildService(String wildcard)
 	{
 		if (!wildServices.isEmpty())
 			for (Map.Entry<String, Service> entry : wildServices.entrySet())
 				if (WildcharMatcher.match(entry.getKey(), wildcard))
-					return entry.getValue();
+					return entry.getKey();
 		
 		return null;
 	}
@@ -113,11 +140,16 @@ public class RPCChannelProvider implements ChannelProvider {
 			ChannelRequester channelRequester, short priority)
 	{
 		
+		String serviceName = channelName;
 		Service service;
 		synchronized (services) {
 			service = services.get(channelName);
 			if (service == null)
-				service = findWildService(channelName);
+			{
+				serviceName = findWildService(channelName);
+				if (serviceName != null)
+					service = wildServices.get(serviceName);
+			}
 		}
 		
 		if (service == null)
@@ -130,8 +162,9 @@ public class RPCChannelProvider implements ChannelProvider {
 				this,
 				channelName,
 				channelRequester,
+				serviceName,
 				service,
-				threadPool);
+				executor);
 		channelRequester.channelCreated(okStatus, rpcChannel);
 		return rpcChannel;
 	}
@@ -149,10 +182,15 @@ public class RPCChannelProvider implements ChannelProvider {
 	public void registerService(String serviceName, Service service)
 	{
 		synchronized (services) {
-			services.put(serviceName, service);
+			final boolean replaced = (services.put(serviceName, service) != null);
 			
-			if (isWildcardPattern(serviceName))
+			final boolean wildcard = isWildcardPattern(serviceName);
+			if (wildcard)
 				wildServices.put(serviceName, service);
+			
+			if (!replaced)
+				for (ChannelNameIndex index : indexes)
+					addName(index, serviceName, wildcard);
 		}
 		
 	}
@@ -160,8 +198,52 @@ public class RPCChannelProvider implements ChannelProvider {
 	public void unregisterService(String serviceName)
 	{
 		synchronized (services) {
-			services.remove(serviceName);
-			wildServices.remove(serviceName);
+			if (services.remove(serviceName) == null)
+				return;
+			final boolean wildcard = (wildServices.remove(serviceName) != null);
+			
+			for (ChannelNameIndex index : indexes)
+				removeName(index, serviceName, wildcard);
+		}
+	}
+
+	private static void addName(ChannelNameIndex index, String serviceName, boolean wildcard)
+	{
+		if (wildcard)
+			index.addPattern(serviceName);
+		else
+			index.add(serviceName);
+	}
+
+	private static void removeName(ChannelNameIndex index, String serviceName, boolean wildcard)
+	{
+		if (wildcard)
+			index.removePattern(serviceName);
+		else
+			index.remove(serviceName);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.ChannelNamePublisher#publishChannelNames(org.epics.pvaccess.server.ChannelNameIndex)
+	 */
+	@Override
+	public void publishChannelNames(ChannelNameIndex index) {
+		synchronized (services) {
+			if (indexes.addIfAbsent(index))
+				for (String serviceName : services.keySet())
+					addName(index, serviceName, wildServices.containsKey(serviceName));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.epics.pvaccess.server.ChannelNamePublisher#unpublishChannelNames(org.epics.pvaccess.server.ChannelNameIndex)
+	 */
+	@Override
+	public void unpublishChannelNames(ChannelNameIndex index) {
+		synchronized (services) {
+			if (indexes.remove(index))
+				for (String serviceName : services.keySet())
+					removeName(index, serviceName, wildServices.containsKey(serviceName));
 		}
 	}
 
@@ -173,6 +255,9 @@ public class RPCChannelProvider implements ChannelProvider {
 		// TODO destroy all channels
 
 		synchronized (services) {
+			for (ChannelNameIndex index : indexes)
+				for (String serviceName : services.keySet())
+					removeName(index, serviceName, wildServices.containsKey(serviceName));
 			services.clear();
 			wildServices.clear();
 		}
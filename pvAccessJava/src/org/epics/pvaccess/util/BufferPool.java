@@ -0,0 +1,133 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epics.pvaccess.PVAConstants;
+
+/**
+ * Transport (codec) buffer allocator.
+ * In direct mode (see {@link PVAConstants#PVACCESS_DIRECT_BUFFERS} JVM property) off-heap buffers are allocated
+ * (no copying through a temporary direct buffer on every socket read/write) and released buffers are pooled by capacity,
+ * so that reconnects do not churn native memory. In heap mode buffers are simply allocated on the heap and
+ * {@link #release(ByteBuffer)} is a noop.
+ * <p>
+ * NOTE: direct buffers do not have an accessible backing array, code must check {@link ByteBuffer#hasArray()}.
+ */
+public class BufferPool {
+
+	/**
+	 * Default max number of pooled buffers per capacity.
+	 */
+	public static final int DEFAULT_MAX_POOLED_PER_CAPACITY = 32;
+
+	private static final BufferPool DEFAULT_POOL =
+			new BufferPool(Boolean.getBoolean(PVAConstants.PVACCESS_DIRECT_BUFFERS), DEFAULT_MAX_POOLED_PER_CAPACITY);
+
+	/**
+	 * Get default (shared) pool instance, configured via JVM properties.
+	 * @return default pool instance.
+	 */
+	public static BufferPool getDefault() {
+		return DEFAULT_POOL;
+	}
+
+	private static final class Pool {
+		final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+		final AtomicInteger size = new AtomicInteger(0);
+	}
+
+	private final boolean direct;
+	private final int maxPooledPerCapacity;
+	private final ConcurrentMap<Integer, Pool> pools = new ConcurrentHashMap<Integer, Pool>();
+
+	/**
+	 * Constructor.
+	 * @param direct allocate direct buffers.
+	 * @param maxPooledPerCapacity max number of pooled (released) buffers per capacity.
+	 */
+	public BufferPool(boolean direct, int maxPooledPerCapacity) {
+		this.direct = direct;
+		this.maxPooledPerCapacity = maxPooledPerCapacity;
+	}
+
+	/**
+	 * Check if direct buffers are allocated.
+	 * @return <code>true</code> in direct mode.
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+
+	/**
+	 * Allocate a (cleared, big endian) buffer.
+	 * @param capacity buffer capacity.
+	 * @return buffer.
+	 */
+	public ByteBuffer allocate(int capacity) {
+		if (!direct)
+			return ByteBuffer.allocate(capacity);
+
+		Pool pool = pools.get(capacity);
+		if (pool != null)
+		{
+			ByteBuffer buffer = pool.buffers.poll();
+			if (buffer != null)
+			{
+				pool.size.decrementAndGet();
+				return buffer;
+			}
+		}
+		return ByteBuffer.allocateDirect(capacity);
+	}
+
+	/**
+	 * Return a buffer to the pool, buffer must not be used after this call.
+	 * Only direct buffers are pooled.
+	 * @param buffer buffer to release, can be <code>null</code>.
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer == null || !direct || !buffer.isDirect() || buffer.isReadOnly())
+			return;
+
+		final int capacity = buffer.capacity();
+		Pool pool = pools.get(capacity);
+		if (pool == null)
+		{
+			Pool newPool = new Pool();
+			pool = pools.putIfAbsent(capacity, newPool);
+			if (pool == null)
+				pool = newPool;
+		}
+
+		if (pool.size.incrementAndGet() > maxPooledPerCapacity)
+		{
+			// let GC free it
+			pool.size.decrementAndGet();
+			return;
+		}
+
+		buffer.clear();
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		pool.buffers.add(buffer);
+	}
+
+	/**
+	 * Get number of pooled (released) buffers of given capacity.
+	 * @param capacity buffer capacity.
+	 * @return number of pooled buffers.
+	 */
+	public int getPooledCount(int capacity) {
+		Pool pool = pools.get(capacity);
+		return (pool != null) ? pool.size.get() : 0;
+	}
+}
@@ -14,6 +14,8 @@
 
 package org.epics.pvaccess.util;
 
+import java.nio.ByteBuffer;
+
 /**
  * Utility for dumping binary data.
  * @author <a href="mailto:matej.sekoranjaATcosylab.com">Matej Sekoranja</a>
@@ -58,6 +60,50 @@ public class HexDump {
 		hexDump( null, name, bs, start, len );
 	}
 
+	/**
+	 * Output a buffer in hex format, works also for buffers without accessible backing array (e.g. direct buffers).
+	 * @param name	name (description) of the message.
+	 * @param buffer	buffer to dump
+	 * @param start dump message using given (absolute) buffer position. 
+	 * @param len	first bytes (length) to dump. 
+	 */
+	public static void hexDump(String name,
+								ByteBuffer buffer,
+								int start, 
+								int len)
+	{
+		hexDump( null, name, buffer, start, len );
+	}
+
+	/**
+	 * Output a buffer in hex format, works also for buffers without accessible backing array (e.g. direct buffers).
+	 * @param prologue string to prefixed to debug output, can be <code>null</code> 
+	 * @param name	name (description) of the message.
+	 * @param buffer	buffer to dump
+	 * @param start dump message using given (absolute) buffer position. 
+	 * @param len	first bytes (length) to dump. 
+	 */
+	public static void hexDump(String prologue,
+								String name,
+								ByteBuffer buffer,
+								int start, 
+								int len)
+	{
+		len = Math.max(0, Math.min(len, buffer.capacity() - start));
+		if (buffer.hasArray())
+		{
+			hexDump( prologue, name, buffer.array(), buffer.arrayOffset() + start, len );
+		}
+		else
+		{
+			// fallback, copy
+			byte[] bs = new byte[len];
+			for (int i = 0; i < len; i++)
+				bs[i] = buffer.get(start + i);
+			hexDump( prologue, name, bs, 0, len );
+		}
+	}
+
 	/**
 	 * Output a buffer in hex format.
 	 * @param prologue string to prefixed to debug output, can be <code>null</code> 
@@ -0,0 +1,283 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe open-addressing (linear probing) <code>int</code> to object map, used for ID (CID, SID, IOID) registries.
+ * Lookups are lock-free and do not box the key, modifications are serialized on the map instance monitor,
+ * i.e. callers can synchronize on the map to make compound operations (e.g. ID generation) atomic.
+ * <code>null</code> values are allowed (e.g. to reserve an ID), <code>get</code> does not distinguish them from absent keys.
+ * @param <V> value type.
+ */
+public class IntHashMap<V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	/**
+	 * Immutable key-value pair, slot content.
+	 */
+	private static final class Entry<V> {
+		final int key;
+		final V value;
+
+		Entry(int key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Marker of a removed entry (keeps probe sequences intact).
+	 */
+	private static final Entry<Object> REMOVED = new Entry<Object>(0, null);
+
+	private volatile AtomicReferenceArray<Entry<V>> table;
+
+	// guarded by this
+	private int size = 0;
+	private int used = 0;		// entries + removed markers
+
+	/**
+	 * Constructor.
+	 */
+	public IntHashMap()
+	{
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 * @param initialCapacity initial (expected) number of entries.
+	 */
+	public IntHashMap(int initialCapacity)
+	{
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("initialCapacity < 0");
+		table = new AtomicReferenceArray<Entry<V>>(tableSizeFor(initialCapacity));
+	}
+
+	/**
+	 * Table size for given number of entries, power of two with at most 50% load.
+	 */
+	private static int tableSizeFor(int entries)
+	{
+		int n = DEFAULT_INITIAL_CAPACITY;
+		while (n < 2 * entries && n < (1 << 30))
+			n <<= 1;
+		return n;
+	}
+
+	private static int hash(int key)
+	{
+		// spread sequential IDs (murmur3 finalizer)
+		int h = key * 0x85ebca6b;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Find entry with given key.
+	 * Lock-free, the returned entry is the one whose key was checked,
+	 * i.e. a concurrent modification of the slot cannot return a value of another key.
+	 * @return entry, <code>null</code> if not found.
+	 */
+	private static <V> Entry<V> find(AtomicReferenceArray<Entry<V>> tab, int key)
+	{
+		final int mask = tab.length() - 1;
+		int i = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++)
+		{
+			final Entry<V> e = tab.get(i);
+			if (e == null)
+				return null;
+			if (e != REMOVED && e.key == key)
+				return e;
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Find slot holding entry with given key.
+	 * Must be called with the map monitor held (slots are not modified concurrently).
+	 * @return slot index, -1 if not found.
+	 */
+	private static <V> int findSlot(AtomicReferenceArray<Entry<V>> tab, int key)
+	{
+		final int mask = tab.length() - 1;
+		int i = hash(key) & mask;
+		for (int probes = 0; probes <= mask; probes++)
+		{
+			final Entry<V> e = tab.get(i);
+			if (e == null)
+				return -1;
+			if (e != REMOVED && e.key == key)
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Get value.
+	 * @param key key.
+	 * @return value, <code>null</code> if not found.
+	 */
+	public V get(int key)
+	{
+		final Entry<V> e = find(table, key);
+		return (e == null) ? null : e.value;
+	}
+
+	/**
+	 * Check if key is in the map.
+	 * @param key key.
+	 * @return <code>true</code> if key is in the map.
+	 */
+	public boolean containsKey(int key)
+	{
+		return find(table, key) != null;
+	}
+
+	/**
+	 * Put value.
+	 * @param key key.
+	 * @param value value, can be <code>null</code>.
+	 * @return previous value, <code>null</code> if none.
+	 */
+	public synchronized V put(int key, V value)
+	{
+		AtomicReferenceArray<Entry<V>> tab = table;
+		final int existing = findSlot(tab, key);
+		if (existing >= 0)
+			return tab.getAndSet(existing, new Entry<V>(key, value)).value;
+
+		if (2 * (used + 1) > tab.length())
+			tab = rehash(size + 1);
+
+		final int mask = tab.length() - 1;
+		int i = hash(key) & mask;
+		while (true)
+		{
+			final Entry<V> e = tab.get(i);
+			if (e == null || e == REMOVED)
+			{
+				if (e == null)
+					used++;
+				tab.set(i, new Entry<V>(key, value));
+				size++;
+				return null;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	/**
+	 * Remove value.
+	 * @param key key.
+	 * @return removed value, <code>null</code> if none.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V remove(int key)
+	{
+		final AtomicReferenceArray<Entry<V>> tab = table;
+		final int i = findSlot(tab, key);
+		if (i < 0)
+			return null;
+		size--;
+		return tab.getAndSet(i, (Entry<V>)REMOVED).value;
+	}
+
+	/**
+	 * Remove all the entries.
+	 */
+	public synchronized void clear()
+	{
+		table = new AtomicReferenceArray<Entry<V>>(DEFAULT_INITIAL_CAPACITY);
+		size = 0;
+		used = 0;
+	}
+
+	/**
+	 * Get number of entries.
+	 * @return number of entries.
+	 */
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Check if the map is empty.
+	 * @return <code>true</code> if the map is empty.
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	/**
+	 * Get snapshot of (non-<code>null</code>) values.
+	 * @return list of values.
+	 */
+	public synchronized List<V> values()
+	{
+		final AtomicReferenceArray<Entry<V>> tab = table;
+		final ArrayList<V> values = new ArrayList<V>(size);
+		for (int i = 0; i < tab.length(); i++)
+		{
+			final Entry<V> e = tab.get(i);
+			if (e != null && e != REMOVED && e.value != null)
+				values.add(e.value);
+		}
+		return values;
+	}
+
+	/**
+	 * Get snapshot of keys.
+	 * @return array of keys.
+	 */
+	public synchronized int[] keys()
+	{
+		final AtomicReferenceArray<Entry<V>> tab = table;
+		final int[] keys = new int[size];
+		int n = 0;
+		for (int i = 0; i < tab.length(); i++)
+		{
+			final Entry<V> e = tab.get(i);
+			if (e != null && e != REMOVED)
+				keys[n++] = e.key;
+		}
+		return keys;
+	}
+
+	/**
+	 * Rebuild table (dropping removed markers), publish it for lock-free readers.
+	 * Must be called with the monitor held.
+	 */
+	private AtomicReferenceArray<Entry<V>> rehash(int entries)
+	{
+		final AtomicReferenceArray<Entry<V>> oldTab = table;
+		final AtomicReferenceArray<Entry<V>> newTab = new AtomicReferenceArray<Entry<V>>(tableSizeFor(entries));
+		final int mask = newTab.length() - 1;
+		for (int j = 0; j < oldTab.length(); j++)
+		{
+			final Entry<V> e = oldTab.get(j);
+			if (e == null || e == REMOVED)
+				continue;
+			int i = hash(e.key) & mask;
+			while (newTab.get(i) != null)
+				i = (i + 1) & mask;
+			newTab.set(i, e);
+		}
+		used = size;
+		table = newTab;
+		return newTab;
+	}
+}
@@ -1,8 +1,11 @@
 package org.epics.pvaccess.util;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author msekoranja
@@ -14,15 +17,21 @@ public class Mailbox<E> {
 	private final AtomicInteger elements = new AtomicInteger(0);
 	private final AtomicBoolean wakeup = new AtomicBoolean(false);
 
+	// j.u.c. lock instead of a monitor, waiting virtual threads do not pin their carrier thread
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+
 	public void put(E msg)
 	{
 		queue.add(msg);
 		if (elements.incrementAndGet() == 1)
 		{
-		    synchronized (elements)
-		    {
-		        elements.notify();
-		    }
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
 		}
 	}
 	
@@ -33,15 +42,19 @@ public class Mailbox<E> {
 			E val = queue.poll();
 			if (val == null)
 			{
-			    synchronized (elements)
-			    {
+				lock.lock();
+				try
+				{
 			    	boolean isEmpty = queue.isEmpty();
 			    	if (isEmpty && timeout < 0)
 			    		return null;
 			    	
 			        while (isEmpty)
 			        {
-			        	elements.wait(timeout);		
+			        	if (timeout > 0)
+			        		notEmpty.await(timeout, TimeUnit.MILLISECONDS);
+			        	else
+			        		notEmpty.await();
 			        	isEmpty = queue.isEmpty();
 			        	if (isEmpty)
 			        	{
@@ -54,7 +67,11 @@ public class Mailbox<E> {
 			        		}
 			        	}
 			        }
-			    }
+				}
+				finally
+				{
+					lock.unlock();
+				}
 			}
 			else
 			{
@@ -79,9 +96,11 @@ public class Mailbox<E> {
 	{
 		if (!wakeup.getAndSet(true))
 		{
-			synchronized (elements)
-			{
-				elements.notifyAll();
+			lock.lock();
+			try {
+				notEmpty.signalAll();
+			} finally {
+				lock.unlock();
 			}
 		}
 	}
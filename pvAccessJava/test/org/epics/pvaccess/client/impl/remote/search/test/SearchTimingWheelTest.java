@@ -0,0 +1,130 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.client.impl.remote.search.test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.client.impl.remote.search.SearchInstance;
+import org.epics.pvaccess.client.impl.remote.search.SearchTimingWheel;
+import org.epics.pvaccess.impl.remote.utils.GUID;
+
+/**
+ * JUnit test for SearchTimingWheel.
+ */
+public class SearchTimingWheelTest extends TestCase {
+
+	private static class TestSearchInstance implements SearchInstance {
+		private final int cid;
+		private final AtomicInteger userValue = new AtomicInteger();
+
+		public TestSearchInstance(int cid) {
+			this.cid = cid;
+		}
+
+		@Override
+		public int getChannelID() {
+			return cid;
+		}
+
+		@Override
+		public String getChannelName() {
+			return "ch" + cid;
+		}
+
+		@Override
+		public AtomicInteger getUserValue() {
+			return userValue;
+		}
+
+		@Override
+		public void searchResponse(GUID guid, byte minorRevision, InetSocketAddress serverAddress) {
+			// noop
+		}
+	}
+
+	public void testSchedule()
+	{
+		SearchTimingWheel wheel = new SearchTimingWheel(8);
+		TestSearchInstance si1 = new TestSearchInstance(1);
+		TestSearchInstance si2 = new TestSearchInstance(2);
+		TestSearchInstance si3 = new TestSearchInstance(3);
+
+		wheel.schedule(si1, 1);
+		wheel.schedule(si2, 3);
+		wheel.schedule(si3, 8);
+		assertEquals(3, wheel.size());
+		assertEquals(1, wheel.dueCount());
+
+		List<SearchInstance> due = wheel.advance();
+		assertEquals(1, due.size());
+		assertSame(si1, due.get(0));
+		assertEquals(2, wheel.size());
+
+		assertTrue(wheel.advance().isEmpty());
+		due = wheel.advance();
+		assertEquals(1, due.size());
+		assertSame(si2, due.get(0));
+
+		// full turn
+		for (int i = 0; i < 4; i++)
+			assertTrue(wheel.advance().isEmpty());
+		due = wheel.advance();
+		assertEquals(1, due.size());
+		assertSame(si3, due.get(0));
+		assertEquals(0, wheel.size());
+	}
+
+	public void testRescheduleAndCancel()
+	{
+		SearchTimingWheel wheel = new SearchTimingWheel(4);
+		TestSearchInstance si1 = new TestSearchInstance(1);
+		TestSearchInstance si2 = new TestSearchInstance(2);
+
+		wheel.schedule(si1, 1);
+		wheel.schedule(si2, 1);
+		// reschedule moves, not duplicates
+		wheel.schedule(si1, 2);
+		assertEquals(2, wheel.size());
+
+		assertTrue(wheel.cancel(2));
+		assertFalse(wheel.cancel(2));
+		assertFalse(wheel.cancel(3));
+
+		assertTrue(wheel.advance().isEmpty());
+		List<SearchInstance> due = wheel.advance();
+		assertEquals(1, due.size());
+		assertSame(si1, due.get(0));
+		assertEquals(0, wheel.size());
+	}
+
+	public void testInvalidArguments()
+	{
+		try {
+			new SearchTimingWheel(6);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException iae) {
+			// expected
+		}
+
+		SearchTimingWheel wheel = new SearchTimingWheel(4);
+		try {
+			wheel.schedule(new TestSearchInstance(1), 0);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException iae) {
+			// expected
+		}
+		try {
+			wheel.schedule(new TestSearchInstance(1), 5);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException iae) {
+			// expected
+		}
+	}
+}
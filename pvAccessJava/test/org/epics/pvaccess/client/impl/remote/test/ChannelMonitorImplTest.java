@@ -0,0 +1,249 @@
+package org.epics.pvaccess.client.impl.remote.test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.ClientFactory;
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelProviderRegistryFactory;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.client.Channel.ConnectionState;
+import org.epics.pvaccess.server.database.PVDatabase;
+import org.epics.pvaccess.server.database.PVRecord;
+import org.epics.pvaccess.server.database.RecordChannelProvider;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVInt;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for the client monitor queue (ChannelMonitorImpl), i.e. element recycling.
+ */
+public class ChannelMonitorImplTest extends TestCase {
+
+	private static final long TIMEOUT_MS = 5000;
+
+	private static final Structure recordStructure =
+		FieldFactory.getFieldCreate().createFieldBuilder().
+			add("value", ScalarType.pvInt).
+			add("a", ScalarType.pvInt).
+			add("b", ScalarType.pvInt).
+			createStructure();
+
+	private PVRecord record;
+	private ServerContextImpl serverContext;
+	private Channel channel;
+
+	private static class Requester implements ChannelRequester, MonitorRequester {
+		final CountDownLatch connected = new CountDownLatch(1);
+		final CountDownLatch monitorConnected = new CountDownLatch(1);
+		volatile Monitor monitor;
+
+		@Override
+		public String getRequesterName() {
+			return getClass().getName();
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+			System.err.println("[" + messageType + "] " + message);
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+			// noop
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, ConnectionState connectionState) {
+			if (connectionState == ConnectionState.CONNECTED)
+				connected.countDown();
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+			if (status.isSuccess())
+			{
+				this.monitor = monitor;
+				monitor.start();
+				monitorConnected.countDown();
+			}
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+			// elements are polled by the test
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+			// noop
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		record = new PVRecord("channelMonitorImplTest", PVDataFactory.getPVDataCreate().createPVStructure(recordStructure));
+		record.getPVStructure().getSubField(PVInt.class, "a").put(10);
+		record.getPVStructure().getSubField(PVInt.class, "b").put(20);
+		PVDatabase database = new PVDatabase();
+		database.addRecords(Collections.singletonList(record));
+
+		serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(new RecordChannelProvider(database));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (channel != null)
+			channel.destroy();
+		if (serverContext != null)
+			serverContext.destroy();
+	}
+
+	private Monitor createMonitor(String request) throws InterruptedException
+	{
+		ClientFactory.start();
+		ChannelProvider provider = ChannelProviderRegistryFactory.getChannelProviderRegistry()
+				.getProvider(ClientFactory.PROVIDER_NAME);
+		Requester requester = new Requester();
+		channel = provider.createChannel(record.getRecordName(), requester, ChannelProvider.PRIORITY_DEFAULT);
+		assertTrue(requester.connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		channel.createMonitor(requester, CreateRequest.create().createRequest(request));
+		assertTrue(requester.monitorConnected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		return requester.monitor;
+	}
+
+	private void put(String fieldName, int value)
+	{
+		record.lock();
+		try {
+			record.beginGroupPut();
+			record.getPVStructure().getSubField(PVInt.class, fieldName).put(value);
+			record.endGroupPut();
+		} finally {
+			record.unlock();
+		}
+	}
+
+	private static MonitorElement pollWait(Monitor monitor) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		MonitorElement element;
+		while ((element = monitor.poll()) == null)
+		{
+			if (System.currentTimeMillis() > deadline)
+				fail("no monitor update received");
+			Thread.sleep(1);
+		}
+		return element;
+	}
+
+	private static void assertValues(MonitorElement element, int value, int a, int b)
+	{
+		PVStructure pvStructure = element.getPVStructure();
+		assertEquals(value, pvStructure.getSubField(PVInt.class, "value").get());
+		assertEquals(a, pvStructure.getSubField(PVInt.class, "a").get());
+		assertEquals(b, pvStructure.getSubField(PVInt.class, "b").get());
+	}
+
+	public void testPollModifyRelease() throws Exception
+	{
+		Monitor monitor = createMonitor("record[queueSize=3]field()");
+
+		MonitorElement element = pollWait(monitor);
+		assertValues(element, 0, 10, 20);
+		element.getPVStructure().getSubField(PVInt.class, "a").put(-1);
+		monitor.release(element);
+
+		// wraps the queue, elements modified by the client are reused
+		for (int i = 1; i <= 10; i++)
+		{
+			put("value", i);
+			element = pollWait(monitor);
+			assertValues(element, i, 10, 20);
+
+			element.getPVStructure().getSubField(PVInt.class, "a").put(-1);
+			element.getPVStructure().getSubField(PVInt.class, "b").put(-1);
+			monitor.release(element);
+		}
+	}
+
+	public void testReadOnlyElements() throws Exception
+	{
+		Monitor monitor = createMonitor("record[queueSize=3,readOnlyElements=true]field()");
+
+		MonitorElement element = pollWait(monitor);
+		assertValues(element, 0, 10, 20);
+		monitor.release(element);
+
+		// only changed fields are copied, the values must be the same
+		int a = 10, b = 20;
+		for (int i = 1; i <= 10; i++)
+		{
+			if (i % 2 == 0)
+				put("a", a = i);
+			else
+				put("b", b = i);
+			element = pollWait(monitor);
+			assertValues(element, 0, a, b);
+			assertEquals(1, element.getChangedBitSet().cardinality());
+			monitor.release(element);
+		}
+	}
+
+	public void testOverrun() throws Exception
+	{
+		Monitor monitor = createMonitor("record[queueSize=2]field()");
+
+		MonitorElement element = pollWait(monitor);
+		assertValues(element, 0, 10, 20);
+		monitor.release(element);
+
+		// updates are not polled, elements overrun
+		final int updates = 10;
+		for (int i = 1; i <= updates; i++)
+		{
+			put("value", i);
+			if (i == updates / 2)
+				put("a", i);
+		}
+
+		// drain, the last element holds all the changes
+		boolean overrun = false;
+		int lastValue = 0;
+		while (lastValue != updates)
+		{
+			element = pollWait(monitor);
+			int value = element.getPVStructure().getSubField(PVInt.class, "value").get();
+			assertTrue(value > lastValue);
+			lastValue = value;
+			if (!element.getOverrunBitSet().isEmpty())
+				overrun = true;
+			if (lastValue == updates)
+				assertValues(element, updates, updates / 2, 20);
+			monitor.release(element);
+		}
+		assertTrue(overrun);
+		assertNull(monitor.poll());
+	}
+}
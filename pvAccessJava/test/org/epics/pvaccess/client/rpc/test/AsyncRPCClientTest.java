@@ -0,0 +1,273 @@
+package org.epics.pvaccess.client.rpc.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.client.rpc.AsyncRPCClient;
+import org.epics.pvaccess.client.rpc.AsyncRPCClientImpl;
+import org.epics.pvaccess.client.rpc.RPCClientFactory;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvaccess.server.rpc.RPCExecutor;
+import org.epics.pvaccess.server.rpc.RPCRequestException;
+import org.epics.pvaccess.server.rpc.RPCResponseCallback;
+import org.epics.pvaccess.server.rpc.RPCService;
+import org.epics.pvaccess.server.rpc.RPCServiceAsync;
+import org.epics.pvaccess.server.rpc.impl.RPCChannelProvider;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.factory.StatusFactory;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Status.StatusType;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for the asynchronous (pipelined) RPC client.
+ */
+public class AsyncRPCClientTest extends TestCase {
+
+	private static final Structure structure =
+		FieldFactory.getFieldCreate().createFieldBuilder().
+			add("value", ScalarType.pvInt).
+			createStructure();
+
+	private static final Status okStatus = StatusFactory.getStatusCreate().getStatusOK();
+
+	private static final PVStructure pvRequest = CreateRequest.create().createRequest("");
+
+	private RPCChannelProvider provider;
+
+	private static PVStructure createArgument(int value)
+	{
+		PVStructure pvArgument = PVDataFactory.getPVDataCreate().createPVStructure(structure);
+		pvArgument.getIntField("value").put(value);
+		return pvArgument;
+	}
+
+	private static int getValue(CompletableFuture<PVStructure> future) throws Exception
+	{
+		return future.get(10, TimeUnit.SECONDS).getIntField("value").get();
+	}
+
+	/**
+	 * Returns the argument.
+	 */
+	private static class EchoService implements RPCService {
+		@Override
+		public PVStructure request(PVStructure args) throws RPCRequestException {
+			if (args.getIntField("value").get() < 0)
+				throw new RPCRequestException(StatusType.ERROR, "negative value");
+			return args;
+		}
+	}
+
+	/**
+	 * Keeps the requests until the test responds.
+	 */
+	private static class HeldService implements RPCServiceAsync {
+		final List<PVStructure> arguments = new ArrayList<PVStructure>();
+		final List<RPCResponseCallback> callbacks = new ArrayList<RPCResponseCallback>();
+		int maxPending = 0;
+
+		@Override
+		public synchronized void request(PVStructure args, RPCResponseCallback callback) {
+			arguments.add(args);
+			callbacks.add(callback);
+			maxPending = Math.max(maxPending, callbacks.size());
+		}
+
+		void respond(int index) {
+			PVStructure args;
+			RPCResponseCallback callback;
+			synchronized (this) {
+				args = arguments.remove(index);
+				callback = callbacks.remove(index);
+			}
+			callback.requestDone(okStatus, args);
+		}
+
+		synchronized int pending() {
+			return callbacks.size();
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		provider = new RPCChannelProvider();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		provider.destroy();
+	}
+
+	public void testManyRequests() throws Exception
+	{
+		provider.registerService("echo", new EchoService());
+		AsyncRPCClient client = new AsyncRPCClientImpl(provider, "echo", pvRequest, 4);
+		assertTrue(client.waitConnect(1.0));
+		assertEquals(4, client.getMaxConcurrentRequests());
+
+		final int count = 10000;
+		List<CompletableFuture<PVStructure>> futures = new ArrayList<CompletableFuture<PVStructure>>(count);
+		for (int i = 0; i < count; i++)
+			futures.add(client.request(createArgument(i), 10.0));
+		for (int i = 0; i < count; i++)
+			assertEquals(i, getValue(futures.get(i)));
+
+		// server-side error
+		try {
+			client.request(createArgument(-1)).get(10, TimeUnit.SECONDS);
+			fail("error status expected");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof RPCRequestException);
+			assertTrue(ee.getCause().getMessage().startsWith("negative value"));
+		}
+
+		client.destroy();
+	}
+
+	public void testBoundedConcurrency() throws Exception
+	{
+		HeldService service = new HeldService();
+		provider.registerService("held", service);
+		AsyncRPCClient client = new AsyncRPCClientImpl(provider, "held", pvRequest, 3);
+
+		List<CompletableFuture<PVStructure>> futures = new ArrayList<CompletableFuture<PVStructure>>();
+		for (int i = 0; i < 10; i++)
+			futures.add(client.request(createArgument(i)));
+		assertEquals(3, service.pending());
+
+		// out of order responses are matched to their request
+		service.respond(1);
+		assertEquals(1, getValue(futures.get(1)));
+		assertFalse(futures.get(0).isDone());
+		assertEquals(3, service.pending());
+
+		while (service.pending() > 0)
+			service.respond(service.pending() - 1);
+		for (int i = 0; i < 10; i++)
+			assertEquals(i, getValue(futures.get(i)));
+		assertEquals(3, service.maxPending);
+
+		// destroy fails the pending requests
+		CompletableFuture<PVStructure> pending = client.request(createArgument(0));
+		client.destroy();
+		assertTrue(pending.isCompletedExceptionally());
+		assertTrue(client.request(createArgument(0)).isCompletedExceptionally());
+	}
+
+	public void testTimeout() throws Exception
+	{
+		HeldService service = new HeldService();
+		provider.registerService("held", service);
+		AsyncRPCClient client = new AsyncRPCClientImpl(provider, "held", pvRequest, 1);
+
+		CompletableFuture<PVStructure> timedOut = client.request(createArgument(1), 0.1);
+		// waiting in the queue, the timeout includes the queue time
+		CompletableFuture<PVStructure> queued = client.request(createArgument(2), 0.05);
+		CompletableFuture<PVStructure> next = client.request(createArgument(3));
+		try {
+			queued.get(10, TimeUnit.SECONDS);
+			fail("timeout expected");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof RPCRequestException);
+			assertEquals("timeout", ee.getCause().getMessage());
+		}
+		assertFalse(timedOut.isDone());
+		try {
+			timedOut.get(10, TimeUnit.SECONDS);
+			fail("timeout expected");
+		} catch (ExecutionException ee) {
+			assertEquals("timeout", ee.getCause().getMessage());
+		}
+
+		// the busy ChannelRPC is replaced
+		long deadline = System.currentTimeMillis() + 10000;
+		while (service.pending() < 2 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(2, service.pending());
+		service.respond(1);
+		assertEquals(3, getValue(next));
+
+		// late response is ignored
+		service.respond(0);
+		assertTrue(timedOut.isCompletedExceptionally());
+
+		client.destroy();
+	}
+
+	public void testUnknownService()
+	{
+		try {
+			new AsyncRPCClientImpl(provider, "unknown", pvRequest, 1);
+			fail("unknown service accepted");
+		} catch (IllegalArgumentException iae) {
+			// ok
+		}
+	}
+
+	public void testRemote() throws Exception
+	{
+		ThreadPoolExecutor threadPool = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(1000));
+		RPCChannelProvider remoteProvider = new RPCChannelProvider(new RPCExecutor(threadPool));
+		final AtomicInteger concurrent = new AtomicInteger();
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+		remoteProvider.registerService("asyncRPCClientTest", new RPCService() {
+			@Override
+			public PVStructure request(PVStructure args) throws RPCRequestException {
+				int c = concurrent.incrementAndGet();
+				synchronized (maxConcurrent) {
+					maxConcurrent.set(Math.max(maxConcurrent.get(), c));
+				}
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					// noop
+				}
+				concurrent.decrementAndGet();
+				return args;
+			}
+		});
+
+		ServerContextImpl serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(remoteProvider);
+		AsyncRPCClient client = RPCClientFactory.createAsync("asyncRPCClientTest", pvRequest, 8);
+		try {
+			assertTrue(client.waitConnect(5.0));
+
+			final int count = 1000;
+			List<CompletableFuture<PVStructure>> futures = new ArrayList<CompletableFuture<PVStructure>>(count);
+			for (int i = 0; i < count; i++)
+				futures.add(client.request(createArgument(i), 10.0));
+			for (int i = 0; i < count; i++)
+				assertEquals(i, getValue(futures.get(i)));
+
+			// requests were served in parallel over one connection
+			assertTrue(maxConcurrent.get() > 1);
+			assertTrue(maxConcurrent.get() <= 4);
+			assertEquals(1, serverContext.getTransportRegistry().numberOfActiveTransports());
+		} finally {
+			client.destroy();
+			serverContext.destroy();
+			threadPool.shutdown();
+		}
+	}
+}
@@ -21,7 +21,12 @@ import org.epics.pvaccess.impl.remote.codec.AbstractCodec.WriteMode;
 import org.epics.pvaccess.impl.remote.codec.ConnectionClosedException;
 import org.epics.pvaccess.impl.remote.codec.test.AbstractCodecTest.TestCodec.ReadPollOneCallback;
 import org.epics.pvaccess.impl.remote.codec.test.AbstractCodecTest.TestCodec.WritePollOneCallback;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.pv.DeserializableControl;
+import org.epics.pvdata.pv.DirectDeserializableControl;
 import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.PVByteArray;
+import org.epics.pvdata.pv.ScalarType;
 
 
 
@@ -46,12 +51,16 @@ public class AbstractCodecTest extends TestCase {
 		}
 		
 	}
-	static class TestCodec extends AbstractCodec
+	static class TestCodec extends AbstractCodec implements DirectDeserializableControl
 	{
 		static interface ReadPollOneCallback {
 			public void readPollOne() throws IOException;
 		}
 		
+		static interface ProcessApplicationMessageCallback {
+			public void processApplicationMessage() throws IOException;
+		}
+		
 		static interface WritePollOneCallback {
 			public void writePollOne() throws IOException;
 		}
@@ -80,6 +89,9 @@ public class AbstractCodecTest extends TestCase {
 		
 		int forcePayloadRead = -1;
 		
+		ProcessApplicationMessageCallback processApplicationMessageCallback = null;
+		int directReadCount = 0;
+		
 		public TestCodec(int bufferSize) throws IOException {
 			this(bufferSize, bufferSize);
 		}
@@ -89,10 +101,14 @@ public class AbstractCodecTest extends TestCase {
 		}
 		
 		public TestCodec(int receiveBufferSize, int sendBufferSize, boolean blocking) throws IOException {
+			this(receiveBufferSize, sendBufferSize, sendBufferSize, blocking);
+		}
+
+		public TestCodec(int receiveBufferSize, int sendBufferSize, int writeBufferSize, boolean blocking) throws IOException {
 			super(false, ByteBuffer.allocate(receiveBufferSize), ByteBuffer.allocate(sendBufferSize),
 					sendBufferSize/10, blocking, Logger.getLogger("TestCodec"));
 			readBuffer = ByteBuffer.allocate(receiveBufferSize);
-			writeBuffer = ByteBuffer.allocate(sendBufferSize);
+			writeBuffer = ByteBuffer.allocate(writeBufferSize);
 		}
 
 		public ReadMode getReadMode()
@@ -110,6 +126,11 @@ public class AbstractCodecTest extends TestCase {
 			return sendBuffer;
 		}
 		
+		public ByteBuffer getSocketBuffer()
+		{
+			return socketBuffer;
+		}
+		
 		void reset()
 		{
 			closedCount = 0;
@@ -130,6 +151,9 @@ public class AbstractCodecTest extends TestCase {
 			if (disconnected)
 				return -1;
 			
+			if (buffer != socketBuffer)
+				directReadCount++;
+			
 			int startPos = readBuffer.position();
 			//buffer.put(readBuffer);
 			//while (buffer.hasRemaining() && readBuffer.hasRemaining())
@@ -214,7 +238,9 @@ public class AbstractCodecTest extends TestCase {
 				throw new IllegalStateException("message not aligned");
 				
 			PVAMessage caMessage = new PVAMessage(version, flags, command, payloadSize);
-			if (readPayload && payloadSize > 0)
+			if (processApplicationMessageCallback != null)
+				processApplicationMessageCallback.processApplicationMessage();
+			else if (readPayload && payloadSize > 0)
 			{
 				// no fragmentation supported by this implementation
 				int toRead = forcePayloadRead >= 0 ? forcePayloadRead : payloadSize;
@@ -289,6 +315,11 @@ public class AbstractCodecTest extends TestCase {
 		public void cachedSerialize(Field field, ByteBuffer buffer) {
 			field.serialize(buffer, this);
 		}
+
+		@Override
+		public Field cachedDeserialize(ByteBuffer buffer) {
+			return null;
+		}
 	}
 	
 	private static int DEFAULT_BUFFER_SIZE = 10240;
@@ -1749,6 +1780,276 @@ public class AbstractCodecTest extends TestCase {
 
 	}	
 
+	public void testDirectSerialize() throws Throwable
+	{
+		// odd size to test alignment
+		final int arraySize = 3*AbstractCodec.MIN_DIRECT_SERIALIZE_SIZE+3;
+		final TestCodec codec = new TestCodec(DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_SIZE, 2*arraySize, false);
+		codec.readPayload = true;
+		codec.readBuffer = ByteBuffer.allocate(2*arraySize);
+
+		final PVByteArray array = (PVByteArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvByte);
+		byte[] data = new byte[arraySize];
+		for (int i = 0; i < arraySize; i++)
+			data[i] = (byte)i;
+		array.put(0, arraySize, data, 0);
+		
+		TransportSender sender = new TransportSender() {
+			
+			@Override
+			public void unlock() {
+			}
+			
+			@Override
+			public void lock() {
+			}
+			
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				codec.startMessage((byte)0x12, 0);
+				buffer.put((byte)0x34);
+				array.serialize(buffer, control);
+				buffer.putInt(0x12345678);
+				codec.endMessage();
+			}
+		};
+
+		// process
+		codec.enqueueSendRequest(sender);
+		codec.processSendQueue();
+
+		// header, data and padding written at once
+		assertEquals(0, codec.sendBufferFullCount);
+		
+		codec.addToReadBuffer();
+
+		final int expectedPayloadSize = 1 + 5 + arraySize + 4;
+		codec.forcePayloadRead = expectedPayloadSize;
+		codec.processRead();
+		
+		assertEquals(0, codec.invalidDataStreamCount);
+		assertEquals(0, codec.closedCount);
+		assertEquals(1, codec.receivedAppMessages.size());
+		
+		PVAMessage header = codec.receivedAppMessages.get(0);
+		assertEquals(header.flags, (byte)(0x80 | 0x10));	// segmented
+		assertEquals(header.command, (byte)0x12);
+		header.payload.flip();
+		assertEquals(expectedPayloadSize, header.payload.limit());
+		assertEquals((byte)0x34, header.payload.get());
+		
+		final PVByteArray received = (PVByteArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvByte);
+		received.deserialize(header.payload, new DeserializableControl() {
+			@Override
+			public void ensureData(int size) {
+				// noop, all data available
+			}
+			@Override
+			public void alignData(int alignment) {
+				// noop
+			}
+			@Override
+			public Field cachedDeserialize(ByteBuffer buffer) {
+				return null;
+			}
+		});
+		assertEquals(array, received);
+		assertEquals(0x12345678, header.payload.getInt());
+		
+		// stream must remain aligned, i.e. next message is processed normally
+		codec.readBuffer.clear();
+		codec.receivedAppMessages.clear();
+		codec.putControlMessage((byte)0x23, 0x456);
+		codec.transferToReadBuffer();
+		codec.processRead();
+		assertEquals(0, codec.invalidDataStreamCount);
+		assertEquals(1, codec.receivedControlMessages.size());
+	}	
+
+	private void directDeserialize(final boolean directSerialize) throws Throwable
+	{
+		// odd size to test alignment
+		final int arraySize = 3*AbstractCodec.MIN_DIRECT_DESERIALIZE_SIZE+3;
+		// two messages
+		final TestCodec codec = new TestCodec(DEFAULT_BUFFER_SIZE,
+				directSerialize ? DEFAULT_BUFFER_SIZE : 2*arraySize, 3*arraySize, false);
+		codec.readBuffer = ByteBuffer.allocate(3*arraySize);
+
+		final PVByteArray array = (PVByteArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvByte);
+		byte[] data = new byte[arraySize];
+		for (int i = 0; i < arraySize; i++)
+			data[i] = (byte)(i*7);
+		array.put(0, arraySize, data, 0);
+		
+		TransportSender sender = new TransportSender() {
+			
+			@Override
+			public void unlock() {
+			}
+			
+			@Override
+			public void lock() {
+			}
+			
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				codec.startMessage((byte)0x12, 0);
+				buffer.put((byte)0x34);
+				array.serialize(buffer, control);
+				buffer.putInt(0x12345678);
+				codec.endMessage();
+			}
+		};
+
+		codec.enqueueSendRequest(sender);
+		codec.enqueueSendRequest(sender);
+		codec.processSendQueue();
+		codec.addToReadBuffer();
+
+		final PVByteArray received = (PVByteArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvByte);
+		final ArrayList<Integer> tails = new ArrayList<Integer>();
+		codec.processApplicationMessageCallback = new TestCodec.ProcessApplicationMessageCallback() {
+			@Override
+			public void processApplicationMessage() throws IOException {
+				ByteBuffer buffer = codec.getSocketBuffer();
+				codec.ensureData(1);
+				assertEquals((byte)0x34, buffer.get());
+				received.setLength(0);
+				received.deserialize(buffer, codec);
+				assertEquals(array, received);
+				codec.ensureData(4);
+				tails.add(buffer.getInt());
+			}
+		};
+		codec.processRead();
+		
+		assertEquals(0, codec.invalidDataStreamCount);
+		assertEquals(0, codec.closedCount);
+		assertEquals(2, codec.receivedAppMessages.size());
+		assertEquals(2, tails.size());
+		for (Integer tail : tails)
+			assertEquals(0x12345678, tail.intValue());
+		assertTrue(codec.directReadCount > 0);
+	}
+
+	public void testDirectDeserialize() throws Throwable
+	{
+		directDeserialize(false);
+	}
+
+	public void testDirectDeserializeSegmented() throws Throwable
+	{
+		directDeserialize(true);
+	}
+
+	private void skipPayload(final boolean segmented) throws Throwable
+	{
+		// larger than the receive buffer, i.e. split
+		final int arraySize = 3*AbstractCodec.MIN_DIRECT_DESERIALIZE_SIZE+3;
+		// segmented when directly serialized
+		final TestCodec codec = new TestCodec(DEFAULT_BUFFER_SIZE,
+				segmented ? DEFAULT_BUFFER_SIZE : 3*arraySize, 3*arraySize, false);
+		codec.readBuffer = ByteBuffer.allocate(3*arraySize);
+
+		final PVByteArray array = (PVByteArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvByte);
+		array.put(0, arraySize, new byte[arraySize], 0);
+
+		TransportSender largeSender = new TransportSender() {
+			
+			@Override
+			public void unlock() {
+			}
+			
+			@Override
+			public void lock() {
+			}
+			
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				codec.startMessage((byte)0x12, 0);
+				buffer.put((byte)0x34);
+				if (segmented)
+					array.serialize(buffer, control);
+				else
+					buffer.put(new byte[arraySize]);	// fits into the send buffer
+				buffer.putInt(0x12345678);
+				codec.endMessage();
+			}
+		};
+
+		TransportSender smallSender = new TransportSender() {
+			
+			@Override
+			public void unlock() {
+			}
+			
+			@Override
+			public void lock() {
+			}
+			
+			@Override
+			public void send(ByteBuffer buffer, TransportSendControl control) {
+				codec.startMessage((byte)0x13, 4);
+				buffer.putInt(0x12345678);
+				codec.endMessage();
+			}
+		};
+
+		codec.enqueueSendRequest(largeSender);
+		codec.enqueueSendRequest(smallSender);
+		codec.enqueueSendRequest(largeSender);
+		codec.enqueueSendRequest(smallSender);
+		codec.processSendQueue();
+		codec.addToReadBuffer();
+
+		final ArrayList<Integer> tails = new ArrayList<Integer>();
+		codec.processApplicationMessageCallback = new TestCodec.ProcessApplicationMessageCallback() {
+			@Override
+			public void processApplicationMessage() throws IOException {
+				ByteBuffer buffer = codec.getSocketBuffer();
+				if (codec.receivedAppMessages.size() % 2 == 0)
+				{
+					// large message, read only its beginning
+					codec.ensureData(1);
+					assertEquals((byte)0x34, buffer.get());
+					assertTrue(codec.canSkipPayload(buffer));
+					codec.skipPayload(buffer);
+				}
+				else
+				{
+					codec.ensureData(4);
+					tails.add(buffer.getInt());
+				}
+			}
+		};
+		codec.processRead();
+		
+		assertEquals(0, codec.invalidDataStreamCount);
+		assertEquals(0, codec.closedCount);
+		assertEquals(4, codec.receivedAppMessages.size());
+		for (int i = 0; i < 4; i++)
+		{
+			PVAMessage header = codec.receivedAppMessages.get(i);
+			assertEquals((i % 2 == 0) ? (byte)0x12 : (byte)0x13, header.command);
+			if (i % 2 == 0)
+				assertEquals(segmented, (header.flags & 0x10) != 0);
+		}
+		// messages following the skipped ones are intact
+		assertEquals(2, tails.size());
+		for (Integer tail : tails)
+			assertEquals(0x12345678, tail.intValue());
+	}
+
+	public void testSkipSplitPayload() throws Throwable
+	{
+		skipPayload(false);
+	}
+
+	public void testSkipSegmentedPayload() throws Throwable
+	{
+		skipPayload(true);
+	}
+
 	public void testRecipient() throws Throwable
 	{
 		final TestCodec codec = new TestCodec(DEFAULT_BUFFER_SIZE);
@@ -19,6 +19,7 @@ import org.epics.pvdata.pv.PVField;
 import org.epics.pvdata.pv.PVStructure;
 import org.epics.pvdata.pv.ScalarType;
 import org.epics.pvdata.pv.SerializableControl;
+import org.epics.pvdata.pv.Structure;
 
 import static org.junit.Assert.*;
 
@@ -127,4 +128,97 @@ public class IRSerializationTest extends TestCase {
 		
 	}
 	
+	private static Structure createStructure(String name)
+	{
+		return FieldFactory.getFieldCreate().createFieldBuilder().
+				setId(name).
+				add("value", ScalarType.pvDouble).
+				createStructure();
+	}
+	
+	public void testRegisterExistingIntrospectionInterface() {
+		
+		IntrospectionRegistry introspectionRegistry =
+				new IntrospectionRegistry();
+		BooleanHolder existing = new BooleanHolder();
+
+		// equal (not the same) instances must be deduplicated,
+		// not only the last registered one
+		final int count = 10;
+		for (int i = 0; i < count; i++)
+		{
+			short key = introspectionRegistry.registerIntrospectionInterface(createStructure("s" + i), existing);
+			assertFalse(existing.value);
+			assertEquals(i + 1, key);
+		}
+		
+		for (int i = 0; i < count; i++)
+		{
+			short key = introspectionRegistry.registerIntrospectionInterface(createStructure("s" + i), existing);
+			assertTrue(existing.value);
+			assertEquals(i + 1, key);
+		}
+		assertEquals(count, introspectionRegistry.getOutgoingSize());
+		
+		introspectionRegistry.reset();
+		assertEquals(0, introspectionRegistry.getOutgoingSize());
+		assertEquals(1, introspectionRegistry.registerIntrospectionInterface(createStructure("s5"), existing));
+		assertFalse(existing.value);
+	}
+	
+	public void testRegisterIntrospectionInterfaceLRU() {
+		
+		IntrospectionRegistry introspectionRegistry =
+				new IntrospectionRegistry(2);
+		BooleanHolder existing = new BooleanHolder();
+
+		assertEquals(1, introspectionRegistry.registerIntrospectionInterface(createStructure("a"), existing));
+		assertEquals(2, introspectionRegistry.registerIntrospectionInterface(createStructure("b"), existing));
+		
+		// "a" is now the most recently used
+		assertEquals(1, introspectionRegistry.registerIntrospectionInterface(createStructure("a"), existing));
+		assertTrue(existing.value);
+		
+		// "b" is evicted, its ID reused
+		assertEquals(2, introspectionRegistry.registerIntrospectionInterface(createStructure("c"), existing));
+		assertFalse(existing.value);
+		assertEquals(2, introspectionRegistry.getOutgoingSize());
+
+		introspectionRegistry.registerIntrospectionInterface(createStructure("b"), existing);
+		assertFalse(existing.value);
+		
+		try {
+			new IntrospectionRegistry(0);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException iae) {
+			// expected
+		}
+	}
+	
+	public void testSerializeCached() {
+		
+		IRControl control = new IRControl();
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		
+		Structure s1 = createStructure("s1");
+		Structure s2 = createStructure("s2");
+		control.cachedSerialize(s1, buffer);
+		control.cachedSerialize(s2, buffer);
+		final int fullSize = buffer.position();
+		
+		// only IDs
+		control.cachedSerialize(createStructure("s1"), buffer);
+		assertEquals(fullSize + 3, buffer.position());
+		control.cachedSerialize(createStructure("s2"), buffer);
+		assertEquals(fullSize + 6, buffer.position());
+		
+		buffer.flip();
+		for (int i = 0; i < 2; i++)
+		{
+			assertEquals(s1, control.cachedDeserialize(buffer));
+			assertEquals(s2, control.cachedDeserialize(buffer));
+		}
+		assertFalse(buffer.hasRemaining());
+	}
+	
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright - See the COPYRIGHT that is included with this distribution.
+ * EPICS pvData is distributed subject to a Software License Agreement found
+ * in file LICENSE that is included with this distribution.
+ */
+package org.epics.pvaccess.impl.remote.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.PVFactory;
+import org.epics.pvaccess.impl.remote.SharedMonitorElement;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.pv.DeserializableControl;
+import org.epics.pvdata.pv.Field;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVDoubleArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for SharedMonitorElement (serialize-once monitor fan-out).
+ */
+public class SharedMonitorElementTest extends TestCase {
+
+	private static final FieldCreate fieldCreate = PVFactory.getFieldCreate();
+	private static final PVDataCreate pvDataCreate = PVFactory.getPVDataCreate();
+
+	private static class Control implements DeserializableControl {
+
+		@Override
+		public void ensureData(int size) {
+			// noop, all data available
+		}
+
+		@Override
+		public void alignData(int alignment) {
+			// noop
+		}
+
+		@Override
+		public Field cachedDeserialize(ByteBuffer buffer) {
+			return fieldCreate.deserialize(buffer, this);
+		}
+	}
+
+	private static PVStructure createStructure()
+	{
+		Structure structure = fieldCreate.createFieldBuilder().
+				add("value", ScalarType.pvDouble).
+				addArray("waveform", ScalarType.pvDouble).
+				add("any", fieldCreate.createVariantUnion()).
+				createStructure();
+		return pvDataCreate.createPVStructure(structure);
+	}
+
+	private static PVStructure createData()
+	{
+		PVStructure pvStructure = createStructure();
+		pvStructure.getDoubleField("value").put(12.3);
+
+		// large enough to span more than one work buffer
+		double[] data = new double[10000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = i;
+		PVDoubleArray waveform = pvStructure.getSubField(PVDoubleArray.class, "waveform");
+		waveform.put(0, data.length, data, 0);
+
+		pvStructure.getUnionField("any").set(pvDataCreate.createPVScalar(ScalarType.pvString));
+		return pvStructure;
+	}
+
+	private static void assertDecoded(ByteBuffer segment, SharedMonitorElement element)
+	{
+		Control control = new Control();
+		PVStructure received = createStructure();
+		BitSet receivedChangedBitSet = new BitSet();
+		receivedChangedBitSet.deserialize(segment, control);
+		received.deserialize(segment, control, receivedChangedBitSet);
+		// overrun bit-set is not a part of the shared encoding
+		assertFalse(segment.hasRemaining());
+
+		assertEquals(element.getChangedBitSet(), receivedChangedBitSet);
+		assertEquals(element.getPVStructure(), received);
+		assertNotNull(received.getUnionField("any").get());
+	}
+
+	public void testEncodeOnce()
+	{
+		// two subscribers, each with its own element holding the same update
+		SharedMonitorElement element1 = new SharedMonitorElement(createData());
+		SharedMonitorElement element2 = new SharedMonitorElement(createData());
+		element1.getChangedBitSet().set(0);
+		element2.getChangedBitSet().set(0);
+		element2.getOverrunBitSet().set(element2.getPVStructure().getSubField("value").getFieldOffset());
+
+		SharedMonitorElement.Encoding encoding = new SharedMonitorElement.Encoding(element1.getChangedBitSet());
+		assertTrue(encoding.matches(element2.getChangedBitSet()));
+		element1.share(encoding);
+		element2.share(encoding);
+		assertSame(encoding, element1.getEncoding());
+		assertSame(encoding, element2.getEncoding());
+		assertEquals(0, encoding.getEncodeCount());
+
+		ByteBuffer segment1 = element1.getEncoded(ByteOrder.BIG_ENDIAN);
+		assertTrue(segment1.isReadOnly());
+		assertTrue(segment1.remaining() > 10000 * 8);
+		ByteBuffer segment2 = element2.getEncoded(ByteOrder.BIG_ENDIAN);
+		assertEquals(1, encoding.getEncodeCount());
+
+		// views are independent
+		assertNotSame(segment1, segment2);
+		assertDecoded(segment1, element1);
+		assertDecoded(segment2, element2);
+		assertEquals(1, encoding.getEncodeCount());
+
+		// overrun stays per subscriber
+		assertTrue(element1.getOverrunBitSet().isEmpty());
+		assertFalse(element2.getOverrunBitSet().isEmpty());
+	}
+
+	public void testByteOrders()
+	{
+		SharedMonitorElement element = new SharedMonitorElement(createData());
+		element.getChangedBitSet().set(0);
+		SharedMonitorElement.Encoding encoding = new SharedMonitorElement.Encoding(element.getChangedBitSet());
+		element.share(encoding);
+
+		// clients with different byte orders do not re-encode the update
+		for (int i = 0; i < 3; i++)
+		{
+			ByteBuffer big = element.getEncoded(ByteOrder.BIG_ENDIAN);
+			assertEquals(ByteOrder.BIG_ENDIAN, big.order());
+			assertDecoded(big, element);
+			ByteBuffer little = element.getEncoded(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(ByteOrder.LITTLE_ENDIAN, little.order());
+			assertDecoded(little, element);
+		}
+		assertEquals(2, encoding.getEncodeCount());
+	}
+
+	public void testNotShared()
+	{
+		PVStructure pvStructure = createStructure();
+		SharedMonitorElement element = new SharedMonitorElement(pvStructure);
+		element.getChangedBitSet().set(0);
+		assertNull(element.getEncoding());
+		try {
+			element.getEncoded(ByteOrder.BIG_ENDIAN);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ise) {
+			// expected
+		}
+
+		SharedMonitorElement.Encoding encoding = new SharedMonitorElement.Encoding(element.getChangedBitSet());
+		BitSet other = new BitSet(pvStructure.getNumberFields());
+		other.set(pvStructure.getSubField("value").getFieldOffset());
+		assertFalse(encoding.matches(other));
+
+		element.share(encoding);
+		element.share(null);
+		assertNull(element.getEncoding());
+	}
+}
@@ -0,0 +1,800 @@
+package org.epics.pvaccess.server.database.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.Channel.ConnectionState;
+import org.epics.pvaccess.client.ChannelArray;
+import org.epics.pvaccess.client.ChannelArrayRequester;
+import org.epics.pvaccess.client.ChannelGet;
+import org.epics.pvaccess.client.ChannelGetRequester;
+import org.epics.pvaccess.client.ChannelProcess;
+import org.epics.pvaccess.client.ChannelProcessRequester;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelPut;
+import org.epics.pvaccess.client.ChannelPutRequester;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.ClientFactory;
+import org.epics.pvaccess.client.ChannelProviderRegistryFactory;
+import org.epics.pvaccess.impl.remote.PipelineMonitor;
+import org.epics.pvaccess.impl.remote.SharedMonitorElement;
+import org.epics.pvaccess.server.ChannelNameIndex;
+import org.epics.pvaccess.server.database.PVDatabase;
+import org.epics.pvaccess.server.database.PVRecord;
+import org.epics.pvaccess.server.database.RecordChannelProvider;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.factory.StandardFieldFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.Array;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.IntArrayData;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVArray;
+import org.epics.pvdata.pv.PVDouble;
+import org.epics.pvdata.pv.PVInt;
+import org.epics.pvdata.pv.PVIntArray;
+import org.epics.pvdata.pv.PVLong;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for the in-memory record database channel provider.
+ */
+public class RecordChannelProviderTest extends TestCase {
+
+	private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+
+	private static final Structure recordStructure =
+		fieldCreate.createFieldBuilder().
+			add("value", ScalarType.pvDouble).
+			addArray("array", ScalarType.pvInt).
+			add("timeStamp", StandardFieldFactory.getStandardField().timeStamp()).
+			createStructure();
+
+	private static final CreateRequest createRequest = CreateRequest.create();
+
+	private PVDatabase database;
+	private RecordChannelProvider provider;
+
+	private static PVRecord createRecord(String name)
+	{
+		return new PVRecord(name, PVDataFactory.getPVDataCreate().createPVStructure(recordStructure));
+	}
+
+	private static PVStructure request(String request)
+	{
+		PVStructure pvRequest = createRequest.createRequest(request);
+		assertNotNull(createRequest.getMessage(), pvRequest);
+		return pvRequest;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		database = new PVDatabase();
+		List<PVRecord> records = new ArrayList<PVRecord>();
+		for (int i = 0; i < 1000; i++)
+			records.add(createRecord("rec" + i));
+		database.addRecords(records);
+		provider = new RecordChannelProvider(database);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		provider.destroy();
+	}
+
+	private static class Requester implements ChannelRequester, ChannelGetRequester,
+			ChannelPutRequester, ChannelProcessRequester, ChannelArrayRequester, MonitorRequester {
+		Status status;
+		PVStructure pvStructure;
+		BitSet bitSet;
+		PVArray pvArray;
+		int length;
+		ConnectionState connectionState;
+		Monitor monitor;
+		int monitorEvents;
+		boolean unlistened;
+		// set to check that the requester is not called with the record lock held
+		PVRecord record;
+		boolean calledLocked;
+
+		private void checkUnlocked()
+		{
+			if (record != null && isLocked(record))
+				calledLocked = true;
+		}
+
+		@Override
+		public String getRequesterName() {
+			return getClass().getName();
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+			System.err.println("[" + messageType + "] " + message);
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+			this.status = status;
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, ConnectionState connectionState) {
+			checkUnlocked();
+			this.connectionState = connectionState;
+		}
+
+		@Override
+		public void channelGetConnect(Status status, ChannelGet channelGet, Structure structure) {
+			this.status = status;
+		}
+
+		@Override
+		public void getDone(Status status, ChannelGet channelGet, PVStructure pvStructure, BitSet bitSet) {
+			this.status = status;
+			this.pvStructure = pvStructure;
+			this.bitSet = bitSet;
+		}
+
+		@Override
+		public void channelPutConnect(Status status, ChannelPut channelPut, Structure structure) {
+			this.status = status;
+		}
+
+		@Override
+		public void putDone(Status status, ChannelPut channelPut) {
+			this.status = status;
+		}
+
+		@Override
+		public void getDone(Status status, ChannelPut channelPut, PVStructure pvStructure, BitSet bitSet) {
+			this.status = status;
+			this.pvStructure = pvStructure;
+			this.bitSet = bitSet;
+		}
+
+		@Override
+		public void channelProcessConnect(Status status, ChannelProcess channelProcess) {
+			this.status = status;
+		}
+
+		@Override
+		public void processDone(Status status, ChannelProcess channelProcess) {
+			this.status = status;
+		}
+
+		@Override
+		public void channelArrayConnect(Status status, ChannelArray channelArray, Array array) {
+			this.status = status;
+		}
+
+		@Override
+		public void putArrayDone(Status status, ChannelArray channelArray) {
+			this.status = status;
+		}
+
+		@Override
+		public void getArrayDone(Status status, ChannelArray channelArray, PVArray pvArray) {
+			this.status = status;
+			this.pvArray = pvArray;
+		}
+
+		@Override
+		public void getLengthDone(Status status, ChannelArray channelArray, int length) {
+			this.status = status;
+			this.length = length;
+		}
+
+		@Override
+		public void setLengthDone(Status status, ChannelArray channelArray) {
+			this.status = status;
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+			this.status = status;
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+			checkUnlocked();
+			monitorEvents++;
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+			checkUnlocked();
+			unlistened = true;
+		}
+	}
+
+	// whether the record lock is held, i.e. another thread cannot get it
+	private static boolean isLocked(final PVRecord record)
+	{
+		Thread thread = new Thread() {
+			public void run() {
+				record.lock();
+				record.unlock();
+			}
+		};
+		thread.start();
+		try {
+			thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return thread.isAlive();
+	}
+
+	private Channel createChannel(String name, Requester requester)
+	{
+		Channel channel = provider.createChannel(name, requester, ChannelProvider.PRIORITY_DEFAULT);
+		assertTrue(String.valueOf(requester.status), requester.status.isSuccess());
+		return channel;
+	}
+
+	public void testBulkLoadAndPublish()
+	{
+		assertEquals(1000, database.getRecordCount());
+		assertNotNull(database.findRecord("rec999"));
+
+		ChannelNameIndex index = new ChannelNameIndex();
+		provider.publishChannelNames(index);
+		assertEquals(1000, index.size());
+		assertTrue(index.contains("rec0"));
+
+		database.addRecord(createRecord("added"));
+		assertTrue(index.contains("added"));
+
+		// duplicates are rejected as a whole
+		List<PVRecord> records = new ArrayList<PVRecord>();
+		records.add(createRecord("new"));
+		records.add(createRecord("rec1"));
+		try {
+			database.addRecords(records);
+			fail("duplicate record name accepted");
+		} catch (IllegalArgumentException iae) {
+			// ok
+		}
+		assertNull(database.findRecord("new"));
+		assertFalse(index.contains("new"));
+
+		database.removeRecord("added");
+		assertFalse(index.contains("added"));
+
+		provider.unpublishChannelNames(index);
+		assertEquals(0, index.size());
+
+		Requester requester = new Requester();
+		assertNull(provider.createChannel("unknown", requester, ChannelProvider.PRIORITY_DEFAULT));
+		assertFalse(requester.status.isSuccess());
+	}
+
+	public void testGetPutProcess()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec1", requester);
+		assertEquals(ConnectionState.CONNECTED, channel.getConnectionState());
+		assertEquals(1, provider.getChannelCount());
+
+		ChannelPut put = channel.createChannelPut(requester, request("field(value)"));
+		assertTrue(requester.status.isSuccess());
+		put.get();
+		PVStructure putStructure = requester.pvStructure;
+		putStructure.getDoubleField("value").put(12.3);
+		BitSet putBitSet = new BitSet(putStructure.getNumberFields());
+		putBitSet.set(putStructure.getSubField("value").getFieldOffset());
+		put.put(putStructure, putBitSet);
+		assertTrue(requester.status.isSuccess());
+		assertEquals(12.3, database.findRecord("rec1").getPVStructure().getDoubleField("value").get());
+
+		ChannelGet get = channel.createChannelGet(requester, request("field(value,timeStamp)"));
+		assertTrue(requester.status.isSuccess());
+		get.get();
+		assertTrue(requester.status.isSuccess());
+		assertEquals(12.3, requester.pvStructure.getDoubleField("value").get());
+		assertTrue(requester.bitSet.get(0));
+
+		// nothing changed
+		get.get();
+		assertTrue(requester.bitSet.isEmpty());
+
+		ChannelProcess process = channel.createChannelProcess(requester, null);
+		process.process();
+		assertTrue(requester.status.isSuccess());
+		get.get();
+		PVLong seconds = requester.pvStructure.getLongField("timeStamp.secondsPastEpoch");
+		assertTrue(seconds.get() > 0);
+		assertTrue(requester.bitSet.get(seconds.getFieldOffset()));
+		assertFalse(requester.bitSet.get(requester.pvStructure.getSubField("value").getFieldOffset()));
+
+		// illegal request
+		assertNull(channel.createChannelGet(requester, request("field(nonExisting)")));
+		assertFalse(requester.status.isSuccess());
+
+		channel.destroy();
+		assertEquals(ConnectionState.DESTROYED, channel.getConnectionState());
+		assertEquals(0, provider.getChannelCount());
+		get.get();
+		assertFalse(requester.status.isSuccess());
+	}
+
+	public void testArray()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec2", requester);
+
+		ChannelArray array = channel.createChannelArray(requester, request("field(array)"));
+		assertTrue(requester.status.isSuccess());
+
+		PVIntArray values = (PVIntArray)PVDataFactory.getPVDataCreate().createPVScalarArray(ScalarType.pvInt);
+		values.put(0, 5, new int[] { 1, 2, 3, 4, 5 }, 0);
+		array.putArray(values, 0, 5, 1);
+		assertTrue(requester.status.isSuccess());
+
+		array.getLength();
+		assertEquals(5, requester.length);
+
+		array.getArray(1, 3, 1);
+		assertTrue(requester.status.isSuccess());
+		assertEquals(3, requester.pvArray.getLength());
+		IntArrayData data = new IntArrayData();
+		((PVIntArray)requester.pvArray).get(0, 3, data);
+		assertEquals(2, data.data[data.offset]);
+
+		array.setLength(2);
+		array.getLength();
+		assertEquals(2, requester.length);
+
+		array.getArray(0, 1, 2);
+		assertFalse(requester.status.isSuccess());
+
+		// not an array
+		assertNull(channel.createChannelArray(requester, request("field(value)")));
+		assertFalse(requester.status.isSuccess());
+	}
+
+	public void testMonitor()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec3", requester);
+		PVRecord record = database.findRecord("rec3");
+		PVDouble value = record.getPVStructure().getDoubleField("value");
+		requester.record = record;
+
+		Monitor monitor = channel.createMonitor(requester, request("record[queueSize=3]field(value)"));
+		assertTrue(requester.status.isSuccess());
+		assertTrue(monitor.start().isSuccess());
+		assertEquals(1, requester.monitorEvents);
+
+		// initial value
+		MonitorElement element = monitor.poll();
+		assertNotNull(element);
+		assertTrue(element.getChangedBitSet().get(0));
+		monitor.release(element);
+		assertNull(monitor.poll());
+
+		// a group put is one update
+		record.lock();
+		try {
+			record.beginGroupPut();
+			value.put(1);
+			value.put(2);
+			record.endGroupPut();
+		} finally {
+			record.unlock();
+		}
+		assertEquals(2, requester.monitorEvents);
+
+		// same value, no update
+		record.lock();
+		try {
+			value.put(2);
+		} finally {
+			record.unlock();
+		}
+		assertEquals(2, requester.monitorEvents);
+
+		// fill the queue, the last changes are merged into the active element
+		for (int i = 3; i <= 10; i++)
+		{
+			record.lock();
+			try {
+				value.put(i);
+			} finally {
+				record.unlock();
+			}
+		}
+		assertEquals(4, requester.monitorEvents);
+
+		element = monitor.poll();
+		assertEquals(2.0, element.getPVStructure().getDoubleField("value").get());
+		monitor.release(element);
+		element = monitor.poll();
+		assertEquals(3.0, element.getPVStructure().getDoubleField("value").get());
+		monitor.release(element);
+		element = monitor.poll();
+		assertEquals(4.0, element.getPVStructure().getDoubleField("value").get());
+		monitor.release(element);
+		element = monitor.poll();
+		assertEquals(10.0, element.getPVStructure().getDoubleField("value").get());
+		assertFalse(element.getOverrunBitSet().isEmpty());
+		monitor.release(element);
+		assertNull(monitor.poll());
+
+		monitor.stop();
+		record.lock();
+		try {
+			value.put(11);
+		} finally {
+			record.unlock();
+		}
+		assertNull(monitor.poll());
+
+		// record removal
+		assertTrue(monitor.start().isSuccess());
+		monitor.release(monitor.poll());
+		database.removeRecord("rec3");
+		assertTrue(requester.unlistened);
+		assertEquals(ConnectionState.DISCONNECTED, requester.connectionState);
+		assertFalse(channel.isConnected());
+		monitor.destroy();
+
+		// the requester was always called after the record lock was released
+		assertFalse(requester.calledLocked);
+	}
+
+	public void testLockReplacedWhileHeld() throws InterruptedException
+	{
+		final PVRecord record = createRecord("locked");
+		final PVDouble value = record.getPVStructure().getDoubleField("value");
+
+		// the record can't be added by the thread that holds its lock
+		record.lock();
+		try {
+			database.addRecord(record);
+			fail("locked record added");
+		} catch (IllegalStateException ise) {
+			// ok
+		} finally {
+			record.unlock();
+		}
+		assertNull(database.findRecord("locked"));
+
+		// added while another thread holds the lock, the threads waiting for it
+		// get the database lock
+		final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<Throwable>();
+		Thread adder = new Thread() {
+			public void run() {
+				try {
+					database.addRecord(record);
+				} catch (Throwable th) {
+					errors.add(th);
+				}
+			}
+		};
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++)
+		{
+			writers[i] = new Thread() {
+				public void run() {
+					try {
+						record.lock();
+						try {
+							value.put(value.get() + 1);
+						} finally {
+							record.unlock();
+						}
+					} catch (Throwable th) {
+						errors.add(th);
+					}
+				}
+			};
+		}
+
+		record.lock();
+		try {
+			adder.start();
+			for (Thread writer : writers)
+				writer.start();
+			Thread.sleep(100);
+			value.put(100);
+		} finally {
+			record.unlock();
+		}
+
+		adder.join();
+		for (Thread writer : writers)
+			writer.join();
+		assertTrue(String.valueOf(errors.peek()), errors.isEmpty());
+		assertSame(record, database.findRecord("locked"));
+		assertEquals(100.0 + writers.length, value.get());
+	}
+
+	public void testMonitorElementsUpToDate()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec5", requester);
+		PVRecord record = database.findRecord("rec5");
+		PVDouble value = record.getPVStructure().getDoubleField("value");
+		PVInt userTag = record.getPVStructure().getIntField("timeStamp.userTag");
+
+		Monitor monitor = channel.createMonitor(requester, request("field(value,timeStamp)"));
+		monitor.start();
+		monitor.release(monitor.poll());
+
+		// queue elements are reused, all their fields must hold the latest values
+		for (int i = 1; i <= 10; i++)
+		{
+			record.lock();
+			try {
+				if (i % 2 == 0)
+					value.put(i);
+				else
+					userTag.put(i);
+			} finally {
+				record.unlock();
+			}
+			MonitorElement element = monitor.poll();
+			assertEquals(1, element.getChangedBitSet().cardinality());
+			assertEquals(value.get(), element.getPVStructure().getDoubleField("value").get());
+			assertEquals(userTag.get(), element.getPVStructure().getIntField("timeStamp.userTag").get());
+			monitor.release(element);
+		}
+
+		monitor.destroy();
+	}
+
+	public void testPipelineMonitor()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec4", requester);
+		PVRecord record = database.findRecord("rec4");
+		PVDouble value = record.getPVStructure().getDoubleField("value");
+
+		// the record change tracking
+		assertEquals(1, record.getDirtyTracker().getDirtyBitSetCount());
+
+		Monitor monitor = channel.createMonitor(requester, request("record[queueSize=4,pipeline=true]field(value)"));
+		assertTrue(requester.status.isSuccess());
+		assertTrue(monitor instanceof PipelineMonitor);
+		assertEquals(2, record.getDirtyTracker().getDirtyBitSetCount());
+
+		// no credits yet
+		monitor.start();
+		assertNull(monitor.poll());
+
+		((PipelineMonitor)monitor).reportRemoteQueueStatus(2);
+		MonitorElement element = monitor.poll();
+		assertNotNull(element);
+		monitor.release(element);
+
+		record.lock();
+		try {
+			value.put(1);
+		} finally {
+			record.unlock();
+		}
+		element = monitor.poll();
+		assertEquals(1.0, element.getPVStructure().getDoubleField("value").get());
+		monitor.release(element);
+
+		// out of credits, changes are held back
+		record.lock();
+		try {
+			value.put(2);
+		} finally {
+			record.unlock();
+		}
+		assertNull(monitor.poll());
+
+		((PipelineMonitor)monitor).reportRemoteQueueStatus(1);
+		element = monitor.poll();
+		assertEquals(2.0, element.getPVStructure().getDoubleField("value").get());
+		monitor.release(element);
+
+		monitor.destroy();
+		assertEquals(1, record.getDirtyTracker().getDirtyBitSetCount());
+		channel.destroy();
+	}
+
+	private static void put(PVRecord record, PVDouble value, double newValue)
+	{
+		record.lock();
+		try {
+			value.put(newValue);
+		} finally {
+			record.unlock();
+		}
+	}
+
+	public void testSharedMonitorEncoding()
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec6", requester);
+		PVRecord record = database.findRecord("rec6");
+		PVDouble value = record.getPVStructure().getDoubleField("value");
+
+		Monitor monitor1 = channel.createMonitor(requester, request("field(value)"));
+		Monitor monitor2 = channel.createMonitor(requester, request("record[queueSize=2]field(value)"));
+		Monitor monitor3 = channel.createMonitor(requester, request("field(value,timeStamp)"));
+		for (Monitor monitor : new Monitor[] { monitor1, monitor2, monitor3 })
+		{
+			monitor.start();
+			monitor.release(monitor.poll());
+		}
+
+		// the same update of the same structure is encoded once
+		put(record, value, 1);
+		SharedMonitorElement element1 = (SharedMonitorElement)monitor1.poll();
+		SharedMonitorElement element2 = (SharedMonitorElement)monitor2.poll();
+		SharedMonitorElement element3 = (SharedMonitorElement)monitor3.poll();
+		assertNotNull(element1.getEncoding());
+		assertSame(element1.getEncoding(), element2.getEncoding());
+		assertNull(element3.getEncoding());
+		assertEquals(0, element1.getEncoding().getEncodeCount());
+		monitor1.release(element1);
+		monitor3.release(element3);
+
+		// monitor2 runs out of free elements, its next changes are merged and not shared
+		put(record, value, 2);
+		element1 = (SharedMonitorElement)monitor1.poll();
+		SharedMonitorElement element2b = (SharedMonitorElement)monitor2.poll();
+		assertSame(element1.getEncoding(), element2b.getEncoding());
+		monitor1.release(element1);
+		for (int i = 3; i <= 4; i++)
+		{
+			put(record, value, i);
+			element1 = (SharedMonitorElement)monitor1.poll();
+			assertEquals((double)i, element1.getPVStructure().getDoubleField("value").get());
+			assertNull(element1.getEncoding());
+			monitor1.release(element1);
+		}
+
+		monitor2.release(element2);
+		monitor2.release(element2b);
+		element2 = (SharedMonitorElement)monitor2.poll();
+		assertEquals(4.0, element2.getPVStructure().getDoubleField("value").get());
+		assertFalse(element2.getOverrunBitSet().isEmpty());
+		assertNull(element2.getEncoding());
+		monitor2.release(element2);
+
+		// reused elements do not keep the encoding
+		put(record, value, 5);
+		element1 = (SharedMonitorElement)monitor1.poll();
+		element2 = (SharedMonitorElement)monitor2.poll();
+		assertSame(element1.getEncoding(), element2.getEncoding());
+		monitor1.release(element1);
+		monitor2.release(element2);
+		monitor2.destroy();
+		for (int i = 6; i <= 8; i++)
+		{
+			put(record, value, i);
+			element1 = (SharedMonitorElement)monitor1.poll();
+			assertNull(element1.getEncoding());
+			monitor1.release(element1);
+		}
+
+		monitor1.destroy();
+		monitor3.destroy();
+	}
+
+	private static class RemoteRequester implements ChannelRequester, MonitorRequester {
+		final BlockingQueue<Double> values = new LinkedBlockingQueue<Double>();
+		final BlockingQueue<BitSet> overruns = new LinkedBlockingQueue<BitSet>();
+
+		@Override
+		public String getRequesterName() {
+			return getClass().getName();
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+			System.err.println("[" + messageType + "] " + message);
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+			// noop
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, ConnectionState connectionState) {
+			// noop
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+			if (status.isSuccess())
+				monitor.start();
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+			MonitorElement element;
+			while ((element = monitor.poll()) != null)
+			{
+				overruns.add((BitSet)element.getOverrunBitSet().clone());
+				values.add(element.getPVStructure().getDoubleField("value").get());
+				monitor.release(element);
+			}
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+			// noop
+		}
+	}
+
+	public void testRemoteSharedMonitor() throws Exception
+	{
+		Requester requester = new Requester();
+		Channel channel = createChannel("rec7", requester);
+		PVRecord record = database.findRecord("rec7");
+		PVDouble value = record.getPVStructure().getDoubleField("value");
+
+		// local monitor of the same structure, shares the encoding of the remote ones
+		Monitor monitor = channel.createMonitor(requester, request("field(value)"));
+		monitor.start();
+		monitor.release(monitor.poll());
+
+		ServerContextImpl serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(provider);
+		ClientFactory.start();
+		ChannelProvider clientProvider = ChannelProviderRegistryFactory.getChannelProviderRegistry()
+				.getProvider(ClientFactory.PROVIDER_NAME);
+		RemoteRequester remote1 = new RemoteRequester();
+		RemoteRequester remote2 = new RemoteRequester();
+		Channel clientChannel = clientProvider.createChannel("rec7", remote1, ChannelProvider.PRIORITY_DEFAULT);
+		try {
+			clientChannel.createMonitor(remote1, request("field(value)"));
+			clientChannel.createMonitor(remote2, request("field(value)"));
+			assertEquals(0.0, remote1.values.poll(5, TimeUnit.SECONDS));
+			assertEquals(0.0, remote2.values.poll(5, TimeUnit.SECONDS));
+
+			put(record, value, 1);
+			assertEquals(1.0, remote1.values.poll(5, TimeUnit.SECONDS));
+			assertEquals(1.0, remote2.values.poll(5, TimeUnit.SECONDS));
+			remote1.overruns.clear();
+			remote2.overruns.clear();
+
+			// both subscribers were sent the same encoding, encoded once
+			SharedMonitorElement element = (SharedMonitorElement)monitor.poll();
+			assertNotNull(element.getEncoding());
+			assertEquals(1, element.getEncoding().getEncodeCount());
+			monitor.release(element);
+
+			put(record, value, 2);
+			assertEquals(2.0, remote1.values.poll(5, TimeUnit.SECONDS));
+			assertEquals(2.0, remote2.values.poll(5, TimeUnit.SECONDS));
+			assertTrue(remote1.overruns.take().isEmpty());
+			assertTrue(remote2.overruns.take().isEmpty());
+		} finally {
+			clientChannel.destroy();
+			serverContext.destroy();
+			monitor.destroy();
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package org.epics.pvaccess.server.rpc.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.client.rpc.AsyncRPCClient;
+import org.epics.pvaccess.client.rpc.RPCClientFactory;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvaccess.server.rpc.RPCExecutor;
+import org.epics.pvaccess.server.rpc.RPCRequestException;
+import org.epics.pvaccess.server.rpc.RPCService;
+import org.epics.pvaccess.server.rpc.impl.RPCChannelProvider;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.pv.DoubleArrayData;
+import org.epics.pvdata.pv.IntArrayData;
+import org.epics.pvdata.pv.LongArrayData;
+import org.epics.pvdata.pv.PVDoubleArray;
+import org.epics.pvdata.pv.PVIntArray;
+import org.epics.pvdata.pv.PVLongArray;
+import org.epics.pvdata.pv.PVStringArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.StringArrayData;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for the RPC executor.
+ */
+public class RPCExecutorTest extends TestCase {
+
+	/**
+	 * Task that waits until released.
+	 */
+	private static class BlockingTasks {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started;
+		final CountDownLatch done;
+
+		BlockingTasks(int count) {
+			started = new CountDownLatch(count);
+			done = new CountDownLatch(count);
+		}
+
+		Runnable create() {
+			return new Runnable() {
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						// noop
+					}
+					done.countDown();
+				}
+			};
+		}
+	}
+
+	private static int getRow(PVStructure pvMetrics, String service)
+	{
+		StringArrayData data = new StringArrayData();
+		PVStringArray pvServices = pvMetrics.getSubField(PVStringArray.class, "value.service");
+		pvServices.get(0, pvServices.getLength(), data);
+		for (int i = 0; i < pvServices.getLength(); i++)
+			if (data.data[i].equals(service))
+				return i;
+		fail("no metrics for " + service);
+		return -1;
+	}
+
+	private static int getInt(PVStructure pvMetrics, String service, String column)
+	{
+		IntArrayData data = new IntArrayData();
+		pvMetrics.getSubField(PVIntArray.class, "value." + column).get(getRow(pvMetrics, service), 1, data);
+		return data.data[data.offset];
+	}
+
+	private static long getLong(PVStructure pvMetrics, String service, String column)
+	{
+		LongArrayData data = new LongArrayData();
+		pvMetrics.getSubField(PVLongArray.class, "value." + column).get(getRow(pvMetrics, service), 1, data);
+		return data.data[data.offset];
+	}
+
+	private static double getDouble(PVDoubleArray pvArray, int index)
+	{
+		DoubleArrayData data = new DoubleArrayData();
+		pvArray.get(index, 1, data);
+		return data.data[data.offset];
+	}
+
+	public void testElasticPool() throws Exception
+	{
+		RPCExecutor executor = new RPCExecutor(1, 3, 2);
+		try {
+			BlockingTasks tasks = new BlockingTasks(5);
+
+			// grows to maximum number of threads before queuing
+			for (int i = 0; i < 3; i++)
+				assertTrue(executor.execute("service", tasks.create()));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (tasks.started.getCount() > 2 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertEquals(2, tasks.started.getCount());
+
+			// then queues
+			assertTrue(executor.execute("service", tasks.create()));
+			assertTrue(executor.execute("service", tasks.create()));
+			assertFalse(executor.admit("service"));
+			assertFalse(executor.execute("service", tasks.create()));
+
+			PVStructure pvMetrics = executor.getMetrics();
+			assertEquals("epics:nt/NTTable:1.0", pvMetrics.getStructure().getID());
+			assertEquals(3, getInt(pvMetrics, "*", "threads"));
+			assertEquals(3, getInt(pvMetrics, "*", "active"));
+			assertEquals(2, getInt(pvMetrics, "*", "queued"));
+			assertEquals(5, getInt(pvMetrics, "*", "limit"));
+			assertEquals(5, getLong(pvMetrics, "*", "submitted"));
+			assertEquals(2, getLong(pvMetrics, "*", "rejected"));
+
+			tasks.release.countDown();
+			assertTrue(tasks.done.await(5, TimeUnit.SECONDS));
+			deadline = System.currentTimeMillis() + 5000;
+			while (getLong(executor.getMetrics(), "*", "completed") < 5 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+
+			pvMetrics = executor.getMetrics();
+			assertEquals(5, getLong(pvMetrics, "*", "completed"));
+			assertEquals(0, getInt(pvMetrics, "*", "queued"));
+			assertTrue(getDouble(pvMetrics.getSubField(PVDoubleArray.class, "value.maxExecutionTime"), 0) > 0);
+			assertTrue(executor.admit("service"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testServiceLanes() throws Exception
+	{
+		RPCExecutor executor = new RPCExecutor(1, 1, 0);
+		executor.setServicePool("fast", 1, 2, 0);
+		try {
+			BlockingTasks slow = new BlockingTasks(1);
+			assertTrue(executor.execute("slow", slow.create()));
+			assertTrue(slow.started.await(5, TimeUnit.SECONDS));
+			assertFalse(executor.execute("slow", slow.create()));
+
+			// a busy service does not block the other lane
+			BlockingTasks fast = new BlockingTasks(2);
+			assertTrue(executor.execute("fast", fast.create()));
+			assertTrue(executor.execute("fast", fast.create()));
+			assertTrue(fast.started.await(5, TimeUnit.SECONDS));
+			assertFalse(executor.admit("fast"));
+
+			PVStructure pvMetrics = executor.getMetrics();
+			assertEquals(2, getInt(pvMetrics, "fast", "active"));
+			assertEquals(1, getInt(pvMetrics, "*", "active"));
+			assertEquals(1, getLong(pvMetrics, "fast", "rejected"));
+
+			slow.release.countDown();
+			fast.release.countDown();
+			assertTrue(fast.done.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testVirtualThreadPerRequest() throws Exception
+	{
+		// falls back to platform threads if virtual threads are not supported
+		RPCExecutor executor = RPCExecutor.createVirtualThreadPerRequest(2);
+		try {
+			BlockingTasks tasks = new BlockingTasks(2);
+			assertTrue(executor.execute("service", tasks.create()));
+			assertTrue(executor.execute("service", tasks.create()));
+			assertTrue(tasks.started.await(5, TimeUnit.SECONDS));
+			assertFalse(executor.execute("service", tasks.create()));
+
+			tasks.release.countDown();
+			assertTrue(tasks.done.await(5, TimeUnit.SECONDS));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!executor.admit("service") && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertTrue(executor.execute("service", new BlockingTasks(1).create()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testShutdown() throws Exception
+	{
+		RPCExecutor executor = new RPCExecutor(1, 1, 1);
+		executor.shutdown();
+		assertFalse(executor.admit("service"));
+		assertFalse(executor.execute("service", new BlockingTasks(1).create()));
+	}
+
+	public void testRemoteEarlyRejection() throws Exception
+	{
+		final Structure argumentStructure =
+			FieldFactory.getFieldCreate().createFieldBuilder().
+				addArray("value", ScalarType.pvDouble).
+				createStructure();
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		RPCExecutor executor = new RPCExecutor(1, 1, 0);
+		RPCChannelProvider provider = new RPCChannelProvider(executor);
+		provider.registerService("rpcExecutorTest", new RPCService() {
+			@Override
+			public PVStructure request(PVStructure args) throws RPCRequestException {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					// noop
+				}
+				return args;
+			}
+		});
+		provider.registerService("rpcExecutorTestMetrics", executor.createMetricsService());
+
+		ServerContextImpl serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(provider);
+		PVStructure pvRequest = CreateRequest.create().createRequest("");
+		AsyncRPCClient client = RPCClientFactory.createAsync("rpcExecutorTest", pvRequest, 4);
+		AsyncRPCClient metricsClient = RPCClientFactory.createAsync("rpcExecutorTestMetrics", pvRequest, 1);
+		try {
+			assertTrue(client.waitConnect(5.0));
+
+			PVStructure pvSmall = PVDataFactory.getPVDataCreate().createPVStructure(argumentStructure);
+			pvSmall.getSubField(PVDoubleArray.class, "value").put(0, 1, new double[] { 1.0 }, 0);
+			CompletableFuture<PVStructure> first = client.request(pvSmall, 10.0);
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			// large arguments (spanning many receive buffers) are rejected without being deserialized
+			PVStructure pvLarge = PVDataFactory.getPVDataCreate().createPVStructure(argumentStructure);
+			pvLarge.getSubField(PVDoubleArray.class, "value").put(0, 1000000, new double[1000000], 0);
+			List<CompletableFuture<PVStructure>> rejected = new ArrayList<CompletableFuture<PVStructure>>();
+			for (int i = 0; i < 3; i++)
+				rejected.add(client.request(pvLarge, 10.0));
+			for (CompletableFuture<PVStructure> future : rejected)
+			{
+				try {
+					future.get(10, TimeUnit.SECONDS);
+					fail("request accepted by a busy service");
+				} catch (ExecutionException ee) {
+					assertTrue(ee.getCause() instanceof RPCRequestException);
+					assertTrue(ee.getCause().getMessage().startsWith("service busy"));
+				}
+			}
+
+			// metrics are available while the service is busy
+			PVStructure pvMetrics = metricsClient.request(pvRequest, 10.0).get(10, TimeUnit.SECONDS);
+			assertEquals(1, getInt(pvMetrics, "*", "active"));
+			assertEquals(3, getLong(pvMetrics, "*", "rejected"));
+
+			release.countDown();
+			assertEquals(1.0, getDouble(first.get(10, TimeUnit.SECONDS).getSubField(PVDoubleArray.class, "value"), 0));
+
+			// the connection is still in sync
+			PVStructure pvResult = client.request(pvLarge, 10.0).get(10, TimeUnit.SECONDS);
+			assertEquals(1000000, pvResult.getSubField(PVDoubleArray.class, "value").getLength());
+		} finally {
+			client.destroy();
+			metricsClient.destroy();
+			serverContext.destroy();
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.epics.pvaccess.server.test;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.server.ChannelNameIndex;
+import org.epics.pvaccess.server.rpc.RPCRequestException;
+import org.epics.pvaccess.server.rpc.RPCService;
+import org.epics.pvaccess.server.rpc.impl.RPCChannelProvider;
+import org.epics.pvdata.pv.PVStructure;
+
+/**
+ * JUnit test for ChannelNameIndex (server-side search pre-filtering).
+ */
+public class ChannelNameIndexTest extends TestCase {
+
+	public void testNames()
+	{
+		ChannelNameIndex index = new ChannelNameIndex();
+		assertFalse(index.contains("a"));
+
+		index.add("a");
+		index.add("b");
+		index.add("a");
+		assertEquals(2, index.size());
+		assertTrue(index.contains("a"));
+		assertTrue(index.contains("b"));
+		assertFalse(index.contains("c"));
+
+		// reference counted
+		index.remove("a");
+		assertTrue(index.contains("a"));
+		index.remove("a");
+		assertFalse(index.contains("a"));
+		index.remove("a");
+		assertEquals(1, index.size());
+	}
+
+	public void testPatterns()
+	{
+		ChannelNameIndex index = new ChannelNameIndex();
+		index.addPattern("test:*");
+		assertTrue(index.contains("test:ai"));
+		assertFalse(index.contains("other:ai"));
+		assertEquals(0, index.size());
+
+		index.removePattern("test:*");
+		assertFalse(index.contains("test:ai"));
+	}
+
+	public void testRPCChannelProviderPublish()
+	{
+		RPCService service = new RPCService() {
+			@Override
+			public PVStructure request(PVStructure args) throws RPCRequestException {
+				return args;
+			}
+		};
+
+		RPCChannelProvider provider = new RPCChannelProvider();
+		provider.registerService("existing", service);
+
+		ChannelNameIndex index = new ChannelNameIndex();
+		provider.publishChannelNames(index);
+		assertTrue(index.contains("existing"));
+
+		provider.registerService("added", service);
+		provider.registerService("wild:*", service);
+		assertTrue(index.contains("added"));
+		assertTrue(index.contains("wild:one"));
+		assertFalse(index.contains("other"));
+
+		provider.unregisterService("added");
+		assertFalse(index.contains("added"));
+
+		provider.unpublishChannelNames(index);
+		assertFalse(index.contains("existing"));
+		assertFalse(index.contains("wild:one"));
+
+		provider.destroy();
+	}
+}
@@ -0,0 +1,178 @@
+package org.epics.pvaccess.server.test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.PVAConstants;
+import org.epics.pvaccess.impl.remote.Transport;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvaccess.server.impl.remote.tcp.NonBlockingServerTCPTransport;
+
+/**
+ * Load test of the non-blocking (event loop) server mode,
+ * i.e. many connections must be served by a small fixed number of threads.
+ */
+public class NonBlockingServerLoadTest extends TestCase {
+
+	private static final int EVENT_LOOP_THREADS = 2;
+	private static final int CONNECTIONS = 200;
+	private static final long TIMEOUT_MS = 10000;
+
+	private ServerContextImpl serverContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				eventLoopThreads = EVENT_LOOP_THREADS;
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(new TestChannelProviderImpl());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (serverContext != null)
+			serverContext.destroy();
+	}
+
+	static Socket connect(InetSocketAddress address) throws IOException {
+		Socket socket = new Socket();
+		socket.connect(address, (int)TIMEOUT_MS);
+		socket.setSoTimeout((int)TIMEOUT_MS);
+		return socket;
+	}
+
+	static void sendValidation(Socket socket) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(PVAConstants.PVA_MESSAGE_HEADER_SIZE + 9);
+		buffer.put(PVAConstants.PVA_MAGIC);
+		buffer.put(PVAConstants.PVA_VERSION);
+		buffer.put((byte)0x80);		// client, big endian
+		buffer.put((byte)1);		// connection validation
+		buffer.putInt(9);
+		buffer.putInt(PVAConstants.MAX_TCP_RECV);
+		buffer.putShort(Short.MAX_VALUE);
+		buffer.putShort((short)0);
+		buffer.put((byte)0);		// empty security plug-in name
+		socket.getOutputStream().write(buffer.array(), 0, buffer.position());
+	}
+
+	static void sendEcho(Socket socket) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(PVAConstants.PVA_MESSAGE_HEADER_SIZE);
+		buffer.put(PVAConstants.PVA_MAGIC);
+		buffer.put(PVAConstants.PVA_VERSION);
+		buffer.put((byte)0x80);		// client, big endian
+		buffer.put((byte)2);		// echo
+		buffer.putInt(0);
+		socket.getOutputStream().write(buffer.array(), 0, buffer.position());
+	}
+
+	/**
+	 * Read messages until (application) message with given command is received.
+	 * @return payload of the message.
+	 */
+	static ByteBuffer readUntil(Socket socket, byte expectedCommand) throws IOException {
+		DataInputStream in = new DataInputStream(socket.getInputStream());
+		ByteBuffer header = ByteBuffer.allocate(PVAConstants.PVA_MESSAGE_HEADER_SIZE);
+		while (true)
+		{
+			in.readFully(header.array());
+			assertEquals(PVAConstants.PVA_MAGIC, header.get(0));
+			final byte flags = header.get(2);
+			final byte command = header.get(3);
+			final int payloadSize = header.getInt(4);
+			final boolean isControl = (flags & 0x01) == 0x01;
+
+			ByteBuffer payload = ByteBuffer.allocate(isControl ? 0 : payloadSize);
+			in.readFully(payload.array());
+			if (!isControl && command == expectedCommand)
+				return payload;
+		}
+	}
+
+	public void testManyConnections() throws Throwable
+	{
+		final int threadCountBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", serverContext.getServerPort());
+		Socket[] sockets = new Socket[CONNECTIONS];
+		try
+		{
+			for (int i = 0; i < CONNECTIONS; i++)
+				sockets[i] = connect(address);
+
+			// validation request from server
+			for (Socket socket : sockets)
+				readUntil(socket, (byte)1);
+
+			for (Socket socket : sockets)
+				sendValidation(socket);
+
+			// validation status
+			for (Socket socket : sockets)
+			{
+				ByteBuffer status = readUntil(socket, (byte)9);
+				assertEquals("status OK expected", (byte)-1, status.get());
+			}
+
+			// echo round-trip
+			for (Socket socket : sockets)
+				sendEcho(socket);
+			for (Socket socket : sockets)
+				readUntil(socket, (byte)2);
+
+			// thread-per-connection would have added two threads per connection
+			final int threadCountAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+			assertTrue("too many threads created: " + (threadCountAfter - threadCountBefore),
+					threadCountAfter - threadCountBefore < CONNECTIONS / 10);
+
+			int nonBlockingTransports = 0;
+			for (Transport transport : serverContext.getTransportRegistry().toArray())
+				if (transport instanceof NonBlockingServerTCPTransport)
+					nonBlockingTransports++;
+			assertEquals(CONNECTIONS, nonBlockingTransports);
+		}
+		finally
+		{
+			for (Socket socket : sockets)
+				if (socket != null)
+					socket.close();
+		}
+
+		// server must detect closed connections
+		final long start = System.currentTimeMillis();
+		while (serverContext.getTransportRegistry().numberOfActiveTransports() > 0 &&
+			   (System.currentTimeMillis() - start) < TIMEOUT_MS)
+			Thread.sleep(50);
+		assertEquals(0, serverContext.getTransportRegistry().numberOfActiveTransports());
+	}
+
+	public void testValidationTimeout() throws Throwable
+	{
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", serverContext.getServerPort());
+		Socket socket = connect(address);
+		try
+		{
+			// do not respond to validation request, server must time out
+			readUntil(socket, (byte)1);
+			ByteBuffer status = readUntil(socket, (byte)9);
+			assertTrue("error status expected", status.get() != (byte)-1);
+
+			// and close the connection
+			assertEquals(-1, socket.getInputStream().read());
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package org.epics.pvaccess.server.test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.ClientFactory;
+import org.epics.pvaccess.PVAConstants;
+import org.epics.pvaccess.client.Channel;
+import org.epics.pvaccess.client.Channel.ConnectionState;
+import org.epics.pvaccess.client.ChannelGet;
+import org.epics.pvaccess.client.ChannelGetRequester;
+import org.epics.pvaccess.client.ChannelProvider;
+import org.epics.pvaccess.client.ChannelProviderRegistryFactory;
+import org.epics.pvaccess.client.ChannelPut;
+import org.epics.pvaccess.client.ChannelPutRequester;
+import org.epics.pvaccess.client.ChannelRequester;
+import org.epics.pvaccess.server.database.PVDatabase;
+import org.epics.pvaccess.server.database.PVRecord;
+import org.epics.pvaccess.server.database.RecordChannelProvider;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.monitor.Monitor;
+import org.epics.pvdata.monitor.MonitorElement;
+import org.epics.pvdata.monitor.MonitorRequester;
+import org.epics.pvdata.pv.IntArrayData;
+import org.epics.pvdata.pv.MessageType;
+import org.epics.pvdata.pv.PVInt;
+import org.epics.pvdata.pv.PVIntArray;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Status;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * End-to-end test of the non-blocking (event loop) server mode.
+ * One event loop thread serves all the connections, so a connection waiting for data
+ * (incomplete message, full socket send buffer) must not block the others.
+ */
+public class NonBlockingServerTest extends TestCase {
+
+	private static final long TIMEOUT_MS = 10000;
+
+	// large enough to span many receive/send buffers
+	private static final int ARRAY_SIZE = 1000000;
+
+	// fits the (4MB) array messages
+	private static final int MAX_MESSAGE_SIZE = 8 * 1024 * 1024;
+
+	private static final Structure recordStructure =
+		FieldFactory.getFieldCreate().createFieldBuilder().
+			addArray("value", ScalarType.pvInt).
+			add("count", ScalarType.pvInt).
+			createStructure();
+
+	private PVRecord record;
+	private ServerContextImpl serverContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		record = new PVRecord("nonBlockingServerTest", PVDataFactory.getPVDataCreate().createPVStructure(recordStructure));
+		putArray(record.getPVStructure().getSubField(PVIntArray.class, "value"), 0);
+		PVDatabase database = new PVDatabase();
+		database.addRecords(Collections.singletonList(record));
+
+		serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				eventLoopThreads = 1;
+				serverPort = 0;
+				maxMessageSize = MAX_MESSAGE_SIZE;
+			}
+		};
+		serverContext.initialize(new RecordChannelProvider(database));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (serverContext != null)
+			serverContext.destroy();
+	}
+
+	private static void putArray(PVIntArray pvArray, int offset)
+	{
+		int[] data = new int[ARRAY_SIZE];
+		for (int i = 0; i < data.length; i++)
+			data[i] = i + offset;
+		pvArray.put(0, data.length, data, 0);
+	}
+
+	private static void assertArray(PVIntArray pvArray, int offset)
+	{
+		assertEquals(ARRAY_SIZE, pvArray.getLength());
+		IntArrayData data = new IntArrayData();
+		pvArray.get(0, pvArray.getLength(), data);
+		for (int i = 0; i < ARRAY_SIZE; i++)
+			if (data.data[data.offset + i] != i + offset)
+				fail("unexpected value at " + i + ": " + data.data[data.offset + i]);
+	}
+
+	private static class Requester implements ChannelRequester, ChannelGetRequester, ChannelPutRequester, MonitorRequester {
+		final CountDownLatch connected = new CountDownLatch(1);
+		final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+		final BlockingQueue<PVStructure> monitorValues = new LinkedBlockingQueue<PVStructure>();
+		volatile ChannelPut channelPut;
+		volatile PVStructure pvPutStructure;
+
+		@Override
+		public String getRequesterName() {
+			return getClass().getName();
+		}
+
+		@Override
+		public void message(String message, MessageType messageType) {
+			System.err.println("[" + messageType + "] " + message);
+		}
+
+		@Override
+		public void channelCreated(Status status, Channel channel) {
+			// noop
+		}
+
+		@Override
+		public void channelStateChange(Channel channel, ConnectionState connectionState) {
+			if (connectionState == ConnectionState.CONNECTED)
+				connected.countDown();
+		}
+
+		@Override
+		public void channelGetConnect(Status status, ChannelGet channelGet, Structure structure) {
+			events.add(status);
+		}
+
+		@Override
+		public void getDone(Status status, ChannelGet channelGet, PVStructure pvStructure, BitSet bitSet) {
+			events.add(status.isSuccess() ? pvStructure : status);
+		}
+
+		@Override
+		public void channelPutConnect(Status status, ChannelPut channelPut, Structure structure) {
+			this.channelPut = channelPut;
+			if (status.isSuccess())
+				pvPutStructure = PVDataFactory.getPVDataCreate().createPVStructure(structure);
+			events.add(status);
+		}
+
+		@Override
+		public void putDone(Status status, ChannelPut channelPut) {
+			events.add(status);
+		}
+
+		@Override
+		public void getDone(Status status, ChannelPut channelPut, PVStructure pvStructure, BitSet bitSet) {
+			events.add(status);
+		}
+
+		@Override
+		public void monitorConnect(Status status, Monitor monitor, Structure structure) {
+			events.add(status);
+			if (status.isSuccess())
+				monitor.start();
+		}
+
+		@Override
+		public void monitorEvent(Monitor monitor) {
+			MonitorElement element;
+			while ((element = monitor.poll()) != null)
+			{
+				// copy, the element is reused
+				monitorValues.add(PVDataFactory.getPVDataCreate().createPVStructure(element.getPVStructure()));
+				monitor.release(element);
+			}
+		}
+
+		@Override
+		public void unlisten(Monitor monitor) {
+			// noop
+		}
+
+		Object take() throws InterruptedException {
+			Object event = events.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			assertNotNull("timeout", event);
+			return event;
+		}
+
+		void assertSuccess() throws InterruptedException {
+			Object event = take();
+			assertTrue(String.valueOf(event), event instanceof Status && ((Status)event).isSuccess());
+		}
+	}
+
+	public void testGetPutMonitor() throws Exception
+	{
+		ClientFactory.start();
+		ChannelProvider provider = ChannelProviderRegistryFactory.getChannelProviderRegistry()
+				.getProvider(ClientFactory.PROVIDER_NAME);
+		Requester requester = new Requester();
+		Channel channel = provider.createChannel(record.getRecordName(), requester, ChannelProvider.PRIORITY_DEFAULT);
+		try {
+			assertTrue(requester.connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+			CreateRequest createRequest = CreateRequest.create();
+
+			// get, large response
+			ChannelGet channelGet = channel.createChannelGet(requester, createRequest.createRequest("field()"));
+			requester.assertSuccess();
+			channelGet.get();
+			Object event = requester.take();
+			assertTrue(String.valueOf(event), event instanceof PVStructure);
+			assertArray(((PVStructure)event).getSubField(PVIntArray.class, "value"), 0);
+
+			// put, large request
+			channel.createChannelPut(requester, createRequest.createRequest("field(value)"));
+			requester.assertSuccess();
+			PVIntArray pvPutArray = requester.pvPutStructure.getSubField(PVIntArray.class, "value");
+			putArray(pvPutArray, 1);
+			BitSet bitSet = new BitSet(requester.pvPutStructure.getNumberFields());
+			bitSet.set(pvPutArray.getFieldOffset());
+			requester.channelPut.put(requester.pvPutStructure, bitSet);
+			requester.assertSuccess();
+			record.lock();
+			try {
+				assertArray(record.getPVStructure().getSubField(PVIntArray.class, "value"), 1);
+			} finally {
+				record.unlock();
+			}
+
+			// monitor, large updates
+			channel.createMonitor(requester, createRequest.createRequest("field()"));
+			requester.assertSuccess();
+			PVStructure pvValue = requester.monitorValues.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			assertNotNull(pvValue);
+			assertArray(pvValue.getSubField(PVIntArray.class, "value"), 1);
+			for (int i = 2; i <= 4; i++)
+			{
+				record.lock();
+				try {
+					record.beginGroupPut();
+					putArray(record.getPVStructure().getSubField(PVIntArray.class, "value"), i);
+					record.getPVStructure().getSubField(PVInt.class, "count").put(i);
+					record.endGroupPut();
+				} finally {
+					record.unlock();
+				}
+
+				// updates can be merged, the last one is always delivered
+				do {
+					pvValue = requester.monitorValues.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+					assertNotNull(pvValue);
+				} while (pvValue.getSubField(PVInt.class, "count").get() != i);
+				assertArray(pvValue.getSubField(PVIntArray.class, "value"), i);
+			}
+		} finally {
+			channel.destroy();
+		}
+	}
+
+	private Socket connectAndValidate() throws IOException
+	{
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", serverContext.getServerPort());
+		Socket socket = NonBlockingServerLoadTest.connect(address);
+		NonBlockingServerLoadTest.readUntil(socket, (byte)1);
+		NonBlockingServerLoadTest.sendValidation(socket);
+		ByteBuffer status = NonBlockingServerLoadTest.readUntil(socket, (byte)9);
+		assertEquals("status OK expected", (byte)-1, status.get());
+		return socket;
+	}
+
+	private static byte[] echoRequest(int payloadSize)
+	{
+		return echoRequest(payloadSize, (byte)0, payloadSize);
+	}
+
+	private static byte[] echoRequest(int payloadSize, byte segmentFlags, int dataSize)
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(PVAConstants.PVA_MESSAGE_HEADER_SIZE + dataSize);
+		buffer.put(PVAConstants.PVA_MAGIC);
+		buffer.put(PVAConstants.PVA_VERSION);
+		buffer.put((byte)(0x80 | segmentFlags));		// client, big endian
+		buffer.put((byte)2);		// echo
+		buffer.putInt(payloadSize);
+		return buffer.array();
+	}
+
+	private static void assertClosed(Socket socket) throws IOException
+	{
+		try
+		{
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[1024];
+			while (in.read(buffer) >= 0)
+				;
+		}
+		catch (SocketException se)
+		{
+			// connection reset, closed
+		}
+	}
+
+	private void assertServing() throws IOException
+	{
+		Socket other = connectAndValidate();
+		try
+		{
+			NonBlockingServerLoadTest.sendEcho(other);
+			NonBlockingServerLoadTest.readUntil(other, (byte)2);
+		}
+		finally
+		{
+			other.close();
+		}
+	}
+
+	public void testMessageTooLarge() throws Exception
+	{
+		Socket socket = connectAndValidate();
+		try
+		{
+			// only the header, the payload is never buffered
+			OutputStream out = socket.getOutputStream();
+			out.write(echoRequest(Integer.MAX_VALUE - 64, (byte)0, 0));
+			out.flush();
+			assertClosed(socket);
+		}
+		finally
+		{
+			socket.close();
+		}
+		assertServing();
+	}
+
+	public void testSegmentedMessageTooLarge() throws Exception
+	{
+		final int segmentSize = MAX_MESSAGE_SIZE * 3 / 4;
+		Socket socket = connectAndValidate();
+		try
+		{
+			// each segment fits, both of them do not
+			OutputStream out = socket.getOutputStream();
+			out.write(echoRequest(segmentSize, (byte)0x10, segmentSize));
+			out.write(echoRequest(segmentSize, (byte)0x20, 0));
+			out.flush();
+			assertClosed(socket);
+		}
+		finally
+		{
+			socket.close();
+		}
+		assertServing();
+	}
+
+	public void testIncompleteMessage() throws Exception
+	{
+		Socket incomplete = connectAndValidate();
+		Socket other = connectAndValidate();
+		try
+		{
+			// header and a part of the payload only
+			byte[] request = echoRequest(64);
+			OutputStream out = incomplete.getOutputStream();
+			out.write(request, 0, PVAConstants.PVA_MESSAGE_HEADER_SIZE + 8);
+			out.flush();
+
+			// the event loop is not waiting for the rest
+			for (int i = 0; i < 10; i++)
+			{
+				NonBlockingServerLoadTest.sendEcho(other);
+				NonBlockingServerLoadTest.readUntil(other, (byte)2);
+			}
+
+			// the message is processed once complete
+			out.write(request, PVAConstants.PVA_MESSAGE_HEADER_SIZE + 8, request.length - PVAConstants.PVA_MESSAGE_HEADER_SIZE - 8);
+			out.flush();
+			NonBlockingServerLoadTest.readUntil(incomplete, (byte)2);
+		}
+		finally
+		{
+			incomplete.close();
+			other.close();
+		}
+	}
+
+	public void testSlowReader() throws Exception
+	{
+		// responses (8MB) do not fit into the socket buffers
+		final int count = 1000000;
+
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", serverContext.getServerPort());
+		final Socket slow = new Socket();
+		slow.setReceiveBufferSize(8192);
+		slow.connect(address, (int)TIMEOUT_MS);
+		slow.setSoTimeout((int)TIMEOUT_MS);
+		NonBlockingServerLoadTest.readUntil(slow, (byte)1);
+		NonBlockingServerLoadTest.sendValidation(slow);
+		assertEquals((byte)-1, NonBlockingServerLoadTest.readUntil(slow, (byte)9).get());
+
+		Socket other = connectAndValidate();
+		try
+		{
+			// many requests, responses are not read
+			final byte[] request = echoRequest(0);
+			OutputStream out = new BufferedOutputStream(slow.getOutputStream(), 65536);
+			for (int i = 0; i < count; i++)
+				out.write(request);
+			out.flush();
+
+			// the event loop is not waiting for the slow reader
+			for (int i = 0; i < 10; i++)
+			{
+				NonBlockingServerLoadTest.sendEcho(other);
+				NonBlockingServerLoadTest.readUntil(other, (byte)2);
+			}
+
+			// all the responses are delivered, in order and complete
+			DataInputStream in = new DataInputStream(new BufferedInputStream(slow.getInputStream(), 65536));
+			byte[] header = new byte[PVAConstants.PVA_MESSAGE_HEADER_SIZE];
+			int responses = 0;
+			while (responses < count)
+			{
+				in.readFully(header);
+				assertEquals(PVAConstants.PVA_MAGIC, header[0]);
+				if ((header[2] & 0x01) == 0x01)
+					continue;
+				assertEquals((byte)2, header[3]);
+				assertEquals(0, ByteBuffer.wrap(header).getInt(4));
+				responses++;
+			}
+		}
+		finally
+		{
+			slow.close();
+			other.close();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package org.epics.pvaccess.server.test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.PVAConstants;
+import org.epics.pvaccess.server.impl.remote.ServerContextImpl;
+import org.epics.pvaccess.util.InetAddressUtil;
+import org.epics.pvdata.misc.SerializeHelper;
+
+/**
+ * Test of server search response coalescing, i.e. responses to one search request
+ * must be sent in (a few) datagrams containing multiple channel IDs.
+ */
+public class SearchResponseBatchingTest extends TestCase {
+
+	private static final int CHANNELS = 500;
+	private static final int TIMEOUT_MS = 5000;
+
+	private ServerContextImpl serverContext;
+	private int broadcastPort;
+
+	@Override
+	protected void setUp() throws Exception {
+		DatagramSocket probe = new DatagramSocket(0);
+		broadcastPort = probe.getLocalPort();
+		probe.close();
+
+		serverContext = new ServerContextImpl() {
+			@Override
+			protected void loadConfiguration() {
+				super.loadConfiguration();
+				this.broadcastPort = SearchResponseBatchingTest.this.broadcastPort;
+				serverPort = 0;
+			}
+		};
+		serverContext.initialize(new TestChannelProviderImpl());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (serverContext != null)
+			serverContext.destroy();
+	}
+
+	private static ByteBuffer createSearchRequest(int sequenceId, InetAddress responseAddress, int responsePort)
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(PVAConstants.MAX_UDP_PACKET);
+		buffer.put(PVAConstants.PVA_MAGIC);
+		buffer.put(PVAConstants.PVA_VERSION);
+		buffer.put((byte)0x80);		// client, big endian
+		buffer.put((byte)3);		// search
+		buffer.putInt(0);			// payload size, set later
+
+		buffer.putInt(sequenceId);
+		buffer.put((byte)0x00);		// b/m-cast, no reply required
+		buffer.put((byte)0);
+		buffer.putShort((short)0);
+		InetAddressUtil.encodeAsIPv6Address(buffer, responseAddress);
+		buffer.putShort((short)responsePort);
+
+		buffer.put((byte)1);
+		SerializeHelper.serializeString("tcp", buffer);
+
+		buffer.putShort((short)CHANNELS);
+		for (int cid = 0; cid < CHANNELS; cid++)
+		{
+			buffer.putInt(cid);
+			SerializeHelper.serializeString("test" + cid, buffer);
+		}
+
+		buffer.putInt(4, buffer.position() - PVAConstants.PVA_MESSAGE_HEADER_SIZE);
+		buffer.flip();
+		return buffer;
+	}
+
+	public void testCoalescedResponses() throws Throwable
+	{
+		final int sequenceId = 0x1234;
+		final InetAddress loopback = InetAddress.getByName("127.0.0.1");
+
+		DatagramSocket socket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+		try
+		{
+			socket.setSoTimeout(TIMEOUT_MS);
+
+			ByteBuffer request = createSearchRequest(sequenceId, loopback, socket.getLocalPort());
+			socket.send(new DatagramPacket(request.array(), request.limit(), loopback, broadcastPort));
+
+			Set<Integer> cids = new HashSet<Integer>();
+			int datagrams = 0;
+			byte[] receiveBuffer = new byte[PVAConstants.MAX_UDP_PACKET];
+			while (cids.size() < CHANNELS)
+			{
+				DatagramPacket packet = new DatagramPacket(receiveBuffer, receiveBuffer.length);
+				try {
+					socket.receive(packet);
+				} catch (SocketTimeoutException ste) {
+					fail("only " + cids.size() + " of " + CHANNELS + " search responses received");
+				}
+
+				ByteBuffer buffer = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+				while (buffer.remaining() >= PVAConstants.PVA_MESSAGE_HEADER_SIZE)
+				{
+					assertEquals(PVAConstants.PVA_MAGIC, buffer.get());
+					buffer.get();
+					buffer.get();
+					final byte command = buffer.get();
+					final int payloadSize = buffer.getInt();
+					final int nextMessage = buffer.position() + payloadSize;
+					if (command == 4)
+					{
+						assertTrue(packet.getLength() <= PVAConstants.MAX_UDP_UNFRAGMENTED_SEND);
+						datagrams++;
+
+						buffer.position(buffer.position() + 12);		// GUID
+						assertEquals(sequenceId, buffer.getInt());
+						buffer.position(buffer.position() + 16 + 2);	// address, port
+						assertEquals("tcp", SerializeHelper.deserializeString(buffer));
+						assertEquals(1, buffer.get());					// found
+						final int count = buffer.getShort() & 0xFFFF;
+						for (int i = 0; i < count; i++)
+							assertTrue("duplicate response", cids.add(buffer.getInt()));
+					}
+					buffer.position(nextMessage);
+				}
+			}
+
+			// 500 responses fit into 2 datagrams, allow some slack for the coalescing window
+			assertTrue("too many response datagrams: " + datagrams, datagrams <= 10);
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+}
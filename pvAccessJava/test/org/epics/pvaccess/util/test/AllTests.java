@@ -33,6 +33,9 @@ public class AllTests {
         suite.addTestSuite(CircularBufferTest.class);
         suite.addTestSuite(GrowingCircularBufferTest.class);
         suite.addTestSuite(WildcardMatcherTest.class);
+        suite.addTestSuite(MailboxTest.class);
+        suite.addTestSuite(BufferPoolTest.class);
+        suite.addTestSuite(IntHashMapTest.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,91 @@
+package org.epics.pvaccess.util.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.util.BufferPool;
+import org.epics.pvaccess.util.HexDump;
+
+/**
+ * BufferPool test.
+ */
+public class BufferPoolTest extends TestCase {
+
+    public BufferPoolTest(String methodName) {
+        super(methodName);
+    }
+
+    public void testHeap()
+    {
+        BufferPool pool = new BufferPool(false, 4);
+        assertFalse(pool.isDirect());
+
+        ByteBuffer buffer = pool.allocate(1024);
+        assertFalse(buffer.isDirect());
+        assertTrue(buffer.hasArray());
+        assertEquals(1024, buffer.capacity());
+
+        // heap buffers are not pooled
+        pool.release(buffer);
+        assertEquals(0, pool.getPooledCount(1024));
+    }
+
+    public void testDirectReuse()
+    {
+        BufferPool pool = new BufferPool(true, 2);
+        assertTrue(pool.isDirect());
+
+        ByteBuffer buffer = pool.allocate(1024);
+        assertTrue(buffer.isDirect());
+        assertEquals(1024, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(1024, buffer.limit());
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(12345);
+        pool.release(buffer);
+        assertEquals(1, pool.getPooledCount(1024));
+
+        ByteBuffer reused = pool.allocate(1024);
+        assertSame(buffer, reused);
+        assertEquals(0, pool.getPooledCount(1024));
+        assertEquals(0, reused.position());
+        assertEquals(1024, reused.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+
+        // different capacity
+        ByteBuffer other = pool.allocate(512);
+        assertNotSame(buffer, other);
+        assertEquals(512, other.capacity());
+
+        // null and heap buffers are ignored
+        pool.release(null);
+        pool.release(ByteBuffer.allocate(512));
+        assertEquals(0, pool.getPooledCount(512));
+    }
+
+    public void testDirectPoolLimit()
+    {
+        BufferPool pool = new BufferPool(true, 2);
+        ByteBuffer b1 = pool.allocate(64);
+        ByteBuffer b2 = pool.allocate(64);
+        ByteBuffer b3 = pool.allocate(64);
+        pool.release(b1);
+        pool.release(b2);
+        pool.release(b3);
+        assertEquals(2, pool.getPooledCount(64));
+    }
+
+    public void testHexDumpDirect()
+    {
+        // must not fail on buffers without an accessible backing array
+        ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+        for (int i = 0; i < buffer.capacity(); i++)
+            buffer.put((byte)i);
+        assertFalse(buffer.hasArray());
+        HexDump.hexDump("direct", buffer, 4, 16);
+        HexDump.hexDump("direct", buffer, 16, 100);
+    }
+}
@@ -0,0 +1,171 @@
+package org.epics.pvaccess.util.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.util.IntHashMap;
+
+/**
+ * IntHashMap test.
+ */
+public class IntHashMapTest extends TestCase {
+
+    public IntHashMapTest(String methodName) {
+        super(methodName);
+    }
+
+    public void testBasic()
+    {
+        IntHashMap<String> map = new IntHashMap<String>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertNull(map.remove(1));
+
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(-1, "minus one"));
+        assertNull(map.put(0, "zero"));
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("zero", map.get(0));
+
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals(3, map.size());
+        assertEquals("uno", map.get(1));
+
+        assertEquals("uno", map.remove(1));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+        assertEquals(2, map.size());
+
+        // reservation (null value)
+        assertNull(map.put(7, null));
+        assertTrue(map.containsKey(7));
+        assertNull(map.get(7));
+        assertEquals(3, map.size());
+        assertEquals(2, map.values().size());
+
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertTrue(Arrays.equals(new int[] { -1, 0, 7 }, keys));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    public void testAgainstHashMap()
+    {
+        IntHashMap<Integer> map = new IntHashMap<Integer>();
+        Map<Integer, Integer> reference = new HashMap<Integer, Integer>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 100000; i++)
+        {
+            // small key range to exercise removed markers and rehashing
+            final int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0)
+                assertEquals(reference.remove(key), map.remove(key));
+            else
+                assertEquals(reference.put(key, i), map.put(key, i));
+            assertEquals(reference.size(), map.size());
+        }
+
+        for (int key = -1000; key < 1000; key++)
+            assertEquals(reference.get(key), map.get(key));
+
+        List<Integer> values = map.values();
+        assertEquals(reference.size(), values.size());
+        assertTrue(values.containsAll(reference.values()));
+    }
+
+    public void testConcurrentReaders() throws InterruptedException
+    {
+        final IntHashMap<Integer> map = new IntHashMap<Integer>();
+        final int STABLE = 1000;
+        for (int i = 0; i < STABLE; i++)
+            map.put(i, i);
+
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++)
+        {
+            readers[t] = new Thread() {
+                public void run() {
+                    while (!done.get())
+                        for (int i = 0; i < STABLE; i++)
+                        {
+                            Integer value = map.get(i);
+                            if (value == null || value.intValue() != i)
+                                failure.compareAndSet(null, "lost key " + i);
+                        }
+                }
+            };
+            readers[t].start();
+        }
+
+        // writer churns other keys, forcing rehashing
+        for (int round = 0; round < 50; round++)
+        {
+            for (int i = STABLE; i < STABLE + 5000; i++)
+                map.put(i, i);
+            for (int i = STABLE; i < STABLE + 5000; i++)
+                map.remove(i);
+        }
+
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertNull(failure.get());
+        assertEquals(STABLE, map.size());
+    }
+
+    public void testConcurrentSlotReuse() throws InterruptedException
+    {
+        // fixed capacity, removed slots are reused by other keys
+        final IntHashMap<Integer> map = new IntHashMap<Integer>(64);
+        final int KEYS = 32;
+
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++)
+        {
+            readers[t] = new Thread() {
+                public void run() {
+                    while (!done.get())
+                        for (int i = 0; i < KEYS; i++)
+                        {
+                            // absent or its own value, never a value of another key
+                            Integer value = map.get(i);
+                            if (value != null && value.intValue() != i)
+                                failure.compareAndSet(null, "key " + i + " returned value " + value);
+                        }
+                }
+            };
+            readers[t].start();
+        }
+
+        Random random = new Random(1234);
+        for (int round = 0; round < 1000000; round++)
+        {
+            final int key = random.nextInt(KEYS);
+            if (map.remove(key) == null)
+                map.put(key, key);
+        }
+
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,94 @@
+package org.epics.pvaccess.util.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.epics.pvaccess.impl.remote.codec.impl.VirtualThreadSupport;
+import org.epics.pvaccess.util.Mailbox;
+
+/**
+ * Mailbox test.
+ */
+public class MailboxTest extends TestCase {
+
+    public MailboxTest(String methodName) {
+        super(methodName);
+    }
+
+    public void testNonBlockingTake() throws InterruptedException
+    {
+        Mailbox<Integer> mailbox = new Mailbox<Integer>();
+        assertTrue(mailbox.isEmpty());
+        assertNull(mailbox.take(-1));
+
+        mailbox.put(1);
+        mailbox.put(2);
+        assertFalse(mailbox.isEmpty());
+        assertEquals(Integer.valueOf(1), mailbox.take(-1));
+        assertEquals(Integer.valueOf(2), mailbox.take(-1));
+        assertNull(mailbox.take(-1));
+    }
+
+    public void testTimedTake() throws InterruptedException
+    {
+        Mailbox<Integer> mailbox = new Mailbox<Integer>();
+        final long start = System.currentTimeMillis();
+        assertNull(mailbox.take(100));
+        assertTrue(System.currentTimeMillis() - start >= 90);
+    }
+
+    public void testBlockingTake() throws InterruptedException
+    {
+        final Mailbox<Integer> mailbox = new Mailbox<Integer>();
+        final AtomicReference<Integer> taken = new AtomicReference<Integer>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Thread taker = VirtualThreadSupport.newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(mailbox.take(0));
+                } catch (InterruptedException e) {
+                    // noop
+                }
+                done.countDown();
+            }
+        }, "taker");
+        taker.start();
+
+        Thread.sleep(100);
+        assertEquals(1, done.getCount());
+
+        mailbox.put(7);
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(7), taken.get());
+    }
+
+    public void testWakeup() throws InterruptedException
+    {
+        final Mailbox<Integer> mailbox = new Mailbox<Integer>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Integer> taken = new AtomicReference<Integer>(-1);
+
+        Thread taker = VirtualThreadSupport.newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(mailbox.take(0));
+                } catch (InterruptedException e) {
+                    // noop
+                }
+                done.countDown();
+            }
+        }, "taker");
+        taker.start();
+
+        Thread.sleep(100);
+        mailbox.wakeup();
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertNull(taken.get());
+    }
+}
@@ -70,6 +70,9 @@ public interface PVCopy {
     void initCopy(PVStructure copyPVStructure, BitSet bitSet);
     /**
      * Update PVStructure from master. The BitSet shows which fields in PVStructure have changed.
+     * If the PVCopy was created with a PVDirtyTracker only the fields posted since the previous
+     * initCopy or updateCopySetBitSet are compared, so PVStructure must hold the data
+     * copied by that call.
      * @param copyPVStructure The PVStructure.
      * @param bitSet The BitSet which shows the fields that were modified.
      */
@@ -94,6 +97,12 @@ public interface PVCopy {
      * @return The pvStructure containing the options or null if the field did not have options.
      */
     PVStructure getOptions(int fieldOffset);
+    /**
+     * Release the resources of the PVCopy, i.e. unregister it from the PVDirtyTracker
+     * it was created with, if any.
+     * The default implementation does nothing.
+     */
+    default void destroy() {}
     /**
      * Dump the internal pvCopy nodes.
      * @return The nodes.
@@ -23,4 +23,18 @@ public class PVCopyFactory {
     public static PVCopy create(PVStructure pvMaster,PVStructure pvRequest,String structureName) {
     	return PVCopyImpl.create(pvMaster, pvRequest,structureName);
     }
+    /**
+     * Map a subset of the fields of a master that has change tracking enabled.
+     * The PVCopy only updates the fields posted since its previous update,
+     * see {@link PVCopy#updateCopySetBitSet(PVStructure, org.epics.pvdata.misc.BitSet)}.
+     * It must be destroyed when no longer used.
+     * @param dirtyTracker The change tracker of the master PVStructure.
+     * @param pvRequest A PVStructure which describes the set of fields of PVRecord that
+     * should be mapped.
+     * @param structureName Must be one of null, "field", "putField", or "getField".
+     * @return The PVCopy interface.
+     */
+    public static PVCopy create(PVDirtyTracker dirtyTracker,PVStructure pvRequest,String structureName) {
+        return PVCopyImpl.create(dirtyTracker, pvRequest,structureName);
+    }
 }
@@ -4,6 +4,7 @@
 package org.epics.pvdata.copy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.epics.pvdata.factory.ConvertFactory;
 import org.epics.pvdata.factory.FieldFactory;
@@ -45,6 +46,17 @@ class PVCopyImpl implements PVCopy{
         return impl;
     }
 
+    static PVCopy create(
+        PVDirtyTracker dirtyTracker,
+        PVStructure pvRequest,
+        String structureName)
+    {
+        PVCopyImpl impl = (PVCopyImpl)create(dirtyTracker.getPVMaster(),pvRequest,structureName);
+        if(impl==null) return null;
+        impl.initDirtyTracking(dirtyTracker);
+        return impl;
+    }
+
     private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
     private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
     private static final Convert convert = ConvertFactory.getConvert();
@@ -66,6 +78,12 @@ class PVCopyImpl implements PVCopy{
     private Structure structure = null;
     private Node headNode = null;
     private PVStructure cacheInitStructure = null;
+    // dirty tracking, see PVDirtyTracker
+    private static final int NOT_IN_COPY = -1;
+    private static final int PARTIAL_STRUCTURE = -2;
+    private PVDirtyTracker dirtyTracker = null;
+    private BitSet dirtyBitSet = null;
+    private int[] masterToCopy = null;
 
     private PVCopyImpl(PVStructure pvMaster) {
         this.pvMaster = pvMaster;
@@ -164,6 +182,7 @@ class PVCopyImpl implements PVCopy{
      * @see org.epics.pvdata.copy.PVCopy#initCopy(org.epics.pvdata.pv.PVStructure, org.epics.pvdata.misc.BitSet)
      */
     public void initCopy(PVStructure copyPVStructure, BitSet bitSet) {
+        if(dirtyBitSet!=null) dirtyBitSet.clear();
         bitSet.set(0,copyPVStructure.getNumberFields(),true);
         updateCopyFromBitSet(copyPVStructure,headNode,bitSet);
     }
@@ -172,6 +191,10 @@ class PVCopyImpl implements PVCopy{
      */
     public void updateCopySetBitSet(PVStructure copyPVStructure,BitSet bitSet)
     {
+        if(dirtyBitSet!=null) {
+            updateDirtyCopySetBitSet(copyPVStructure,bitSet);
+            return;
+        }
         updateCopySetBitSet(copyPVStructure,headNode,bitSet);
     }
     /* (non-Javadoc)
@@ -218,6 +241,12 @@ class PVCopyImpl implements PVCopy{
             throw new IllegalArgumentException("fieldOffset not valid");
         }
     }
+    /* (non-Javadoc)
+     * @see org.epics.pvdata.copy.PVCopy#destroy()
+     */
+    public void destroy() {
+        if(dirtyTracker!=null) dirtyTracker.removeDirtyBitSet(dirtyBitSet);
+    }
     /* (non-Javadoc)
      * @see org.epics.pvdata.copy.PVCopy#dump()
      */
@@ -229,6 +258,43 @@ class PVCopyImpl implements PVCopy{
     }
 
 
+    private void initDirtyTracking(PVDirtyTracker dirtyTracker) {
+        int nfields = pvMaster.getNumberFields();
+        masterToCopy = new int[nfields];
+        Arrays.fill(masterToCopy, NOT_IN_COPY);
+        initMasterToCopy(headNode);
+        dirtyBitSet = new BitSet(nfields);
+        this.dirtyTracker = dirtyTracker;
+        dirtyTracker.addDirtyBitSet(dirtyBitSet);
+    }
+
+    private void initMasterToCopy(Node node) {
+        int masterOffset = node.masterPVField.getFieldOffset() - pvMaster.getFieldOffset();
+        if(!node.isStructure) {
+            for(int i=0; i<node.nfields; i++) masterToCopy[masterOffset + i] = node.structureOffset + i;
+            return;
+        }
+        // only some fields of the master structure are in the copy
+        masterToCopy[masterOffset] = PARTIAL_STRUCTURE;
+        Node[] nodes = ((StructureNode)node).nodes;
+        for(int i=0; i<nodes.length; i++) initMasterToCopy(nodes[i]);
+    }
+
+    private void updateDirtyCopySetBitSet(PVStructure copyPVStructure,BitSet bitSet) {
+        for(int offset=dirtyBitSet.nextSetBit(0); offset>=0; offset=dirtyBitSet.nextSetBit(offset+1)) {
+            int copyOffset = masterToCopy[offset];
+            if(copyOffset==NOT_IN_COPY) continue;
+            if(copyOffset==PARTIAL_STRUCTURE) {
+                updateCopySetBitSet(copyPVStructure,headNode,bitSet);
+                break;
+            }
+            PVField pvCopy = (copyOffset==0) ? copyPVStructure : copyPVStructure.getSubField(copyOffset);
+            PVField pvMasterField = (offset==0) ? pvMaster : pvMaster.getSubField(pvMaster.getFieldOffset() + offset);
+            updateCopySetBitSet(pvCopy,pvMasterField,bitSet);
+        }
+        dirtyBitSet.clear();
+    }
+
     private void traverseMaster(Node innode, PVCopyTraverseMasterCallback callback)
     {
         Node node = innode;
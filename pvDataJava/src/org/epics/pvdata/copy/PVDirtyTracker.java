@@ -0,0 +1,120 @@
+/*
+ * License terms for this software can be found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata.copy;
+
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.PostHandler;
+import org.epics.pvdata.pv.Type;
+
+/**
+ * Opt-in change tracking for a master PVStructure.
+ * A PostHandler is set on every field of the master, and each postPut sets the field offset,
+ * relative to the master, in all the registered dirty bitSets. A PVCopy created with
+ * {@link PVCopyFactory#create(PVDirtyTracker, PVStructure, String)} registers its own bitSet,
+ * so that updateCopySetBitSet only looks at the fields that were posted since its previous update
+ * instead of comparing every field of the copy.
+ * <p>
+ * The tracker is not thread safe: posts and PVCopy updates must be serialized by the caller,
+ * e.g. by a lock on the master.
+ */
+public class PVDirtyTracker {
+    private static final BitSet[] NO_BITSETS = new BitSet[0];
+
+    private final PVStructure pvMaster;
+    private final int masterOffset;
+    private volatile BitSet[] dirtyBitSets = NO_BITSETS;
+    private PostHandler postHandler = null;
+
+    private final class FieldPostHandler implements PostHandler {
+        private final int fieldOffset;
+
+        FieldPostHandler(int fieldOffset) {
+            this.fieldOffset = fieldOffset;
+        }
+
+        public void postPut() {
+            BitSet[] bitSets = dirtyBitSets;
+            for(int i=0; i<bitSets.length; i++) bitSets[i].set(fieldOffset);
+            PostHandler handler = postHandler;
+            if(handler!=null) handler.postPut();
+        }
+    }
+
+    /**
+     * Start tracking the changes of a master PVStructure.
+     * @param pvMaster The master PVStructure. Its fields must not already have a PostHandler.
+     * @throws IllegalStateException if a field already has a PostHandler.
+     */
+    public PVDirtyTracker(PVStructure pvMaster) {
+        this.pvMaster = pvMaster;
+        this.masterOffset = pvMaster.getFieldOffset();
+        setPostHandlers(pvMaster);
+    }
+
+    private void setPostHandlers(PVField pvField) {
+        pvField.setPostHandler(new FieldPostHandler(pvField.getFieldOffset() - masterOffset));
+        if(pvField.getField().getType()!=Type.structure) return;
+        PVField[] pvFields = ((PVStructure)pvField).getPVFields();
+        for(int i=0; i<pvFields.length; i++) setPostHandlers(pvFields[i]);
+    }
+
+    /**
+     * Get the master PVStructure.
+     * @return The master.
+     */
+    public PVStructure getPVMaster() {
+        return pvMaster;
+    }
+
+    /**
+     * Set the handler called after each post, once the dirty bitSets are updated.
+     * This replaces the PostHandler of the master fields, that belong to the tracker.
+     * @param postHandler The handler or null.
+     */
+    public void setPostHandler(PostHandler postHandler) {
+        this.postHandler = postHandler;
+    }
+
+    /**
+     * Register a bitSet in which the offsets of the posted master fields are set.
+     * The owner clears it once the changes are handled.
+     * @param bitSet The bitSet.
+     */
+    public synchronized void addDirtyBitSet(BitSet bitSet) {
+        BitSet[] bitSets = dirtyBitSets;
+        for(int i=0; i<bitSets.length; i++) {
+            if(bitSets[i]==bitSet) return;
+        }
+        BitSet[] newBitSets = new BitSet[bitSets.length + 1];
+        System.arraycopy(bitSets, 0, newBitSets, 0, bitSets.length);
+        newBitSets[bitSets.length] = bitSet;
+        dirtyBitSets = newBitSets;
+    }
+
+    /**
+     * Unregister a bitSet.
+     * @param bitSet The bitSet given to addDirtyBitSet.
+     */
+    public synchronized void removeDirtyBitSet(BitSet bitSet) {
+        BitSet[] bitSets = dirtyBitSets;
+        for(int i=0; i<bitSets.length; i++) {
+            if(bitSets[i]!=bitSet) continue;
+            BitSet[] newBitSets = new BitSet[bitSets.length - 1];
+            System.arraycopy(bitSets, 0, newBitSets, 0, i);
+            System.arraycopy(bitSets, i + 1, newBitSets, i, bitSets.length - i - 1);
+            dirtyBitSets = newBitSets;
+            return;
+        }
+    }
+
+    /**
+     * Get the number of registered bitSets.
+     * @return The number.
+     */
+    public int getDirtyBitSetCount() {
+        return dirtyBitSets.length;
+    }
+}
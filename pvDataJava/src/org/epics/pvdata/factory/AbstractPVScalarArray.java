@@ -9,6 +9,8 @@ import java.nio.ByteBuffer;
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.pv.Array;
 import org.epics.pvdata.pv.DeserializableControl;
+import org.epics.pvdata.pv.DirectDeserializableControl;
+import org.epics.pvdata.pv.DirectSerializableControl;
 import org.epics.pvdata.pv.PVScalarArray;
 import org.epics.pvdata.pv.ScalarArray;
 import org.epics.pvdata.pv.SerializableControl;
@@ -50,6 +52,14 @@ public abstract class AbstractPVScalarArray extends AbstractPVArray implements P
 		else if (count != getArray().getMaximumCapacity())
 			throw new IllegalStateException("fixed array cannot be partially serialized");
 		
+		// large arrays can be sent directly (no copy), if supported
+		if (count > 0 && flusher instanceof DirectSerializableControl)
+		{
+			final ByteBuffer direct = getDirectBuffer(offset, count);
+			if (direct != null && ((DirectSerializableControl)flusher).directSerialize(buffer, direct))
+				return;
+		}
+
 		// write elements
 		final int elementSize = getElementSize();
 		if (elementSize <= 0)
@@ -85,6 +95,13 @@ public abstract class AbstractPVScalarArray extends AbstractPVArray implements P
 			// prepare array, if necessary
 			if (size > capacity)
 				setCapacity(size);
+			// large arrays can be received directly (no copy), if supported
+			if (size > 0 && control instanceof DirectDeserializableControl &&
+				directDeserialize(buffer, (DirectDeserializableControl)control, size))
+			{
+				length = size;
+				return;
+			}
 			// retrieve value from the buffer
 			final int elementSize = getElementSize();
 			if (elementSize <= 0)
@@ -108,6 +125,12 @@ public abstract class AbstractPVScalarArray extends AbstractPVArray implements P
 		// TODO null arrays (size == -1) not supported
 	}
     
+    private boolean directDeserialize(ByteBuffer buffer, DirectDeserializableControl control, int size)
+    {
+		final ByteBuffer direct = getDirectBuffer(0, size);
+		return (direct != null && control.directDeserialize(buffer, direct));
+    }
+    
     private static final int[] elementSizeLUT =
     {
 		1, // pvBoolean
@@ -129,6 +152,18 @@ public abstract class AbstractPVScalarArray extends AbstractPVArray implements P
     	return elementSizeLUT[getScalarArray().getElementType().ordinal()];
     }
 
+	/**
+	 * Get a (byte order independent) buffer view of array elements, without copying.
+	 * Used for direct (de)serialization, array capacity must be at least <code>offset + length</code>.
+	 * @param offset the offset of the first element.
+	 * @param length the number of elements.
+	 * @return buffer view of the elements, <code>null</code> if not supported.
+	 */
+	protected ByteBuffer getDirectBuffer(int offset, int length)
+	{
+		return null;
+	}
+
 	protected abstract int putToBuffer(ByteBuffer buffer, SerializableControl control, int offset, int length);
 	protected abstract int getFromBuffer(ByteBuffer buffer, DeserializableControl control, int offset, int length);
 }
@@ -59,6 +59,12 @@ public class BasePVByteArray extends AbstractPVScalarArray implements PVByteArra
 		return length;
 	}
 	
+    @Override
+	protected ByteBuffer getDirectBuffer(int offset, int length)
+	{
+		return ByteBuffer.wrap(value, offset, length);
+	}
+	
     @Override
 	protected int getFromBuffer(ByteBuffer buffer, DeserializableControl control, int offset, int length)
 	{
@@ -40,6 +40,10 @@ public class BasePVStructure extends AbstractPVField implements PVStructure
 {
     private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
     private PVField[] pvFields;
+    /**
+     * Field offset to PVField lookup table, lazily built (top-level structure only).
+     */
+    private volatile PVField[] offsetTable = null;
     
     private void setParentAndName() {
         String[] fieldNames = getStructure().getFieldNames();
@@ -53,6 +57,7 @@ public class BasePVStructure extends AbstractPVField implements PVStructure
             xxx.setData(fields[i],this,fieldNames[i]);
             if(xxx.getField().getType()==Type.structure) {
                 BasePVStructure yyy = (BasePVStructure)xxx;
+                yyy.offsetTable = null;
                 yyy.setParentAndName();
             }
         }
@@ -109,15 +114,39 @@ public class BasePVStructure extends AbstractPVField implements PVStructure
         if(fieldOffset<=getFieldOffset()) {
             return null;
         }
-        if(fieldOffset>getNextFieldOffset()) return null;
+        if(fieldOffset>=getNextFieldOffset()) return null;
+        return getOffsetTable()[fieldOffset];
+    }
+    
+    /**
+     * Get the field offset to PVField lookup table.
+     * The table is shared by all substructures, i.e. held by the top-level structure,
+     * so it is indexed by the field offset of the subfield.
+     * @return the lookup table.
+     */
+    PVField[] getOffsetTable() {
+        BasePVStructure pvTop = this;
+        while(pvTop.getParent() instanceof BasePVStructure) {
+            pvTop = (BasePVStructure)pvTop.getParent();
+        }
+        PVField[] table = pvTop.offsetTable;
+        if(table==null) {
+            table = new PVField[pvTop.getNextFieldOffset()];
+            pvTop.fillOffsetTable(table);
+            pvTop.offsetTable = table;
+        }
+        return table;
+    }
+    
+    private void fillOffsetTable(PVField[] table) {
+        table[getFieldOffset()] = this;
         for(PVField pvField: pvFields) {
-            if(pvField.getFieldOffset()==fieldOffset) return pvField;
-            if(pvField.getNextFieldOffset()<=fieldOffset) continue;
             if(pvField.getField().getType()==Type.structure) {
-                return ((PVStructure)pvField).getSubField(fieldOffset);
+                ((BasePVStructure)pvField).fillOffsetTable(table);
+            } else {
+                table[pvField.getFieldOffset()] = pvField;
             }
         }
-        throw new IllegalStateException("PVStructure.getSubField: Logic error");
     }
     /* (non-Javadoc)
      * @see org.epics.pvdata.pv.PVStructure#getStructure()
@@ -27,8 +27,9 @@ import org.epics.pvdata.pv.UnionArray;
 public class BaseStructure extends BaseField implements Structure {
     private static Convert convert = ConvertFactory.getConvert();
     private final String id;
-    private Field[] fields;
-    private String[] fieldNames;
+    private final Field[] fields;
+    private final String[] fieldNames;
+    private int hash;
     /**
      * Constructor for a structure field.
      * @param fieldNames The field names for the subfields
@@ -59,6 +60,9 @@ public class BaseStructure extends BaseField implements Structure {
     	if(fieldNames.length != fields.length)
     		throw new IllegalArgumentException("fieldNames has different length than fields");
     	
+    	// interned and shared, must not change with the caller's arrays
+    	fields = fields.clone();
+    	fieldNames = fieldNames.clone();
     	this.id = id;
     	this.fields = fields;
     	this.fieldNames = fieldNames;
@@ -90,32 +94,6 @@ public class BaseStructure extends BaseField implements Structure {
 	public String getID() {
 		return id;
 	}
-	/**
-     * Called by FieldFactory
-     * @param newFields new fields
-     * @param newFieldNames new names
-     */
-    void clone(Field[] fields,String[] fieldNames) {
-        this.fields = fields;
-        this.fieldNames = fieldNames;
-        int n = fieldNames.length;
-        for(int i=0; i<n; i++) {
-            if(fields[i].getType()==Type.structure) {
-                BaseStructure sub = (BaseStructure)fields[i];
-                String[] subNames = sub.getFieldNames();
-                Field[] subFields = sub.getFields();
-                int m = subNames.length;
-                String[] newNames = new String[m];
-                Field[] newFields = new Field[m];
-                for(int j=0; j<m; j++) {
-                    newNames[j] = subNames[j];
-                    newFields[j] = subFields[j];
-                }
-                sub.clone(newFields, newNames);
-            }
-        }
-        
-    }
     /* (non-Javadoc)
      * @see org.epics.pvdata.pv.Structure#getField(java.lang.String)
      */
@@ -239,9 +217,15 @@ public class BaseStructure extends BaseField implements Structure {
 	 */
 	@Override
 	public int hashCode() {
-		final int PRIME = 31;
-		return id.hashCode() + PRIME *
-			(PRIME * Arrays.hashCode(fieldNames) + Arrays.hashCode(fields));
+		// immutable, cache hash
+		int h = hash;
+		if (h == 0) {
+			final int PRIME = 31;
+			h = id.hashCode() + PRIME *
+				(PRIME * Arrays.hashCode(fieldNames) + Arrays.hashCode(fields));
+			hash = h;
+		}
+		return h;
 	}
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
@@ -253,6 +237,8 @@ public class BaseStructure extends BaseField implements Structure {
 		if (getClass() != obj.getClass())
 			return false;
 		final BaseStructure other = (BaseStructure) obj;
+		if (hashCode() != other.hashCode())
+			return false;
 		if (id == null) {
 			if (other.id != null)
 				return false;
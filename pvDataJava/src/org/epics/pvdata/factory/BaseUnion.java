@@ -25,7 +25,8 @@ public class BaseUnion extends BaseField implements Union {
     private static Convert convert = ConvertFactory.getConvert();
     private final String id;
     private final Field[] fields;
-    private String[] fieldNames;
+    private final String[] fieldNames;
+    private int hash;
 
     /**
 	 * Default unrestricted union (aka any type) ID.
@@ -72,6 +73,9 @@ public class BaseUnion extends BaseField implements Union {
     	if (fields.length == 0 && id != ANY_ID)
     		throw new IllegalArgumentException("no fields but id is different than " + ANY_ID);
         
+    	// interned and shared, must not change with the caller's arrays
+    	fields = fields.clone();
+    	fieldNames = fieldNames.clone();
     	this.id = id;
     	this.fields = fields;
     	this.fieldNames = fieldNames;
@@ -235,9 +239,15 @@ public class BaseUnion extends BaseField implements Union {
 	 */
 	@Override
 	public int hashCode() {
-		final int PRIME = 37;
-		return id.hashCode() + PRIME *
-			(PRIME * Arrays.hashCode(fieldNames) + Arrays.hashCode(fields));
+		// immutable, cache hash
+		int h = hash;
+		if (h == 0) {
+			final int PRIME = 37;
+			h = id.hashCode() + PRIME *
+				(PRIME * Arrays.hashCode(fieldNames) + Arrays.hashCode(fields));
+			hash = h;
+		}
+		return h;
 	}
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
@@ -249,6 +259,8 @@ public class BaseUnion extends BaseField implements Union {
 		if (getClass() != obj.getClass())
 			return false;
 		final BaseUnion other = (BaseUnion) obj;
+		if (hashCode() != other.hashCode())
+			return false;
 		if (id == null) {
 			if (other.id != null)
 				return false;
@@ -5,6 +5,8 @@
 package org.epics.pvdata.factory;
 
 import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.epics.pvdata.pv.BooleanArrayData;
@@ -91,17 +93,10 @@ public final class ConvertFactory {
 
         private static final PVDataCreate pvDataCreate
             = PVDataFactory.getPVDataCreate();
-        // The following are to prevent continually creation of new objects
-        private static final BooleanArrayData booleanArrayData = new BooleanArrayData();
-        private static final ByteArrayData byteArrayData = new ByteArrayData();
-        private static final ShortArrayData shortArrayData = new ShortArrayData();
-        private static final IntArrayData intArrayData = new IntArrayData();
-        private static final LongArrayData longArrayData = new LongArrayData();
-        private static final FloatArrayData floatArrayData = new FloatArrayData();
-        private static final DoubleArrayData doubleArrayData = new DoubleArrayData();
-        private static final StringArrayData stringArrayData = new StringArrayData();
-        private static final StructureArrayData structureArrayData = new StructureArrayData();
-        private static final UnionArrayData unionArrayData = new UnionArrayData();
+        // Copy plans by (from, to) structure, see copyStructure
+        private static final int MAX_COPY_PLANS = 1024;
+        private static final ConcurrentMap<StructurePair, CopyPlan> copyPlans
+            = new ConcurrentHashMap<StructurePair, CopyPlan>();
 
         // Guarantee that ImplementConvert can only be created via getConvert
         private ImplementConvert()
@@ -540,15 +535,14 @@ public final class ConvertFactory {
                     && fromElementType == ScalarType.pvBoolean) {
                 PVBooleanArray pvfrom = (PVBooleanArray) from;
                 PVBooleanArray pvto = (PVBooleanArray) to;
+                BooleanArrayData booleanArrayData = new BooleanArrayData();
                 outer: while (count > 0) {
                     int num = 0;
                     boolean[] data = null;
                     int fromOffset = 0;
-                    synchronized (booleanArrayData) {
-                        num = pvfrom.get(offset, count, booleanArrayData);
-                        data = booleanArrayData.data;
-                        fromOffset = booleanArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, count, booleanArrayData);
+                    data = booleanArrayData.data;
+                    fromOffset = booleanArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -566,15 +560,14 @@ public final class ConvertFactory {
                     && fromElementType == ScalarType.pvString) {
                 PVStringArray pvfrom = (PVStringArray) from;
                 PVStringArray pvto = (PVStringArray) to;
+                StringArrayData stringArrayData = new StringArrayData();
                 outer: while (count > 0) {
                     int num = 0;
                     String[] data = null;
                     int fromOffset = 0;
-                    synchronized (stringArrayData) {
-                        num = pvfrom.get(offset, count, stringArrayData);
-                        data = stringArrayData.data;
-                        fromOffset = stringArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, count, stringArrayData);
+                    data = stringArrayData.data;
+                    fromOffset = stringArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -605,15 +598,14 @@ public final class ConvertFactory {
                 }
             } else if (fromElementType == ScalarType.pvString) {
                 PVStringArray pvfrom = (PVStringArray) from;
+                StringArrayData stringArrayData = new StringArrayData();
                 outer: while (count > 0) {
                     int num = 0;
                     String[] data = null;
                     int fromOffset = 0;
-                    synchronized (stringArrayData) {
-                        num = pvfrom.get(offset, count, stringArrayData);
-                        data = stringArrayData.data;
-                        fromOffset = stringArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, count, stringArrayData);
+                    data = stringArrayData.data;
+                    fromOffset = stringArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -720,6 +712,13 @@ public final class ConvertFactory {
             }
             if (from == to)
                 return;
+            if (from instanceof BasePVStructure && to instanceof BasePVStructure) {
+                CopyPlan plan = getCopyPlan(from.getStructure(), to.getStructure());
+                if (plan != null) {
+                    plan.copy(this, (BasePVStructure) from, (BasePVStructure) to);
+                    return;
+                }
+            }
             PVField[] fromDatas = from.getPVFields();
             PVField[] toDatas = to.getPVFields();
             if (fromDatas.length != toDatas.length) {
@@ -785,6 +784,254 @@ public final class ConvertFactory {
             }
         }
 
+        /**
+         * Get the copy plan between the two structures, creating it the first time.
+         * @param from the source structure.
+         * @param to the destination structure.
+         * @return the plan, or null if the structures are not compatible.
+         */
+        private static CopyPlan getCopyPlan(Structure from, Structure to) {
+            StructurePair key = new StructurePair(from, to);
+            CopyPlan plan = copyPlans.get(key);
+            if (plan == null) {
+                plan = CopyPlan.create(from, to);
+                if (plan == null)
+                    return null;
+                if (copyPlans.size() >= MAX_COPY_PLANS)
+                    copyPlans.clear();
+                copyPlans.putIfAbsent(key, plan);
+            }
+            return plan;
+        }
+
+        /**
+         * Identity key for the copy plans: structures are immutable,
+         * and comparing them by value would cost as much as the copy.
+         */
+        private static final class StructurePair {
+            private final Structure from;
+            private final Structure to;
+
+            StructurePair(Structure from, Structure to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (!(obj instanceof StructurePair))
+                    return false;
+                StructurePair other = (StructurePair) obj;
+                return from == other.from && to == other.to;
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * System.identityHashCode(from) + System.identityHashCode(to);
+            }
+        }
+
+        /**
+         * Flattened copyStructure between two compatible structures.
+         * The subfields are visited in field offset order, so the recursion
+         * and the type checks of copyStructure are resolved once when the plan
+         * is created, and each subfield is found through the offset table
+         * of the top-level structure.
+         */
+        private static final class CopyPlan {
+            private static final byte SCALAR = 0;
+            private static final byte BOOLEAN = 1;
+            private static final byte BYTE = 2;
+            private static final byte SHORT = 3;
+            private static final byte INT = 4;
+            private static final byte LONG = 5;
+            private static final byte FLOAT = 6;
+            private static final byte DOUBLE = 7;
+            private static final byte STRING = 8;
+            private static final byte SCALAR_ARRAY = 9;
+            private static final byte STRUCTURE = 10;
+            private static final byte STRUCTURE_ARRAY = 11;
+            private static final byte UNION = 12;
+            private static final byte UNION_ARRAY = 13;
+
+            // The offset of the subfield relative to the structure, the same for both
+            private final int[] offsets;
+            private final byte[] kinds;
+            // For a structure, the number of steps for its subfields
+            private final int[] sizes;
+
+            private CopyPlan(int[] offsets, byte[] kinds, int[] sizes) {
+                this.offsets = offsets;
+                this.kinds = kinds;
+                this.sizes = sizes;
+            }
+
+            static CopyPlan create(Structure from, Structure to) {
+                int nSteps = countSteps(from, to);
+                if (nSteps < 0)
+                    return null;
+                CopyPlan plan = new CopyPlan(new int[nSteps], new byte[nSteps], new int[nSteps]);
+                plan.fill(from, to, 0, 1);
+                return plan;
+            }
+
+            // Number of steps needed to copy the subfields, or -1 if not compatible
+            private static int countSteps(Structure from, Structure to) {
+                Field[] fromFields = from.getFields();
+                Field[] toFields = to.getFields();
+                if (fromFields.length != toFields.length)
+                    return -1;
+                int nSteps = 0;
+                for (int i = 0; i < fromFields.length; i++) {
+                    Type type = fromFields[i].getType();
+                    if (type != toFields[i].getType())
+                        return -1;
+                    nSteps++;
+                    if (type == Type.structure) {
+                        int n = countSteps((Structure) fromFields[i], (Structure) toFields[i]);
+                        if (n < 0)
+                            return -1;
+                        nSteps += n;
+                    }
+                }
+                return nSteps;
+            }
+
+            // Returns the next step and sets the next offset in offsets[step]
+            private int fill(Structure from, Structure to, int step, int offset) {
+                Field[] fromFields = from.getFields();
+                Field[] toFields = to.getFields();
+                for (int i = 0; i < fromFields.length; i++) {
+                    int current = step;
+                    offsets[current] = offset;
+                    step++;
+                    offset++;
+                    switch (fromFields[i].getType()) {
+                    case scalar:
+                        kinds[current] = scalarKind((Scalar) fromFields[i], (Scalar) toFields[i]);
+                        break;
+                    case scalarArray:
+                        kinds[current] = SCALAR_ARRAY;
+                        break;
+                    case structure: {
+                        kinds[current] = STRUCTURE;
+                        int next = fill((Structure) fromFields[i], (Structure) toFields[i], step, offset);
+                        offset += countFields((Structure) fromFields[i]);
+                        sizes[current] = next - step;
+                        step = next;
+                        break;
+                    }
+                    case structureArray:
+                        kinds[current] = STRUCTURE_ARRAY;
+                        break;
+                    case union:
+                        kinds[current] = UNION;
+                        break;
+                    case unionArray:
+                        kinds[current] = UNION_ARRAY;
+                        break;
+                    }
+                }
+                return step;
+            }
+
+            private static int countFields(Structure structure) {
+                int n = 0;
+                for (Field field : structure.getFields()) {
+                    n++;
+                    if (field.getType() == Type.structure)
+                        n += countFields((Structure) field);
+                }
+                return n;
+            }
+
+            private static byte scalarKind(Scalar from, Scalar to) {
+                ScalarType scalarType = from.getScalarType();
+                if (scalarType != to.getScalarType())
+                    return SCALAR;
+                switch (scalarType) {
+                case pvBoolean: return BOOLEAN;
+                case pvByte: return BYTE;
+                case pvShort: return SHORT;
+                case pvInt: return INT;
+                case pvLong: return LONG;
+                case pvFloat: return FLOAT;
+                case pvDouble: return DOUBLE;
+                case pvString: return STRING;
+                default: return SCALAR;
+                }
+            }
+
+            void copy(ImplementConvert convert, BasePVStructure from, BasePVStructure to) {
+                PVField[] fromTable = from.getOffsetTable();
+                PVField[] toTable = to.getOffsetTable();
+                int fromBase = from.getFieldOffset();
+                int toBase = to.getFieldOffset();
+                for (int step = 0; step < kinds.length; step++) {
+                    PVField fromData = fromTable[fromBase + offsets[step]];
+                    PVField toData = toTable[toBase + offsets[step]];
+                    if (kinds[step] <= STRING && toData.isImmutable()) {
+                        convert.copyScalar((PVScalar) fromData, (PVScalar) toData);
+                        continue;
+                    }
+                    switch (kinds[step]) {
+                    case SCALAR:
+                        convert.copyScalar((PVScalar) fromData, (PVScalar) toData);
+                        break;
+                    case BOOLEAN:
+                        ((PVBoolean) toData).put(((PVBoolean) fromData).get());
+                        break;
+                    case BYTE:
+                        ((PVByte) toData).put(((PVByte) fromData).get());
+                        break;
+                    case SHORT:
+                        ((PVShort) toData).put(((PVShort) fromData).get());
+                        break;
+                    case INT:
+                        ((PVInt) toData).put(((PVInt) fromData).get());
+                        break;
+                    case LONG:
+                        ((PVLong) toData).put(((PVLong) fromData).get());
+                        break;
+                    case FLOAT:
+                        ((PVFloat) toData).put(((PVFloat) fromData).get());
+                        break;
+                    case DOUBLE:
+                        ((PVDouble) toData).put(((PVDouble) fromData).get());
+                        break;
+                    case STRING:
+                        ((PVString) toData).put(((PVString) fromData).get());
+                        break;
+                    case SCALAR_ARRAY: {
+                        PVScalarArray fromArray = (PVScalarArray) fromData;
+                        PVScalarArray toArray = (PVScalarArray) toData;
+                        int length = convert.copyScalarArray(fromArray, 0, toArray, 0,
+                                fromArray.getLength());
+                        if (toArray.getLength() != length)
+                            toArray.setLength(length);
+                        break;
+                    }
+                    case STRUCTURE:
+                        // The subfields follow: only an immutable structure needs the full check
+                        if (toData.isImmutable()) {
+                            convert.copyStructure((PVStructure) fromData, (PVStructure) toData);
+                            step += sizes[step];
+                        }
+                        break;
+                    case STRUCTURE_ARRAY:
+                        convert.copyStructureArray((PVStructureArray) fromData, (PVStructureArray) toData);
+                        break;
+                    case UNION:
+                        convert.copyUnion((PVUnion) fromData, (PVUnion) toData);
+                        break;
+                    case UNION_ARRAY:
+                        convert.copyUnionArray((PVUnionArray) fromData, (PVUnionArray) toData);
+                        break;
+                    }
+                }
+            }
+        }
+
 		/*
          * (non-Javadoc)
          * 
@@ -898,15 +1145,12 @@ public final class ConvertFactory {
                 to.setCapacity(count+toOffset);
             
             PVStructure[] fromArray = null;
-            synchronized (structureArrayData) {
-                from.get(0, count+fromOffset, structureArrayData);
-                fromArray = structureArrayData.data;
-            }
+            StructureArrayData structureArrayData = new StructureArrayData();
+            from.get(0, count+fromOffset, structureArrayData);
+            fromArray = structureArrayData.data;
             PVStructure[] toArray = null;
-            synchronized (structureArrayData) {
-                to.get(0, count+toOffset, structureArrayData);
-                toArray = structureArrayData.data;
-            }
+            to.get(0, count+toOffset, structureArrayData);
+            toArray = structureArrayData.data;
             for (int i = 0; i < count; i++) {
                 if (fromArray[i+fromOffset] == null) {
                     toArray[i+toOffset] = null;
@@ -962,15 +1206,12 @@ public final class ConvertFactory {
             if (to.getCapacity() < count + toOffset)
                 to.setCapacity(count+toOffset);
             PVUnion[] fromArray = null;
-            synchronized (unionArrayData) {
-                from.get(0, count+fromOffset, unionArrayData);
-                fromArray = unionArrayData.data;
-            }
+            UnionArrayData unionArrayData = new UnionArrayData();
+            from.get(0, count+fromOffset, unionArrayData);
+            fromArray = unionArrayData.data;
             PVUnion[] toArray = null;
-            synchronized (unionArrayData) {
-                to.get(0, count+ toOffset, unionArrayData);
-                toArray = unionArrayData.data;
-            }
+            to.get(0, count+ toOffset, unionArrayData);
+            toArray = unionArrayData.data;
             for (int i = 0; i < count; i++) {
                 if (fromArray[i+ fromOffset] == null) {
                     toArray[i+toOffset] = null;
@@ -2596,15 +2837,14 @@ public final class ConvertFactory {
             case pvByte: 
             {
                 PVByteArray pvdata = (PVByteArray) pv;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvdata.get(offset, len, byteArrayData);
-                        dataArray = byteArrayData.data;
-                        dataOffset = byteArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, byteArrayData);
+                    dataArray = byteArrayData.data;
+                    dataOffset = byteArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -2675,15 +2915,14 @@ public final class ConvertFactory {
             case pvUByte:
             {
                 PVUByteArray pvdata = (PVUByteArray) pv;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvdata.get(offset, len, byteArrayData);
-                        dataArray = byteArrayData.data;
-                        dataOffset = byteArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, byteArrayData);
+                    dataArray = byteArrayData.data;
+                    dataOffset = byteArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -3180,15 +3419,14 @@ public final class ConvertFactory {
             case pvShort:
             {
                 PVShortArray pvdata = (PVShortArray) pv;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvdata.get(offset, len, shortArrayData);
-                        dataArray = shortArrayData.data;
-                        dataOffset = shortArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, shortArrayData);
+                    dataArray = shortArrayData.data;
+                    dataOffset = shortArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -3263,15 +3501,14 @@ public final class ConvertFactory {
             case pvUShort:
             {
                 PVUShortArray pvdata = (PVUShortArray) pv;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvdata.get(offset, len, shortArrayData);
-                        dataArray = shortArrayData.data;
-                        dataOffset = shortArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, shortArrayData);
+                    dataArray = shortArrayData.data;
+                    dataOffset = shortArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -3773,15 +4010,14 @@ public final class ConvertFactory {
             case pvInt:
             {
                 PVIntArray pvdata = (PVIntArray) pv;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvdata.get(offset, len, intArrayData);
-                        dataArray = intArrayData.data;
-                        dataOffset = intArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, intArrayData);
+                    dataArray = intArrayData.data;
+                    dataOffset = intArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -3858,15 +4094,14 @@ public final class ConvertFactory {
             case pvUInt:
             {
                 PVUIntArray pvdata = (PVUIntArray) pv;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvdata.get(offset, len, intArrayData);
-                        dataArray = intArrayData.data;
-                        dataOffset = intArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, intArrayData);
+                    dataArray = intArrayData.data;
+                    dataOffset = intArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -4368,15 +4603,14 @@ public final class ConvertFactory {
             case pvLong:
             {
                 PVLongArray pvdata = (PVLongArray) pv;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvdata.get(offset, len, longArrayData);
-                        dataArray = longArrayData.data;
-                        dataOffset = longArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, longArrayData);
+                    dataArray = longArrayData.data;
+                    dataOffset = longArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -4457,15 +4691,14 @@ public final class ConvertFactory {
             case pvULong:
             {
                 PVULongArray pvdata = (PVULongArray) pv;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvdata.get(offset, len, longArrayData);
-                        dataArray = longArrayData.data;
-                        dataOffset = longArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, longArrayData);
+                    dataArray = longArrayData.data;
+                    dataOffset = longArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -4859,15 +5092,14 @@ public final class ConvertFactory {
             }
             case pvFloat: {
                 PVFloatArray pvdata = (PVFloatArray) pv;
+                FloatArrayData floatArrayData = new FloatArrayData();
                 while (len > 0) {
                     int num = 0;
                     float[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (floatArrayData) {
-                        num = pvdata.get(offset, len, floatArrayData);
-                        dataArray = floatArrayData.data;
-                        dataOffset = floatArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, floatArrayData);
+                    dataArray = floatArrayData.data;
+                    dataOffset = floatArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -5262,15 +5494,14 @@ public final class ConvertFactory {
             }
             case pvDouble: {
                 PVDoubleArray pvdata = (PVDoubleArray) pv;
+                DoubleArrayData doubleArrayData = new DoubleArrayData();
                 while (len > 0) {
                     int num = 0;
                     double[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (doubleArrayData) {
-                        num = pvdata.get(offset, len, doubleArrayData);
-                        dataArray = doubleArrayData.data;
-                        dataOffset = doubleArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, doubleArrayData);
+                    dataArray = doubleArrayData.data;
+                    dataOffset = doubleArrayData.offset;
                     if (num <= 0)
                         break;
                     System.arraycopy(dataArray, dataOffset, to, toOffset, num);
@@ -5663,15 +5894,14 @@ public final class ConvertFactory {
                 break;
             case pvString: {
                 PVStringArray pvdata = (PVStringArray) pv;
+                StringArrayData stringArrayData = new StringArrayData();
                 while (num > 0) {
                     int numnow = 0;
                     String[] dataArray = null;
                     int dataOffset = 0;
-                    synchronized (stringArrayData) {
-                        numnow = pvdata.get(offset, num, stringArrayData);
-                        dataArray = stringArrayData.data;
-                        dataOffset = stringArrayData.offset;
-                    }
+                    numnow = pvdata.get(offset, num, stringArrayData);
+                    dataArray = stringArrayData.data;
+                    dataOffset = stringArrayData.offset;
                     if (numnow <= 0) {
                         for (int i = 0; i < num; i++)
                             to[toOffset + i] = "bad pv";
@@ -5852,15 +6082,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                BooleanArrayData booleanArrayData = new BooleanArrayData();
                 while (len > 0) {
                     int num = 0;
                     boolean[] data = null;
                     int fromOffset = 0;
-                    synchronized (booleanArrayData) {
-                        num = pvdata.get(offset, len, booleanArrayData);
-                        data = booleanArrayData.data;
-                        fromOffset = booleanArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, booleanArrayData);
+                    data = booleanArrayData.data;
+                    fromOffset = booleanArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -5881,15 +6110,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] data = null;
                     int fromOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvdata.get(offset, len, byteArrayData);
-                        data = byteArrayData.data;
-                        fromOffset = byteArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, byteArrayData);
+                    data = byteArrayData.data;
+                    fromOffset = byteArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -5911,15 +6139,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] data = null;
                     int fromOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvdata.get(offset, len, shortArrayData);
-                        data = shortArrayData.data;
-                        fromOffset = shortArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, shortArrayData);
+                    data = shortArrayData.data;
+                    fromOffset = shortArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -5940,15 +6167,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] data = null;
                     int fromOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvdata.get(offset, len, intArrayData);
-                        data = intArrayData.data;
-                        fromOffset = intArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, intArrayData);
+                    data = intArrayData.data;
+                    fromOffset = intArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -5969,15 +6195,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] data = null;
                     int fromOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvdata.get(offset, len, longArrayData);
-                        data = longArrayData.data;
-                        fromOffset = longArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, longArrayData);
+                    data = longArrayData.data;
+                    fromOffset = longArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -5998,15 +6223,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] data = null;
                     int fromOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvdata.get(offset, len, byteArrayData);
-                        data = byteArrayData.data;
-                        fromOffset = byteArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, byteArrayData);
+                    data = byteArrayData.data;
+                    fromOffset = byteArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6028,15 +6252,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] data = null;
                     int fromOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvdata.get(offset, len, shortArrayData);
-                        data = shortArrayData.data;
-                        fromOffset = shortArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, shortArrayData);
+                    data = shortArrayData.data;
+                    fromOffset = shortArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6058,15 +6281,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] data = null;
                     int fromOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvdata.get(offset, len, intArrayData);
-                        data = intArrayData.data;
-                        fromOffset = intArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, intArrayData);
+                    data = intArrayData.data;
+                    fromOffset = intArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6088,15 +6310,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] data = null;
                     int fromOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvdata.get(offset, len, longArrayData);
-                        data = longArrayData.data;
-                        fromOffset = longArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, longArrayData);
+                    data = longArrayData.data;
+                    fromOffset = longArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6118,15 +6339,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                FloatArrayData floatArrayData = new FloatArrayData();
                 while (len > 0) {
                     int num = 0;
                     float[] data = null;
                     int fromOffset = 0;
-                    synchronized (floatArrayData) {
-                        num = pvdata.get(offset, len, floatArrayData);
-                        data = floatArrayData.data;
-                        fromOffset = floatArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, floatArrayData);
+                    data = floatArrayData.data;
+                    fromOffset = floatArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6148,15 +6368,14 @@ public final class ConvertFactory {
                 int len = pvdata.getLength();
                 int offset = 0;
                 boolean firstElement = true;
+                DoubleArrayData doubleArrayData = new DoubleArrayData();
                 while (len > 0) {
                     int num = 0;
                     double[] data = null;
                     int fromOffset = 0;
-                    synchronized (doubleArrayData) {
-                        num = pvdata.get(offset, len, doubleArrayData);
-                        data = doubleArrayData.data;
-                        fromOffset = doubleArrayData.offset;
-                    }
+                    num = pvdata.get(offset, len, doubleArrayData);
+                    data = doubleArrayData.data;
+                    fromOffset = doubleArrayData.offset;
                     for (int i = 0; i < num; i++) {
                         if (!firstElement) {
                             builder.append(',');
@@ -6243,10 +6462,9 @@ public final class ConvertFactory {
                 PVBooleanArray pvfrom = (PVBooleanArray) from;
                 PVBooleanArray pvto = (PVBooleanArray) to;
                 boolean[] booleanArray = null;
-                synchronized (booleanArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), booleanArrayData);
-                    booleanArray = booleanArrayData.data;
-                }
+                BooleanArrayData booleanArrayData = new BooleanArrayData();
+                pvfrom.get(0, pvfrom.getLength(), booleanArrayData);
+                booleanArray = booleanArrayData.data;
                 pvto.shareData(booleanArray);
 
                 break;
@@ -6255,10 +6473,9 @@ public final class ConvertFactory {
                 PVByteArray pvfrom = (PVByteArray) from;
                 PVByteArray pvto = (PVByteArray) to;
                 byte[] byteArray = null;
-                synchronized (byteArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), byteArrayData);
-                    byteArray = byteArrayData.data;
-                }
+                ByteArrayData byteArrayData = new ByteArrayData();
+                pvfrom.get(0, pvfrom.getLength(), byteArrayData);
+                byteArray = byteArrayData.data;
                 pvto.shareData(byteArray);
                 break;
             }
@@ -6266,10 +6483,9 @@ public final class ConvertFactory {
                 PVShortArray pvfrom = (PVShortArray) from;
                 PVShortArray pvto = (PVShortArray) to;
                 short[] shortArray = null;
-                synchronized (shortArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), shortArrayData);
-                    shortArray = shortArrayData.data;
-                }
+                ShortArrayData shortArrayData = new ShortArrayData();
+                pvfrom.get(0, pvfrom.getLength(), shortArrayData);
+                shortArray = shortArrayData.data;
                 pvto.shareData(shortArray);
                 break;
             }
@@ -6277,10 +6493,9 @@ public final class ConvertFactory {
                 PVIntArray pvfrom = (PVIntArray) from;
                 PVIntArray pvto = (PVIntArray) to;
                 int[] intArray = null;
-                synchronized (intArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), intArrayData);
-                    intArray = intArrayData.data;
-                }
+                IntArrayData intArrayData = new IntArrayData();
+                pvfrom.get(0, pvfrom.getLength(), intArrayData);
+                intArray = intArrayData.data;
                 pvto.shareData(intArray);
                 break;
             }
@@ -6288,10 +6503,9 @@ public final class ConvertFactory {
                 PVLongArray pvfrom = (PVLongArray) from;
                 PVLongArray pvto = (PVLongArray) to;
                 long[] longArray = null;
-                synchronized (longArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), longArrayData);
-                    longArray = longArrayData.data;
-                }
+                LongArrayData longArrayData = new LongArrayData();
+                pvfrom.get(0, pvfrom.getLength(), longArrayData);
+                longArray = longArrayData.data;
                 pvto.shareData(longArray);
                 break;
             }
@@ -6299,10 +6513,9 @@ public final class ConvertFactory {
                 PVUByteArray pvfrom = (PVUByteArray) from;
                 PVUByteArray pvto = (PVUByteArray) to;
                 byte[] byteArray = null;
-                synchronized (byteArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), byteArrayData);
-                    byteArray = byteArrayData.data;
-                }
+                ByteArrayData byteArrayData = new ByteArrayData();
+                pvfrom.get(0, pvfrom.getLength(), byteArrayData);
+                byteArray = byteArrayData.data;
                 pvto.shareData(byteArray);
                 break;
             }
@@ -6310,10 +6523,9 @@ public final class ConvertFactory {
                 PVUShortArray pvfrom = (PVUShortArray) from;
                 PVUShortArray pvto = (PVUShortArray) to;
                 short[] shortArray = null;
-                synchronized (shortArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), shortArrayData);
-                    shortArray = shortArrayData.data;
-                }
+                ShortArrayData shortArrayData = new ShortArrayData();
+                pvfrom.get(0, pvfrom.getLength(), shortArrayData);
+                shortArray = shortArrayData.data;
                 pvto.shareData(shortArray);
                 break;
             }
@@ -6321,10 +6533,9 @@ public final class ConvertFactory {
                 PVUIntArray pvfrom = (PVUIntArray) from;
                 PVUIntArray pvto = (PVUIntArray) to;
                 int[] intArray = null;
-                synchronized (intArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), intArrayData);
-                    intArray = intArrayData.data;
-                }
+                IntArrayData intArrayData = new IntArrayData();
+                pvfrom.get(0, pvfrom.getLength(), intArrayData);
+                intArray = intArrayData.data;
                 pvto.shareData(intArray);
                 break;
             }
@@ -6332,10 +6543,9 @@ public final class ConvertFactory {
                 PVULongArray pvfrom = (PVULongArray) from;
                 PVULongArray pvto = (PVULongArray) to;
                 long[] longArray = null;
-                synchronized (longArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), longArrayData);
-                    longArray = longArrayData.data;
-                }
+                LongArrayData longArrayData = new LongArrayData();
+                pvfrom.get(0, pvfrom.getLength(), longArrayData);
+                longArray = longArrayData.data;
                 pvto.shareData(longArray);
                 break;
             }
@@ -6343,10 +6553,9 @@ public final class ConvertFactory {
                 PVFloatArray pvfrom = (PVFloatArray) from;
                 PVFloatArray pvto = (PVFloatArray) to;
                 float[] floatArray = null;
-                synchronized (floatArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), floatArrayData);
-                    floatArray = floatArrayData.data;
-                }
+                FloatArrayData floatArrayData = new FloatArrayData();
+                pvfrom.get(0, pvfrom.getLength(), floatArrayData);
+                floatArray = floatArrayData.data;
                 pvto.shareData(floatArray);
                 break;
             }
@@ -6354,10 +6563,9 @@ public final class ConvertFactory {
                 PVDoubleArray pvfrom = (PVDoubleArray) from;
                 PVDoubleArray pvto = (PVDoubleArray) to;
                 double[] doubleArray = null;
-                synchronized (doubleArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), doubleArrayData);
-                    doubleArray = doubleArrayData.data;
-                }
+                DoubleArrayData doubleArrayData = new DoubleArrayData();
+                pvfrom.get(0, pvfrom.getLength(), doubleArrayData);
+                doubleArray = doubleArrayData.data;
                 pvto.shareData(doubleArray);
                 break;
             }
@@ -6365,10 +6573,9 @@ public final class ConvertFactory {
                 PVStringArray pvfrom = (PVStringArray) from;
                 PVStringArray pvto = (PVStringArray) to;
                 String[] stringArray = null;
-                synchronized (stringArrayData) {
-                    pvfrom.get(0, pvfrom.getLength(), stringArrayData);
-                    stringArray = stringArrayData.data;
-                }
+                StringArrayData stringArrayData = new StringArrayData();
+                pvfrom.get(0, pvfrom.getLength(), stringArrayData);
+                stringArray = stringArrayData.data;
                 pvto.shareData(stringArray);
                 break;
             }
@@ -6388,15 +6595,14 @@ public final class ConvertFactory {
                 throw new NumberFormatException("copyNumericArray not valid for element type pvString");
             case pvByte: {
                 PVByteArray pvfrom = (PVByteArray) from;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] data = null;
                     int dataOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvfrom.get(offset, len, byteArrayData);
-                        data = byteArrayData.data;
-                        dataOffset = byteArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, byteArrayData);
+                    data = byteArrayData.data;
+                    dataOffset = byteArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6415,15 +6621,14 @@ public final class ConvertFactory {
             }
             case pvShort: {
                 PVShortArray pvfrom = (PVShortArray) from;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] data = null;
                     int dataOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvfrom.get(offset, len, shortArrayData);
-                        data = shortArrayData.data;
-                        dataOffset = shortArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, shortArrayData);
+                    data = shortArrayData.data;
+                    dataOffset = shortArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6442,15 +6647,14 @@ public final class ConvertFactory {
             }
             case pvInt: {
                 PVIntArray pvfrom = (PVIntArray) from;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] data = null;
                     int dataOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvfrom.get(offset, len, intArrayData);
-                        data = intArrayData.data;
-                        dataOffset = intArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, intArrayData);
+                    data = intArrayData.data;
+                    dataOffset = intArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6469,15 +6673,14 @@ public final class ConvertFactory {
             }
             case pvLong: {
                 PVLongArray pvfrom = (PVLongArray) from;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] data = null;
                     int dataOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvfrom.get(offset, len, longArrayData);
-                        data = longArrayData.data;
-                        dataOffset = longArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, longArrayData);
+                    data = longArrayData.data;
+                    dataOffset = longArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6496,15 +6699,14 @@ public final class ConvertFactory {
             }
             case pvUByte: {
                 PVUByteArray pvfrom = (PVUByteArray) from;
+                ByteArrayData byteArrayData = new ByteArrayData();
                 while (len > 0) {
                     int num = 0;
                     byte[] data = null;
                     int dataOffset = 0;
-                    synchronized (byteArrayData) {
-                        num = pvfrom.get(offset, len, byteArrayData);
-                        data = byteArrayData.data;
-                        dataOffset = byteArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, byteArrayData);
+                    data = byteArrayData.data;
+                    dataOffset = byteArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6523,15 +6725,14 @@ public final class ConvertFactory {
             }
             case pvUShort: {
                 PVUShortArray pvfrom = (PVUShortArray) from;
+                ShortArrayData shortArrayData = new ShortArrayData();
                 while (len > 0) {
                     int num = 0;
                     short[] data = null;
                     int dataOffset = 0;
-                    synchronized (shortArrayData) {
-                        num = pvfrom.get(offset, len, shortArrayData);
-                        data = shortArrayData.data;
-                        dataOffset = shortArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, shortArrayData);
+                    data = shortArrayData.data;
+                    dataOffset = shortArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6550,15 +6751,14 @@ public final class ConvertFactory {
             }
             case pvUInt: {
                 PVUIntArray pvfrom = (PVUIntArray) from;
+                IntArrayData intArrayData = new IntArrayData();
                 while (len > 0) {
                     int num = 0;
                     int[] data = null;
                     int dataOffset = 0;
-                    synchronized (intArrayData) {
-                        num = pvfrom.get(offset, len, intArrayData);
-                        data = intArrayData.data;
-                        dataOffset = intArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, intArrayData);
+                    data = intArrayData.data;
+                    dataOffset = intArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6577,15 +6777,14 @@ public final class ConvertFactory {
             }
             case pvULong: {
                 PVULongArray pvfrom = (PVULongArray) from;
+                LongArrayData longArrayData = new LongArrayData();
                 while (len > 0) {
                     int num = 0;
                     long[] data = null;
                     int dataOffset = 0;
-                    synchronized (longArrayData) {
-                        num = pvfrom.get(offset, len, longArrayData);
-                        data = longArrayData.data;
-                        dataOffset = longArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, longArrayData);
+                    data = longArrayData.data;
+                    dataOffset = longArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6604,15 +6803,14 @@ public final class ConvertFactory {
             }
             case pvFloat: {
                 PVFloatArray pvfrom = (PVFloatArray) from;
+                FloatArrayData floatArrayData = new FloatArrayData();
                 while (len > 0) {
                     int num = 0;
                     float[] data = null;
                     int dataOffset = 0;
-                    synchronized (floatArrayData) {
-                        num = pvfrom.get(offset, len, floatArrayData);
-                        data = floatArrayData.data;
-                        dataOffset = floatArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, floatArrayData);
+                    data = floatArrayData.data;
+                    dataOffset = floatArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
@@ -6631,15 +6829,14 @@ public final class ConvertFactory {
             }
             case pvDouble: {
                 PVDoubleArray pvfrom = (PVDoubleArray) from;
+                DoubleArrayData doubleArrayData = new DoubleArrayData();
                 while (len > 0) {
                     int num = 0;
                     double[] data = null;
                     int dataOffset = 0;
-                    synchronized (doubleArrayData) {
-                        num = pvfrom.get(offset, len, doubleArrayData);
-                        data = doubleArrayData.data;
-                        dataOffset = doubleArrayData.offset;
-                    }
+                    num = pvfrom.get(offset, len, doubleArrayData);
+                    data = doubleArrayData.data;
+                    dataOffset = doubleArrayData.offset;
                     if (num <= 0)
                         break;
                     while (num > 0) {
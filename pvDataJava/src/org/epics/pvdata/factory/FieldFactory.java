@@ -4,7 +4,10 @@
  */
 package org.epics.pvdata.factory;
 
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.epics.pvdata.misc.SerializeHelper;
 import org.epics.pvdata.pv.BoundedString;
@@ -37,6 +40,32 @@ public final class FieldFactory {
     private static ScalarArray[] scalarArrays = null;
     private static Union variantUnion = null;
     private static UnionArray variantUnionArray = null;
+
+    /**
+     * Interned (non-scalar) introspection interfaces, weak (unused ones can be garbage collected).
+     */
+    private static final Map<Field, WeakReference<Field>> internedFields =
+    		new WeakHashMap<Field, WeakReference<Field>>();
+
+    /**
+     * Get canonical instance of structurally equal introspection interfaces.
+     * @param field the introspection interface.
+     * @return already existing equal instance or <code>field</code>, if none.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Field> T intern(T field) {
+    	synchronized (internedFields) {
+    		final WeakReference<Field> ref = internedFields.get(field);
+    		if (ref != null) {
+    			final Field existing = ref.get();
+    			// equal fields are of the same class
+    			if (existing != null)
+    				return (T)existing;
+    		}
+    		internedFields.put(field, new WeakReference<Field>(field));
+    		return field;
+    	}
+    }
     /**
      * Get the FieldCreate interface.
      * @return The interface for creating introspection objects.
@@ -50,8 +79,8 @@ public final class FieldFactory {
             for(int i = 0; i<num; i++) scalars[i] = new BaseScalar(scalarTypes[i]);
             scalarArrays = new ScalarArray[num];
             for(int i = 0; i<num; i++) scalarArrays[i] = new BaseScalarArray(scalarTypes[i]);
-            variantUnion = new BaseUnion();
-            variantUnionArray = new BaseUnionArray(variantUnion);
+            variantUnion = intern(new BaseUnion());
+            variantUnionArray = intern(new BaseUnionArray(variantUnion));
         }
         return singleImplementation;
     }
@@ -78,7 +107,7 @@ public final class FieldFactory {
          */
         @Override
 		public BoundedString createBoundedString(int maxLength) {
-			return new BaseBoundedString(maxLength);
+			return intern(new BaseBoundedString(maxLength));
 		}
 		/* (non-Javadoc)
          * @see org.epics.pvdata.pv.FieldCreate#createArray(java.lang.String, org.epics.pvdata.pv.ScalarType)
@@ -93,14 +122,14 @@ public final class FieldFactory {
          */
         @Override
 		public ScalarArray createFixedScalarArray(ScalarType elementType, int size) {
-        	return new BaseScalarFixedArray(elementType, size);
+        	return intern(new BaseScalarFixedArray(elementType, size));
 		}
 		/* (non-Javadoc)
 		 * @see org.epics.pvdata.pv.FieldCreate#createBoundedScalarArray(org.epics.pvdata.pv.ScalarType, int)
 		 */
 		@Override
 		public ScalarArray createBoundedScalarArray(ScalarType elementType, int bound) {
-        	return new BaseScalarBoundedArray(elementType, bound);
+        	return intern(new BaseScalarBoundedArray(elementType, bound));
 		}
 		/* (non-Javadoc)
          * @see org.epics.pvdata.pv.FieldCreate#createArray(java.lang.String, org.epics.pvdata.pv.Structure)
@@ -108,14 +137,14 @@ public final class FieldFactory {
         @Override
 		public StructureArray createStructureArray(Structure elementStructure)
         {
-			return new BaseStructureArray(elementStructure);
+			return intern(new BaseStructureArray(elementStructure));
 		}
 		/* (non-Javadoc)
 		 * @see org.epics.pvdata.pv.FieldCreate#createUnionArray(org.epics.pvdata.pv.Union)
 		 */
 		@Override
 		public UnionArray createUnionArray(Union elementUnion) {
-			return new BaseUnionArray(elementUnion);
+			return intern(new BaseUnionArray(elementUnion));
 		}
 		/* (non-Javadoc)
 		 * @see org.epics.pvdata.pv.FieldCreate#createVariantUnionArray()
@@ -130,7 +159,7 @@ public final class FieldFactory {
         public Structure createStructure(String[] fieldNames, Field[] fields)
         {
             validateFieldNames(fieldNames);
-            return new BaseStructure(fieldNames,fields);
+            return intern(new BaseStructure(fieldNames,fields));
         }
         
 		/* (non-Javadoc)
@@ -139,7 +168,7 @@ public final class FieldFactory {
 		@Override
 		public Structure createStructure(String id, String[] fieldNames, Field[] fields) {
             validateFieldNames(fieldNames);
-            return new BaseStructure(id,fieldNames,fields);
+            return intern(new BaseStructure(id,fieldNames,fields));
 		}
 		/* (non-Javadoc)
 		 * @see org.epics.pvdata.pv.FieldCreate#createStructure(org.epics.pvdata.pv.Structure)
@@ -156,9 +185,8 @@ public final class FieldFactory {
 		        fields[i] = oldFields[i];
 		    }
 		    String id = structToClone.getID();
-		    BaseStructure structure = (BaseStructure)createStructure(id,fieldNames,fields);
-		    structure.clone(fields, fieldNames);
-		    return structure;
+		    // introspection interfaces are immutable
+		    return createStructure(id,fieldNames,fields);
         }
         /* (non-Javadoc)
          * @see org.epics.pvdata.pv.FieldCreate#appendField(org.epics.pvdata.pv.Structure, java.lang.String, org.epics.pvdata.pv.Field)
@@ -219,7 +247,7 @@ public final class FieldFactory {
 		@Override
 		public Union createUnion(String[] fieldNames, Field[] fields) {
 			validateFieldNames(fieldNames);
-			return new BaseUnion(fieldNames, fields);
+			return intern(new BaseUnion(fieldNames, fields));
 		}
 		/* (non-Javadoc)
 		 * @see org.epics.pvdata.pv.FieldCreate#createUnion(java.lang.String, java.lang.String[], org.epics.pvdata.pv.Field[])
@@ -227,7 +255,7 @@ public final class FieldFactory {
 		@Override
 		public Union createUnion(String id, String[] fieldNames, Field[] fields) {
 			validateFieldNames(fieldNames);
-			return new BaseUnion(id, fieldNames, fields);
+			return intern(new BaseUnion(id, fieldNames, fields));
 		}
 
 
@@ -296,12 +324,12 @@ public final class FieldFactory {
     			else if (typeCode == 0x80)
     			{
     				// Type type = Type.structure;
-    				return BaseStructure.deserializeStructureField(buffer, control);
+    				return intern(BaseStructure.deserializeStructureField(buffer, control));
     			}
     			else if (typeCode == 0x81)
     			{
     				// Type type = union;
-    				return BaseUnion.deserializeUnionField(buffer, control);
+    				return intern(BaseUnion.deserializeUnionField(buffer, control));
     			}
     			else if (typeCode == 0x82)
     			{
@@ -313,7 +341,7 @@ public final class FieldFactory {
     				// TODO cache some sizes?
     				// bounded string
     				int maxLength = SerializeHelper.readSize(buffer, control);
-    				return new BaseBoundedString(maxLength);
+    				return intern(new BaseBoundedString(maxLength));
     			}
     			else
     				throw new IllegalArgumentException("invalid type encoding");
@@ -335,9 +363,9 @@ public final class FieldFactory {
     				if (isVariable)
     					return scalarArrays[scalarType.ordinal()];
     				else if (isFixed)
-						return new BaseScalarFixedArray(scalarType, size);
+						return intern(new BaseScalarFixedArray(scalarType, size));
 					else
-						return new BaseScalarBoundedArray(scalarType, size);
+						return intern(new BaseScalarBoundedArray(scalarType, size));
     			}
     			else if (typeCode == 0x80)
     			{
@@ -347,7 +375,7 @@ public final class FieldFactory {
     				    				
     				// Type type = Type.structureArray;
     				final Structure elementStructure = (Structure)control.cachedDeserialize(buffer);
-    				return new BaseStructureArray(elementStructure);
+    				return intern(new BaseStructureArray(elementStructure));
     			}
     			else if (typeCode == 0x81)
     			{
@@ -357,7 +385,7 @@ public final class FieldFactory {
     				
     				// Type type = unionArray;
     				final Union elementUnion = (Union)control.cachedDeserialize(buffer);
-    				return new BaseUnionArray(elementUnion);
+    				return intern(new BaseUnionArray(elementUnion));
     			}
     			else if (typeCode == 0x82)
     			{
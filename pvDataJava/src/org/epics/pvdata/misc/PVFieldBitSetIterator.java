@@ -0,0 +1,74 @@
+/*
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata.misc;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+
+/**
+ * Iterator over the fields of a PVStructure whose bits are set in a BitSet,
+ * e.g. fields changed by a monitor update. Fields are visited in field offset order.
+ * Offset of <code>pvStructure</code> itself maps to <code>pvStructure</code>.
+ * <p>The bitSet must not be modified while iterating.</p>
+ */
+public class PVFieldBitSetIterator implements Iterator<PVField> {
+
+    private final PVStructure pvStructure;
+    private final BitSet bitSet;
+    private final int nextFieldOffset;
+    private int offset;
+
+    /**
+     * Constructor.
+     * @param pvStructure the structure to which bitSet is related.
+     * @param bitSet the bitSet.
+     */
+    public PVFieldBitSetIterator(PVStructure pvStructure, BitSet bitSet) {
+        this.pvStructure = pvStructure;
+        this.bitSet = bitSet;
+        this.nextFieldOffset = pvStructure.getNextFieldOffset();
+        this.offset = bitSet.nextSetBit(pvStructure.getFieldOffset());
+    }
+
+    /**
+     * Get field offset of the field to be returned by {@link #next()}.
+     * @return field offset, -1 if no more fields.
+     */
+    public int nextOffset() {
+        return (offset >= 0 && offset < nextFieldOffset) ? offset : -1;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return nextOffset() >= 0;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public PVField next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        final PVField pvField = (offset == pvStructure.getFieldOffset()) ?
+                pvStructure : pvStructure.getSubField(offset);
+        offset = bitSet.nextSetBit(offset + 1);
+        return pvField;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.Iterator#remove()
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
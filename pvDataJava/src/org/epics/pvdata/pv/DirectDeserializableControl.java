@@ -0,0 +1,27 @@
+/*
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata.pv;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Deserialization control that can receive (large) data directly,
+ * i.e. without copying it through the deserialization buffer.
+ */
+public interface DirectDeserializableControl extends DeserializableControl {
+
+    /**
+     * Deserialize data directly, bypassing the deserialization buffer where possible.
+     * Data still available in <code>existingBuffer</code> is consumed first.
+     * 
+     * @param existingBuffer the buffer being deserialized from
+     * @param deserializeTo the buffer to be filled (from position to limit), data is in the stream byte order
+     * @return <code>true</code> if <code>deserializeTo</code> was filled, <code>false</code> if the caller
+     * needs to deserialize data from <code>existingBuffer</code> itself (nothing was consumed)
+     */
+    boolean directDeserialize(ByteBuffer existingBuffer, ByteBuffer deserializeTo);
+    
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata.pv;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Serialization control that can send (large) data directly,
+ * i.e. without copying it to the serialization buffer first.
+ */
+public interface DirectSerializableControl extends SerializableControl {
+
+    /**
+     * Serialize data directly, bypassing the serialization buffer.
+     * Data already serialized into <code>existingBuffer</code> precedes the data.
+     * When the method returns the data has been sent, i.e. <code>toSerialize</code> is not referenced anymore.
+     * 
+     * @param existingBuffer the buffer being serialized to
+     * @param toSerialize the data to be serialized (from position to limit), already in the stream byte order
+     * @return <code>true</code> if data was serialized, <code>false</code> if the caller
+     * needs to serialize data into <code>existingBuffer</code> itself
+     */
+    boolean directSerialize(ByteBuffer existingBuffer, ByteBuffer toSerialize);
+    
+}
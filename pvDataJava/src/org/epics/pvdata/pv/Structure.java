@@ -35,7 +35,8 @@ public interface Structure extends Field{
      * Get all the subfields of the structure.
      * 
      * @return an array of Field that describes
-     * each of the subfields in the structure
+     * each of the subfields in the structure,
+     * shared by all the users of the structure and must not be modified
      */
     Field[] getFields();
 
@@ -68,7 +69,7 @@ public interface Structure extends Field{
     <T extends Field> T getField(Class<T> c, int fieldIndex);
     /**
      * Get the array of the subfield names.
-     * @return the array
+     * @return the array, shared by all the users of the structure and must not be modified
      */
     String[] getFieldNames();
     /**
@@ -39,7 +39,8 @@ public interface Union extends Field{
     /**
      * Get a list of union fields (members).
      * 
-     * @return an array of fields (can be empty), non-<code>null</code>
+     * @return an array of fields (can be empty), non-<code>null</code>,
+     * shared by all the users of the union and must not be modified
      */
     Field[] getFields();
 
@@ -73,7 +74,8 @@ public interface Union extends Field{
     /**
      * Get the array of the subfield names
      *
-     * @return the array of the subfield names
+     * @return the array of the subfield names,
+     * shared by all the users of the union and must not be modified
      */
     String[] getFieldNames();
 
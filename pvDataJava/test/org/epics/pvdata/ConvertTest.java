@@ -8,8 +8,10 @@ package org.epics.pvdata;
 import junit.framework.TestCase;
 
 import org.epics.pvdata.factory.ConvertFactory;
+import org.epics.pvdata.factory.FieldFactory;
 import org.epics.pvdata.factory.PVDataFactory;
 import org.epics.pvdata.pv.Convert;
+import org.epics.pvdata.pv.FieldCreate;
 import org.epics.pvdata.pv.PVByte;
 import org.epics.pvdata.pv.PVByteArray;
 import org.epics.pvdata.pv.PVDataCreate;
@@ -22,7 +24,10 @@ import org.epics.pvdata.pv.PVIntArray;
 import org.epics.pvdata.pv.PVLong;
 import org.epics.pvdata.pv.PVLongArray;
 import org.epics.pvdata.pv.PVShort;
+import org.epics.pvdata.pv.PVScalar;
 import org.epics.pvdata.pv.PVShortArray;
+import org.epics.pvdata.pv.PVString;
+import org.epics.pvdata.pv.PVStructure;
 import org.epics.pvdata.pv.PVUByte;
 import org.epics.pvdata.pv.PVUByteArray;
 import org.epics.pvdata.pv.PVUInt;
@@ -32,6 +37,7 @@ import org.epics.pvdata.pv.PVULongArray;
 import org.epics.pvdata.pv.PVUShort;
 import org.epics.pvdata.pv.PVUShortArray;
 import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
 
 /**
  * JUnit test for BitSet.
@@ -42,6 +48,7 @@ import org.epics.pvdata.pv.ScalarType;
 public class ConvertTest extends TestCase {
 	private static Convert convert = ConvertFactory.getConvert();
 	private static PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+	private static FieldCreate fieldCreate = FieldFactory.getFieldCreate();
 	
 	static private void print(String value) {System.out.println(value);}
 	
@@ -499,4 +506,117 @@ public class ConvertTest extends TestCase {
         convert.copyScalarArray(pvULong,0, pvDouble,0,length);
         print("double from unsigned " +pvDouble.toString());
 	}
+
+	private static Structure createCopyStructure(ScalarType valueType) {
+	    return fieldCreate.createFieldBuilder().
+	            add("value", valueType).
+	            addArray("array", ScalarType.pvDouble).
+	            addNestedStructure("nested").
+	                add("name", ScalarType.pvString).
+	                addNestedStructure("inner").
+	                    add("flag", ScalarType.pvBoolean).
+	                    add("count", ScalarType.pvLong).
+	                endNested().
+	                addNestedUnion("any").
+	                endNested().
+	            endNested().
+	            add("last", ScalarType.pvInt).
+	            createStructure();
+	}
+
+	private static void fillCopyStructure(PVStructure pvStructure, int seed) {
+	    convert.fromInt(pvStructure.getSubField(PVScalar.class, "value"), seed);
+	    pvStructure.getSubField(PVDoubleArray.class, "array").put(0, 3, new double[] {seed, seed + 1, seed + 2}, 0);
+	    pvStructure.getSubField(PVString.class, "nested.name").put("name" + seed);
+	    pvStructure.getBooleanField("nested.inner.flag").put(seed % 2 == 0);
+	    pvStructure.getLongField("nested.inner.count").put(seed * 10L);
+	    pvStructure.getSubField(PVInt.class, "last").put(-seed);
+	}
+
+	public void testCopyStructure() {
+	    Structure structure = createCopyStructure(ScalarType.pvDouble);
+	    PVStructure from = pvDataCreate.createPVStructure(structure);
+	    PVStructure to = pvDataCreate.createPVStructure(structure);
+	    fillCopyStructure(from, 4);
+	    convert.copyStructure(from, to);
+	    assertEquals(from, to);
+	    // the same structures reuse the same plan
+	    fillCopyStructure(from, 7);
+	    convert.copyStructure(from, to);
+	    assertEquals(from, to);
+
+	    // different scalar types are converted
+	    PVStructure toInt = pvDataCreate.createPVStructure(createCopyStructure(ScalarType.pvInt));
+	    convert.copyStructure(from, toInt);
+	    assertEquals(7, toInt.getSubField(PVInt.class, "value").get());
+	    assertEquals(-7, toInt.getSubField(PVInt.class, "last").get());
+	    assertEquals(from.getSubField("nested"), toInt.getSubField("nested"));
+
+	    // copy of a substructure
+	    PVStructure toNested = pvDataCreate.createPVStructure(to.getStructureField("nested").getStructure());
+	    convert.copyStructure(from.getStructureField("nested"), toNested);
+	    assertEquals("name7", toNested.getSubField(PVString.class, "name").get());
+	    assertEquals(70L, toNested.getLongField("inner.count").get());
+
+	    // an immutable substructure can only be copied if equal
+	    to.getStructureField("nested").setImmutable();
+	    convert.copyStructure(from, to);
+	    fillCopyStructure(from, 8);
+	    try {
+	        convert.copyStructure(from, to);
+	        fail("copied to immutable structure");
+	    } catch (IllegalArgumentException ex) {
+	        // expected
+	    }
+
+	    // incompatible structures
+	    PVStructure other = pvDataCreate.createPVStructure(fieldCreate.createFieldBuilder().
+	            add("value", ScalarType.pvDouble).createStructure());
+	    try {
+	        convert.copyStructure(from, other);
+	        fail("copied to incompatible structure");
+	    } catch (IllegalArgumentException ex) {
+	        // expected
+	    }
+	}
+
+	public void testConcurrentCopy() throws Exception {
+	    final Structure structure = createCopyStructure(ScalarType.pvDouble);
+	    final int nThreads = 4;
+	    final Throwable[] errors = new Throwable[nThreads];
+	    Thread[] threads = new Thread[nThreads];
+	    for (int n = 0; n < nThreads; n++) {
+	        final int thread = n;
+	        threads[n] = new Thread(new Runnable() {
+	            public void run() {
+	                try {
+	                    PVStructure from = pvDataCreate.createPVStructure(structure);
+	                    PVStructure to = pvDataCreate.createPVStructure(structure);
+	                    PVIntArray fromArray = (PVIntArray)pvDataCreate.createPVScalarArray(ScalarType.pvInt);
+	                    PVDoubleArray toArray = (PVDoubleArray)pvDataCreate.createPVScalarArray(ScalarType.pvDouble);
+	                    for (int i = 0; i < 10000; i++) {
+	                        int seed = thread * 100000 + i;
+	                        fillCopyStructure(from, seed);
+	                        convert.copyStructure(from, to);
+	                        assertEquals(from, to);
+	                        fromArray.put(0, 2, new int[] {seed, -seed}, 0);
+	                        convert.copyScalarArray(fromArray, 0, toArray, 0, 2);
+	                        assertEquals((double) seed, toArray.get().getDouble(0));
+	                        assertEquals((double) -seed, toArray.get().getDouble(1));
+	                    }
+	                } catch (Throwable ex) {
+	                    errors[thread] = ex;
+	                }
+	            }
+	        });
+	        threads[n].start();
+	    }
+	    for (Thread thread : threads) {
+	        thread.join();
+	    }
+	    for (Throwable error : errors) {
+	        if (error != null)
+	            throw new AssertionError(error);
+	    }
+	}
 }
@@ -5,18 +5,23 @@
 package org.epics.pvdata;
 
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import junit.framework.TestCase;
 
 import org.epics.pvdata.factory.BaseUnion;
 import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.StandardFieldFactory;
 import org.epics.pvdata.pv.BoundedString;
+import org.epics.pvdata.pv.DeserializableControl;
 import org.epics.pvdata.pv.Field;
 import org.epics.pvdata.pv.FieldCreate;
 import org.epics.pvdata.pv.Scalar;
 import org.epics.pvdata.pv.ScalarArray;
 import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.SerializableControl;
+import org.epics.pvdata.pv.StandardField;
 import org.epics.pvdata.pv.Structure;
 import org.epics.pvdata.pv.StructureArray;
 import org.epics.pvdata.pv.Type;
@@ -31,6 +36,7 @@ import org.epics.pvdata.pv.UnionArray;
  */
 public class IntrospectionTest extends TestCase {
 	private static FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+	private static StandardField standardField = StandardFieldFactory.getStandardField();
 	
 
 	public void testIntrospection() {
@@ -145,4 +151,91 @@ public class IntrospectionTest extends TestCase {
         assertEquals(16, boundedString.getMaximumLength());
 		System.out.println(boundedString);
 	}
+	
+	public void testInterning() {
+		Structure s1 = fieldCreate.createFieldBuilder().
+				setId("interned_t").
+				add("value", ScalarType.pvDouble).
+				add("alarm", standardField.alarm()).
+				addArray("names", ScalarType.pvString).
+				createStructure();
+		Structure s2 = fieldCreate.createFieldBuilder().
+				setId("interned_t").
+				add("value", ScalarType.pvDouble).
+				add("alarm", standardField.alarm()).
+				addArray("names", ScalarType.pvString).
+				createStructure();
+		assertSame(s1, s2);
+		assertSame(s1, fieldCreate.createStructure(s1));
+		assertSame(standardField.alarm(), s1.getField("alarm"));
+		assertSame(standardField.timeStamp(), standardField.timeStamp());
+		
+		// different structure
+		Structure s3 = fieldCreate.appendField(s1, "extra", fieldCreate.createScalar(ScalarType.pvInt));
+		assertNotSame(s1, s3);
+		assertFalse(s1.equals(s3));
+		assertSame(s3, fieldCreate.appendField(s2, "extra", fieldCreate.createScalar(ScalarType.pvInt)));
+		
+		assertSame(fieldCreate.createStructureArray(s1), fieldCreate.createStructureArray(s2));
+		assertSame(fieldCreate.createBoundedString(8), fieldCreate.createBoundedString(8));
+		assertSame(fieldCreate.createFixedScalarArray(ScalarType.pvInt, 4), fieldCreate.createFixedScalarArray(ScalarType.pvInt, 4));
+		assertSame(fieldCreate.createVariantUnion(), fieldCreate.createUnion(new String[0], new Field[0]));
+		
+		// wire deserialization
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		SerializableControl serializableControl = new SerializableControl() {
+			@Override
+			public void flushSerializeBuffer() {
+			}
+			@Override
+			public void ensureBuffer(int size) {
+			}
+			@Override
+			public void alignBuffer(int alignment) {
+			}
+			@Override
+			public void cachedSerialize(Field field, ByteBuffer buffer) {
+				field.serialize(buffer, this);
+			}
+		};
+		DeserializableControl deserializableControl = new DeserializableControl() {
+			@Override
+			public void ensureData(int size) {
+			}
+			@Override
+			public void alignData(int alignment) {
+			}
+			@Override
+			public Field cachedDeserialize(ByteBuffer buffer) {
+				return fieldCreate.deserialize(buffer, this);
+			}
+		};
+		s1.serialize(buffer, serializableControl);
+		buffer.flip();
+		assertSame(s1, fieldCreate.deserialize(buffer, deserializableControl));
+	}
+
+	public void testCallerArraysNotAliased() {
+		String[] fieldNames = { "aliased_a", "aliased_b" };
+		Field[] fields = { fieldCreate.createScalar(ScalarType.pvInt), fieldCreate.createScalar(ScalarType.pvDouble) };
+		Structure structure = fieldCreate.createStructure(fieldNames, fields);
+		Union union = fieldCreate.createUnion(fieldNames, fields);
+		int structureHash = structure.hashCode();
+		int unionHash = union.hashCode();
+
+		// reusing the arrays must not change the (interned) introspection interfaces
+		fieldNames[0] = "changed";
+		fields[1] = fieldCreate.createScalar(ScalarType.pvString);
+		assertEquals("aliased_a", structure.getFieldName(0));
+		assertEquals(ScalarType.pvDouble, ((Scalar)structure.getField(1)).getScalarType());
+		assertEquals("aliased_a", union.getFieldName(0));
+		assertEquals(ScalarType.pvDouble, ((Scalar)union.getField(1)).getScalarType());
+		assertEquals(structureHash, structure.hashCode());
+		assertEquals(unionHash, union.hashCode());
+
+		String[] names = { "aliased_a", "aliased_b" };
+		Field[] originalFields = { fieldCreate.createScalar(ScalarType.pvInt), fieldCreate.createScalar(ScalarType.pvDouble) };
+		assertSame(structure, fieldCreate.createStructure(names, originalFields));
+		assertSame(union, fieldCreate.createUnion(names, originalFields));
+	}
 }
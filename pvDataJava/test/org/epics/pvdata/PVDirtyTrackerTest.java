@@ -0,0 +1,166 @@
+/*
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata;
+
+import junit.framework.TestCase;
+
+import org.epics.pvdata.copy.CreateRequest;
+import org.epics.pvdata.copy.PVCopy;
+import org.epics.pvdata.copy.PVCopyFactory;
+import org.epics.pvdata.copy.PVDirtyTracker;
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.factory.StandardFieldFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVDouble;
+import org.epics.pvdata.pv.PVInt;
+import org.epics.pvdata.pv.PVLong;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.PostHandler;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for PVDirtyTracker, i.e. PVCopy with change tracking.
+ */
+public class PVDirtyTrackerTest extends TestCase {
+    private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+    private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+    private static final CreateRequest createRequest = CreateRequest.create();
+
+    private static PVStructure createMaster() {
+        Structure structure = fieldCreate.createFieldBuilder().
+            add("value", ScalarType.pvDouble).
+            add("index", ScalarType.pvInt).
+            add("timeStamp", StandardFieldFactory.getStandardField().timeStamp()).
+            createStructure();
+        return pvDataCreate.createPVStructure(structure);
+    }
+
+    private static PVCopy createCopy(PVDirtyTracker tracker, String request) {
+        PVCopy pvCopy = PVCopyFactory.create(tracker, createRequest.createRequest(request), "field");
+        assertNotNull(pvCopy);
+        return pvCopy;
+    }
+
+    public void testUpdateDirtyFields() {
+        PVStructure pvMaster = createMaster();
+        PVDirtyTracker tracker = new PVDirtyTracker(pvMaster);
+        PVCopy pvCopy = createCopy(tracker, "field(value,timeStamp.secondsPastEpoch)");
+        PVStructure pvStructure = pvCopy.createPVStructure();
+        BitSet bitSet = new BitSet(pvStructure.getNumberFields());
+        pvCopy.initCopy(pvStructure, bitSet);
+
+        bitSet.clear();
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        assertTrue(bitSet.isEmpty());
+
+        PVDouble value = pvMaster.getDoubleField("value");
+        value.put(1.5);
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        assertEquals(1.5, pvStructure.getDoubleField("value").get());
+        PVDouble copyValue = pvStructure.getDoubleField("value");
+        assertTrue(bitSet.get(copyValue.getFieldOffset()));
+        assertEquals(1, bitSet.cardinality());
+
+        // same value
+        bitSet.clear();
+        value.put(1.5);
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        assertTrue(bitSet.isEmpty());
+
+        // not in the copy
+        pvMaster.getIntField("index").put(3);
+        pvMaster.getIntField("timeStamp.nanoseconds").put(3);
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        assertTrue(bitSet.isEmpty());
+
+        PVLong seconds = pvMaster.getLongField("timeStamp.secondsPastEpoch");
+        seconds.put(100);
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        PVLong copySeconds = pvStructure.getLongField("timeStamp.secondsPastEpoch");
+        assertEquals(100, copySeconds.get());
+        assertTrue(bitSet.get(copySeconds.getFieldOffset()));
+        assertEquals(1, bitSet.cardinality());
+
+        // a post of a structure compares all its fields
+        bitSet.clear();
+        pvMaster.getDoubleField("value").put(2.5);
+        pvMaster.postPut();
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        assertEquals(2.5, copyValue.get());
+        assertTrue(bitSet.get(copyValue.getFieldOffset()));
+
+        pvCopy.destroy();
+        assertEquals(0, tracker.getDirtyBitSetCount());
+    }
+
+    public void testEntireMaster() {
+        PVStructure pvMaster = createMaster();
+        PVDirtyTracker tracker = new PVDirtyTracker(pvMaster);
+        PVCopy pvCopy = createCopy(tracker, "");
+        PVStructure pvStructure = pvCopy.createPVStructure();
+        BitSet bitSet = new BitSet(pvStructure.getNumberFields());
+        pvCopy.initCopy(pvStructure, bitSet);
+
+        bitSet.clear();
+        pvMaster.getIntField("timeStamp.userTag").put(7);
+        pvCopy.updateCopySetBitSet(pvStructure, bitSet);
+        PVInt userTag = pvStructure.getIntField("timeStamp.userTag");
+        assertEquals(7, userTag.get());
+        assertTrue(bitSet.get(userTag.getFieldOffset()));
+        assertEquals(1, bitSet.cardinality());
+        assertEquals(pvMaster, pvStructure);
+    }
+
+    public void testIndependentCopies() {
+        PVStructure pvMaster = createMaster();
+        PVDirtyTracker tracker = new PVDirtyTracker(pvMaster);
+        final int[] posts = new int[1];
+        tracker.setPostHandler(new PostHandler() {
+            public void postPut() {
+                posts[0]++;
+            }
+        });
+        PVCopy pvCopy1 = createCopy(tracker, "field(value)");
+        PVCopy pvCopy2 = createCopy(tracker, "field(value,index)");
+        assertEquals(2, tracker.getDirtyBitSetCount());
+        PVStructure pvStructure1 = pvCopy1.createPVStructure();
+        PVStructure pvStructure2 = pvCopy2.createPVStructure();
+        BitSet bitSet1 = new BitSet(pvStructure1.getNumberFields());
+        BitSet bitSet2 = new BitSet(pvStructure2.getNumberFields());
+        pvCopy1.initCopy(pvStructure1, bitSet1);
+        pvCopy2.initCopy(pvStructure2, bitSet2);
+        bitSet1.clear();
+        bitSet2.clear();
+
+        pvMaster.getDoubleField("value").put(5);
+        pvCopy1.updateCopySetBitSet(pvStructure1, bitSet1);
+        pvMaster.getIntField("index").put(5);
+        pvCopy2.updateCopySetBitSet(pvStructure2, bitSet2);
+        assertEquals(1, bitSet1.cardinality());
+        assertEquals(2, bitSet2.cardinality());
+        assertEquals(5.0, pvStructure2.getDoubleField("value").get());
+        assertEquals(5, pvStructure2.getIntField("index").get());
+        assertEquals(2, posts[0]);
+
+        pvCopy1.destroy();
+        pvCopy2.destroy();
+        assertEquals(0, tracker.getDirtyBitSetCount());
+    }
+
+    public void testPostHandlerAlreadySet() {
+        PVStructure pvMaster = createMaster();
+        new PVDirtyTracker(pvMaster);
+        try {
+            new PVDirtyTracker(pvMaster);
+            fail("second tracker accepted");
+        } catch (IllegalStateException ise) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright information and license terms for this software can be
+ * found in the file LICENSE that is included with the distribution
+ */
+package org.epics.pvdata;
+
+import junit.framework.TestCase;
+
+import org.epics.pvdata.factory.FieldFactory;
+import org.epics.pvdata.factory.PVDataFactory;
+import org.epics.pvdata.misc.BitSet;
+import org.epics.pvdata.misc.PVFieldBitSetIterator;
+import org.epics.pvdata.pv.FieldCreate;
+import org.epics.pvdata.pv.PVDataCreate;
+import org.epics.pvdata.pv.PVField;
+import org.epics.pvdata.pv.PVStructure;
+import org.epics.pvdata.pv.ScalarType;
+import org.epics.pvdata.pv.Structure;
+
+/**
+ * JUnit test for PVStructure.getSubField(int) and PVFieldBitSetIterator.
+ *
+ */
+public class SubFieldOffsetTest extends TestCase {
+    private static final FieldCreate fieldCreate = FieldFactory.getFieldCreate();
+    private static final PVDataCreate pvDataCreate = PVDataFactory.getPVDataCreate();
+
+    private static PVStructure create() {
+        Structure structure = fieldCreate.createFieldBuilder().
+                add("value", ScalarType.pvDouble).
+                addNestedStructure("alarm").
+                    add("severity", ScalarType.pvInt).
+                    add("message", ScalarType.pvString).
+                    endNested().
+                addNestedStructure("a").
+                    addNestedStructure("b").
+                        addArray("c", ScalarType.pvInt).
+                        endNested().
+                    add("d", ScalarType.pvLong).
+                    endNested().
+                createStructure();
+        return pvDataCreate.createPVStructure(structure);
+    }
+
+    private static void checkOffsets(PVStructure pvStructure, PVStructure pvTop) {
+        for(PVField pvField : pvStructure.getPVFields()) {
+            assertSame(pvField, pvTop.getSubField(pvField.getFieldOffset()));
+            assertSame(pvField, pvStructure.getSubField(pvField.getFieldOffset()));
+            if(pvField instanceof PVStructure) checkOffsets((PVStructure)pvField, pvTop);
+        }
+    }
+
+    public static void testGetSubField() {
+        PVStructure pvTop = create();
+        checkOffsets(pvTop, pvTop);
+        assertNull(pvTop.getSubField(0));
+        assertNull(pvTop.getSubField(pvTop.getNextFieldOffset()));
+        assertNull(pvTop.getSubField(-1));
+
+        PVStructure pvA = pvTop.getSubField(PVStructure.class, "a");
+        assertNull(pvA.getSubField(pvA.getFieldOffset()));
+        assertNull(pvA.getSubField(pvTop.getSubField("value").getFieldOffset()));
+        assertNull(pvA.getSubField(pvA.getNextFieldOffset()));
+        assertSame(pvTop.getSubField("a.b.c"), pvA.getSubField(pvTop.getSubField("a.b.c").getFieldOffset()));
+    }
+
+    public static void testBitSetIterator() {
+        PVStructure pvTop = create();
+        BitSet bitSet = new BitSet(pvTop.getNumberFields());
+        PVFieldBitSetIterator iter = new PVFieldBitSetIterator(pvTop, bitSet);
+        assertFalse(iter.hasNext());
+        assertEquals(-1, iter.nextOffset());
+
+        bitSet.set(0);
+        bitSet.set(pvTop.getSubField("alarm.message").getFieldOffset());
+        bitSet.set(pvTop.getSubField("a.b").getFieldOffset());
+        iter = new PVFieldBitSetIterator(pvTop, bitSet);
+        assertSame(pvTop, iter.next());
+        assertSame(pvTop.getSubField("alarm.message"), iter.next());
+        assertSame(pvTop.getSubField("a.b"), iter.next());
+        assertFalse(iter.hasNext());
+
+        // iteration over a substructure only visits its own fields
+        bitSet.set(pvTop.getSubField("a.d").getFieldOffset());
+        PVStructure pvA = pvTop.getSubField(PVStructure.class, "a");
+        iter = new PVFieldBitSetIterator(pvA, bitSet);
+        assertSame(pvTop.getSubField("a.b"), iter.next());
+        assertSame(pvTop.getSubField("a.d"), iter.next());
+        assertFalse(iter.hasNext());
+    }
+}